@@ -2,11 +2,24 @@ package com.example.fitness_booking_system;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
 
 @SpringBootApplication
+@EnableScheduling
 public class FitnessBookingSystemApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(FitnessBookingSystemApplication.class, args);
     }
+
+    /**
+     * System clock, injectable so that time-dependent services can be tested with a fixed clock.
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
 }
@@ -1,9 +1,11 @@
 package com.example.fitness_booking_system;
 
 import com.example.fitness_booking_system.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -35,7 +37,16 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
+                        // Асинхронните отговори (напр. експорт) са авторизирани още при първоначалната заявка
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                        .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // Календарните приложения не изпращат JWT: абонаментите се проверяват по ключа в адреса
+                        // (CalendarFeedService), който трябва да е на треньора или клиента от адреса
+                        .requestMatchers(HttpMethod.GET, "/api/time-slots/trainer/*/calendar.ics",
+                                "/api/bookings/client/*/calendar.ics").permitAll()
+                        // Статистиките на заявките (и нулирането им) и метриките са само за администратори
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/auth/validate").authenticated()
                         // Други маршрути, специфични за роли
                         .requestMatchers("/api/client/**").hasRole("CLIENT")
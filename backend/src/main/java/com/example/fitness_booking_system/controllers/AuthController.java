@@ -1,51 +1,122 @@
 package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.AuthResponseDTO;
+import com.example.fitness_booking_system.dto.CalendarTokenDTO;
 import com.example.fitness_booking_system.dto.LoginRequestDTO;
+import com.example.fitness_booking_system.dto.RefreshTokenRequestDTO;
 import com.example.fitness_booking_system.dto.RegisterRequestDTO;
+import com.example.fitness_booking_system.security.LoginRateLimiter;
 import com.example.fitness_booking_system.services.AuthService;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
+    /**
+     * Prefix of the access token in the Authorization header.
+     */
+    private static final String BEARER_PREFIX = "Bearer ";
+
     /**
      * Service for handling authentication and registration logic.
      */
     private final AuthService authService;
 
+    /**
+     * Throttling of the login and registration attempts per client IP and email.
+     */
+    private final LoginRateLimiter loginRateLimiter;
+
+    /**
+     * Service issuing the tokens of the calendar feed URLs.
+     */
+    private final CalendarFeedService calendarFeedService;
+
     /**
      * Endpoint for user registration.
      *
-     * @param request the registration request containing user details
+     * @param request        the registration request containing user details
+     * @param servletRequest the HTTP request, used for the client IP
      * @return a response entity containing the authentication response
      */
     @PostMapping("/register")
-    public ResponseEntity<AuthResponseDTO> register(@Valid @RequestBody RegisterRequestDTO request) {
+    public ResponseEntity<AuthResponseDTO> register(@Valid @RequestBody RegisterRequestDTO request,
+                                                    HttpServletRequest servletRequest) {
+        loginRateLimiter.acquire(servletRequest.getRemoteAddr(), request.getEmail());
         return new ResponseEntity<>(authService.register(request), HttpStatus.CREATED);
     }
 
     /**
      * Endpoint for user login.
      *
-     * @param request the login request containing email and password
+     * @param request        the login request containing email and password
+     * @param servletRequest the HTTP request, used for the client IP
      * @return a response entity containing the authentication response
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponseDTO> login(@Valid @RequestBody LoginRequestDTO request) {
+    public ResponseEntity<AuthResponseDTO> login(@Valid @RequestBody LoginRequestDTO request,
+                                                 HttpServletRequest servletRequest) {
+        loginRateLimiter.acquire(servletRequest.getRemoteAddr(), request.getEmail());
         return ResponseEntity.ok(authService.login(request));
     }
 
-}
\ No newline at end of file
+    /**
+     * Endpoint for exchanging a refresh token for new access and refresh tokens.
+     *
+     * @param request the request containing the refresh token
+     * @return a response entity containing the authentication response with the new tokens
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequestDTO request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    /**
+     * Endpoint for logging out: revokes the current access token and the refresh token.
+     * Returns 401 if the Authorization header does not carry a Bearer token.
+     *
+     * @param authorization the Authorization header with the access token
+     * @param request       the request containing the refresh token
+     * @return an empty response entity
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                       @Valid @RequestBody RefreshTokenRequestDTO request) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Липсва токен за достъп");
+        }
+        authService.logout(authorization.substring(BEARER_PREFIX.length()), request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint for issuing a new token for the calendar feed URLs of the current user.
+     * The previous token stops working, so this also revokes feed URLs that were shared by mistake.
+     *
+     * @param principal the authenticated user
+     * @return a response entity containing the new token
+     */
+    @PostMapping("/calendar-token")
+    public ResponseEntity<CalendarTokenDTO> rotateCalendarToken(Principal principal) {
+        return ResponseEntity.ok(new CalendarTokenDTO(calendarFeedService.rotateToken(principal.getName())));
+    }
+}
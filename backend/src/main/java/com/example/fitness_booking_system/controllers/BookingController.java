@@ -2,16 +2,29 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.BookingCreateDTO;
 import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.BookingPageDTO;
+import com.example.fitness_booking_system.dto.BookingScope;
+import com.example.fitness_booking_system.entities.BookingStatus;
+import com.example.fitness_booking_system.security.BookingRateLimiter;
+import com.example.fitness_booking_system.services.BookingAdmissionService;
 import com.example.fitness_booking_system.services.BookingService;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.util.List;
 
 /**
@@ -28,18 +41,43 @@ public class BookingController {
      */
     private final BookingService bookingService;
 
+    /**
+     * Service queueing the bookings of hot time slots.
+     */
+    private final BookingAdmissionService bookingAdmissionService;
+
+    /**
+     * Service for generating the calendar feeds.
+     */
+    private final CalendarFeedService calendarFeedService;
+
+    /**
+     * Rate limiter for the booking and cancellation requests.
+     */
+    private final BookingRateLimiter bookingRateLimiter;
+
+    /**
+     * Media type of the iCalendar feeds.
+     */
+    private static final MediaType CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
     /**
      * Endpoint to create a new booking.
      *
      * @param clientId  the ID of the client making the booking
      * @param createDTO the DTO containing booking details
+     * @param principal the authenticated user, whose rate limit bucket is used
      * @return ResponseEntity containing the created BookingDTO
      */
     @PostMapping("/client/{clientId}")
     public ResponseEntity<BookingDTO> createBooking(
             @PathVariable Long clientId,
-            @Valid @RequestBody BookingCreateDTO createDTO) {
-        BookingDTO createdBooking = bookingService.createBooking(clientId, createDTO);
+            @Valid @RequestBody BookingCreateDTO createDTO,
+            Principal principal) {
+        // The admission lane of a hot slot bounds and orders its requests itself, so the slot bucket is skipped there
+        Long throttledSlotId = bookingAdmissionService.isHot(createDTO.getTimeSlotId()) ? null : createDTO.getTimeSlotId();
+        bookingRateLimiter.acquireBooking(principal.getName(), throttledSlotId);
+        BookingDTO createdBooking = bookingAdmissionService.createBooking(clientId, createDTO);
         return new ResponseEntity<>(createdBooking, HttpStatus.CREATED);
     }
 
@@ -54,14 +92,68 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getClientBookings(clientId));
     }
 
+    /**
+     * Endpoint to get one page of a client's booking history.
+     *
+     * @param clientId the ID of the client whose bookings are to be retrieved
+     * @param scope    UPCOMING for the bookings still ahead, soonest first, or PAST for the earlier ones, most recent first
+     * @param status   optional status of the bookings to include
+     * @param cursor   the nextCursor of the previous page, omitted for the first page
+     * @param size     the maximum number of bookings in the page
+     * @return ResponseEntity containing the page of BookingDTOs and the cursor of the next page
+     */
+    @GetMapping("/client/{clientId}/bookings/page")
+    public ResponseEntity<BookingPageDTO> getClientBookingPage(
+            @PathVariable Long clientId,
+            @RequestParam(defaultValue = "UPCOMING") BookingScope scope,
+            @RequestParam(required = false) BookingStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(bookingService.getClientBookingPage(clientId, scope, status, cursor, size));
+    }
+
+    /**
+     * Endpoint to get the iCalendar feed with the confirmed bookings of a client.
+     * Calendar apps can not send a JWT, so the request is authorized by the feed token of the client's user
+     * instead; any other token gets 403.
+     * Returns 304 Not Modified after a single primary key lookup when the feed has not changed since the If-None-Match ETag;
+     * otherwise the feed is streamed to the response.
+     *
+     * @param clientId the ID of the client
+     * @param token    the feed token from POST /api/auth/calendar-token
+     * @param request  the current request, used for the conditional check
+     * @return ResponseEntity streaming the feed in text/calendar format
+     */
+    @GetMapping("/client/{clientId}/calendar.ics")
+    public ResponseEntity<StreamingResponseBody> getClientCalendar(@PathVariable Long clientId,
+                                                                   @RequestParam(required = false) String token,
+                                                                   WebRequest request) {
+        String etag = calendarFeedService.getClientEtag(clientId, token);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            calendarFeedService.writeClientFeed(clientId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(CALENDAR)
+                .body(body);
+    }
+
     /**
      * Endpoint to cancel a booking by its ID.
      *
-     * @param id the ID of the booking to be canceled
+     * @param id        the ID of the booking to be canceled
+     * @param principal the authenticated user, whose requests are rate limited
      * @return ResponseEntity containing the cancelled BookingDTO
      */
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<BookingDTO> cancelBooking(@PathVariable Long id) {
+    public ResponseEntity<BookingDTO> cancelBooking(@PathVariable Long id, Principal principal) {
+        bookingRateLimiter.acquireCancellation(principal.getName());
         return ResponseEntity.ok(bookingService.cancelBooking(id));
     }
 }
\ No newline at end of file
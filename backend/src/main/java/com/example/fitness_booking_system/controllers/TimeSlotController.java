@@ -1,20 +1,38 @@
 package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.BookedClientInfoDTO;
+import com.example.fitness_booking_system.dto.FreeBusyDTO;
+import com.example.fitness_booking_system.dto.TimeSlotBatchCreateDTO;
 import com.example.fitness_booking_system.dto.TimeSlotCreateDTO;
 import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterDTO;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 import com.example.fitness_booking_system.services.TimeSlotService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
+import java.security.Principal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,6 +49,21 @@ public class TimeSlotController {
      */
     private final TimeSlotService timeSlotService;
 
+    /**
+     * Object mapper for writing streamed JSON responses.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Service for generating the calendar feeds.
+     */
+    private final CalendarFeedService calendarFeedService;
+
+    /**
+     * Media type of the iCalendar feeds.
+     */
+    private static final MediaType CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
     /**
      * Endpoint to retrieve all time slots.
      *
@@ -57,6 +90,106 @@ public class TimeSlotController {
         return ResponseEntity.ok(timeSlotService.getTimeSlotsByTrainerAndDateRange(trainerId, startDate, endDate));
     }
 
+    /**
+     * Endpoint to export all time slots within a date range as a streamed JSON array.
+     * Elements are written to the response as they are read from the database,
+     * so memory use does not grow with the size of the range.
+     *
+     * @param startDate the start date and time of the range (inclusive)
+     * @param endDate   the end date and time of the range (exclusive)
+     * @return ResponseEntity streaming the TimeSlotDTOs as a JSON array
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTimeSlots(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        timeSlotService.validateExportRange(startDate, endDate);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                timeSlotService.streamTimeSlots(startDate, endDate, timeSlot -> {
+                    try {
+                        generator.writeObject(timeSlot);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Endpoint to retrieve the free and busy time ranges of a trainer for a range of days.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return ResponseEntity containing the FreeBusyDTO
+     */
+    @GetMapping("/trainer/{trainerId}/free-busy")
+    public ResponseEntity<FreeBusyDTO> getTrainerFreeBusy(
+            @PathVariable Long trainerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(timeSlotService.getTrainerFreeBusy(trainerId, startDate, endDate));
+    }
+
+    /**
+     * Endpoint to retrieve the roster of a trainer for a range of days:
+     * the time slots together with the clients of their confirmed bookings, read with a single query.
+     * Only the trainer may read the roster; other users get 403.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @param principal the authenticated user
+     * @return ResponseEntity containing a list of TimeSlotRosterDTOs
+     */
+    @GetMapping("/trainer/{trainerId}/roster")
+    public ResponseEntity<List<TimeSlotRosterDTO>> getTrainerRoster(
+            @PathVariable Long trainerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Principal principal) {
+        return ResponseEntity.ok(timeSlotService.getTrainerRoster(trainerId, principal.getName(), startDate, endDate));
+    }
+
+    /**
+     * Endpoint to get the iCalendar feed with the time slots of a trainer.
+     * Calendar apps can not send a JWT, so the request is authorized by the feed token of the trainer's user
+     * instead; any other token gets 403.
+     * Returns 304 Not Modified after a single primary key lookup when the feed has not changed since the If-None-Match ETag;
+     * otherwise the feed is streamed to the response.
+     *
+     * @param trainerId the ID of the trainer
+     * @param token     the feed token from POST /api/auth/calendar-token
+     * @param request   the current request, used for the conditional check
+     * @return ResponseEntity streaming the feed in text/calendar format
+     */
+    @GetMapping("/trainer/{trainerId}/calendar.ics")
+    public ResponseEntity<StreamingResponseBody> getTrainerCalendar(@PathVariable Long trainerId,
+                                                                    @RequestParam(required = false) String token,
+                                                                    WebRequest request) {
+        String etag = calendarFeedService.getTrainerEtag(trainerId, token);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            calendarFeedService.writeTrainerFeed(trainerId, writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(CALENDAR)
+                .body(body);
+    }
+
     /**
      * Endpoint to retrieve a time slot by its ID.
      *
@@ -80,6 +213,18 @@ public class TimeSlotController {
         return new ResponseEntity<>(createdSlot, HttpStatus.CREATED);
     }
 
+    /**
+     * Endpoint to create several time slots at once.
+     *
+     * @param batchCreateDTO the DTO containing the details of all time slots
+     * @return ResponseEntity containing the created TimeSlotDTOs
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<TimeSlotDTO>> createTimeSlots(@Valid @RequestBody TimeSlotBatchCreateDTO batchCreateDTO) {
+        List<TimeSlotDTO> createdSlots = timeSlotService.createTimeSlots(batchCreateDTO.getTimeSlots());
+        return new ResponseEntity<>(createdSlots, HttpStatus.CREATED);
+    }
+
     /**
      * Endpoint to cancel a time slot by its ID.
      *
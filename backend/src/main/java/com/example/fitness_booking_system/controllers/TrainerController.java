@@ -2,15 +2,20 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.dto.TrainerDTO;
+import com.example.fitness_booking_system.dto.TrainerStatsDTO;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
 import com.example.fitness_booking_system.services.TrainerService;
+import com.example.fitness_booking_system.services.TrainerStatsService;
 
 import jakarta.validation.Valid;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -26,6 +31,11 @@ public class TrainerController {
      */
     private final TrainerService trainerService;
 
+    /**
+     * Service for the trainer utilization counters.
+     */
+    private final TrainerStatsService trainerStatsService;
+
     /**
      * Endpoint to get the profile of a trainer by their ID.
      *
@@ -37,6 +47,22 @@ public class TrainerController {
         return ResponseEntity.ok(trainerService.getTrainerProfile(id));
     }
 
+    /**
+     * Endpoint to get the utilization dashboard of a trainer for a range of days.
+     *
+     * @param id        the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return ResponseEntity containing the TrainerStatsDTO
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<TrainerStatsDTO> getTrainerStats(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(trainerStatsService.getTrainerStats(id, startDate, endDate));
+    }
+
     /**
      * Endpoint to update the profile of a trainer.
      *
@@ -51,6 +77,28 @@ public class TrainerController {
         return ResponseEntity.ok(trainerService.updateTrainerProfile(id, profileUpdateDTO));
     }
 
+    /**
+     * Endpoint to search trainers by specializations, training type and price.
+     * Served from an in-memory index without database access.
+     *
+     * @param specialization the specializations the trainer must all have
+     * @param trainingTypeId the training type the trainer must conduct
+     * @param priceType      which price (PERSONAL or GROUP) the price range refers to
+     * @param minPrice       the minimum price (inclusive)
+     * @param maxPrice       the maximum price (inclusive)
+     * @return ResponseEntity containing the matching TrainerDTOs ordered by price
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<TrainerDTO>> searchTrainers(
+            @RequestParam(required = false) List<String> specialization,
+            @RequestParam(required = false) Long trainingTypeId,
+            @RequestParam(defaultValue = "PERSONAL") TrainingTypeCategory priceType,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice) {
+        return ResponseEntity.ok(trainerService.searchTrainers(
+                specialization, trainingTypeId, priceType, minPrice, maxPrice));
+    }
+
     /**
      * Endpoint to retrieve all trainers.
      *
@@ -0,0 +1,115 @@
+package com.example.fitness_booking_system.datasource;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Wraps the application DataSource in a single datasource-proxy shared by everything that observes the SQL statements,
+ * such as the SQL spans of the tracing and the query statistics.
+ * The observers are the {@link QueryExecutionListener} beans; a {@link ResultSetProxyLogicFactory} bean, if any,
+ * additionally sees the rows read from the result sets. They are looked up on the first statement, so the DataSource
+ * does not depend on them at startup. Without any listener bean the DataSource is left as it is.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    /**
+     * Wraps the bean named dataSource; with the replica routing the statements are therefore observed once,
+     * whichever pool they go to.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(ListableBeanFactory beanFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)
+                        || bean instanceof ProxyDataSource
+                        || beanFactory.getBeanNamesForType(QueryExecutionListener.class, true, false).length == 0) {
+                    return bean;
+                }
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                        .name("dataSource")
+                        .listener(new DelegatingListener(beanFactory));
+                if (beanFactory.getBeanNamesForType(ResultSetProxyLogicFactory.class, true, false).length > 0) {
+                    builder.proxyResultSet(new DelegatingResultSetProxyLogicFactory(beanFactory));
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * Passes every statement to the listener beans, resolved on the first statement.
+     */
+    private static final class DelegatingListener implements QueryExecutionListener {
+
+        private final ListableBeanFactory beanFactory;
+        private volatile List<QueryExecutionListener> listeners;
+
+        private DelegatingListener(ListableBeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryExecutionListener listener : listeners()) {
+                listener.beforeQuery(execInfo, queryInfoList);
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            for (QueryExecutionListener listener : listeners()) {
+                listener.afterQuery(execInfo, queryInfoList);
+            }
+        }
+
+        private List<QueryExecutionListener> listeners() {
+            List<QueryExecutionListener> resolved = listeners;
+            if (resolved == null) {
+                resolved = beanFactory.getBeanProvider(QueryExecutionListener.class).orderedStream().toList();
+                listeners = resolved;
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * Creates the result set proxies through the factory bean, resolved on the first result set.
+     */
+    private static final class DelegatingResultSetProxyLogicFactory implements ResultSetProxyLogicFactory {
+
+        private final ListableBeanFactory beanFactory;
+        private volatile ResultSetProxyLogicFactory factory;
+
+        private DelegatingResultSetProxyLogicFactory(ListableBeanFactory beanFactory) {
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            ResultSetProxyLogicFactory resolved = factory;
+            if (resolved == null) {
+                resolved = beanFactory.getBean(ResultSetProxyLogicFactory.class);
+                factory = resolved;
+            }
+            return resolved.create(resultSet, connectionInfo, proxyConfig);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.fitness_booking_system.datasource;
+
+/**
+ * Enum representing the database a connection is routed to.
+ */
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,92 @@
+package com.example.fitness_booking_system.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps reads of a client on the primary database for a short time after that client wrote something,
+ * so that e.g. a new booking is visible in "My bookings" even if the replica is lagging behind.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    /**
+     * Clock used for the stickiness window.
+     */
+    private final Clock clock;
+
+    /**
+     * How long after a write the reads of the same client go to the primary, in milliseconds.
+     */
+    private final long stickinessMillis;
+
+    /**
+     * Client ID to the time (epoch millis) until which its reads go to the primary.
+     */
+    private final Map<Long, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Clock clock,
+                                 @Value("${app.datasource.replica.stickiness-ms:5000}") long stickinessMillis) {
+        this.clock = clock;
+        this.stickinessMillis = stickinessMillis;
+    }
+
+    /**
+     * Records that a client has just written data.
+     *
+     * @param clientId the ID of the client
+     */
+    public void markWrite(Long clientId) {
+        long now = clock.millis();
+        stickyUntil.put(clientId, now + stickinessMillis);
+
+        // Opportunistic cleanup, so the map only holds clients within the window
+        if (stickyUntil.size() > 1024) {
+            stickyUntil.values().removeIf(until -> until < now);
+        }
+    }
+
+    /**
+     * Checks whether the reads of a client must currently go to the primary.
+     *
+     * @param clientId the ID of the client
+     * @return true if the client wrote within the stickiness window
+     */
+    public boolean isSticky(Long clientId) {
+        Long until = stickyUntil.get(clientId);
+        if (until == null) {
+            return false;
+        }
+        if (until < clock.millis()) {
+            stickyUntil.remove(clientId, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Routes the remaining statements of the current read-only transaction to the primary
+     * if the client wrote within the stickiness window. The previous routing is restored when the transaction completes.
+     *
+     * @param clientId the ID of the client whose data is read
+     */
+    public void routeReadsOf(Long clientId) {
+        if (!isSticky(clientId) || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        boolean previous = ReplicationRoutingDataSource.forcePrimary(true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ReplicationRoutingDataSource.forcePrimary(previous);
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.fitness_booking_system.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * DataSource that routes connections of read-only transactions to the replica
+ * and all other connections to the primary.
+ * It must be wrapped in a LazyConnectionDataSourceProxy, so that the target is chosen
+ * when the first statement is executed, after the transaction has been marked read-only.
+ * A read-only transaction can still be forced to the primary with {@link #runOnPrimary(Supplier)}
+ * or {@link #forcePrimary(boolean)}, e.g. to read the client's own writes before the replica has caught up.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Flag forcing the connections of the current thread to the primary.
+     */
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    /**
+     * Forces (or stops forcing) the connections of the current thread to go to the primary.
+     * Scopes may be nested, so a caller must restore the returned previous value when it is done
+     * instead of passing false, which would end the scope of an outer caller as well.
+     *
+     * @param force true to route to the primary regardless of the transaction type
+     * @return whether the connections were forced to the primary before the call
+     */
+    public static boolean forcePrimary(boolean force) {
+        boolean previous = FORCE_PRIMARY.get() != null;
+        if (force) {
+            FORCE_PRIMARY.set(Boolean.TRUE);
+        } else {
+            FORCE_PRIMARY.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Runs an action with the connections of the current thread forced to the primary,
+     * restoring the previous routing afterwards.
+     *
+     * @param action the action, e.g. a repository query
+     * @return the result of the action
+     */
+    public static <T> T runOnPrimary(Supplier<T> action) {
+        boolean previous = forcePrimary(true);
+        try {
+            return action.get();
+        } finally {
+            forcePrimary(previous);
+        }
+    }
+
+    /**
+     * Returns the database the next connection of the current thread would be routed to.
+     *
+     * @return PRIMARY or REPLICA
+     */
+    public static DataSourceRole currentRole() {
+        if (FORCE_PRIMARY.get() == null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return DataSourceRole.REPLICA;
+        }
+        return DataSourceRole.PRIMARY;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRole();
+    }
+}
@@ -21,4 +21,5 @@ public class AuthResponseDTO {
     private UserRole role;
     private Long profileId;
     private String token;
+    private String refreshToken;
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.example.fitness_booking_system.dto;
 import com.example.fitness_booking_system.entities.BookingStatus;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
  * This class is used to transfer booking data between layers of the application.
  */
 @Data
+@NoArgsConstructor
 public class BookingDTO {
     private Long id;
     private Long clientId;
@@ -24,4 +26,23 @@ public class BookingDTO {
     private BookingStatus status;
     private String formattedDate;
     private String formattedTime;
-}
\ No newline at end of file
+
+    /**
+     * Constructor used by the projection queries in BookingRepository.
+     * The formatted date and time are filled in by the service.
+     */
+    public BookingDTO(Long id, Long clientId, String clientName, Long timeSlotId, Long trainerId,
+                      String trainerName, String trainingTypeName, LocalDateTime startTime,
+                      LocalDateTime endTime, BookingStatus status) {
+        this.id = id;
+        this.clientId = clientId;
+        this.clientName = clientName;
+        this.timeSlotId = timeSlotId;
+        this.trainerId = trainerId;
+        this.trainerName = trainerName;
+        this.trainingTypeName = trainingTypeName;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.status = status;
+    }
+}
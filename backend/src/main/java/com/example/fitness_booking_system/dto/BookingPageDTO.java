@@ -0,0 +1,19 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of a client's booking history.
+ * The next page is requested by passing nextCursor back; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPageDTO {
+    private List<BookingDTO> items;
+    private String nextCursor;
+}
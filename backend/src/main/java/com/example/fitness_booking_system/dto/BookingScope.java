@@ -0,0 +1,15 @@
+package com.example.fitness_booking_system.dto;
+
+/**
+ * Which part of a client's booking history is requested.
+ */
+public enum BookingScope {
+    /**
+     * Bookings for time slots that have not started yet, soonest first.
+     */
+    UPCOMING,
+    /**
+     * Bookings for time slots that have already started, most recent first.
+     */
+    PAST
+}
@@ -0,0 +1,15 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO with a new token for the calendar feed URLs of the current user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarTokenDTO {
+    private String token;
+}
@@ -0,0 +1,23 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the free/busy calendar of a trainer over a range of days.
+ * The busy and free ranges are rounded outwards to the 5-minute cells of the free/busy bitmap.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeBusyDTO {
+    private Long trainerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<TimeRangeDTO> busy;
+    private List<TimeRangeDTO> free;
+}
@@ -0,0 +1,52 @@
+package com.example.fitness_booking_system.dto;
+
+import com.example.fitness_booking_system.entities.BookingStatus;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for one line of a gym import file (JSON lines).
+ * Which fields are used depends on the type of the record; members are referenced by email
+ * and time slots by the ref given to them in the same file.
+ */
+@Data
+public class ImportRecordDTO {
+    private ImportRecordType type;
+
+    // Fields for trainers and clients
+    private String email;
+    private String password;
+    private String passwordHash;
+    private String fullName;
+    private String phone;
+
+    // Fields for clients
+    private String dateOfBirth;
+    private String healthInformation;
+    private String fitnessGoals;
+
+    // Fields for trainers
+    private String bio;
+    private String[] specializations;
+    private String[] trainingTypes;
+    private Double personalPrice;
+    private Double groupPrice;
+
+    // Fields for time slots
+    private String ref;
+    private String trainerEmail;
+    private String trainingType;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Integer capacity;
+    private TimeSlotStatus slotStatus;
+
+    // Fields for bookings
+    private String clientEmail;
+    private String slotRef;
+    private BookingStatus bookingStatus;
+    private LocalDateTime bookingTime;
+}
@@ -0,0 +1,23 @@
+package com.example.fitness_booking_system.dto;
+
+/**
+ * Kind of a record in a gym import file.
+ */
+public enum ImportRecordType {
+    /**
+     * A trainer account with their profile.
+     */
+    TRAINER,
+    /**
+     * A client account with their profile.
+     */
+    CLIENT,
+    /**
+     * A time slot of a trainer imported earlier in the file or already registered.
+     */
+    TIME_SLOT,
+    /**
+     * A booking of a client for a time slot imported earlier in the file.
+     */
+    BOOKING
+}
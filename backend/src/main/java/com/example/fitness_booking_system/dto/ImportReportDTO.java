@@ -0,0 +1,25 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the outcome of a gym import.
+ * Contains the number of imported records per type and the failed lines;
+ * only the first failed lines up to the configured limit are listed, failedLines counts all of them.
+ */
+@Data
+@NoArgsConstructor
+public class ImportReportDTO {
+    private int linesRead;
+    private int trainersImported;
+    private int clientsImported;
+    private int timeSlotsImported;
+    private int bookingsImported;
+    private int failedLines;
+    private long durationMs;
+    private List<ImportErrorDTO> errors = new ArrayList<>();
+}
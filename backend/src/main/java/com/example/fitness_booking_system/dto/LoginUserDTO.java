@@ -0,0 +1,26 @@
+package com.example.fitness_booking_system.dto;
+
+import com.example.fitness_booking_system.entities.UserRole;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object with everything the login needs about a user: the credentials, the role
+ * and the ID of the client or trainer profile.
+ * The all-args constructor is used by the projection query in UserRepository,
+ * so the order of the fields must match it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginUserDTO {
+    private Long userId;
+    private String email;
+    private String fullName;
+    private String password;
+    private UserRole role;
+    private Long clientId;
+    private Long trainerId;
+}
@@ -1,5 +1,7 @@
 package com.example.fitness_booking_system.dto;
 
+import com.example.fitness_booking_system.entities.DigestWindow;
+
 import jakarta.validation.constraints.NotBlank;
 
 import lombok.Data;
@@ -57,4 +59,8 @@ public class ProfileUpdateDTO {
      * IDs of the training types that the trainer offers.
      */
     private Long[] trainingTypeIds;
+    /**
+     * How often the trainer wants to be emailed about bookings and cancellations.
+     */
+    private DigestWindow notificationDigest;
 }
\ No newline at end of file
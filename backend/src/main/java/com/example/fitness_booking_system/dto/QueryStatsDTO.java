@@ -0,0 +1,23 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object for the execution statistics of one SQL query fingerprint.
+ */
+@Data
+@NoArgsConstructor
+public class QueryStatsDTO {
+    private String fingerprint;
+    private long executions;
+    private long errors;
+    private double totalMs;
+    private double meanMs;
+    private double maxMs;
+    private double p99Ms;
+    private long rows;
+    private double rowsPerExecution;
+    private double dbTimePercent;
+    private String lastCaller;
+}
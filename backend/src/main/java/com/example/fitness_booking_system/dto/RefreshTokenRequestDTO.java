@@ -0,0 +1,14 @@
+package com.example.fitness_booking_system.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import lombok.Data;
+
+/**
+ * DTO for refresh and logout requests.
+ */
+@Data
+public class RefreshTokenRequestDTO {
+    @NotBlank(message = "Токенът за опресняване е задължителен")
+    private String refreshToken;
+}
@@ -0,0 +1,19 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a time range with a start (inclusive) and an end (exclusive).
+ * Also used by the busy-range projection query in TimeSlotRepository.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeRangeDTO {
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
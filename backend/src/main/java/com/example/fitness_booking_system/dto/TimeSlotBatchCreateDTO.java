@@ -0,0 +1,23 @@
+package com.example.fitness_booking_system.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO for creating several time slots in one request, e.g. a trainer's weekly schedule.
+ */
+@Data
+public class TimeSlotBatchCreateDTO {
+    /**
+     * The time slots to create.
+     */
+    @NotEmpty(message = "Трябва да има поне един слот")
+    @Size(max = 500, message = "Могат да се създадат най-много 500 слота наведнъж")
+    @Valid
+    private List<TimeSlotCreateDTO> timeSlots;
+}
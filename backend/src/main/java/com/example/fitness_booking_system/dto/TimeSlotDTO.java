@@ -2,15 +2,21 @@ package com.example.fitness_booking_system.dto;
 
 import com.example.fitness_booking_system.entities.TimeSlotStatus;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
 /**
  * Data Transfer Object (DTO) for a time slot.
  * This class is used to transfer booked client data between layers of the application.
+ * The all-args constructor is used by the projection queries in TimeSlotRepository,
+ * so the order of the fields must match them.
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class TimeSlotDTO {
     private Long id;
     private Long trainerId;
@@ -0,0 +1,20 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for one time slot of a trainer's roster.
+ * Holds the time slot together with the clients of its confirmed bookings, in booking order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSlotRosterDTO {
+    private TimeSlotDTO timeSlot;
+    private List<BookedClientInfoDTO> clients = new ArrayList<>();
+}
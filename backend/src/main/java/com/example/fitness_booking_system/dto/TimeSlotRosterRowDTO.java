@@ -0,0 +1,38 @@
+package com.example.fitness_booking_system.dto;
+
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the roster query in TimeSlotRepository: a time slot joined with one of its booked clients.
+ * A time slot without confirmed bookings has a single row with no client.
+ * The rows are grouped into TimeSlotRosterDTOs by the service.
+ */
+@Data
+@NoArgsConstructor
+public class TimeSlotRosterRowDTO {
+    private TimeSlotDTO timeSlot;
+    private BookedClientInfoDTO client;
+
+    /**
+     * Constructor used by the roster query in TimeSlotRepository.
+     * The client columns are null for a time slot without confirmed bookings.
+     */
+    public TimeSlotRosterRowDTO(Long id, Long trainerId, String trainerName, Long trainingTypeId,
+                                String trainingTypeName, LocalDateTime startTime, LocalDateTime endTime,
+                                Integer capacity, Integer bookedCount, TimeSlotStatus status, Integer availableSpots,
+                                Long clientId, Long userId, String fullName, String email, String phone,
+                                LocalDate dateOfBirth, String healthInformation, String fitnessGoals) {
+        this.timeSlot = new TimeSlotDTO(id, trainerId, trainerName, trainingTypeId, trainingTypeName,
+                startTime, endTime, capacity, bookedCount, status, availableSpots);
+        if (clientId != null) {
+            this.client = new BookedClientInfoDTO(clientId, userId, fullName, email, phone,
+                    dateOfBirth, healthInformation, fitnessGoals);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.fitness_booking_system.dto;
 
+import com.example.fitness_booking_system.entities.DigestWindow;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -25,4 +27,5 @@ public class TrainerDTO {
     private Set<String> specializations;
     private Double personalPrice;
     private Double groupPrice;
+    private DigestWindow notificationDigest;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object for the utilization counters of a trainer for one training type on one day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainerDailyStatsDTO {
+    private LocalDate date;
+    private Long trainingTypeId;
+    private long slotsOffered;
+    private long seatsOffered;
+    private long seatsBooked;
+    private long cancellations;
+}
@@ -0,0 +1,29 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the utilization dashboard of a trainer over a range of days.
+ * Contains the totals of the range, the fill rate (booked seats / offered seats) and the daily rows.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainerStatsDTO {
+    private Long trainerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long slotsOffered;
+    private long seatsOffered;
+    private long seatsBooked;
+    private long cancellations;
+    private double fillRate;
+    private List<TrainerDailyStatsDTO> days;
+}
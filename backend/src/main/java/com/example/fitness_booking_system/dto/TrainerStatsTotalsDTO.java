@@ -0,0 +1,24 @@
+package com.example.fitness_booking_system.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Data Transfer Object for the utilization counters of a trainer for one training type on one day,
+ * aggregated from the time_slots and booking rows. Used by the reconcile queries in TrainerDailyStatsRepository.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrainerStatsTotalsDTO {
+    private Long trainerId;
+    private Long trainingTypeId;
+    private LocalDate date;
+    private long slotsOffered;
+    private long seatsOffered;
+    private long seatsBooked;
+    private long cancellations;
+}
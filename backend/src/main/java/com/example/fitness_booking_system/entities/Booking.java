@@ -16,14 +16,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "booking")
+@Table(name = "booking", indexes = {
+        @Index(name = "idx_booking_client_slot_start", columnList = "client_id, slot_start_time, id")
+})
 public class Booking {
 
     /**
      * Unique identifier for the booking.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -35,11 +38,23 @@ public class Booking {
 
     /**
      * The time slot for which the booking is made.
+     * No database foreign key is generated, because a partitioned time_slots table
+     * has no unique constraint on id alone that a foreign key could reference;
+     * db/partitioning/partition_time_slots.sql installs triggers that enforce the reference instead.
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "time_slot_id", nullable = false)
+    @JoinColumn(name = "time_slot_id", nullable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private TimeSlot timeSlot;
 
+    /**
+     * Copy of the start time of the booked time slot, so that the booking history of a client
+     * can be paged by the (client_id, slot_start_time, id) index without joining and sorting all of it.
+     * Time slots cannot be moved, so the copy never goes stale.
+     */
+    @Column(name = "slot_start_time")
+    private LocalDateTime slotStartTime;
+
     /**
      * The trainer associated with the booking, if any.
      * This can be null if the booking is for a group session without a specific trainer.
@@ -25,7 +25,8 @@ public class Client {
      * Unique identifier for the client.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+    @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -51,6 +52,13 @@ public class Client {
      */
     private String fitnessGoals;
 
+    /**
+     * Version of the client's calendar feed, increased in the same transaction as every change of the feed.
+     * Only changed by ClientRepository.incrementFeedVersions, never by saving the entity.
+     */
+    @Column(name = "feed_version", nullable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    private long feedVersion;
+
     /**
      * The list of bookings made by the client.
      */
@@ -0,0 +1,10 @@
+package com.example.fitness_booking_system.entities;
+
+/**
+ * Enum representing how often a trainer is emailed about the bookings and cancellations of their time slots.
+ */
+public enum DigestWindow {
+    IMMEDIATE,
+    HOURLY,
+    DAILY
+}
@@ -0,0 +1,39 @@
+package com.example.fitness_booking_system.entities;
+
+import jakarta.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity representing the lease of a scheduled job that must run on only one instance at a time.
+ * The owner renews the lease on every run, so the job keeps running on the same instance until that instance
+ * stops renewing it and the lease expires.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_leases")
+public class JobLease {
+
+    /**
+     * The name of the job, e.g. "trainer-stats-reconcile".
+     */
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    /**
+     * The instance holding the lease.
+     */
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    /**
+     * Until when the lease is held, in milliseconds since the epoch.
+     */
+    @Column(name = "locked_until", nullable = false)
+    private long lockedUntil;
+}
@@ -0,0 +1,50 @@
+package com.example.fitness_booking_system.entities;
+
+import jakarta.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity representing a token bucket of a rate limiter shared by all instances (app.rate-limit.store=database).
+ * The tokens are refilled lazily: every take adds the tokens accumulated since updatedAt.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "rate_limit_buckets")
+public class RateLimitBucket {
+
+    /**
+     * The key of the bucket, e.g. "booking-client:42".
+     */
+    @Id
+    @Column(name = "bucket_key", length = 128)
+    private String bucketKey;
+
+    /**
+     * The tokens left at updatedAt.
+     */
+    @Column(nullable = false)
+    private double tokens;
+
+    /**
+     * The burst size of the bucket.
+     */
+    @Column(nullable = false)
+    private double capacity;
+
+    /**
+     * The number of tokens added per millisecond.
+     */
+    @Column(name = "tokens_per_ms", nullable = false)
+    private double tokensPerMs;
+
+    /**
+     * When the tokens were last updated, in milliseconds since the epoch.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+}
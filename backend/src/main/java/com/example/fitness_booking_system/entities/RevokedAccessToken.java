@@ -0,0 +1,43 @@
+package com.example.fitness_booking_system.entities;
+
+import jakarta.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing an access token revoked before its expiration, e.g. on logout.
+ * All instances poll this table to keep their in-memory revocation lists up to date.
+ * Rows are only needed until the token would have expired anyway.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_access_tokens", indexes = {
+        @Index(name = "idx_revoked_access_tokens_revoked_at", columnList = "revoked_at")
+})
+public class RevokedAccessToken {
+
+    /**
+     * The ID (jti claim) of the revoked token.
+     */
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    /**
+     * When the token expires.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * When the token was revoked.
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -11,18 +11,24 @@ import java.time.LocalDateTime;
 /**
  * Entity representing a time slot for a training session.
  * Each time slot is associated with a trainer and a training type.
+ * The table can be range-partitioned by month on start_time (see db/partitioning),
+ * which is why the start time is immutable once the slot is persisted.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "time_slots")
+@Table(name = "time_slots", indexes = {
+        @Index(name = "idx_time_slots_trainer_start", columnList = "trainer_id, start_time"),
+        @Index(name = "idx_time_slots_start", columnList = "start_time")
+})
 public class TimeSlot {
     /**
      * Unique identifier for the time slot.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "time_slots_seq")
+    @SequenceGenerator(name = "time_slots_seq", sequenceName = "time_slots_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -43,8 +49,9 @@ public class TimeSlot {
 
     /**
      * The start time of the time slot.
+     * This is the partition key of the time_slots table, so it cannot be updated.
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private LocalDateTime startTime;
 
     /**
@@ -26,7 +26,8 @@ public class Trainer {
      * Unique identifier for the trainer.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trainers_seq")
+    @SequenceGenerator(name = "trainers_seq", sequenceName = "trainers_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -63,6 +64,21 @@ public class Trainer {
      */
     private Double groupPrice;
 
+    /**
+     * How often the trainer is emailed about bookings and cancellations.
+     * Null means the application default (app.notifications.trainer-digest.default-window).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private DigestWindow notificationDigest;
+
+    /**
+     * Version of the trainer's calendar feed, increased in the same transaction as every change of the feed.
+     * Only changed by TrainerRepository.incrementFeedVersions, never by saving the entity.
+     */
+    @Column(name = "feed_version", nullable = false, updatable = false, columnDefinition = "bigint default 0 not null")
+    private long feedVersion;
+
     /**
      * The training types that this trainer can conduct.
      * This is a many-to-many relationship, meaning a trainer can have multiple training types,
@@ -25,7 +25,8 @@ public class TrainerAvailability {
      * Unique identifier for the trainer availability record.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trainer_availabilities_seq")
+    @SequenceGenerator(name = "trainer_availabilities_seq", sequenceName = "trainer_availabilities_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -0,0 +1,74 @@
+package com.example.fitness_booking_system.entities;
+
+import jakarta.persistence.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity representing the utilization counters of a trainer for one training type on one day.
+ * This class maps to the "trainer_daily_stats" rollup table, which is maintained incrementally
+ * from the time slot and booking write paths instead of being aggregated from the raw rows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "trainer_daily_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trainer_daily_stats_key",
+                columnNames = {"trainer_id", "stat_date", "training_type_id"}))
+public class TrainerDailyStats {
+
+    /**
+     * Unique identifier for the rollup row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trainer_daily_stats_seq")
+    @SequenceGenerator(name = "trainer_daily_stats_seq", sequenceName = "trainer_daily_stats_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * The ID of the trainer. Kept as a plain column, the rollup is never navigated to the trainer.
+     */
+    @Column(name = "trainer_id", nullable = false)
+    private Long trainerId;
+
+    /**
+     * The ID of the training type of the counted time slots.
+     */
+    @Column(name = "training_type_id", nullable = false)
+    private Long trainingTypeId;
+
+    /**
+     * The day on which the counted time slots start.
+     */
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    /**
+     * Number of time slots offered (created and not cancelled).
+     */
+    @Column(nullable = false)
+    private long slotsOffered;
+
+    /**
+     * Total capacity of the offered time slots.
+     */
+    @Column(nullable = false)
+    private long seatsOffered;
+
+    /**
+     * Number of seats taken by confirmed bookings.
+     */
+    @Column(nullable = false)
+    private long seatsBooked;
+
+    /**
+     * Number of cancelled bookings.
+     */
+    @Column(nullable = false)
+    private long cancellations;
+}
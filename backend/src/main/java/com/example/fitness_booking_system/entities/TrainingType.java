@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -23,7 +25,8 @@ public class TrainingType {
      * Unique identifier for the training type.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "training_types_seq")
+    @SequenceGenerator(name = "training_types_seq", sequenceName = "training_types_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -59,7 +62,10 @@ public class TrainingType {
      * The trainers associated with this training type.
      * This is a many-to-many relationship, meaning multiple trainers can offer the same training type,
      * and a trainer can offer multiple training types.
+     * Left out of equals, hashCode and toString, which would otherwise recurse through the trainers' training types.
      */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @ManyToMany(mappedBy = "trainingTypes")
     private Set<Trainer> trainers = new HashSet<>();
 }
\ No newline at end of file
@@ -21,7 +21,8 @@ public class User {
      * Unique identifier for the user.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -63,4 +64,11 @@ public class User {
      * It is automatically set to the current date and time when the user is created.
      */
     private LocalDateTime createdAt;
+
+    /**
+     * SHA-256 hash of the secret token in the URLs of the user's calendar feed.
+     * Null until the user requests a feed URL; requesting a new one replaces it, so old URLs stop working.
+     */
+    @Column(name = "calendar_token_hash", unique = true, length = 64)
+    private String calendarTokenHash;
 }
\ No newline at end of file
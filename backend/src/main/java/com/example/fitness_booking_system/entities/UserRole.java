@@ -5,5 +5,9 @@ package com.example.fitness_booking_system.entities;
  */
 public enum UserRole {
     CLIENT,
-    TRAINER
+    TRAINER,
+    /**
+     * Operator with access to the diagnostic actuator endpoints; assigned only in the database, never at registration.
+     */
+    ADMIN
 }
\ No newline at end of file
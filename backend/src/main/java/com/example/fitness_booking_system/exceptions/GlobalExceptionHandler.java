@@ -50,7 +50,8 @@ public class GlobalExceptionHandler {
 
     /**
      * Handles exceptions that are annotated with ResponseStatusException.
-     * It captures the status code and reason from the exception and returns a structured error response.
+     * It captures the status code and reason from the exception and returns a structured error response,
+     * together with the headers of the exception (e.g. Retry-After).
      *
      * @param ex the ResponseStatusException containing status and reason
      * @return ResponseEntity containing the error response with status and reason
@@ -64,7 +65,7 @@ public class GlobalExceptionHandler {
                 .message(ex.getReason())
                 .build();
 
-        return new ResponseEntity<>(errorResponse, ex.getStatusCode());
+        return new ResponseEntity<>(errorResponse, ex.getHeaders(), ex.getStatusCode());
     }
 
     @ExceptionHandler(Exception.class)
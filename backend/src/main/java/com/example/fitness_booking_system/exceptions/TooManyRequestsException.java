@@ -0,0 +1,35 @@
+package com.example.fitness_booking_system.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Exception for rejecting a request with 429 Too Many Requests.
+ * Carries a Retry-After header telling the client when to try again.
+ */
+public class TooManyRequestsException extends ResponseStatusException {
+
+    /**
+     * Number of seconds after which the client may retry.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates the exception.
+     *
+     * @param reason            the message shown to the client
+     * @param retryAfterSeconds the number of seconds after which the client may retry
+     */
+    public TooManyRequestsException(String reason, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.fitness_booking_system.querystats;
+
+import com.example.fitness_booking_system.dto.QueryStatsDTO;
+import com.example.fitness_booking_system.tracing.Span;
+import com.example.fitness_booking_system.tracing.Tracer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Statistics of the SQL statements sent to the database, per query fingerprint (see {@link SqlFingerprint}):
+ * executions, errors, total, maximum and 99th percentile latency, and rows read or changed.
+ * It observes the statements through the DataSource proxy of DataSourceProxyConfig, both as a listener
+ * and as the factory of the result set proxies that count the rows read.
+ * The top queries are served by {@link QueryStatisticsEndpoint} and written to the log periodically, so that
+ * e.g. a lazy load repeated for every row of a list shows up as one fingerprint with many executions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatistics implements QueryExecutionListener, ResultSetProxyLogicFactory {
+
+    /**
+     * Fingerprint under which the statements are counted once the maximum number of fingerprints is reached.
+     */
+    static final String OTHER = "(other)";
+
+    private static final String START_NANOS = "queryStats.startNanos";
+    private static final String STATS = "queryStats.stats";
+
+    /**
+     * Tracer used to attribute the statements to the traced method running them.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Maximum number of fingerprints tracked.
+     */
+    @Value("${app.query-stats.max-fingerprints:1000}")
+    private int maxFingerprints = 1000;
+
+    /**
+     * Number of queries written to the log periodically; 0 turns the log off.
+     */
+    @Value("${app.query-stats.log-top:10}")
+    private int logTop = 10;
+
+    private final Map<String, QueryStats> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Statistics of the statement being executed by the current thread, for the result set it returns.
+     */
+    private final ThreadLocal<QueryStats> executing = new ThreadLocal<>();
+
+    /**
+     * Executions already logged, so an idle application does not log the same statistics again.
+     */
+    private long loggedExecutions;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryStats stats = statsFor(queryInfoList.get(0).getQuery());
+        execInfo.addCustomValue(STATS, stats);
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        executing.set(stats);
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        executing.remove();
+        QueryStats stats = execInfo.getCustomValue(STATS, QueryStats.class);
+        Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (stats == null || startNanos == null) {
+            return;
+        }
+        Span span = tracer.currentSpan();
+        stats.record(System.nanoTime() - startNanos, execInfo.isSuccess(), span != null ? span.getName() : null);
+        long changed = changedRows(execInfo.getResult());
+        if (changed > 0) {
+            stats.addRows(changed);
+        }
+    }
+
+    /**
+     * Wraps a result set returned by a statement so that its rows are counted for the statement's fingerprint.
+     */
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        QueryStats stats = executing.get();
+        if (stats == null) {
+            // A result set fetched after the statement completed, e.g. with getResultSet()
+            return new SimpleResultSetProxyLogic(resultSet, connectionInfo, proxyConfig);
+        }
+        return new RowCountingResultSet(resultSet, connectionInfo, proxyConfig, stats);
+    }
+
+    /**
+     * Returns the queries ranked highest by the given measure.
+     *
+     * @param limit   the maximum number of queries
+     * @param orderBy the measure to rank by
+     * @return the statistics of the top queries, highest first
+     */
+    public List<QueryStatsDTO> top(int limit, Order orderBy) {
+        long allNanos = statistics.values().stream().mapToLong(QueryStats::getTotalNanos).sum();
+        return statistics.values().stream()
+                .map(stats -> mapToDTO(stats, allNanos))
+                .sorted(Comparator.comparingDouble(orderBy.measure).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Forgets all statistics collected so far.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Writes the queries with the most database time to the log.
+     */
+    @Scheduled(fixedDelayString = "${app.query-stats.log-interval-ms:300000}",
+            initialDelayString = "${app.query-stats.log-interval-ms:300000}")
+    public void logTopQueries() {
+        long executions = statistics.values().stream().mapToLong(QueryStats::getExecutions).sum();
+        if (logTop <= 0 || executions == loggedExecutions) {
+            return;
+        }
+        loggedExecutions = executions;
+        StringBuilder table = new StringBuilder();
+        for (QueryStatsDTO stats : top(logTop, Order.TOTAL)) {
+            table.append(String.format(Locale.ROOT, "%n%5.1f%% %8d x %10.1f ms total %8.2f ms mean %8.2f ms p99 %8.1f rows/exec  %s",
+                    stats.getDbTimePercent(), stats.getExecutions(), stats.getTotalMs(), stats.getMeanMs(),
+                    stats.getP99Ms(), stats.getRowsPerExecution(), stats.getFingerprint()));
+            if (stats.getLastCaller() != null) {
+                table.append("  <- ").append(stats.getLastCaller());
+            }
+        }
+        log.info("Top SQL queries by database time ({} executions):{}", executions, table);
+    }
+
+    private QueryStats statsFor(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        QueryStats stats = statistics.get(fingerprint);
+        if (stats != null) {
+            return stats;
+        }
+        if (statistics.size() >= maxFingerprints) {
+            fingerprint = OTHER;
+        }
+        return statistics.computeIfAbsent(fingerprint, QueryStats::new);
+    }
+
+    private static long changedRows(Object result) {
+        if (result instanceof Integer count) {
+            return count;
+        }
+        if (result instanceof Long count) {
+            return count;
+        }
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+
+    private static QueryStatsDTO mapToDTO(QueryStats stats, long allNanos) {
+        long executions = stats.getExecutions();
+        QueryStatsDTO dto = new QueryStatsDTO();
+        dto.setFingerprint(stats.getFingerprint());
+        dto.setExecutions(executions);
+        dto.setErrors(stats.getErrors());
+        dto.setTotalMs(stats.getTotalNanos() / 1e6);
+        dto.setMeanMs(executions == 0 ? 0 : stats.getTotalNanos() / 1e6 / executions);
+        dto.setMaxMs(stats.getMaxNanos() / 1e6);
+        dto.setP99Ms(stats.percentileNanos(0.99) / 1e6);
+        dto.setRows(stats.getRows());
+        dto.setRowsPerExecution(executions == 0 ? 0 : (double) stats.getRows() / executions);
+        dto.setDbTimePercent(allNanos == 0 ? 0 : stats.getTotalNanos() * 100.0 / allNanos);
+        dto.setLastCaller(stats.getLastCaller());
+        return dto;
+    }
+
+    /**
+     * Measures the top queries can be ranked by.
+     */
+    public enum Order {
+        TOTAL(QueryStatsDTO::getTotalMs),
+        EXECUTIONS(QueryStatsDTO::getExecutions),
+        MEAN(QueryStatsDTO::getMeanMs),
+        MAX(QueryStatsDTO::getMaxMs),
+        P99(QueryStatsDTO::getP99Ms),
+        ROWS(QueryStatsDTO::getRows);
+
+        private final ToDoubleFunction<QueryStatsDTO> measure;
+
+        Order(ToDoubleFunction<QueryStatsDTO> measure) {
+            this.measure = measure;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fitness_booking_system.querystats;
+
+import com.example.fitness_booking_system.dto.QueryStatsDTO;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint /actuator/querystats serving the top SQL queries,
+ * e.g. /actuator/querystats?limit=10&amp;orderBy=EXECUTIONS. DELETE resets the statistics.
+ */
+@Component
+@Endpoint(id = "querystats")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.query-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryStatisticsEndpoint {
+
+    /**
+     * Default number of queries returned.
+     */
+    private static final int DEFAULT_LIMIT = 20;
+
+    /**
+     * The collected statistics.
+     */
+    private final QueryStatistics queryStatistics;
+
+    /**
+     * Returns the top queries.
+     *
+     * @param limit   the maximum number of queries, 20 by default
+     * @param orderBy the measure to rank by, TOTAL (database time) by default
+     * @return the statistics of the top queries
+     */
+    @ReadOperation
+    public List<QueryStatsDTO> topQueries(@Nullable Integer limit, @Nullable QueryStatistics.Order orderBy) {
+        return queryStatistics.top(limit != null ? limit : DEFAULT_LIMIT,
+                orderBy != null ? orderBy : QueryStatistics.Order.TOTAL);
+    }
+
+    /**
+     * Resets the statistics, e.g. before measuring a scenario.
+     */
+    @DeleteOperation
+    public void reset() {
+        queryStatistics.reset();
+    }
+}
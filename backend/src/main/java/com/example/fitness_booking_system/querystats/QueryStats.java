@@ -0,0 +1,135 @@
+package com.example.fitness_booking_system.querystats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics of one query fingerprint, updated without locks by the threads running the query.
+ * Latencies go into a log-linear histogram of microseconds: exact below 16 µs, and above that 8 buckets
+ * per power of two, so percentiles are accurate to within 12.5%.
+ */
+public final class QueryStats {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - 4 + 1) * SUB_BUCKETS;
+
+    private final String fingerprint;
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder rows = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Innermost traced method (service or repository) that last ran the query, if tracing is on.
+     */
+    private volatile String lastCaller;
+
+    QueryStats(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Records one execution of the query.
+     *
+     * @param nanos   the execution time
+     * @param success whether the statement succeeded
+     * @param caller  the method that ran it, or null if unknown
+     */
+    void record(long nanos, boolean success, String caller) {
+        executions.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        histogram.incrementAndGet(bucket(nanos / 1000));
+        if (!success) {
+            errors.increment();
+        }
+        if (caller != null && !caller.equals(lastCaller)) {
+            lastCaller = caller;
+        }
+    }
+
+    /**
+     * Adds rows read from a result set of the query, or changed by it.
+     *
+     * @param count the number of rows
+     */
+    void addRows(long count) {
+        rows.add(count);
+    }
+
+    /**
+     * Returns a latency percentile, as the upper bound of the histogram bucket it falls into.
+     *
+     * @param percentile the percentile between 0 and 1, e.g. 0.99
+     * @return the latency in nanoseconds, 0 if the query never ran
+     */
+    public long percentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return Math.min(upperBoundMicros(i) * 1000, getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    static int bucket(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public String getLastCaller() {
+        return lastCaller;
+    }
+}
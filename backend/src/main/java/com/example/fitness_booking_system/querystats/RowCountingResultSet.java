@@ -0,0 +1,50 @@
+package com.example.fitness_booking_system.querystats;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+
+/**
+ * Result set proxy logic counting the rows read, which are added to the statistics of the query
+ * once the result set is exhausted or closed.
+ * A result set is read by one thread at a time, so the count needs no synchronization.
+ */
+final class RowCountingResultSet extends SimpleResultSetProxyLogic {
+
+    private final QueryStats stats;
+    private long rows;
+    private boolean reported;
+
+    RowCountingResultSet(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig, QueryStats stats) {
+        super(resultSet, connectionInfo, proxyConfig);
+        this.stats = stats;
+    }
+
+    @Override
+    protected Object performProxyLogic(Object proxy, Method method, Object[] args, MethodExecutionContext context)
+            throws Throwable {
+        Object result = super.performProxyLogic(proxy, method, args, context);
+        String name = method.getName();
+        if ("next".equals(name)) {
+            if (Boolean.TRUE.equals(result)) {
+                rows++;
+            } else {
+                report();
+            }
+        } else if ("close".equals(name)) {
+            report();
+        }
+        return result;
+    }
+
+    private void report() {
+        if (!reported) {
+            reported = true;
+            stats.addRows(rows);
+        }
+    }
+}
@@ -1,11 +1,19 @@
 
 package com.example.fitness_booking_system.repositories;
 
+import com.example.fitness_booking_system.dto.BookedClientInfoDTO;
+import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
 import com.example.fitness_booking_system.entities.Booking;
 import com.example.fitness_booking_system.entities.BookingStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,12 +25,21 @@ import java.util.List;
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     /**
-     * Finds all bookings made by a specific client.
+     * Select clause projecting a booking with its client, trainer and training type names directly into a BookingDTO.
+     */
+    String BOOKING_VIEW_SELECT = "SELECT new com.example.fitness_booking_system.dto.BookingDTO(" +
+            "b.id, c.id, cu.fullName, ts.id, t.id, tu.fullName, tt.name, ts.startTime, ts.endTime, b.status) " +
+            "FROM Booking b JOIN b.client c JOIN c.user cu JOIN b.timeSlot ts " +
+            "JOIN ts.trainer t JOIN t.user tu JOIN ts.trainingType tt ";
+
+    /**
+     * Finds all bookings made by a specific client, as DTO projections.
      *
      * @param clientId the ID of the client
-     * @return a list of bookings made by the client
+     * @return a list of the bookings made by the client, in booking order
      */
-    List<Booking> findByClientId(Long clientId);
+    @Query(BOOKING_VIEW_SELECT + "WHERE c.id = :clientId ORDER BY b.id")
+    List<BookingDTO> findBookingViewsByClientId(@Param("clientId") Long clientId);
 
     /**
      * Checks if a client has a booking for a specific time slot.
@@ -44,11 +61,139 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     boolean existsByClientIdAndTimeSlotIdAndStatusNot(Long clientId, Long timeSlotId, BookingStatus status);
 
     /**
-     * Finds all bookings for a specific time slot with a given status.
+     * Finds which of the given clients have a booking with a status other than the given one for a time slot.
+     *
+     * @param timeSlotId the ID of the time slot
+     * @param clientIds  the IDs of the clients to check
+     * @param status     the status to exclude from the check
+     * @return the IDs of the clients that have such a booking
+     */
+    @Query("SELECT b.client.id FROM Booking b WHERE b.timeSlot.id = :timeSlotId " +
+            "AND b.client.id IN :clientIds AND b.status <> :status")
+    List<Long> findClientIdsWithBookingForTimeSlot(Long timeSlotId, Collection<Long> clientIds, BookingStatus status);
+
+    /**
+     * Finds the clients with a booking of a given status for a time slot, as DTO projections,
+     * with the client and user data read in the same query.
      *
      * @param timeSlotId the ID of the time slot
-     * @param status     the status of the bookings to find
-     * @return a list of bookings for the time slot with the specified status
+     * @param status     the status of the bookings
+     * @return the information of the booked clients, in booking order
+     */
+    @Query("SELECT new com.example.fitness_booking_system.dto.BookedClientInfoDTO(" +
+            "c.id, u.id, u.fullName, u.email, u.phone, c.dateOfBirth, c.healthInformation, c.fitnessGoals) " +
+            "FROM Booking b JOIN b.client c JOIN c.user u " +
+            "WHERE b.timeSlot.id = :timeSlotId AND b.status = :status ORDER BY b.id")
+    List<BookedClientInfoDTO> findBookedClientInfosByTimeSlotId(@Param("timeSlotId") Long timeSlotId,
+                                                                @Param("status") BookingStatus status);
+
+    /**
+     * Finds the time slots booked by a client, starting from a given time, as DTO projections.
+     * Used by the client's calendar feed.
+     *
+     * @param clientId the ID of the client
+     * @param status   the status of the bookings to include
+     * @param from     the earliest start time of the time slots
+     * @return the booked time slots ordered by start time
+     */
+    @Query(TimeSlotRepository.SLOT_VIEW_PROJECTION + "FROM Booking b JOIN b.timeSlot ts " +
+            TimeSlotRepository.SLOT_VIEW_JOINS + "WHERE b.client.id = :clientId AND b.status = :status AND ts.startTime >= :from " +
+            "ORDER BY ts.startTime, ts.id")
+    List<TimeSlotDTO> findBookedSlotViewsByClientId(@Param("clientId") Long clientId,
+                                                    @Param("status") BookingStatus status,
+                                                    @Param("from") LocalDateTime from);
+
+    /**
+     * Finds the next page of a client's bookings after a keyset position, in ascending (slotStartTime, id) order.
+     * The redundant lower bound on slotStartTime lets the database seek directly to the position
+     * in the (client_id, slot_start_time, id) index, so every page costs the same regardless of the history length.
+     *
+     * @param clientId    the ID of the client
+     * @param statuses    the statuses of the bookings to include
+     * @param afterStart  the slot start time of the last booking of the previous page
+     * @param afterId     the ID of the last booking of the previous page
+     * @param limit       the maximum number of bookings to return
+     * @return the bookings after the position
+     */
+    @Query(BOOKING_VIEW_SELECT + "WHERE c.id = :clientId AND b.status IN :statuses " +
+            "AND b.slotStartTime >= :afterStart " +
+            "AND (b.slotStartTime > :afterStart OR b.id > :afterId) " +
+            "ORDER BY b.slotStartTime, b.id")
+    List<BookingDTO> findClientBookingViewsAfter(@Param("clientId") Long clientId,
+                                                 @Param("statuses") Collection<BookingStatus> statuses,
+                                                 @Param("afterStart") LocalDateTime afterStart,
+                                                 @Param("afterId") Long afterId,
+                                                 Limit limit);
+
+    /**
+     * Finds the next page of a client's bookings before a keyset position, in descending (slotStartTime, id) order.
+     *
+     * @param clientId     the ID of the client
+     * @param statuses     the statuses of the bookings to include
+     * @param beforeStart  the slot start time of the last booking of the previous page
+     * @param beforeId     the ID of the last booking of the previous page
+     * @param limit        the maximum number of bookings to return
+     * @return the bookings before the position
+     */
+    @Query(BOOKING_VIEW_SELECT + "WHERE c.id = :clientId AND b.status IN :statuses " +
+            "AND b.slotStartTime <= :beforeStart " +
+            "AND (b.slotStartTime < :beforeStart OR b.id < :beforeId) " +
+            "ORDER BY b.slotStartTime DESC, b.id DESC")
+    List<BookingDTO> findClientBookingViewsBefore(@Param("clientId") Long clientId,
+                                                  @Param("statuses") Collection<BookingStatus> statuses,
+                                                  @Param("beforeStart") LocalDateTime beforeStart,
+                                                  @Param("beforeId") Long beforeId,
+                                                  Limit limit);
+
+    /**
+     * Same as {@link #findClientBookingViewsAfter}, but positions by the start time of the joined time slot,
+     * so bookings whose slotStartTime has not been backfilled yet are included. Not served by the keyset index.
+     *
+     * @param clientId    the ID of the client
+     * @param statuses    the statuses of the bookings to include
+     * @param afterStart  the slot start time of the last booking of the previous page
+     * @param afterId     the ID of the last booking of the previous page
+     * @param limit       the maximum number of bookings to return
+     * @return the bookings after the position
+     */
+    @Query(BOOKING_VIEW_SELECT + "WHERE c.id = :clientId AND b.status IN :statuses " +
+            "AND ts.startTime >= :afterStart " +
+            "AND (ts.startTime > :afterStart OR b.id > :afterId) " +
+            "ORDER BY ts.startTime, b.id")
+    List<BookingDTO> findClientBookingViewsAfterBySlotJoin(@Param("clientId") Long clientId,
+                                                           @Param("statuses") Collection<BookingStatus> statuses,
+                                                           @Param("afterStart") LocalDateTime afterStart,
+                                                           @Param("afterId") Long afterId,
+                                                           Limit limit);
+
+    /**
+     * Same as {@link #findClientBookingViewsBefore}, but positions by the start time of the joined time slot,
+     * so bookings whose slotStartTime has not been backfilled yet are included. Not served by the keyset index.
+     *
+     * @param clientId     the ID of the client
+     * @param statuses     the statuses of the bookings to include
+     * @param beforeStart  the slot start time of the last booking of the previous page
+     * @param beforeId     the ID of the last booking of the previous page
+     * @param limit        the maximum number of bookings to return
+     * @return the bookings before the position
+     */
+    @Query(BOOKING_VIEW_SELECT + "WHERE c.id = :clientId AND b.status IN :statuses " +
+            "AND ts.startTime <= :beforeStart " +
+            "AND (ts.startTime < :beforeStart OR b.id < :beforeId) " +
+            "ORDER BY ts.startTime DESC, b.id DESC")
+    List<BookingDTO> findClientBookingViewsBeforeBySlotJoin(@Param("clientId") Long clientId,
+                                                            @Param("statuses") Collection<BookingStatus> statuses,
+                                                            @Param("beforeStart") LocalDateTime beforeStart,
+                                                            @Param("beforeId") Long beforeId,
+                                                            Limit limit);
+
+    /**
+     * Finds bookings of existing time slots whose slotStartTime has not been filled yet.
+     * Bookings of deleted time slots can never be filled and are not returned.
+     *
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of the unfilled bookings
      */
-    List<Booking> findByTimeSlotIdAndStatus(Long timeSlotId, BookingStatus status);
-}
\ No newline at end of file
+    @Query("SELECT b.id FROM Booking b JOIN b.timeSlot ts WHERE b.slotStartTime IS NULL")
+    List<Long> findIdsWithoutSlotStartTime(Limit limit);
+}
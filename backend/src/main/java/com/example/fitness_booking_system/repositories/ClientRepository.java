@@ -1,11 +1,16 @@
 package com.example.fitness_booking_system.repositories;
 
+import com.example.fitness_booking_system.entities.BookingStatus;
 import com.example.fitness_booking_system.entities.Client;
 import com.example.fitness_booking_system.entities.User;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,4 +20,45 @@ import java.util.Optional;
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
     Optional<Client> findByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * Finds clients together with their users.
+     *
+     * @param ids the IDs of the clients
+     * @return the clients found, in no particular order
+     */
+    @Query("SELECT c FROM Client c JOIN FETCH c.user WHERE c.id IN :ids")
+    List<Client> findWithUserByIdIn(Collection<Long> ids);
+
+    /**
+     * Finds the calendar feed version of a client, if the feed token belongs to the client's user.
+     *
+     * @param id        the ID of the client
+     * @param tokenHash the hash of the feed token from the feed URL
+     * @return the feed version, or empty if the client does not exist or the token is not the client's
+     */
+    @Query("SELECT c.feedVersion FROM Client c WHERE c.id = :id AND c.user.calendarTokenHash = :tokenHash")
+    Optional<Long> findFeedVersionByIdAndTokenHash(Long id, String tokenHash);
+
+    /**
+     * Increases the calendar feed versions of clients.
+     *
+     * @param ids the IDs of the clients
+     * @return the number of updated clients
+     */
+    @Modifying
+    @Query("UPDATE Client c SET c.feedVersion = c.feedVersion + 1 WHERE c.id IN :ids")
+    int incrementFeedVersions(Collection<Long> ids);
+
+    /**
+     * Increases the calendar feed versions of the clients with bookings of a trainer's time slots.
+     *
+     * @param trainerId the ID of the trainer
+     * @param status    the status of the bookings
+     * @return the number of updated clients
+     */
+    @Modifying
+    @Query("UPDATE Client c SET c.feedVersion = c.feedVersion + 1 WHERE c.id IN " +
+            "(SELECT b.client.id FROM Booking b WHERE b.timeSlot.trainer.id = :trainerId AND b.status = :status)")
+    int incrementFeedVersionsByTrainerId(Long trainerId, BookingStatus status);
+}
@@ -0,0 +1,44 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.entities.JobLease;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the leases of the scheduled jobs.
+ * A lease is taken or renewed with one conditional UPDATE, so two instances can never both hold it.
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Renews a lease held by the owner, or takes over a lease that has expired.
+     *
+     * @param jobName     the name of the job
+     * @param owner       the instance taking the lease
+     * @param now         the current time in milliseconds
+     * @param lockedUntil the new expiry of the lease in milliseconds
+     * @return 1 if the lease is now held by the owner, 0 if another instance holds it or it does not exist
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.lockedUntil = :lockedUntil " +
+            "WHERE l.jobName = :jobName AND (l.owner = :owner OR l.lockedUntil <= :now)")
+    int acquire(String jobName, String owner, long now, long lockedUntil);
+
+    /**
+     * Creates the lease of a job on its first run. Fails with a unique key violation if another instance
+     * created it first, instead of overwriting its lease as saving the entity would.
+     *
+     * @param jobName     the name of the job
+     * @param owner       the instance taking the lease
+     * @param lockedUntil the expiry of the lease in milliseconds
+     * @return the number of inserted rows
+     */
+    @Modifying
+    @Query(value = "INSERT INTO job_leases (job_name, owner, locked_until) VALUES (:jobName, :owner, :lockedUntil)",
+            nativeQuery = true)
+    int insert(String jobName, String owner, long lockedUntil);
+}
@@ -0,0 +1,55 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.entities.RateLimitBucket;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the shared rate limiter buckets.
+ * A token is taken with one conditional UPDATE, so concurrent requests for the same key only lock the row
+ * for the duration of that statement.
+ */
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    /**
+     * Refills a bucket and takes one token from it if at least one is available.
+     *
+     * @param bucketKey   the key of the bucket
+     * @param capacity    the burst size of the bucket
+     * @param tokensPerMs the number of tokens added per millisecond
+     * @param now         the current time in milliseconds
+     * @return 1 if a token was taken, 0 if the bucket is empty or does not exist
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RateLimitBucket b SET " +
+            "b.tokens = least(:capacity, b.tokens + greatest(:now - b.updatedAt, 0) * :tokensPerMs) - 1, " +
+            "b.updatedAt = greatest(b.updatedAt, :now), b.capacity = :capacity, b.tokensPerMs = :tokensPerMs " +
+            "WHERE b.bucketKey = :bucketKey " +
+            "AND least(:capacity, b.tokens + greatest(:now - b.updatedAt, 0) * :tokensPerMs) >= 1")
+    int take(String bucketKey, double capacity, double tokensPerMs, long now);
+
+    /**
+     * Puts back one token into a bucket, without exceeding its capacity.
+     *
+     * @param bucketKey the key of the bucket
+     * @param capacity  the burst size of the bucket
+     * @return 1 if the bucket exists, 0 otherwise
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE RateLimitBucket b SET b.tokens = least(:capacity, b.tokens + 1) WHERE b.bucketKey = :bucketKey")
+    int refund(String bucketKey, double capacity);
+
+    /**
+     * Deletes the buckets that have refilled completely.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM RateLimitBucket b WHERE b.tokens + (:now - b.updatedAt) * b.tokensPerMs >= b.capacity")
+    int deleteFull(long now);
+}
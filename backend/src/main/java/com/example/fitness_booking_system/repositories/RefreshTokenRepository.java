@@ -0,0 +1,57 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.entities.RefreshToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing refresh tokens.
+ * Provides lookup by token hash and bulk revocation and cleanup.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Finds a refresh token by the hash of its value.
+     *
+     * @param tokenHash the hex-encoded SHA-256 hash of the token
+     * @return an Optional containing the refresh token if found, or empty if not found
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks a token as used, if it has not been used yet.
+     *
+     * @param id the ID of the token
+     * @return 1 if the token was marked, 0 if it had already been used or revoked
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.id = :id AND r.revoked = false")
+    int markUsed(Long id);
+
+    /**
+     * Revokes all tokens of a family.
+     *
+     * @param familyId the ID of the token family
+     * @return the number of revoked tokens
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(String familyId);
+
+    /**
+     * Deletes the tokens that have expired.
+     *
+     * @param time the current time
+     * @return the number of deleted tokens
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :time")
+    int deleteExpired(LocalDateTime time);
+}
@@ -0,0 +1,45 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.entities.RevokedAccessToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for the revoked access tokens.
+ * Provides the reads for loading and polling the in-memory revocation list.
+ */
+@Repository
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, String> {
+
+    /**
+     * Finds the revocations of tokens that have not expired yet.
+     *
+     * @param time the current time
+     * @return the revocations still in effect
+     */
+    List<RevokedAccessToken> findByExpiresAtAfter(LocalDateTime time);
+
+    /**
+     * Finds the revocations made since a given time.
+     *
+     * @param time the time of the previous poll
+     * @return the revocations made at or after the time
+     */
+    List<RevokedAccessToken> findByRevokedAtGreaterThanEqual(LocalDateTime time);
+
+    /**
+     * Deletes the revocations of tokens that have expired.
+     *
+     * @param time the current time
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedAccessToken r WHERE r.expiresAt < :time")
+    int deleteExpired(LocalDateTime time);
+}
@@ -1,13 +1,26 @@
 package com.example.fitness_booking_system.repositories;
 
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterRowDTO;
+import com.example.fitness_booking_system.entities.BookingStatus;
 import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing time slots in the fitness booking system.
@@ -16,6 +29,91 @@ import java.util.List;
 @Repository
 public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
 
+    /**
+     * Upper bound for the length of a single time slot.
+     * Used to bound overlap checks by start time, so that they are pruned to the relevant partitions.
+     */
+    Duration MAX_SLOT_DURATION = Duration.ofDays(1);
+
+    /**
+     * Select clause projecting a time slot with its trainer and training type names directly into a TimeSlotDTO.
+     * The DTOs are not managed by the persistence context and need no lazy loading.
+     */
+    String SLOT_VIEW_PROJECTION = "SELECT new com.example.fitness_booking_system.dto.TimeSlotDTO(" +
+            "ts.id, t.id, u.fullName, tt.id, tt.name, ts.startTime, ts.endTime, " +
+            "ts.capacity, ts.bookedCount, ts.status, ts.capacity - ts.bookedCount) ";
+    String SLOT_VIEW_JOINS = "JOIN ts.trainer t JOIN t.user u JOIN ts.trainingType tt ";
+    String SLOT_VIEW_SELECT = SLOT_VIEW_PROJECTION + "FROM TimeSlot ts " + SLOT_VIEW_JOINS;
+
+    /**
+     * Finds all time slots as DTOs, using a single joined query.
+     *
+     * @return a list of all time slots ordered by start time
+     */
+    @Query(SLOT_VIEW_SELECT + "ORDER BY ts.startTime, ts.id")
+    List<TimeSlotDTO> findAllSlotViews();
+
+    /**
+     * Finds the time slots of a trainer within a given time range as DTOs, using a single joined query.
+     *
+     * @param trainerId the ID of the trainer
+     * @param start     the start time of the range
+     * @param end       the end time of the range
+     * @return a list of time slots for the trainer ordered by start time
+     */
+    @Query(SLOT_VIEW_SELECT + "WHERE t.id = :trainerId AND ts.startTime BETWEEN :start AND :end " +
+            "ORDER BY ts.startTime, ts.id")
+    List<TimeSlotDTO> findSlotViewsByTrainerIdAndStartTimeBetween(Long trainerId, LocalDateTime start,
+                                                                 LocalDateTime end);
+
+    /**
+     * Finds the roster of a trainer within a given time range: the time slots joined with the clients of their
+     * bookings with a given status, and the clients' users, in a single query.
+     * A time slot without such bookings is returned as one row without a client.
+     * The bookings are also bounded by their copy of the slot start time, so that they are pruned to the
+     * partitions of the range. Bookings whose copy has not been backfilled yet are matched by the join alone.
+     *
+     * @param trainerId the ID of the trainer
+     * @param start     the start time of the range
+     * @param end       the end time of the range
+     * @param status    the status of the bookings whose clients are included
+     * @return the rows ordered by start time, then by booking
+     */
+    @Query("SELECT new com.example.fitness_booking_system.dto.TimeSlotRosterRowDTO(" +
+            "ts.id, t.id, u.fullName, tt.id, tt.name, ts.startTime, ts.endTime, " +
+            "ts.capacity, ts.bookedCount, ts.status, ts.capacity - ts.bookedCount, " +
+            "c.id, cu.id, cu.fullName, cu.email, cu.phone, c.dateOfBirth, c.healthInformation, c.fitnessGoals) " +
+            "FROM TimeSlot ts " + SLOT_VIEW_JOINS +
+            "LEFT JOIN Booking b ON b.timeSlot = ts AND b.status = :status " +
+            "AND (b.slotStartTime BETWEEN :start AND :end OR b.slotStartTime IS NULL) " +
+            "LEFT JOIN b.client c LEFT JOIN c.user cu " +
+            "WHERE t.id = :trainerId AND ts.startTime BETWEEN :start AND :end " +
+            "ORDER BY ts.startTime, ts.id, b.id")
+    List<TimeSlotRosterRowDTO> findRosterRowsByTrainerIdAndStartTimeBetween(Long trainerId, LocalDateTime start,
+                                                                           LocalDateTime end, BookingStatus status);
+
+    /**
+     * Finds a single time slot as a DTO, using a single joined query.
+     *
+     * @param id the ID of the time slot
+     * @return an Optional containing the time slot if found, or empty if not found
+     */
+    @Query(SLOT_VIEW_SELECT + "WHERE ts.id = :id")
+    Optional<TimeSlotDTO> findSlotViewById(Long id);
+
+    /**
+     * Streams the time slots starting within a given time range as DTOs.
+     * Rows are fetched from the database cursor in chunks of the fetch size instead of all at once,
+     * so the stream must be consumed and closed inside a transaction.
+     *
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     * @return a stream of time slots ordered by start time
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SLOT_VIEW_SELECT + "WHERE ts.startTime >= :start AND ts.startTime < :end ORDER BY ts.startTime, ts.id")
+    Stream<TimeSlotDTO> streamSlotViewsByStartTimeBetween(LocalDateTime start, LocalDateTime end);
+
     /**
      * Finds all time slots for a specific trainer within a given time range.
      *
@@ -35,7 +133,64 @@ public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
      * @param endTime   the end time of the range
      * @return true if there are overlapping time slots, false otherwise
      */
+    default boolean hasOverlappingTimeSlot(Long trainerId, LocalDateTime startTime, LocalDateTime endTime) {
+        return hasOverlappingTimeSlotStartingAfter(trainerId, startTime.minus(MAX_SLOT_DURATION), startTime, endTime);
+    }
+
+    /**
+     * Checks for overlapping time slots, considering only slots that start after a given lower bound.
+     * Cancelled slots do not block the time range.
+     * The lower bound on start time lets PostgreSQL prune the monthly partitions of time_slots.
+     *
+     * @param trainerId     the ID of the trainer
+     * @param earliestStart slots starting at or before this time are not considered
+     * @param startTime     the start time of the range
+     * @param endTime       the end time of the range
+     * @return true if there are overlapping time slots, false otherwise
+     */
     @Query("SELECT COUNT(ts) > 0 FROM TimeSlot ts WHERE ts.trainer.id = :trainerId " +
+            "AND ts.status <> com.example.fitness_booking_system.entities.TimeSlotStatus.CANCELLED " +
+            "AND ts.startTime > :earliestStart " +
             "AND ((ts.startTime < :endTime AND ts.endTime > :startTime))")
-    boolean hasOverlappingTimeSlot(Long trainerId, LocalDateTime startTime, LocalDateTime endTime);
-}
\ No newline at end of file
+    boolean hasOverlappingTimeSlotStartingAfter(Long trainerId, LocalDateTime earliestStart,
+                                                LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * Finds the time ranges taken by the not cancelled time slots of a trainer within a given time range.
+     * Used for building the free/busy bitmaps of the trainer.
+     *
+     * @param trainerId     the ID of the trainer
+     * @param earliestStart slots starting at or before this time are not considered
+     * @param start         the start of the range
+     * @param end           the end of the range
+     * @return the time ranges of the slots touching the range
+     */
+    @Query("SELECT new com.example.fitness_booking_system.dto.TimeRangeDTO(ts.startTime, ts.endTime) " +
+            "FROM TimeSlot ts WHERE ts.trainer.id = :trainerId " +
+            "AND ts.status <> com.example.fitness_booking_system.entities.TimeSlotStatus.CANCELLED " +
+            "AND ts.startTime > :earliestStart AND ts.startTime < :end AND ts.endTime > :start")
+    List<TimeRangeDTO> findBusyTimeRanges(Long trainerId, LocalDateTime earliestStart,
+                                          LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Adds (or, with a negative count, removes) bookings of a time slot with one statement, so that concurrent
+     * changes of the same slot never overwrite each other's count.
+     * Bookings are only added while the slot is available and has enough seats; the status becomes BOOKED
+     * when the slot is full. Removing bookings works in any status and makes a BOOKED slot available again.
+     *
+     * @param id     the ID of the time slot
+     * @param count  the number of bookings to add, negative to remove
+     * @param booked the status of a full slot
+     * @return 1 if the count was changed, 0 if the slot no longer has enough free seats (or bookings to remove)
+     */
+    @Modifying
+    @Query("UPDATE TimeSlot ts SET ts.bookedCount = ts.bookedCount + :count, " +
+            "ts.status = CASE WHEN :count > 0 AND ts.bookedCount + :count >= ts.capacity THEN :booked " +
+            "WHEN :count < 0 AND ts.status = :booked " +
+            "THEN com.example.fitness_booking_system.entities.TimeSlotStatus.AVAILABLE " +
+            "ELSE ts.status END " +
+            "WHERE ts.id = :id " +
+            "AND (:count < 0 OR ts.status = com.example.fitness_booking_system.entities.TimeSlotStatus.AVAILABLE) " +
+            "AND ts.bookedCount + :count BETWEEN 0 AND ts.capacity")
+    int addBookings(Long id, int count, TimeSlotStatus booked);
+}
@@ -0,0 +1,120 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO;
+import com.example.fitness_booking_system.entities.TrainerDailyStats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for the trainer utilization rollup.
+ * Provides an in-place increment of the counters, a range read for the trainer dashboard,
+ * the aggregates of the raw rows the rollup is reconciled against and the overwrite used for corrections.
+ */
+@Repository
+public interface TrainerDailyStatsRepository extends JpaRepository<TrainerDailyStats, Long> {
+
+    /**
+     * Adds deltas to the counters of an existing rollup row.
+     *
+     * @param trainerId      the ID of the trainer
+     * @param trainingTypeId the ID of the training type
+     * @param statDate       the day of the row
+     * @param slotsOffered   the change of the offered slots
+     * @param seatsOffered   the change of the offered seats
+     * @param seatsBooked    the change of the booked seats
+     * @param cancellations  the change of the cancelled bookings
+     * @return the number of updated rows, 0 if the row does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE TrainerDailyStats s SET s.slotsOffered = s.slotsOffered + :slotsOffered, " +
+            "s.seatsOffered = s.seatsOffered + :seatsOffered, s.seatsBooked = s.seatsBooked + :seatsBooked, " +
+            "s.cancellations = s.cancellations + :cancellations " +
+            "WHERE s.trainerId = :trainerId AND s.statDate = :statDate AND s.trainingTypeId = :trainingTypeId")
+    int increment(Long trainerId, Long trainingTypeId, LocalDate statDate,
+                  long slotsOffered, long seatsOffered, long seatsBooked, long cancellations);
+
+    /**
+     * Overwrites the counters of a rollup row, if it still has the expected values.
+     * Used by the reconcile, so that a correction is never added on top of a change written after the comparison.
+     *
+     * @param trainerId             the ID of the trainer
+     * @param trainingTypeId        the ID of the training type
+     * @param statDate              the day of the row
+     * @param expectedSlotsOffered  the offered slots the row was compared with
+     * @param expectedSeatsOffered  the offered seats the row was compared with
+     * @param expectedSeatsBooked   the booked seats the row was compared with
+     * @param expectedCancellations the cancelled bookings the row was compared with
+     * @param slotsOffered          the corrected offered slots
+     * @param seatsOffered          the corrected offered seats
+     * @param seatsBooked           the corrected booked seats
+     * @param cancellations         the corrected cancelled bookings
+     * @return the number of updated rows, 0 if the row does not exist or has changed
+     */
+    @Modifying
+    @Query("UPDATE TrainerDailyStats s SET s.slotsOffered = :slotsOffered, s.seatsOffered = :seatsOffered, " +
+            "s.seatsBooked = :seatsBooked, s.cancellations = :cancellations " +
+            "WHERE s.trainerId = :trainerId AND s.statDate = :statDate AND s.trainingTypeId = :trainingTypeId " +
+            "AND s.slotsOffered = :expectedSlotsOffered AND s.seatsOffered = :expectedSeatsOffered " +
+            "AND s.seatsBooked = :expectedSeatsBooked AND s.cancellations = :expectedCancellations")
+    int replace(Long trainerId, Long trainingTypeId, LocalDate statDate,
+                long expectedSlotsOffered, long expectedSeatsOffered, long expectedSeatsBooked, long expectedCancellations,
+                long slotsOffered, long seatsOffered, long seatsBooked, long cancellations);
+
+    /**
+     * Finds the rollup rows of a trainer within a range of days.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return the rows ordered by day and training type
+     */
+    List<TrainerDailyStats> findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(
+            Long trainerId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Finds the rollup rows of all trainers within a range of days.
+     *
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return the rows
+     */
+    List<TrainerDailyStats> findByStatDateBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Counts the offered (not cancelled) time slots and their seats per trainer, training type and day.
+     *
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     * @return the slot counters, the booking counters are zero
+     */
+    @Query("SELECT new com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO(" +
+            "ts.trainer.id, ts.trainingType.id, cast(ts.startTime as LocalDate), count(ts), sum(ts.capacity), 0L, 0L) " +
+            "FROM TimeSlot ts " +
+            "WHERE ts.startTime >= :start AND ts.startTime < :end " +
+            "AND ts.status <> com.example.fitness_booking_system.entities.TimeSlotStatus.CANCELLED " +
+            "GROUP BY ts.trainer.id, ts.trainingType.id, cast(ts.startTime as LocalDate)")
+    List<TrainerStatsTotalsDTO> sumTimeSlots(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Counts the booked seats and the cancelled bookings per trainer, training type and day of the booked slot.
+     *
+     * @param start the start of the range (inclusive)
+     * @param end   the end of the range (exclusive)
+     * @return the booking counters, the slot counters are zero
+     */
+    @Query("SELECT new com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO(" +
+            "ts.trainer.id, ts.trainingType.id, cast(ts.startTime as LocalDate), 0L, 0L, " +
+            "sum(CASE WHEN b.status = com.example.fitness_booking_system.entities.BookingStatus.CANCELLED THEN 0L ELSE 1L END), " +
+            "sum(CASE WHEN b.status = com.example.fitness_booking_system.entities.BookingStatus.CANCELLED THEN 1L ELSE 0L END)) " +
+            "FROM Booking b JOIN b.timeSlot ts " +
+            "WHERE ts.startTime >= :start AND ts.startTime < :end " +
+            "GROUP BY ts.trainer.id, ts.trainingType.id, cast(ts.startTime as LocalDate)")
+    List<TrainerStatsTotalsDTO> sumBookings(LocalDateTime start, LocalDateTime end);
+}
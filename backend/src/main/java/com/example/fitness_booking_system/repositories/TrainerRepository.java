@@ -5,8 +5,12 @@ import com.example.fitness_booking_system.entities.Trainer;
 import com.example.fitness_booking_system.entities.User;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +26,51 @@ public interface TrainerRepository extends JpaRepository<Trainer, Long> {
      * @return an Optional containing the Trainer if found, or empty if not found
      */
     Optional<Trainer> findByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * Finds the ID of the trainer profile of a user.
+     *
+     * @param email the email of the user
+     * @return the trainer ID, or empty if the user is not a trainer
+     */
+    @Query("SELECT t.id FROM Trainer t WHERE t.user.email = :email")
+    Optional<Long> findIdByUserEmail(String email);
+
+    /**
+     * Finds all trainers together with their user and specializations in one query.
+     *
+     * @return all trainers with the attributes of their profile
+     */
+    @Query("SELECT DISTINCT t FROM Trainer t JOIN FETCH t.user LEFT JOIN FETCH t.specializations ORDER BY t.id")
+    List<Trainer> findAllWithProfiles();
+
+    /**
+     * Finds all trainers together with their user, specializations and training types in one query.
+     * Used for building the trainer search index.
+     *
+     * @return all trainers with the attributes needed for searching
+     */
+    @Query("SELECT DISTINCT t FROM Trainer t JOIN FETCH t.user " +
+            "LEFT JOIN FETCH t.specializations LEFT JOIN FETCH t.trainingTypes")
+    List<Trainer> findAllForSearchIndex();
+
+    /**
+     * Finds the calendar feed version of a trainer, if the feed token belongs to the trainer's user.
+     *
+     * @param id        the ID of the trainer
+     * @param tokenHash the hash of the feed token from the feed URL
+     * @return the feed version, or empty if the trainer does not exist or the token is not the trainer's
+     */
+    @Query("SELECT t.feedVersion FROM Trainer t WHERE t.id = :id AND t.user.calendarTokenHash = :tokenHash")
+    Optional<Long> findFeedVersionByIdAndTokenHash(Long id, String tokenHash);
+
+    /**
+     * Increases the calendar feed versions of trainers.
+     *
+     * @param ids the IDs of the trainers
+     * @return the number of updated trainers
+     */
+    @Modifying
+    @Query("UPDATE Trainer t SET t.feedVersion = t.feedVersion + 1 WHERE t.id IN :ids")
+    int incrementFeedVersions(Collection<Long> ids);
+}
@@ -1,10 +1,15 @@
 package com.example.fitness_booking_system.repositories;
 
+import com.example.fitness_booking_system.dto.LoginUserDTO;
 import com.example.fitness_booking_system.entities.User;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -13,6 +18,14 @@ import java.util.Optional;
  */
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    /**
+     * Select clause projecting a user with the IDs of their client and trainer profiles into a LoginUserDTO.
+     */
+    String LOGIN_VIEW_SELECT = "SELECT new com.example.fitness_booking_system.dto.LoginUserDTO(" +
+            "u.id, u.email, u.fullName, u.password, u.role, c.id, t.id) " +
+            "FROM User u LEFT JOIN Client c ON c.user = u LEFT JOIN Trainer t ON t.user = u ";
+
     /**
      * Finds a User entity by email.
      *
@@ -28,4 +41,42 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true if a user with the given email exists, false otherwise
      */
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Finds the credentials, role and profile ID of a user by email with a single joined query, for the login.
+     *
+     * @param email the email of the user
+     * @return an Optional containing the login data if the user exists, or empty if not found
+     */
+    @Query(LOGIN_VIEW_SELECT + "WHERE u.email = :email")
+    Optional<LoginUserDTO> findLoginByEmail(String email);
+
+    /**
+     * Finds the credentials, role and profile ID of a user by ID with a single joined query, for refreshing tokens.
+     *
+     * @param id the ID of the user
+     * @return an Optional containing the login data if the user exists, or empty if not found
+     */
+    @Query(LOGIN_VIEW_SELECT + "WHERE u.id = :id")
+    Optional<LoginUserDTO> findLoginById(Long id);
+
+    /**
+     * Retrieves the login data of all users with one of the given emails in a single query.
+     *
+     * @param emails the emails to look up
+     * @return the login data of the users that exist
+     */
+    @Query(LOGIN_VIEW_SELECT + "WHERE u.email IN :emails")
+    List<LoginUserDTO> findLoginsByEmailIn(Collection<String> emails);
+
+    /**
+     * Replaces the hash of the calendar feed token of a user.
+     *
+     * @param email     the email of the user
+     * @param tokenHash the hash of the new feed token
+     * @return the number of updated users
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.calendarTokenHash = :tokenHash WHERE u.email = :email")
+    int updateCalendarTokenHash(String email, String tokenHash);
+}
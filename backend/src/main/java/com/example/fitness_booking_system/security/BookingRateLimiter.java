@@ -0,0 +1,129 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+
+/**
+ * Token-bucket throttling of the booking and cancellation requests.
+ * A booking takes one token from the bucket of the authenticated user and one from the bucket of the time slot,
+ * so that neither a single script nor a crowd retrying a popular class can flood the booking path; a cancellation
+ * takes one token from the bucket of the user. The buckets are keyed on the principal rather than on the client ID
+ * in the path, so a caller cannot spread its requests over other clients' buckets or drain theirs.
+ * When the slot bucket rejects a booking, the user's token is put back. A slot that has an admission lane is not
+ * throttled by its bucket, as the lane already queues its requests in order and answers them at once when the slot
+ * is full. The check runs in the controller before the booking service is called, so a rejected request runs
+ * no booking queries.
+ * The buckets are kept by the configured {@link RateLimitStore}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingRateLimiter {
+
+    /**
+     * Message returned when a request is throttled.
+     */
+    private static final String THROTTLED_MESSAGE = "Твърде много заявки за резервация. Моля, опитайте отново по-късно";
+
+    /**
+     * Store of the buckets.
+     */
+    private final RateLimitStore rateLimitStore;
+
+    /**
+     * Clock used for refilling the buckets.
+     */
+    private final Clock clock;
+
+    /**
+     * Registry for the throttling metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Burst size and sustained rate of booking and cancellation requests per user.
+     */
+    @Value("${app.booking.rate-limit.client.capacity:5}")
+    private int clientCapacity;
+    @Value("${app.booking.rate-limit.client.per-minute:10}")
+    private int clientPerMinute;
+
+    /**
+     * Burst size and sustained rate of booking requests per time slot.
+     */
+    @Value("${app.booking.rate-limit.slot.capacity:50}")
+    private int slotCapacity;
+    @Value("${app.booking.rate-limit.slot.per-minute:300}")
+    private int slotPerMinute;
+
+    private Counter throttledCounter;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        throttledCounter = Counter.builder("booking.rate_limit.throttled").register(meterRegistry);
+    }
+
+    /**
+     * Takes one token for a booking request from the buckets of the user and of the time slot.
+     *
+     * @param username   the name (email) of the authenticated user
+     * @param timeSlotId the ID of the time slot, or null if missing from the request or if the slot is not throttled
+     * @throws TooManyRequestsException if either bucket is empty
+     */
+    public void acquireBooking(String username, Long timeSlotId) {
+        long now = clock.millis();
+        String userKey = userKey(username);
+        long retryAfterMs = rateLimitStore.take(userKey, clientCapacity, clientPerMinute, now);
+        if (retryAfterMs == 0 && timeSlotId != null) {
+            retryAfterMs = rateLimitStore.take("booking-slot:" + timeSlotId, slotCapacity, slotPerMinute, now);
+            if (retryAfterMs > 0) {
+                // The request is not served, so it must not count against the user
+                rateLimitStore.refund(userKey, clientCapacity, now);
+            }
+        }
+        reject(retryAfterMs);
+    }
+
+    /**
+     * Takes one token for a cancellation request from the bucket of the user.
+     *
+     * @param username the name (email) of the authenticated user
+     * @throws TooManyRequestsException if the bucket is empty
+     */
+    public void acquireCancellation(String username) {
+        reject(rateLimitStore.take(userKey(username), clientCapacity, clientPerMinute, clock.millis()));
+    }
+
+    /**
+     * Removes the buckets that have refilled completely.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval-ms:60000}")
+    public void evictFullBuckets() {
+        rateLimitStore.evictFullBuckets(clock.millis());
+    }
+
+    private static String userKey(String username) {
+        return "booking-user:" + username;
+    }
+
+    private void reject(long retryAfterMs) {
+        if (retryAfterMs > 0) {
+            throttledCounter.increment();
+            throw new TooManyRequestsException(THROTTLED_MESSAGE, (retryAfterMs + 999) / 1000);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.entities.RateLimitBucket;
+import com.example.fitness_booking_system.repositories.RateLimitBucketRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+/**
+ * Rate limit store keeping the buckets in the rate_limit_buckets table, shared by all instances.
+ * An allowed request costs one UPDATE; a rejected request one more SELECT for the Retry-After time.
+ * If the database cannot be reached the request is allowed, so that the limiter does not add an outage
+ * of its own. Used when app.rate-limit.store=database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "database")
+public class DatabaseRateLimitStore implements RateLimitStore {
+
+    /**
+     * Repository for the buckets.
+     */
+    private final RateLimitBucketRepository rateLimitBucketRepository;
+
+    /**
+     * Transaction template for the single-statement updates.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public long take(String key, int capacity, int perMinute, long now) {
+        double tokensPerMs = perMinute / 60_000.0;
+        try {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                if (update(key, capacity, tokensPerMs, now) > 0) {
+                    return 0;
+                }
+                Optional<RateLimitBucket> bucket = rateLimitBucketRepository.findById(key);
+                if (bucket.isPresent()) {
+                    double tokens = Math.min(capacity, bucket.get().getTokens()
+                            + Math.max(0, now - bucket.get().getUpdatedAt()) * tokensPerMs);
+                    return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMs));
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> rateLimitBucketRepository.saveAndFlush(
+                            new RateLimitBucket(key, capacity - 1, capacity, tokensPerMs, now)));
+                    return 0;
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created the bucket first; take the token from its row
+                }
+            }
+            return 0;
+        } catch (DataAccessException e) {
+            log.warn("Could not check rate limit {}, allowing the request: {}", key, e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public void refund(String key, int capacity, long now) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> rateLimitBucketRepository.refund(key, capacity));
+        } catch (DataAccessException e) {
+            log.warn("Could not refund rate limit {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public int evictFullBuckets(long now) {
+        Integer deleted = transactionTemplate.execute(status -> rateLimitBucketRepository.deleteFull(now));
+        return deleted != null ? deleted : 0;
+    }
+
+    private int update(String key, int capacity, double tokensPerMs, long now) {
+        Integer updated = transactionTemplate.execute(status ->
+                rateLimitBucketRepository.take(key, capacity, tokensPerMs, now));
+        return updated != null ? updated : 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.fitness_booking_system.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limit store keeping the buckets in the memory of the instance.
+ * The map is lock-striped and every bucket is locked on its own, so requests for different keys never wait
+ * for each other. Used unless app.rate-limit.store=database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    /**
+     * Buckets by key.
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long take(String key, int capacity, int perMinute, long now) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, perMinute / 60_000.0, now)).take(now);
+    }
+
+    @Override
+    public void refund(String key, int capacity, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.refund(now);
+        }
+    }
+
+    @Override
+    public int evictFullBuckets(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        return Math.max(0, before - buckets.size());
+    }
+
+    /**
+     * Returns the number of buckets currently kept.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
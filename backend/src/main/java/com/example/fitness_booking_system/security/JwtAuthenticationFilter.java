@@ -1,8 +1,5 @@
 package com.example.fitness_booking_system.security;
 
-import com.example.fitness_booking_system.entities.User;
-import com.example.fitness_booking_system.repositories.UserRepository;
-
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
@@ -26,7 +23,6 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.Optional;
 
 /**
  * Filter for JWT authentication in the fitness booking system.
@@ -34,6 +30,8 @@ import java.util.Optional;
  * validates it, and sets the authentication in the security context if valid.
  * It extracts the user details and role from the token,
  * and creates an authentication object to be used by Spring Security.
+ * The request is authorized from the signed token and the in-memory revocation list alone, without a database query;
+ * access tokens are short-lived, and revoked ones are rejected by their token ID.
  * * If the token is invalid or expired, it logs the error but does not stop the request processing.
  * * This allows the request to continue even if the user is not authenticated,
  * which is useful for public endpoints or when the user is not required to be authenticated.
@@ -49,14 +47,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private final JwtUtil jwtUtil;
     /**
-     * UserRepository instance for fetching user details from the database.
+     * In-memory list of the revoked access tokens.
      */
-    private final UserRepository userRepository;
+    private final TokenRevocationList tokenRevocationList;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationList tokenRevocationList) {
         this.jwtUtil = jwtUtil;
-        this.userRepository = userRepository;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     /**
@@ -87,33 +85,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String token = authorizationHeader.substring(7);
 
         try {
-            // Use JwtUtil to extract the username from the token
-            String email = jwtUtil.extractUsername(token);
-
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Extract all claims from the token to get the role
-                Claims claims = jwtUtil.extractAllClaims(token);
+            // Parse and verify the token once; expired or tampered tokens throw
+            Claims claims = jwtUtil.extractAllClaims(token);
+            String email = claims.getSubject();
+            String tokenId = claims.getId();
+
+            // Tokens without an ID cannot be revoked and are not accepted
+            if (email != null && tokenId != null && !tokenRevocationList.isRevoked(tokenId)
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
                 String role = (String) claims.get("role");
 
-                // Check if the user exists in the database
-                Optional<User> userOpt = userRepository.findByEmail(email);
-                if (userOpt.isPresent()) {
-
-                    // Create a UserDetails object with the user's email and role
-                    UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                            email,
-                            "",
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
+                // Create a UserDetails object with the user's email and role
+                UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                        email,
+                        "",
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                );
 
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    // Set the authentication in the SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                }
+                // Set the authentication in the SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
 
         } catch (SignatureException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException |
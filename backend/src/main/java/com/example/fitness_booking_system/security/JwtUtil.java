@@ -13,6 +13,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -29,10 +30,10 @@ public class JwtUtil {
     private String secretKey;
 
     /**
-     * Expiration time for JWT tokens in milliseconds.
-     * Default is set to 24 hours (86400000 milliseconds).
+     * Expiration time for JWT access tokens in milliseconds.
+     * Default is set to 15 minutes (900000 milliseconds); clients get new access tokens with their refresh token.
      */
-    @Value("${jwt.expiration:86400000}")
+    @Value("${jwt.expiration:900000}")
     private long jwtExpiration;
 
     // Public method to get the signing key
@@ -41,6 +42,11 @@ public class JwtUtil {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
+    // Expiration time of the access tokens in milliseconds.
+    public long getExpirationMs() {
+        return jwtExpiration;
+    }
+
     // Generation of JWT token with email and role.
     public String generateToken(String email, String role) {
         Map<String, Object> claims = new HashMap<>();
@@ -53,6 +59,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString()) // the jti claim, used for revoking the token
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256) // the algorithm
@@ -64,6 +71,11 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // Getting the token ID (jti claim) from the JWT token.
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
     // Method for getting concrete claim from JWT token.
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
         final Claims claims = extractAllClaims(token);
@@ -0,0 +1,111 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token-bucket throttling of the login and registration attempts per client IP and per client IP and email.
+ * Every key has a bucket of a fixed capacity that refills continuously; an attempt takes one token
+ * and is rejected with 429 Too Many Requests when the bucket is empty, before any password is hashed.
+ * The second bucket slows down password guessing against a single account. It is keyed on the IP as well,
+ * so attempts from other addresses cannot lock the owner of the account out.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimiter {
+
+    /**
+     * Message returned when an attempt is throttled.
+     */
+    private static final String THROTTLED_MESSAGE = "Твърде много опити за вход. Моля, опитайте отново по-късно";
+
+    /**
+     * Clock used for refilling the buckets.
+     */
+    private final Clock clock;
+
+    /**
+     * Registry for the throttling metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Burst size and sustained rate of attempts per client IP.
+     */
+    @Value("${app.auth.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    @Value("${app.auth.rate-limit.ip.per-minute:10}")
+    private int ipPerMinute;
+
+    /**
+     * Burst size and sustained rate of attempts per client IP and email.
+     */
+    @Value("${app.auth.rate-limit.email.capacity:5}")
+    private int emailCapacity;
+    @Value("${app.auth.rate-limit.email.per-minute:2}")
+    private int emailPerMinute;
+
+    /**
+     * Buckets by key ("ip:" followed by the IP, or "email:" followed by the IP and the email).
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private Counter throttledCounter;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        throttledCounter = Counter.builder("auth.rate_limit.throttled").register(meterRegistry);
+        meterRegistry.gaugeMapSize("auth.rate_limit.buckets", List.of(), buckets);
+    }
+
+    /**
+     * Takes one token for an attempt from the buckets of the client IP and of the IP and email.
+     *
+     * @param clientIp the IP address of the client
+     * @param email    the email the attempt is for, or null if unknown
+     * @throws TooManyRequestsException if either bucket is empty
+     */
+    public void acquire(String clientIp, String email) {
+        long now = clock.millis();
+        long retryAfterMs = take("ip:" + clientIp, ipCapacity, ipPerMinute, now);
+        if (retryAfterMs == 0 && email != null) {
+            retryAfterMs = take("email:" + clientIp + "/" + email.trim().toLowerCase(Locale.ROOT), emailCapacity, emailPerMinute, now);
+        }
+        if (retryAfterMs > 0) {
+            throttledCounter.increment();
+            throw new TooManyRequestsException(THROTTLED_MESSAGE, (retryAfterMs + 999) / 1000);
+        }
+    }
+
+    /**
+     * Removes the buckets that have refilled completely, so that the map only holds recently active keys.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.rate-limit.cleanup-interval-ms:60000}")
+    public void evictFullBuckets() {
+        long now = clock.millis();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private long take(String key, int capacity, int perMinute, long now) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, perMinute / 60_000.0, now)).take(now);
+    }
+}
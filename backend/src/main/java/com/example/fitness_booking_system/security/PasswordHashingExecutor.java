@@ -0,0 +1,181 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the password hashing and verification on a small dedicated thread pool with a bounded queue.
+ * BCrypt is deliberately expensive; running it on the request threads lets a burst of logins occupy every core
+ * and starve all other requests. Here at most a fixed number of hashes run at once, a limited number wait,
+ * and everything beyond that is rejected immediately with 429 Too Many Requests.
+ * Exposes the metrics auth.password.hash (latency by operation), auth.password.queue (queue depth),
+ * auth.password.active and auth.password.rejected.
+ */
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingExecutor {
+
+    /**
+     * Message returned when password hashing is saturated.
+     */
+    private static final String SATURATED_MESSAGE = "Твърде много заявки за вход. Моля, опитайте отново след малко";
+
+    /**
+     * The password encoder doing the actual hashing.
+     */
+    private final PasswordEncoder passwordEncoder;
+
+    /**
+     * Registry for the hashing metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Number of hashing threads; by default half of the cores, so hashing can never occupy all of them.
+     */
+    @Value("${app.auth.hashing.threads:0}")
+    private int threads;
+
+    /**
+     * Maximum number of hashing tasks waiting for a thread.
+     */
+    @Value("${app.auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * Maximum time a request waits for its hash, including the time in the queue.
+     */
+    @Value("${app.auth.hashing.timeout-ms:3000}")
+    private long timeoutMs;
+
+    /**
+     * Hash of a random password, verified for unknown emails with the same cost as a stored hash.
+     */
+    private String dummyHash;
+
+    private ThreadPoolExecutor executor;
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Counter rejectedCounter;
+
+    /**
+     * Starts the hashing threads and registers the metrics.
+     */
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+
+        encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        rejectedCounter = Counter.builder("auth.password.rejected").register(meterRegistry);
+        meterRegistry.gauge("auth.password.queue", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.password.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hashes a raw password.
+     *
+     * @param rawPassword the raw password
+     * @return the encoded password
+     */
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Verifies a raw password against an encoded one.
+     *
+     * @param rawPassword     the raw password
+     * @param encodedPassword the stored encoded password
+     * @return true if the passwords match
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Verifies a raw password against a hash that no password matches.
+     * Used when no user has the given email, so that the login takes as long as for a registered email
+     * and its response time does not reveal which emails are registered.
+     *
+     * @param rawPassword the raw password
+     */
+    public void matchesNone(CharSequence rawPassword) {
+        matches(rawPassword, dummyHash);
+    }
+
+    /**
+     * Returns the number of hashing tasks waiting for a thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException(SATURATED_MESSAGE, 1);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new TooManyRequestsException(SATURATED_MESSAGE, 1);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прекъснато изчакване на хеширането на паролата", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.fitness_booking_system.security;
+
+/**
+ * Storage of the token buckets of a rate limiter.
+ * The in-memory store limits every instance on its own; the database store shares the buckets
+ * between the instances (app.rate-limit.store=database).
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from a bucket, creating the bucket full if it does not exist.
+     *
+     * @param key       the key of the bucket
+     * @param capacity  the burst size of the bucket
+     * @param perMinute the number of tokens added per minute
+     * @param now       the current time in milliseconds
+     * @return 0 if a token was taken, otherwise the milliseconds until the next token
+     */
+    long take(String key, int capacity, int perMinute, long now);
+
+    /**
+     * Puts back a token taken from a bucket, e.g. when another bucket rejected the same request.
+     *
+     * @param key      the key of the bucket
+     * @param capacity the burst size of the bucket
+     * @param now      the current time in milliseconds
+     */
+    void refund(String key, int capacity, long now);
+
+    /**
+     * Removes the buckets that have refilled completely, so that only recently active keys are kept.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of removed buckets
+     */
+    int evictFullBuckets(long now);
+}
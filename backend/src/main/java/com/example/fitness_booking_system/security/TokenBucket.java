@@ -0,0 +1,55 @@
+package com.example.fitness_booking_system.security;
+
+/**
+ * A bucket of tokens refilling at a constant rate up to its capacity.
+ */
+final class TokenBucket {
+    private final int capacity;
+    private final double tokensPerMs;
+    private double tokens;
+    private long updatedAt;
+
+    TokenBucket(int capacity, double tokensPerMs, long now) {
+        this.capacity = capacity;
+        this.tokensPerMs = tokensPerMs;
+        this.tokens = capacity;
+        this.updatedAt = now;
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param now the current time in milliseconds
+     * @return 0 if a token was taken, otherwise the milliseconds until the next token
+     */
+    synchronized long take(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerMs);
+    }
+
+    /**
+     * Puts back one token, without exceeding the capacity.
+     *
+     * @param now the current time in milliseconds
+     */
+    synchronized void refund(long now) {
+        refill(now);
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        if (now > updatedAt) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerMs);
+            updatedAt = now;
+        }
+    }
+}
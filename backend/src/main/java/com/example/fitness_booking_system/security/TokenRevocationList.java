@@ -0,0 +1,217 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.datasource.ReplicationRoutingDataSource;
+import com.example.fitness_booking_system.entities.RevokedAccessToken;
+import com.example.fitness_booking_system.repositories.RevokedAccessTokenRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * In-memory list of the revoked access tokens, so that the authentication filter can reject them
+ * without a database query.
+ * A Bloom filter answers "definitely not revoked" for almost every token with a few bit lookups;
+ * only tokens it reports as possibly revoked are checked against the exact set of revocations.
+ * Both only hold revocations of tokens that have not expired yet, which with short-lived access tokens stays small.
+ * Revocations made on this instance take effect immediately; the ones made on other instances
+ * are picked up from the revoked_access_tokens table every poll interval.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationList {
+
+    /**
+     * Repository for the revoked access tokens.
+     */
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    /**
+     * Clock used for the expiration of the revocations.
+     */
+    private final Clock clock;
+
+    /**
+     * How often the revocations of the other instances are polled.
+     * Polls overlap by the same interval, so revocations committed late are not missed.
+     */
+    @Value("${app.auth.revocation.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    /**
+     * Exact set of the revoked token IDs with the expiration of each token.
+     */
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Bloom filter over the keys of {@link #revoked}; rebuilt when expired revocations are dropped.
+     */
+    private volatile BloomFilter bloomFilter = new BloomFilter();
+
+    /**
+     * Start of the next poll.
+     */
+    private LocalDateTime pollFrom;
+
+    /**
+     * Checks whether an access token has been revoked.
+     *
+     * @param tokenId the ID (jti claim) of the token
+     * @return true if the token has been revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        return bloomFilter.mightContain(tokenId) && revoked.containsKey(tokenId);
+    }
+
+    /**
+     * Revokes an access token: stores the revocation for the other instances
+     * and adds it to this instance's list once the transaction commits.
+     *
+     * @param tokenId   the ID (jti claim) of the token
+     * @param expiresAt when the token expires
+     */
+    public void revoke(String tokenId, LocalDateTime expiresAt) {
+        revokedAccessTokenRepository.save(new RevokedAccessToken(tokenId, expiresAt, LocalDateTime.now(clock)));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(tokenId, expiresAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(tokenId, expiresAt);
+            }
+        });
+    }
+
+    /**
+     * Loads the revocations still in effect when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        readFromPrimary(() -> revokedAccessTokenRepository.findByExpiresAtAfter(now))
+                .forEach(revocation -> add(revocation.getTokenId(), revocation.getExpiresAt()));
+        pollFrom = now.minusNanos(pollIntervalMs * 1_000_000);
+        log.info("Loaded {} revoked access tokens", revoked.size());
+    }
+
+    /**
+     * Picks up the revocations made since the previous poll and drops the ones of expired tokens.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        if (pollFrom == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            readFromPrimary(() -> revokedAccessTokenRepository.findByRevokedAtGreaterThanEqual(pollFrom))
+                    .forEach(revocation -> add(revocation.getTokenId(), revocation.getExpiresAt()));
+            pollFrom = now.minusNanos(pollIntervalMs * 1_000_000);
+        } catch (DataAccessException e) {
+            // pollFrom is kept, so the next poll covers this one as well
+            log.warn("Could not poll revoked access tokens: {}", e.getMessage());
+        }
+
+        if (revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now))) {
+            rebuildBloomFilter();
+        }
+    }
+
+    /**
+     * Returns the number of revocations in effect.
+     *
+     * @return the size of the exact set
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    private void add(String tokenId, LocalDateTime expiresAt) {
+        if (expiresAt.isAfter(LocalDateTime.now(clock))) {
+            revoked.put(tokenId, expiresAt);
+            bloomFilter.put(tokenId);
+        }
+    }
+
+    private synchronized void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter();
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+        // Revocations added while rebuilding may have gone to the previous filter only
+        revoked.keySet().forEach(rebuilt::put);
+    }
+
+    private static List<RevokedAccessToken> readFromPrimary(Supplier<List<RevokedAccessToken>> query) {
+        // A lagging replica would let revoked tokens through until the next poll after it catches up
+        return ReplicationRoutingDataSource.runOnPrimary(query);
+    }
+
+    /**
+     * Fixed-size Bloom filter with four hash functions derived from two base hashes.
+     * 2^16 bits (8 KB) keep the false positive rate below 1% up to several thousand revocations.
+     */
+    static final class BloomFilter {
+        private static final int BITS = 1 << 16;
+        private static final int HASHES = 4;
+
+        private final AtomicLongArray words = new AtomicLongArray(BITS / 64);
+
+        void put(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (BITS - 1);
+                long mask = 1L << bit;
+                words.getAndUpdate(bit >>> 6, word -> word | mask);
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (BITS - 1);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 64-bit FNV-1a hash with a final avalanche step.
+         */
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.fitness_booking_system.serialization;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the list responses in a columnar JSON form when the client asks for
+ * {@code Accept: application/vnd.fitness.columnar+json}.
+ * The property names are written once in "columns" and every element becomes an array of values in "rows".
+ * String and enum columns (trainer and training type names, formatted dates, statuses) are dictionary-encoded:
+ * the row holds the index of the value in the column's entry of "dictionaries", which follows the rows
+ * because it is only complete once every row is written. Other values are written as in the plain JSON response.
+ * <pre>
+ * {"columns":["id","trainerName",...],"rows":[[1,0,...],[2,0,...]],"dictionaries":{"trainerName":["Иван Петров"]}}
+ * </pre>
+ * Only collections are written this way; the elements are expected to be of the same class.
+ * The plain JSON converter, which accepts every {@code application/*+json} type, makes the media type producible
+ * for content negotiation; this converter comes first and writes it.
+ */
+@Component
+public class ColumnarJsonHttpMessageConverter extends AbstractHttpMessageConverter<Collection<?>> {
+
+    /**
+     * Media type of the columnar responses.
+     */
+    public static final MediaType COLUMNAR_JSON = new MediaType("application", "vnd.fitness.columnar+json");
+
+    /**
+     * Object mapper of the plain JSON responses, used for the property names and the non-dictionary values.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Serialized properties by element class.
+     */
+    private final Map<Class<?>, List<Column>> columnsByClass = new ConcurrentHashMap<>();
+
+    public ColumnarJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(COLUMNAR_JSON);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * Writes only when the columnar form was asked for explicitly. Without this the converter, which Spring Boot
+     * places before the default ones, would also be chosen for requests accepting any media type.
+     */
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return mediaType != null && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype()
+                && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Collection<?> readInternal(Class<? extends Collection<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Колонният формат се поддържа само за отговори", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Collection<?> elements, HttpOutputMessage outputMessage) throws IOException {
+        List<Column> columns = elements.stream()
+                .filter(element -> element != null)
+                .findFirst()
+                .map(element -> columnsByClass.computeIfAbsent(element.getClass(), this::columnsOf))
+                .orElse(List.of());
+
+        try (JsonGenerator generator = objectMapper.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (Column column : columns) {
+                generator.writeString(column.name());
+            }
+            generator.writeEndArray();
+
+            // The serializers are looked up once per column instead of once per value
+            SerializerProvider provider = objectMapper.getSerializerProviderInstance();
+            List<JsonSerializer<Object>> serializers = new ArrayList<>(columns.size());
+            List<Map<String, Integer>> dictionaries = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                serializers.add(column.dictionary() ? null : provider.findValueSerializer(column.accessor().getRawType()));
+                dictionaries.add(column.dictionary() ? new HashMap<>() : null);
+            }
+            generator.writeArrayFieldStart("rows");
+            for (Object element : elements) {
+                if (element == null) {
+                    generator.writeNull();
+                    continue;
+                }
+                generator.writeStartArray();
+                for (int i = 0; i < columns.size(); i++) {
+                    Object value = columns.get(i).accessor().getValue(element);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (dictionaries.get(i) != null) {
+                        Map<String, Integer> dictionary = dictionaries.get(i);
+                        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+                        generator.writeNumber(dictionary.computeIfAbsent(text, key -> dictionary.size()));
+                    } else {
+                        serializers.get(i).serialize(value, generator, provider);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+
+            generator.writeObjectFieldStart("dictionaries");
+            for (int i = 0; i < columns.size(); i++) {
+                if (dictionaries.get(i) == null) {
+                    continue;
+                }
+                // The indexes were handed out in insertion order
+                String[] values = new String[dictionaries.get(i).size()];
+                dictionaries.get(i).forEach((text, index) -> values[index] = text);
+                generator.writeArrayFieldStart(columns.get(i).name());
+                for (String text : values) {
+                    generator.writeString(text);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private List<Column> columnsOf(Class<?> elementClass) {
+        BeanDescription description = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(elementClass));
+        List<Column> columns = new ArrayList<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor == null) {
+                continue;
+            }
+            accessor.fixAccess(true);
+            Class<?> type = accessor.getRawType();
+            columns.add(new Column(property.getName(), accessor, type == String.class || type.isEnum()));
+        }
+        return columns;
+    }
+
+    /**
+     * A serialized property of the elements.
+     *
+     * @param name       the JSON property name
+     * @param accessor   the getter or field reading the value
+     * @param dictionary whether the values are dictionary-encoded
+     */
+    private record Column(String name, AnnotatedMember accessor, boolean dictionary) {
+    }
+}
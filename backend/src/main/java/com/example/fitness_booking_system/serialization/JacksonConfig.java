@@ -0,0 +1,37 @@
+package com.example.fitness_booking_system.serialization;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+/**
+ * Configuration of the response encodings.
+ * Besides the plain JSON, the clients can ask for CBOR ({@code Accept: application/cbor}), a binary encoding
+ * of the same document, or for the columnar JSON of {@link ColumnarJsonHttpMessageConverter} on the list endpoints.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird replaces the reflective getter calls of Jackson with generated lambdas;
+     * Spring Boot registers every Module bean with the ObjectMapper.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * CBOR converter built with the same settings and modules as the JSON ObjectMapper,
+     * so dates are written the same way in both encodings. Replaces the default CBOR converter of Spring MVC.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -2,6 +2,7 @@ package com.example.fitness_booking_system.services;
 
 import com.example.fitness_booking_system.dto.AuthResponseDTO;
 import com.example.fitness_booking_system.dto.LoginRequestDTO;
+import com.example.fitness_booking_system.dto.LoginUserDTO;
 import com.example.fitness_booking_system.dto.RegisterRequestDTO;
 import com.example.fitness_booking_system.entities.Client;
 import com.example.fitness_booking_system.entities.Trainer;
@@ -11,15 +12,19 @@ import com.example.fitness_booking_system.repositories.ClientRepository;
 import com.example.fitness_booking_system.repositories.TrainerRepository;
 import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.PasswordHashingExecutor;
+import com.example.fitness_booking_system.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -37,19 +42,28 @@ public class AuthService {
     private final UserRepository userRepository;
     private final ClientRepository clientRepository;
     private final TrainerRepository trainerRepository;
-    // Password encoder for hashing passwords
-    private final PasswordEncoder passwordEncoder;
+    // Bounded executor for hashing and verifying passwords off the request threads
+    private final PasswordHashingExecutor passwordHashingExecutor;
     // JWT utility for generating and validating tokens
     private final JwtUtil jwtUtil;
+    // Trainer service for adding new trainers to the search index
+    private final TrainerService trainerService;
+    // Refresh token service for issuing and rotating refresh tokens
+    private final RefreshTokenService refreshTokenService;
+    // In-memory list of the revoked access tokens
+    private final TokenRevocationList tokenRevocationList;
+    // Transaction template for persisting a new user after its password has been hashed
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Registers a new user in the system.
      * Validates the input data, checks for existing email, and creates user profiles based on the role.
+     * Not transactional: the password is hashed first, and only then the user and the profile are saved
+     * in a short transaction, so that no database connection is held while waiting for the hashing executor.
      *
      * @param request The registration request containing user details.
      * @return An AuthResponseDTO containing user information and JWT token.
      */
-    @Transactional
     public AuthResponseDTO register(RegisterRequestDTO request) {
         // Check if the email is already registered
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -68,9 +82,15 @@ public class AuthService {
         // Validate role-specific fields and date of birth
         validateRoleSpecificFields(request, birthDate);
 
+        String passwordHash = passwordHashingExecutor.encode(request.getPassword());
+        LocalDate dateOfBirth = birthDate;
+        return transactionTemplate.execute(status -> persistUser(request, dateOfBirth, passwordHash));
+    }
+
+    private AuthResponseDTO persistUser(RegisterRequestDTO request, LocalDate birthDate, String passwordHash) {
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setFullName(request.getFullName());
         user.setPhone(request.getPhone());
         user.setRole(request.getRole() != null ? request.getRole() : UserRole.CLIENT);
@@ -95,10 +115,15 @@ public class AuthService {
                 .role(savedUser.getRole())
                 .profileId(profileId)
                 .token(token)
+                .refreshToken(refreshTokenService.issue(savedUser.getId()))
                 .build();
     }
 
     private void validateRoleSpecificFields(RegisterRequestDTO request, LocalDate birthDate) {
+        if (request.getRole() == UserRole.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Не можете да се регистрирате като администратор");
+        }
+
         if (request.getRole() == UserRole.TRAINER) {
             if (request.getPersonalPrice() != null && request.getPersonalPrice() <= 0) {
                 throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Цената за персонална тренировка трябва да бъде положителна");
@@ -147,48 +172,82 @@ public class AuthService {
         trainer.setGroupPrice(request.getGroupPrice());
 
         Trainer savedTrainer = trainerRepository.save(trainer);
+        trainerService.indexTrainer(savedTrainer);
         return savedTrainer.getId();
     }
 
     /**
      * Logs in a user by validating their credentials and generating a JWT token.
-     * If the user is a client or trainer, it retrieves their profile ID.
+     * The user and their client or trainer profile ID are loaded with a single query;
+     * the only write is the new refresh token.
+     * Not transactional, so that no database connection is held while the password is verified.
+     * For an unknown email a dummy hash is verified instead, so both failures take the same time.
      *
      * @param request The login request containing email and password.
-     * @return An AuthResponseDTO containing user information and JWT token.
+     * @return An AuthResponseDTO containing user information, the JWT access token and a refresh token.
      */
-    @Transactional
     public AuthResponseDTO login(LoginRequestDTO request) {
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Невалидни потребителски данни"));
+        LoginUserDTO user = userRepository.findLoginByEmail(request.getEmail()).orElse(null);
+        if (user == null) {
+            passwordHashingExecutor.matchesNone(request.getPassword());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Невалидни потребителски данни");
+        }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingExecutor.matches(request.getPassword(), user.getPassword())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Невалидни потребителски данни");
         }
-        userRepository.save(user);
 
+        return buildResponse(user, refreshTokenService.issue(user.getUserId()));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * The presented refresh token can not be used again.
+     *
+     * @param refreshToken The refresh token from the login or the previous refresh.
+     * @return An AuthResponseDTO containing user information and the new tokens.
+     */
+    public AuthResponseDTO refresh(String refreshToken) {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.rotate(refreshToken);
+        LoginUserDTO user = userRepository.findLoginById(issued.userId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Невалидни потребителски данни"));
+        return buildResponse(user, issued.token());
+    }
+
+    /**
+     * Logs out a user: revokes the access token on all instances and the refresh token with all its predecessors.
+     *
+     * @param accessToken  The access token of the current request.
+     * @param refreshToken The refresh token of the session.
+     */
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        Claims claims = jwtUtil.extractAllClaims(accessToken);
+        if (claims.getId() != null) {
+            tokenRevocationList.revoke(claims.getId(),
+                    LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+        }
+        refreshTokenService.revoke(refreshToken);
+    }
+
+    private AuthResponseDTO buildResponse(LoginUserDTO user, String refreshToken) {
         Long profileId = null;
         if (user.getRole() == UserRole.CLIENT) {
-            Client client = clientRepository.findByUser(user).orElse(null);
-            if (client != null) {
-                profileId = client.getId();
-            }
+            profileId = user.getClientId();
         } else if (user.getRole() == UserRole.TRAINER) {
-            Trainer trainer = trainerRepository.findByUser(user).orElse(null);
-            if (trainer != null) {
-                profileId = trainer.getId();
-            }
+            profileId = user.getTrainerId();
         }
 
         String token = jwtUtil.generateToken(user.getEmail(), user.getRole().toString());
 
         return AuthResponseDTO.builder()
-                .userId(user.getId())
+                .userId(user.getUserId())
                 .email(user.getEmail())
                 .fullName(user.getFullName())
                 .role(user.getRole())
                 .profileId(profileId)
                 .token(token)
+                .refreshToken(refreshToken)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,458 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.BookingCreateDTO;
+import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Admission control for the booking requests of hot time slots.
+ * Normally a booking goes straight to {@link BookingService}. When more than a few bookings for the same slot
+ * are in progress at once, e.g. when a popular class is released, the slot gets an admission lane:
+ * its requests are queued in arrival order and a single worker thread for the slot books them one after another
+ * against an in-memory count of the free seats. Once the count reaches zero the remaining requests are answered
+ * with 409 immediately, without any database work, and the slot row is no longer contended by many transactions.
+ * The worker books the requests that arrive within a few milliseconds of each other as one group
+ * ({@link BookingService#createBookings}): one transaction, one UPDATE of the slot and one batched INSERT
+ * for the whole group instead of one of each per booking.
+ * The count is read from the database when the lane starts and re-read at most once per refresh interval while
+ * the slot looks full, so seats freed by cancellations are picked up. The database checks in BookingService
+ * still decide every booking; the count only decides who does not need to try.
+ * A request is claimed by the worker or cancelled by its caller with one atomic state change, so a caller that
+ * gives up after the maximum wait is never booked; once the worker has claimed it, the caller waits for the answer.
+ * A lane ends after it has been idle for a while. Exposes booking.admission.queue (queue depth) and
+ * booking.admission.wait (time in the queue), both tagged with the slot while its lane exists,
+ * booking.admission.rejected tagged with the reason, and booking.admission.group (bookings per commit).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingAdmissionService {
+
+    /**
+     * Message returned to the requests that arrive after the last free seat is taken.
+     */
+    private static final String FULL_MESSAGE = "Този времеви слот вече е зает или отменен";
+
+    /**
+     * Message returned when the queue of a slot is full.
+     */
+    private static final String QUEUE_FULL_MESSAGE = "Твърде много заявки за този времеви слот. Моля, опитайте отново след малко";
+
+    /**
+     * Free seat count of a lane whose slot has not been read yet.
+     */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * Service doing the actual bookings.
+     */
+    private final BookingService bookingService;
+
+    /**
+     * Repository for reading the free seats of a slot.
+     */
+    private final TimeSlotRepository timeSlotRepository;
+
+    /**
+     * Registry for the admission metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Whether hot slots get admission lanes at all.
+     */
+    @Value("${app.booking.admission.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * Number of concurrent bookings for the same slot from which the slot gets a lane.
+     */
+    @Value("${app.booking.admission.hot-threshold:4}")
+    private int hotThreshold = 4;
+
+    /**
+     * Maximum number of requests waiting in the lane of one slot.
+     */
+    @Value("${app.booking.admission.queue-capacity:500}")
+    private int queueCapacity = 500;
+
+    /**
+     * Maximum time a request waits for its booking, including the time in the queue.
+     */
+    @Value("${app.booking.admission.max-wait-ms:10000}")
+    private long maxWaitMs = 10000;
+
+    /**
+     * Time after which an idle lane ends.
+     */
+    @Value("${app.booking.admission.idle-timeout-ms:5000}")
+    private long idleTimeoutMs = 5000;
+
+    /**
+     * Minimum time between two reads of the free seats of a slot that looks full.
+     */
+    @Value("${app.booking.admission.refresh-interval-ms:1000}")
+    private long refreshIntervalMs = 1000;
+
+    /**
+     * Time the worker waits for more requests to join a group after the first one.
+     */
+    @Value("${app.booking.admission.group-window-ms:2}")
+    private long groupWindowMs = 2;
+
+    /**
+     * Maximum number of bookings committed together.
+     */
+    @Value("${app.booking.admission.max-group-size:50}")
+    private int maxGroupSize = 50;
+
+    /**
+     * Lanes of the hot slots, by time slot ID.
+     */
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Number of bookings in progress outside of a lane, by time slot ID.
+     */
+    private final Map<Long, Integer> inProgress = new ConcurrentHashMap<>();
+
+    private Counter fullCounter;
+    private Counter queueFullCounter;
+    private Counter timeoutCounter;
+    private DistributionSummary groupSize;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        fullCounter = Counter.builder("booking.admission.rejected").tag("reason", "full").register(meterRegistry);
+        queueFullCounter = Counter.builder("booking.admission.rejected").tag("reason", "queue_full").register(meterRegistry);
+        timeoutCounter = Counter.builder("booking.admission.rejected").tag("reason", "timeout").register(meterRegistry);
+        groupSize = DistributionSummary.builder("booking.admission.group").register(meterRegistry);
+    }
+
+    /**
+     * Creates a booking, through the admission lane of the slot if the slot is hot.
+     *
+     * @param clientId  the ID of the client making the booking
+     * @param createDTO the DTO containing booking details
+     * @return the created BookingDTO
+     */
+    public BookingDTO createBooking(Long clientId, BookingCreateDTO createDTO) {
+        Long timeSlotId = createDTO.getTimeSlotId();
+        if (!enabled || timeSlotId == null) {
+            return bookingService.createBooking(clientId, createDTO);
+        }
+
+        Lane lane = lanes.get(timeSlotId);
+        if (lane == null) {
+            int concurrent = inProgress.merge(timeSlotId, 1, Integer::sum);
+            try {
+                if (concurrent < hotThreshold) {
+                    return bookingService.createBooking(clientId, createDTO);
+                }
+            } finally {
+                inProgress.computeIfPresent(timeSlotId, (id, count) -> count <= 1 ? null : count - 1);
+            }
+        } else if (lane.isFull()) {
+            fullCounter.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, FULL_MESSAGE);
+        }
+        return admit(timeSlotId, new Admission(clientId, createDTO, System.nanoTime()));
+    }
+
+    /**
+     * Returns the number of requests waiting in the lane of a slot.
+     *
+     * @param timeSlotId the ID of the time slot
+     * @return the queue depth, 0 if the slot has no lane
+     */
+    public int getQueueDepth(Long timeSlotId) {
+        Lane lane = lanes.get(timeSlotId);
+        return lane == null ? 0 : lane.queue.size();
+    }
+
+    /**
+     * Returns whether a slot currently has an admission lane.
+     *
+     * @param timeSlotId the ID of the time slot, may be null
+     * @return true if the requests for the slot are queued
+     */
+    public boolean isHot(Long timeSlotId) {
+        return timeSlotId != null && lanes.containsKey(timeSlotId);
+    }
+
+    private BookingDTO admit(Long timeSlotId, Admission admission) {
+        boolean[] queued = new boolean[1];
+        // Queueing and the retirement of an idle lane both run inside compute, so no request is left in a dead lane
+        lanes.compute(timeSlotId, (id, lane) -> {
+            if (lane == null) {
+                lane = new Lane(id);
+                lane.start();
+            }
+            queued[0] = lane.queue.offer(admission);
+            return lane;
+        });
+        if (!queued[0]) {
+            queueFullCounter.increment();
+            throw new TooManyRequestsException(QUEUE_FULL_MESSAGE, 1);
+        }
+
+        try {
+            try {
+                return admission.result.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (admission.cancel()) {
+                    timeoutCounter.increment();
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Резервацията не можа да бъде обработена навреме. Моля, опитайте отново");
+                }
+                // The worker has already taken the request and its booking may be committed, so wait for the answer
+                return admission.result.get();
+            }
+        } catch (InterruptedException e) {
+            admission.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прекъснато изчакване на резервацията", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * State of a queued booking request.
+     */
+    private enum AdmissionState {
+        QUEUED, RUNNING, CANCELLED
+    }
+
+    /**
+     * A queued booking request.
+     */
+    private static final class Admission {
+        private final Long clientId;
+        private final BookingCreateDTO createDTO;
+        private final long queuedAt;
+        private final CompletableFuture<BookingDTO> result = new CompletableFuture<>();
+        private final AtomicReference<AdmissionState> state = new AtomicReference<>(AdmissionState.QUEUED);
+
+        private Admission(Long clientId, BookingCreateDTO createDTO, long queuedAt) {
+            this.clientId = clientId;
+            this.createDTO = createDTO;
+            this.queuedAt = queuedAt;
+        }
+
+        /**
+         * Takes the request for booking, unless its caller has stopped waiting.
+         */
+        private boolean claim() {
+            return state.compareAndSet(AdmissionState.QUEUED, AdmissionState.RUNNING);
+        }
+
+        /**
+         * Withdraws the request, unless the worker has already taken it.
+         */
+        private boolean cancel() {
+            return state.compareAndSet(AdmissionState.QUEUED, AdmissionState.CANCELLED);
+        }
+    }
+
+    /**
+     * The queue and the worker of one hot slot. The seat count is only written by the worker.
+     */
+    private final class Lane implements Runnable {
+        private final Long timeSlotId;
+        private final BlockingQueue<Admission> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final Timer waitTimer;
+        private final Gauge queueGauge;
+        private volatile int freeSeats = UNKNOWN;
+        private volatile long readAt;
+
+        private Lane(Long timeSlotId) {
+            this.timeSlotId = timeSlotId;
+            String slot = String.valueOf(timeSlotId);
+            this.waitTimer = Timer.builder("booking.admission.wait").tag("slot", slot).register(meterRegistry);
+            this.queueGauge = Gauge.builder("booking.admission.queue", queue, BlockingQueue::size)
+                    .tag("slot", slot).register(meterRegistry);
+        }
+
+        private void start() {
+            Thread.ofVirtual().name("booking-admission-" + timeSlotId).start(this);
+        }
+
+        /**
+         * Returns whether the slot is known to be full and the count is recent enough to answer without queueing.
+         */
+        private boolean isFull() {
+            return freeSeats == 0 && System.currentTimeMillis() - readAt < refreshIntervalMs;
+        }
+
+        @Override
+        public void run() {
+            List<Admission> group = new ArrayList<>(maxGroupSize);
+            try {
+                while (true) {
+                    Admission first = queue.poll(idleTimeoutMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (lanes.computeIfPresent(timeSlotId, (id, lane) -> queue.isEmpty() ? null : lane) == null) {
+                            return;
+                        }
+                        continue;
+                    }
+                    group.add(first);
+                    collect(group);
+                    book(group);
+                    group.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lanes.remove(timeSlotId, this);
+                group.addAll(queue);
+                group.forEach(admission -> admission.result.completeExceptionally(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Резервацията беше прекъсната")));
+            } finally {
+                meterRegistry.remove(waitTimer);
+                meterRegistry.remove(queueGauge);
+            }
+        }
+
+        /**
+         * Adds the requests arriving within the group window to the group.
+         */
+        private void collect(List<Admission> group) throws InterruptedException {
+            queue.drainTo(group, maxGroupSize - group.size());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupWindowMs);
+            while (group.size() < maxGroupSize) {
+                Admission next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                group.add(next);
+                queue.drainTo(group, maxGroupSize - group.size());
+            }
+        }
+
+        private void book(List<Admission> group) {
+            List<Admission> waiting = new ArrayList<>(group.size());
+            for (Admission admission : group) {
+                // Skip the requests whose callers stopped waiting
+                if (admission.claim()) {
+                    waitTimer.record(System.nanoTime() - admission.queuedAt, TimeUnit.NANOSECONDS);
+                    waiting.add(admission);
+                }
+            }
+            if (waiting.isEmpty()) {
+                return;
+            }
+
+            try {
+                if (freeSeats == UNKNOWN || freeSeats == 0 && System.currentTimeMillis() - readAt >= refreshIntervalMs) {
+                    readFreeSeats();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not read the free seats of time slot {}: {}", timeSlotId, e.getMessage());
+            }
+            int admitted = freeSeats == UNKNOWN ? waiting.size() : Math.min(freeSeats, waiting.size());
+            for (Admission admission : waiting.subList(admitted, waiting.size())) {
+                fullCounter.increment();
+                admission.result.completeExceptionally(new ResponseStatusException(HttpStatus.CONFLICT, FULL_MESSAGE));
+            }
+            if (admitted == 0) {
+                return;
+            }
+
+            List<Admission> admissions = waiting.subList(0, admitted);
+            groupSize.record(admitted);
+            if (admitted > 1) {
+                try {
+                    List<BookingService.GroupBookingResult> results = bookingService.createBookings(timeSlotId,
+                            admissions.stream().map(admission -> admission.clientId).toList());
+                    for (int i = 0; i < admitted; i++) {
+                        BookingService.GroupBookingResult result = results.get(i);
+                        if (result.booking() != null) {
+                            booked(admissions.get(i), result.booking());
+                        } else {
+                            failed(admissions.get(i), result.error());
+                        }
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    // The group was rolled back as a whole; book the requests one by one to get individual answers
+                    log.debug("Group booking for time slot {} failed, booking one by one: {}", timeSlotId, e.getMessage());
+                    freeSeats = UNKNOWN;
+                }
+            }
+            for (Admission admission : admissions) {
+                try {
+                    booked(admission, bookingService.createBooking(admission.clientId, admission.createDTO));
+                } catch (RuntimeException e) {
+                    failed(admission, e);
+                }
+            }
+        }
+
+        private void booked(Admission admission, BookingDTO booking) {
+            if (freeSeats > 0) {
+                freeSeats--;
+            }
+            admission.result.complete(booking);
+        }
+
+        private void failed(Admission admission, RuntimeException e) {
+            if (e instanceof ResponseStatusException statusException) {
+                if (statusException.getStatusCode() == HttpStatus.CONFLICT) {
+                    // The count may be stale, e.g. after a booking through another instance; read it again
+                    freeSeats = UNKNOWN;
+                }
+            } else {
+                log.warn("Booking for time slot {} failed in the admission lane: {}", timeSlotId, e.getMessage());
+            }
+            admission.result.completeExceptionally(e);
+        }
+
+        private void readFreeSeats() {
+            Optional<TimeSlotDTO> timeSlot = timeSlotRepository.findSlotViewById(timeSlotId);
+            // An unknown slot is passed on to the booking service, which answers with 404
+            freeSeats = timeSlot.map(slot -> slot.getStatus() == TimeSlotStatus.CANCELLED ? 0
+                            : Math.max(0, slot.getCapacity() - slot.getBookedCount()))
+                    .orElse(UNKNOWN);
+            readAt = System.currentTimeMillis();
+        }
+    }
+}
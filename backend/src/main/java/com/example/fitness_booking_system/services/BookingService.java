@@ -1,25 +1,41 @@
 package com.example.fitness_booking_system.services;
 
+import com.example.fitness_booking_system.datasource.ReadYourWritesTracker;
 import com.example.fitness_booking_system.dto.BookingCreateDTO;
 import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.BookingPageDTO;
+import com.example.fitness_booking_system.dto.BookingScope;
 import com.example.fitness_booking_system.entities.Booking;
 import com.example.fitness_booking_system.entities.BookingStatus;
 import com.example.fitness_booking_system.entities.Client;
 import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
 import com.example.fitness_booking_system.repositories.BookingRepository;
 import com.example.fitness_booking_system.repositories.ClientRepository;
 import com.example.fitness_booking_system.repositories.TimeSlotRepository;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +63,33 @@ public class BookingService {
     private final TimeSlotService timeSlotService;
 
     private final EmailService emailService;
+    /**
+     * Tracker keeping the reads of a client on the primary right after the client's own bookings.
+     */
+    private final ReadYourWritesTracker readYourWritesTracker;
+    /**
+     * Service for the calendar feeds, notified when the bookings of a client change.
+     */
+    private final CalendarFeedService calendarFeedService;
+    /**
+     * Service for the trainer utilization counters.
+     */
+    private final TrainerStatsService trainerStatsService;
+    /**
+     * Service for the booking notifications to the trainers.
+     */
+    private final TrainerDigestService trainerDigestService;
+    /**
+     * Clock used for the start of the booking history and for rejecting bookings of past time slots.
+     */
+    private final Clock clock;
+
+    /**
+     * Whether every booking of an existing time slot has its slotStartTime filled.
+     * Until the backfill has run, the booking history is paged by the start time of the joined time slot,
+     * so that bookings made before the column was introduced are not left out.
+     */
+    private volatile boolean slotStartTimeFilled;
 
     /**
      * Date and time formatters for formatting booking dates and times.
@@ -54,6 +97,11 @@ public class BookingService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
+    /**
+     * Maximum number of bookings in one page of the booking history.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     /**
      * Maps a Booking entity to a BookingDTO.
      *
@@ -72,10 +120,20 @@ public class BookingService {
         dto.setStartTime(booking.getTimeSlot().getStartTime());
         dto.setEndTime(booking.getTimeSlot().getEndTime());
         dto.setStatus(booking.getStatus());
-        dto.setFormattedDate(booking.getTimeSlot().getStartTime().format(DATE_FORMATTER));
+        return format(dto);
+    }
+
+    /**
+     * Fills in the formatted date and time of a BookingDTO.
+     *
+     * @param dto the BookingDTO with its start and end time set
+     * @return the same BookingDTO
+     */
+    private BookingDTO format(BookingDTO dto) {
+        dto.setFormattedDate(dto.getStartTime().format(DATE_FORMATTER));
         dto.setFormattedTime(
-                booking.getTimeSlot().getStartTime().format(TIME_FORMATTER) + " - " +
-                        booking.getTimeSlot().getEndTime().format(TIME_FORMATTER)
+                dto.getStartTime().format(TIME_FORMATTER) + " - " +
+                        dto.getEndTime().format(TIME_FORMATTER)
         );
 
         return dto;
@@ -87,15 +145,118 @@ public class BookingService {
      * @param clientId the ID of the client whose bookings are to be retrieved
      * @return a list of BookingDTOs for the specified client
      */
+    @Transactional(readOnly = true)
     public List<BookingDTO> getClientBookings(Long clientId) {
+        readYourWritesTracker.routeReadsOf(clientId);
+
+        if (!clientRepository.existsById(clientId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Клиентът не е намерен с ID: " + clientId);
+        }
+
+        List<BookingDTO> bookings = bookingRepository.findBookingViewsByClientId(clientId);
+        bookings.forEach(this::format);
+        return bookings;
+    }
+
+    /**
+     * Retrieves one page of a client's booking history.
+     * Pages are addressed by a keyset cursor on (slot start time, booking ID) instead of an offset,
+     * so a page is a single index range scan and costs the same for any length of history.
+     *
+     * @param clientId the ID of the client whose bookings are to be retrieved
+     * @param scope    whether upcoming (soonest first) or past (most recent first) bookings are requested
+     * @param status   the status of the bookings to include, or null for all statuses
+     * @param cursor   the nextCursor of the previous page, or null for the first page
+     * @param size     the maximum number of bookings in the page
+     * @return the page of BookingDTOs and the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public BookingPageDTO getClientBookingPage(Long clientId, BookingScope scope, BookingStatus status,
+                                               String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Размерът на страницата трябва да е между 1 и " + MAX_PAGE_SIZE);
+        }
+
+        readYourWritesTracker.routeReadsOf(clientId);
+
         if (!clientRepository.existsById(clientId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Клиентът не е намерен с ID: " + clientId);
         }
 
-        return bookingRepository.findByClientId(clientId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        // The first page starts at the current time: with the smallest possible ID as the position,
+        // upcoming bookings include slots starting right now and past bookings exclude them
+        LocalDateTime positionStart = LocalDateTime.now(clock);
+        long positionId = Long.MIN_VALUE;
+        if (cursor != null) {
+            BookingDTO position = decodeCursor(cursor);
+            positionStart = position.getStartTime();
+            positionId = position.getId();
+        }
+
+        Set<BookingStatus> statuses = status == null ? EnumSet.allOf(BookingStatus.class) : EnumSet.of(status);
+        // One extra row tells whether there is a next page
+        Limit limit = Limit.of(size + 1);
+        List<BookingDTO> bookings;
+        if (!slotStartTimeFilled) {
+            bookings = scope == BookingScope.PAST
+                    ? bookingRepository.findClientBookingViewsBeforeBySlotJoin(clientId, statuses, positionStart, positionId, limit)
+                    : bookingRepository.findClientBookingViewsAfterBySlotJoin(clientId, statuses, positionStart, positionId, limit);
+        } else {
+            bookings = scope == BookingScope.PAST
+                    ? bookingRepository.findClientBookingViewsBefore(clientId, statuses, positionStart, positionId, limit)
+                    : bookingRepository.findClientBookingViewsAfter(clientId, statuses, positionStart, positionId, limit);
+        }
+
+        String nextCursor = null;
+        if (bookings.size() > size) {
+            bookings = bookings.subList(0, size);
+            nextCursor = encodeCursor(bookings.get(size - 1));
+        }
+        bookings.forEach(this::format);
+        return new BookingPageDTO(bookings, nextCursor);
+    }
+
+    /**
+     * Checks whether the slotStartTime backfill has completed, after which the booking history uses the keyset index.
+     * Runs until the first check finds no unfilled booking, then does nothing.
+     */
+    @Scheduled(fixedDelayString = "${app.bookings.slot-start-check-interval-ms:60000}")
+    public void checkSlotStartTimeFilled() {
+        if (!slotStartTimeFilled) {
+            slotStartTimeFilled = bookingRepository.findIdsWithoutSlotStartTime(Limit.of(1)).isEmpty();
+        }
+    }
+
+    /**
+     * Encodes the keyset position of a booking as an opaque cursor.
+     *
+     * @param booking the last booking of a page
+     * @return the URL-safe cursor
+     */
+    private String encodeCursor(BookingDTO booking) {
+        String position = booking.getStartTime() + "|" + booking.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(BookingDTO)}.
+     *
+     * @param cursor the cursor
+     * @return a BookingDTO holding only the start time and the ID of the position
+     */
+    private BookingDTO decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            BookingDTO dto = new BookingDTO();
+            dto.setStartTime(LocalDateTime.parse(position[0]));
+            dto.setId(Long.parseLong(position[1]));
+            return dto;
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Невалиден курсор на страницата");
+        }
     }
 
     /**
@@ -126,7 +287,7 @@ public class BookingService {
                     "Вече имате резервация за този времеви слот");
         }
 
-        if (timeSlot.getStartTime().isBefore(LocalDateTime.now())) {
+        if (timeSlot.getStartTime().isBefore(LocalDateTime.now(clock))) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Не можете да резервирате слот в миналото");
         }
@@ -134,16 +295,114 @@ public class BookingService {
         Booking booking = new Booking();
         booking.setClient(client);
         booking.setTimeSlot(timeSlot);
+        booking.setSlotStartTime(timeSlot.getStartTime());
         booking.setStatus(BookingStatus.CONFIRMED);
 
         timeSlotService.incrementBookingCount(timeSlot.getId());
 
         Booking savedBooking = bookingRepository.save(booking);
+        calendarFeedService.markClientChanged(client.getId());
+        notifyBooked(client, timeSlot);
+
+        return mapToDTO(savedBooking);
+    }
+
+    /**
+     * Creates the bookings of several clients for the same time slot in one transaction (group commit).
+     * The checks of {@link #createBooking} are applied to every client, with one query for all clients and one for
+     * their existing bookings. The accepted bookings take their seats with a single conditional UPDATE of the slot
+     * and are inserted as one JDBC batch; requests beyond the free seats are rejected individually.
+     * Used by {@link BookingAdmissionService} for the queued requests of a hot slot.
+     *
+     * @param timeSlotId the ID of the time slot
+     * @param clientIds  the IDs of the clients, in the order in which their requests arrived
+     * @return one result per client ID, in the same order
+     * @throws ResponseStatusException if the slot does not exist, cannot be booked, or its seats were taken concurrently,
+     *                                 in which case nothing is booked
+     */
+    @Transactional
+    public List<GroupBookingResult> createBookings(Long timeSlotId, List<Long> clientIds) {
+        TimeSlot timeSlot = timeSlotRepository.findById(timeSlotId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Времевият слот не е намерен с ID: " + timeSlotId));
+        if (!timeSlot.canBeBooked()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Този времеви слот вече е зает или отменен");
+        }
+        if (timeSlot.getStartTime().isBefore(LocalDateTime.now(clock))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Не можете да резервирате слот в миналото");
+        }
+
+        Map<Long, Client> clients = clientRepository.findWithUserByIdIn(clientIds).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        Set<Long> booked = new HashSet<>(bookingRepository.findClientIdsWithBookingForTimeSlot(
+                timeSlotId, clientIds, BookingStatus.CANCELLED));
+        int freeSeats = timeSlot.getCapacity() - timeSlot.getBookedCount();
+
+        List<GroupBookingResult> results = new ArrayList<>(clientIds.size());
+        List<Booking> bookings = new ArrayList<>();
+        for (Long clientId : clientIds) {
+            Client client = clients.get(clientId);
+            if (client == null) {
+                results.add(GroupBookingResult.failed(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Клиентът не е намерен с ID: " + clientId)));
+            } else if (!booked.add(clientId)) {
+                results.add(GroupBookingResult.failed(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Вече имате резервация за този времеви слот")));
+            } else if (bookings.size() >= freeSeats) {
+                results.add(GroupBookingResult.failed(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Този времеви слот вече е зает или отменен")));
+            } else {
+                Booking booking = new Booking();
+                booking.setClient(client);
+                booking.setTimeSlot(timeSlot);
+                booking.setSlotStartTime(timeSlot.getStartTime());
+                booking.setStatus(BookingStatus.CONFIRMED);
+                bookings.add(booking);
+                // Filled in with the saved booking below
+                results.add(null);
+            }
+        }
+        if (bookings.isEmpty()) {
+            return results;
+        }
+
+        if (timeSlotRepository.addBookings(timeSlotId, bookings.size(), TimeSlotStatus.BOOKED) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Този времеви слот вече е зает или отменен");
+        }
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        calendarFeedService.markClientsChanged(savedBookings.stream()
+                .map(savedBooking -> savedBooking.getClient().getId())
+                .collect(Collectors.toList()));
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Booking savedBooking = savedBookings.get(next++);
+                notifyBooked(savedBooking.getClient(), timeSlot);
+                results.set(i, GroupBookingResult.booked(mapToDTO(savedBooking)));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Records a new booking for the read routing and the trainer statistics,
+     * and sends the confirmation to the client and the notification to the trainer.
+     *
+     * @param client   the client who booked
+     * @param timeSlot the booked time slot
+     */
+    private void notifyBooked(Client client, TimeSlot timeSlot) {
+        readYourWritesTracker.markWrite(client.getId());
+        trainerStatsService.recordBookingCreated(timeSlot.getTrainer().getId(), timeSlot.getTrainingType().getId(),
+                timeSlot.getStartTime().toLocalDate());
 
         // Изпращане на имейли
         String clientEmail = client.getUser().getEmail();
         String clientName = client.getUser().getFullName();
-        String trainerEmail = timeSlot.getTrainer().getUser().getEmail();
         String trainerName = timeSlot.getTrainer().getUser().getFullName();
         String trainingType = timeSlot.getTrainingType().getName();
         String date = timeSlot.getStartTime().format(DATE_FORMATTER);
@@ -155,12 +414,8 @@ public class BookingService {
                 clientEmail, clientName, trainingType, trainerName, date, time
         );
 
-        // Изпращане на уведомление на треньора
-        emailService.sendBookingNotificationToTrainer(
-                trainerEmail, trainerName, clientName, trainingType, date, time
-        );
-
-        return mapToDTO(savedBooking);
+        // Уведомление на треньора, веднага или в обобщението според настройката му
+        trainerDigestService.recordBooking(timeSlot, client);
     }
 
     /**
@@ -188,7 +443,6 @@ public class BookingService {
         // Запазваме информацията за имейлите преди да отменим резервацията
         String clientEmail = booking.getClient().getUser().getEmail();
         String clientName = booking.getClient().getUser().getFullName();
-        String trainerEmail = booking.getTimeSlot().getTrainer().getUser().getEmail();
         String trainerName = booking.getTimeSlot().getTrainer().getUser().getFullName();
         String trainingType = booking.getTimeSlot().getTrainingType().getName();
         String date = booking.getTimeSlot().getStartTime().format(DATE_FORMATTER);
@@ -200,16 +454,35 @@ public class BookingService {
         timeSlotService.decrementBookingCount(booking.getTimeSlot().getId());
 
         Booking cancelledBooking = bookingRepository.save(booking);
+        readYourWritesTracker.markWrite(booking.getClient().getId());
+        calendarFeedService.markClientChanged(booking.getClient().getId());
+        trainerStatsService.recordBookingCancelled(booking.getTimeSlot().getTrainer().getId(),
+                booking.getTimeSlot().getTrainingType().getId(), booking.getTimeSlot().getStartTime().toLocalDate());
 
         // Изпращане на имейли за отмяна
         emailService.sendCancellationNotificationToClient(
                 clientEmail, clientName, trainingType, trainerName, date, time
         );
 
-        emailService.sendCancellationNotificationToTrainer(
-                trainerEmail, trainerName, clientName, trainingType, date, time
-        );
+        trainerDigestService.recordCancellation(booking.getTimeSlot(), booking.getClient());
 
         return mapToDTO(cancelledBooking);
     }
-}
\ No newline at end of file
+
+    /**
+     * The result of one request of a group booking: the booking, or the reason it was rejected.
+     *
+     * @param booking the created booking, or null if rejected
+     * @param error   the rejection, or null if booked
+     */
+    public record GroupBookingResult(BookingDTO booking, ResponseStatusException error) {
+
+        static GroupBookingResult booked(BookingDTO booking) {
+            return new GroupBookingResult(booking, null);
+        }
+
+        static GroupBookingResult failed(ResponseStatusException error) {
+            return new GroupBookingResult(null, error);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.entities.BookingStatus;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.repositories.BookingRepository;
+import com.example.fitness_booking_system.repositories.ClientRepository;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.TrainerRepository;
+import com.example.fitness_booking_system.repositories.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Service for generating iCalendar (.ics) feeds with the schedule of a trainer or the bookings of a client.
+ * Calendar apps poll these feeds every few minutes, so every feed has a version column on the trainer or client row
+ * that the write paths (new or cancelled time slots and bookings, a renamed trainer) increase in their own
+ * transaction. The ETag is derived from that version and the first day of the feed window, so it is the same on
+ * every instance, changes when the window moves on to the next day, and a conditional request costs one primary key
+ * lookup. The feed itself is written straight to the response; the VEVENT fragment of each time slot is rendered
+ * once and reused in all feeds containing that slot.
+ * <p>
+ * Calendar apps can not send a JWT, so the feed URLs carry a secret token of their user instead. Only its hash is
+ * stored, and it is checked in the same lookup as the feed version; requesting a new token revokes the old URLs.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarFeedService {
+
+    /**
+     * How far into the past and the future the feeds reach, in whole days.
+     */
+    private static final int DAYS_BACK = 30;
+    private static final int DAYS_AHEAD = 180;
+
+    /**
+     * Upper bound for the number of cached VEVENT fragments; the least recently used ones are evicted first.
+     */
+    private static final int MAX_CACHED_EVENTS = 50_000;
+
+    /**
+     * Date-time format of iCalendar (floating local time and UTC).
+     */
+    private static final DateTimeFormatter ICS_LOCAL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ICS_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    /**
+     * Number of random bytes in a feed token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Repositories for the feed versions and the feed content.
+     */
+    private final TimeSlotRepository timeSlotRepository;
+    private final BookingRepository bookingRepository;
+    private final TrainerRepository trainerRepository;
+    private final ClientRepository clientRepository;
+
+    /**
+     * Repository for the feed tokens of the users.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Clock used for the feed window and the DTSTAMP of the events.
+     */
+    private final Clock clock;
+
+    /**
+     * Rendered VEVENT fragments by time slot ID, in access order.
+     */
+    private final Map<Long, CachedEvent> eventCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedEvent> eldest) {
+                    return size() > MAX_CACHED_EVENTS;
+                }
+            });
+
+    /**
+     * Records that the time slots of a trainer have changed.
+     *
+     * @param trainerId the ID of the trainer
+     */
+    @Transactional
+    public void markTrainerChanged(Long trainerId) {
+        markTrainersChanged(List.of(trainerId));
+    }
+
+    /**
+     * Records that the time slots of several trainers have changed, with one statement.
+     *
+     * @param trainerIds the IDs of the trainers
+     */
+    @Transactional
+    public void markTrainersChanged(Collection<Long> trainerIds) {
+        if (!trainerIds.isEmpty()) {
+            // Sorted, so that concurrent transactions lock the rows in the same order
+            trainerRepository.incrementFeedVersions(new TreeSet<>(trainerIds));
+        }
+    }
+
+    /**
+     * Records that the name of a trainer has changed, which changes the trainer's feed
+     * and the feeds of the clients with confirmed bookings of the trainer's time slots.
+     *
+     * @param trainerId the ID of the trainer
+     */
+    @Transactional
+    public void markTrainerRenamed(Long trainerId) {
+        markTrainerChanged(trainerId);
+        clientRepository.incrementFeedVersionsByTrainerId(trainerId, BookingStatus.CONFIRMED);
+    }
+
+    /**
+     * Records that the bookings of a client have changed.
+     *
+     * @param clientId the ID of the client
+     */
+    @Transactional
+    public void markClientChanged(Long clientId) {
+        markClientsChanged(List.of(clientId));
+    }
+
+    /**
+     * Records that the bookings of several clients have changed, with one statement.
+     *
+     * @param clientIds the IDs of the clients
+     */
+    @Transactional
+    public void markClientsChanged(Collection<Long> clientIds) {
+        if (!clientIds.isEmpty()) {
+            clientRepository.incrementFeedVersions(new TreeSet<>(clientIds));
+        }
+    }
+
+    /**
+     * Issues a new feed token for a user, replacing the previous one.
+     *
+     * @param email the email of the user
+     * @return the token value for the feed URLs; it is not stored and can not be read again
+     */
+    @Transactional
+    public String rotateToken(String email) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        if (userRepository.updateCalendarTokenHash(email, RefreshTokenService.hash(token)) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Потребителят не е намерен");
+        }
+        return token;
+    }
+
+    /**
+     * Returns the current ETag of a trainer's feed, after checking that the feed token belongs to the trainer.
+     *
+     * @param trainerId the ID of the trainer
+     * @param token     the feed token from the feed URL, may be null
+     * @return the ETag (including quotes)
+     * @throws ResponseStatusException 403 if the token is missing or is not the trainer's
+     */
+    @Transactional(readOnly = true)
+    public String getTrainerEtag(Long trainerId, String token) {
+        if (token == null) {
+            throw invalidToken();
+        }
+        long version = trainerRepository.findFeedVersionByIdAndTokenHash(trainerId, RefreshTokenService.hash(token))
+                .orElseThrow(CalendarFeedService::invalidToken);
+        return etag("t", trainerId, version);
+    }
+
+    /**
+     * Returns the current ETag of a client's feed, after checking that the feed token belongs to the client.
+     *
+     * @param clientId the ID of the client
+     * @param token    the feed token from the feed URL, may be null
+     * @return the ETag (including quotes)
+     * @throws ResponseStatusException 403 if the token is missing or is not the client's
+     */
+    @Transactional(readOnly = true)
+    public String getClientEtag(Long clientId, String token) {
+        if (token == null) {
+            throw invalidToken();
+        }
+        long version = clientRepository.findFeedVersionByIdAndTokenHash(clientId, RefreshTokenService.hash(token))
+                .orElseThrow(CalendarFeedService::invalidToken);
+        return etag("c", clientId, version);
+    }
+
+    private static ResponseStatusException invalidToken() {
+        return new ResponseStatusException(HttpStatus.FORBIDDEN, "Невалиден ключ за календара");
+    }
+
+    /**
+     * Writes the feed with the time slots of a trainer.
+     * The time slots are read before anything is written, so no connection is held while writing.
+     *
+     * @param trainerId the ID of the trainer
+     * @param out       the writer to write the iCalendar document to
+     * @throws IOException if writing fails
+     */
+    public void writeTrainerFeed(Long trainerId, Writer out) throws IOException {
+        LocalDateTime start = windowStart().atStartOfDay();
+        List<TimeSlotDTO> timeSlots = timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(
+                trainerId, start, start.plusDays(DAYS_BACK + DAYS_AHEAD + 1));
+        write("Тренировки", timeSlots, out);
+    }
+
+    /**
+     * Writes the feed with the confirmed bookings of a client.
+     * The time slots are read before anything is written, so no connection is held while writing.
+     *
+     * @param clientId the ID of the client
+     * @param out      the writer to write the iCalendar document to
+     * @throws IOException if writing fails
+     */
+    public void writeClientFeed(Long clientId, Writer out) throws IOException {
+        List<TimeSlotDTO> timeSlots = bookingRepository.findBookedSlotViewsByClientId(
+                clientId, BookingStatus.CONFIRMED, windowStart().atStartOfDay());
+        write("Моите резервации", timeSlots, out);
+    }
+
+    /**
+     * Writes a whole feed, reusing the cached fragments of unchanged time slots.
+     *
+     * @param name      the calendar name shown by calendar apps
+     * @param timeSlots the time slots to include
+     * @param out       the writer to write the iCalendar document to
+     * @throws IOException if writing fails
+     */
+    private void write(String name, List<TimeSlotDTO> timeSlots, Writer out) throws IOException {
+        IcsWriter writer = new IcsWriter(out);
+        writer.line("BEGIN:VCALENDAR");
+        writer.line("VERSION:2.0");
+        writer.line("PRODID:-//Fitness Booking System//BG");
+        writer.line("CALSCALE:GREGORIAN");
+        writer.property("X-WR-CALNAME", name);
+
+        for (TimeSlotDTO timeSlot : timeSlots) {
+            out.write(eventFragment(timeSlot));
+        }
+
+        writer.line("END:VCALENDAR");
+    }
+
+    /**
+     * Returns the VEVENT fragment of a time slot, rendering it only if the slot changed since it was cached.
+     *
+     * @param timeSlot the time slot
+     * @return the VEVENT lines
+     * @throws IOException never, the fragment is rendered in memory
+     */
+    private String eventFragment(TimeSlotDTO timeSlot) throws IOException {
+        CachedEvent cached = eventCache.get(timeSlot.getId());
+        if (cached != null && cached.matches(timeSlot)) {
+            return cached.fragment;
+        }
+
+        StringBuilder out = new StringBuilder(320);
+        IcsWriter writer = new IcsWriter(out);
+        writer.line("BEGIN:VEVENT");
+        writer.line("UID:time-slot-" + timeSlot.getId() + "@fitness-booking-system");
+        writer.line("DTSTAMP:" + clock.instant().atOffset(ZoneOffset.UTC).format(ICS_UTC));
+        writer.line("DTSTART:" + timeSlot.getStartTime().format(ICS_LOCAL));
+        writer.line("DTEND:" + timeSlot.getEndTime().format(ICS_LOCAL));
+        writer.property("SUMMARY", timeSlot.getTrainingTypeName());
+        writer.property("DESCRIPTION", "Треньор: " + timeSlot.getTrainerName());
+        writer.line("STATUS:" + (timeSlot.getStatus() == TimeSlotStatus.CANCELLED ? "CANCELLED" : "CONFIRMED"));
+        writer.line("END:VEVENT");
+
+        String fragment = out.toString();
+        eventCache.put(timeSlot.getId(), new CachedEvent(timeSlot, fragment));
+        return fragment;
+    }
+
+    /**
+     * Returns the first day of the feed window.
+     *
+     * @return the day DAYS_BACK days before today
+     */
+    private LocalDate windowStart() {
+        return LocalDate.now(clock).minusDays(DAYS_BACK);
+    }
+
+    private String etag(String prefix, Long id, long version) {
+        return "\"" + prefix + id + "-" + version + "-" + windowStart().format(DateTimeFormatter.BASIC_ISO_DATE) + "\"";
+    }
+
+    /**
+     * A rendered VEVENT together with the slot fields it was rendered from.
+     */
+    private static final class CachedEvent {
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final TimeSlotStatus status;
+        private final String trainingTypeName;
+        private final String trainerName;
+        private final String fragment;
+
+        private CachedEvent(TimeSlotDTO timeSlot, String fragment) {
+            this.startTime = timeSlot.getStartTime();
+            this.endTime = timeSlot.getEndTime();
+            this.status = timeSlot.getStatus();
+            this.trainingTypeName = timeSlot.getTrainingTypeName();
+            this.trainerName = timeSlot.getTrainerName();
+            this.fragment = fragment;
+        }
+
+        private boolean matches(TimeSlotDTO timeSlot) {
+            return Objects.equals(startTime, timeSlot.getStartTime())
+                    && Objects.equals(endTime, timeSlot.getEndTime())
+                    && status == timeSlot.getStatus()
+                    && Objects.equals(trainingTypeName, timeSlot.getTrainingTypeName())
+                    && Objects.equals(trainerName, timeSlot.getTrainerName());
+        }
+    }
+
+    /**
+     * Writer for iCalendar content lines (RFC 5545): CRLF line endings, escaped text values
+     * and lines folded at 75 octets of UTF-8.
+     */
+    private static final class IcsWriter {
+        private static final int MAX_LINE_OCTETS = 75;
+
+        private final Appendable out;
+
+        private IcsWriter(Appendable out) {
+            this.out = out;
+        }
+
+        private void property(String name, String text) throws IOException {
+            StringBuilder value = new StringBuilder(name.length() + 1 + (text == null ? 0 : text.length()));
+            value.append(name).append(':');
+            if (text != null) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    switch (c) {
+                        case '\\', ';', ',' -> value.append('\\').append(c);
+                        case '\n' -> value.append("\\n");
+                        case '\r' -> { }
+                        default -> value.append(c);
+                    }
+                }
+            }
+            line(value);
+        }
+
+        private void line(CharSequence line) throws IOException {
+            int octets = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                boolean pair = Character.isHighSurrogate(c) && i + 1 < line.length();
+                int size = c < 0x80 ? 1 : c < 0x800 ? 2 : pair ? 4 : 3;
+                if (octets + size > MAX_LINE_OCTETS) {
+                    out.append("\r\n ");
+                    octets = 1;
+                }
+                out.append(c);
+                if (pair) {
+                    out.append(line.charAt(++i));
+                }
+                octets += size;
+            }
+            out.append("\r\n");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.fitness_booking_system.services;
 
+import com.example.fitness_booking_system.datasource.ReadYourWritesTracker;
 import com.example.fitness_booking_system.dto.ClientDTO;
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.entities.Client;
@@ -31,6 +32,10 @@ public class ClientService {
      * Repository for accessing user data.
      */
     private final UserRepository userRepository;
+    /**
+     * Tracker keeping the reads of a client on the primary right after the client's own updates.
+     */
+    private final ReadYourWritesTracker readYourWritesTracker;
 
     /**
      * Retrieves the profile of a client by their ID.
@@ -38,7 +43,10 @@ public class ClientService {
      * @param id the ID of the client
      * @return ClientDTO containing the client's profile information
      */
+    @Transactional(readOnly = true)
     public ClientDTO getClientProfile(Long id) {
+        readYourWritesTracker.routeReadsOf(id);
+
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Клиентски профил не е намерен"));
@@ -80,6 +88,7 @@ public class ClientService {
 
         userRepository.save(user);
         Client updatedClient = clientRepository.save(client);
+        readYourWritesTracker.markWrite(id);
 
         return mapToDTO(updatedClient);
     }
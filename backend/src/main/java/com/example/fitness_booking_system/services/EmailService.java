@@ -1,115 +1,138 @@
 package com.example.fitness_booking_system.services;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.MimeMessage;
+
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Service for sending the booking emails.
+ * The messages are rendered from the precompiled templates in templates/email
+ * and sent as multipart messages with a plain text and an HTML part.
+ * Users have no language setting, so every message is rendered in the default language.
+ * The messages are handed to the {@link MailTransportPool} after the transaction commits
+ * and sent in the background over pooled SMTP connections.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
+    /**
+     * Parameters of the booking templates, in the order in which their values are passed.
+     */
+    private static final String[] BOOKING_PARAMETERS = {"clientName", "trainerName", "trainingType", "date", "time"};
+
+    /**
+     * Parameters of the trainer digest template.
+     */
+    private static final String[] DIGEST_PARAMETERS = {"trainerName", "changes", "summary"};
+
     private final JavaMailSender javaMailSender;
 
+    private final EmailTemplateEngine emailTemplateEngine;
+
+    private final MailTransportPool mailTransportPool;
+
     @Value("${spring.mail.username}")
     private String sender;
 
+    private EmailTemplate bookingConfirmationToClient;
+    private EmailTemplate bookingNotificationToTrainer;
+    private EmailTemplate cancellationNotificationToClient;
+    private EmailTemplate cancellationNotificationToTrainer;
+    private EmailTemplate trainerDigest;
+
+    /**
+     * Compiles the templates once, so that a broken template fails the startup.
+     */
+    @PostConstruct
+    public void compileTemplates() {
+        bookingConfirmationToClient = emailTemplateEngine.compile("booking-confirmation-client", BOOKING_PARAMETERS);
+        bookingNotificationToTrainer = emailTemplateEngine.compile("booking-notification-trainer", BOOKING_PARAMETERS);
+        cancellationNotificationToClient = emailTemplateEngine.compile("cancellation-client", BOOKING_PARAMETERS);
+        cancellationNotificationToTrainer = emailTemplateEngine.compile("cancellation-trainer", BOOKING_PARAMETERS);
+        trainerDigest = emailTemplateEngine.compile("trainer-digest", DIGEST_PARAMETERS);
+    }
+
     public void sendBookingConfirmationToClient(String clientEmail, String clientName,
                                                 String trainingType, String trainerName,
                                                 String date, String time) {
-        var subject = "Потвърждение за резервация - Fitness Booking System";
-        var message = String.format(
-                "Уважаеми/а %s,\n\n" +
-                        "Вашата резервация беше успешно направена!\n\n" +
-                        "Детайли за резервацията:\n" +
-                        "• Вид тренировка: %s\n" +
-                        "• Треньор: %s\n" +
-                        "• Дата: %s\n" +
-                        "• Час: %s\n\n" +
-                        "Моля, бъдете навреме за тренировката си.\n\n" +
-                        "С най-добри пожелания,\n" +
-                        "Екипът на Fitness Booking System",
-                clientName, trainingType, trainerName, date, time
-        );
-
-        sendEmail(clientEmail, subject, message);
+        sendEmail(clientEmail, bookingConfirmationToClient.render(clientName, trainerName, trainingType, date, time));
     }
 
     public void sendBookingNotificationToTrainer(String trainerEmail, String trainerName,
                                                  String clientName, String trainingType,
                                                  String date, String time) {
-        var subject = "Нова резервация - Fitness Booking System";
-        var message = String.format(
-                "Уважаеми треньор %s,\n\n" +
-                        "Имате нова резервация за тренировка!\n\n" +
-                        "Детайли за резервацията:\n" +
-                        "• Клиент: %s\n" +
-                        "• Вид тренировка: %s\n" +
-                        "• Дата: %s\n" +
-                        "• Час: %s\n\n" +
-                        "Моля, бъдете подготвени за тренировката.\n\n" +
-                        "С най-добри пожелания,\n" +
-                        "Екипът на Fitness Booking System",
-                trainerName, clientName, trainingType, date, time
-        );
-
-        sendEmail(trainerEmail, subject, message);
+        sendEmail(trainerEmail, bookingNotificationToTrainer.render(clientName, trainerName, trainingType, date, time));
     }
 
     public void sendCancellationNotificationToClient(String clientEmail, String clientName,
                                                      String trainingType, String trainerName,
                                                      String date, String time) {
-        var subject = "Отмяна на резервация - Fitness Booking System";
-        var message = String.format(
-                "Уважаеми/а %s,\n\n" +
-                        "Вашата резервация беше успешно отменена.\n\n" +
-                        "Детайли за отменената резервация:\n" +
-                        "• Вид тренировка: %s\n" +
-                        "• Треньор: %s\n" +
-                        "• Дата: %s\n" +
-                        "• Час: %s\n\n" +
-                        "Ако желаете да направите нова резервация, моля посетете нашата система.\n\n" +
-                        "С най-добри пожелания,\n" +
-                        "Екипът на Fitness Booking System",
-                clientName, trainingType, trainerName, date, time
-        );
-
-        sendEmail(clientEmail, subject, message);
+        sendEmail(clientEmail, cancellationNotificationToClient.render(clientName, trainerName, trainingType, date, time));
     }
 
     public void sendCancellationNotificationToTrainer(String trainerEmail, String trainerName,
                                                       String clientName, String trainingType,
                                                       String date, String time) {
-        var subject = "Отмяна на резервация - Fitness Booking System";
-        var message = String.format(
-                "Уважаеми треньор %s,\n\n" +
-                        "Резервация за ваша тренировка беше отменена.\n\n" +
-                        "Детайли за отменената резервация:\n" +
-                        "• Клиент: %s\n" +
-                        "• Вид тренировка: %s\n" +
-                        "• Дата: %s\n" +
-                        "• Час: %s\n\n" +
-                        "Времевият слот сега е отново свободен за резервация.\n\n" +
-                        "С най-добри пожелания,\n" +
-                        "Екипът на Fitness Booking System",
-                trainerName, clientName, trainingType, date, time
-        );
-
-        sendEmail(trainerEmail, subject, message);
+        sendEmail(trainerEmail, cancellationNotificationToTrainer.render(clientName, trainerName, trainingType, date, time));
+    }
+
+    /**
+     * Sends the summary of the bookings and cancellations collected for a trainer.
+     *
+     * @param trainerEmail the email of the trainer
+     * @param trainerName  the name of the trainer
+     * @param changes      the number of bookings and cancellations in the summary
+     * @param summary      the changes as text, one block per time slot
+     */
+    public void sendTrainerDigest(String trainerEmail, String trainerName, int changes, String summary) {
+        sendEmail(trainerEmail, trainerDigest.render(trainerName, String.valueOf(changes), summary));
     }
 
-    private void sendEmail(String recipient, String subject, String message) {
+    private void sendEmail(String recipient, EmailTemplate.RenderedEmail email) {
         try {
-            SimpleMailMessage mailMessage = new SimpleMailMessage();
-            mailMessage.setFrom(sender);
-            mailMessage.setTo(recipient);
-            mailMessage.setText(message);
-            mailMessage.setSubject(subject);
+            MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage,
+                    email.html() != null, StandardCharsets.UTF_8.name());
+            helper.setFrom(sender);
+            helper.setTo(recipient);
+            helper.setSubject(email.subject());
+            if (email.html() != null) {
+                helper.setText(email.text(), email.html());
+            } else {
+                helper.setText(email.text());
+            }
 
-            javaMailSender.send(mailMessage);
+            afterCommit(() -> mailTransportPool.send(mimeMessage));
         } catch (Exception e) {
             throw new RuntimeException("Error sending email to: " + recipient, e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Queues the message once the current transaction commits, so that a rolled back booking sends no email.
+     *
+     * @param send the action queueing the message
+     */
+    private static void afterCommit(Runnable send) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send.run();
+            }
+        });
+    }
+}
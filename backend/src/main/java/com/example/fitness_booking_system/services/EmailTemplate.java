@@ -0,0 +1,172 @@
+package com.example.fitness_booking_system.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An email template compiled into segment lists: the literal text between the placeholders
+ * and, for every placeholder, the index of its parameter.
+ * Rendering copies the segments and the parameter values into a per-thread buffer that is reused
+ * across calls, so a message costs the resulting strings and nothing else.
+ * Parameter values are HTML-escaped while they are copied into the HTML part.
+ */
+public final class EmailTemplate {
+
+    /**
+     * Initial capacity of the rendering buffer; buffers that grew beyond the limit are not kept.
+     */
+    private static final int BUFFER_CAPACITY = 2048;
+    private static final int MAX_RETAINED_BUFFER = 32 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_CAPACITY));
+
+    private final String name;
+    private final String defaultLocale;
+    private final Map<String, Parts> locales;
+
+    EmailTemplate(String name, String defaultLocale, Map<String, Parts> locales) {
+        if (!locales.containsKey(defaultLocale)) {
+            throw new IllegalStateException("Email template " + name + " has no " + defaultLocale + " version");
+        }
+        this.name = name;
+        this.defaultLocale = defaultLocale;
+        this.locales = Map.copyOf(locales);
+    }
+
+    /**
+     * Renders the template in the default language.
+     *
+     * @param values the parameter values, in the order of the parameter names the template was compiled with
+     * @return the rendered message
+     */
+    public RenderedEmail render(String... values) {
+        return render(null, values);
+    }
+
+    /**
+     * Renders the subject, the text and the HTML part of the template.
+     *
+     * @param locale the language of the message; the default language is used if the template has no such version
+     * @param values the parameter values, in the order of the parameter names the template was compiled with
+     * @return the rendered message
+     */
+    public RenderedEmail render(Locale locale, String... values) {
+        Parts parts = locale == null ? null : locales.get(locale.getLanguage());
+        if (parts == null) {
+            parts = locales.get(defaultLocale);
+        }
+        if (values.length != parts.parameterCount()) {
+            throw new IllegalArgumentException("Email template " + name + " expects " + parts.parameterCount() +
+                    " parameters, got " + values.length);
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        try {
+            return new RenderedEmail(
+                    render(buffer, parts.subject(), values, false),
+                    render(buffer, parts.text(), values, false),
+                    parts.html() == null ? null : render(buffer, parts.html(), values, true));
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the template.
+     *
+     * @return the template name
+     */
+    public String getName() {
+        return name;
+    }
+
+    private static String render(StringBuilder buffer, Segments segments, String[] values, boolean escapeHtml) {
+        buffer.setLength(0);
+        for (int i = 0; i < segments.parameters().length; i++) {
+            buffer.append(segments.literals()[i]);
+            String value = values[segments.parameters()[i]];
+            if (value == null) {
+                continue;
+            }
+            if (escapeHtml) {
+                appendEscaped(buffer, value);
+            } else {
+                buffer.append(value);
+            }
+        }
+        buffer.append(segments.literals()[segments.parameters().length]);
+        return buffer.toString();
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '&' -> buffer.append("&amp;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+
+    /**
+     * Compiles a template source into segments. Placeholders are written as {{parameterName}}.
+     *
+     * @param source         the template source
+     * @param parameterNames the names of the parameters, in the order in which their values are passed to render
+     * @return the compiled segments
+     * @throws IllegalStateException if a placeholder is not closed or names an unknown parameter
+     */
+    static Segments compile(String source, List<String> parameterNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> parameters = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = source.indexOf("{{", position)) >= 0) {
+            int end = source.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalStateException("Unclosed placeholder at offset " + start);
+            }
+            String parameterName = source.substring(start + 2, end).trim();
+            int index = parameterNames.indexOf(parameterName);
+            if (index < 0) {
+                throw new IllegalStateException("Unknown placeholder {{" + parameterName + "}}");
+            }
+            literals.add(source.substring(position, start));
+            parameters.add(index);
+            position = end + 2;
+        }
+        literals.add(source.substring(position));
+        return new Segments(literals.toArray(new String[0]), parameters.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * A rendered message.
+     *
+     * @param subject the subject line
+     * @param text    the plain text part
+     * @param html    the HTML part, or null if the template has none
+     */
+    public record RenderedEmail(String subject, String text, String html) {
+    }
+
+    /**
+     * Literal segments around the placeholders; literals has one element more than parameters.
+     */
+    record Segments(String[] literals, int[] parameters) {
+    }
+
+    /**
+     * The compiled parts of one language version of a template.
+     */
+    record Parts(Segments subject, Segments text, Segments html, int parameterCount) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fitness_booking_system.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads and compiles the email templates from templates/email/{locale}/ on the classpath.
+ * A template consists of {name}.txt, whose first line is the subject and whose remaining lines
+ * (after one empty line) are the plain text part, and an optional {name}.html with the HTML part.
+ * Templates are compiled once, when the services using them are created, so a missing file
+ * or a misspelled placeholder fails the startup instead of the first email.
+ */
+@Component
+public class EmailTemplateEngine {
+
+    private static final String LOCATION = "templates/email/";
+
+    /**
+     * Language used when a template has no version in the requested language.
+     */
+    @Value("${app.mail.default-locale:bg}")
+    private String defaultLocale = "bg";
+
+    /**
+     * Languages in which the templates are looked up.
+     */
+    @Value("${app.mail.locales:bg}")
+    private String[] locales = {"bg"};
+
+    /**
+     * Compiles all language versions of a template.
+     *
+     * @param name           the name of the template, e.g. booking-confirmation-client
+     * @param parameterNames the names of the placeholders, in the order in which their values are passed to render
+     * @return the compiled template
+     * @throws IllegalStateException if the default language version is missing or a placeholder is invalid
+     */
+    public EmailTemplate compile(String name, String... parameterNames) {
+        List<String> parameters = List.of(parameterNames);
+        Map<String, EmailTemplate.Parts> compiled = new HashMap<>();
+        for (String locale : locales) {
+            String text = read(locale + "/" + name + ".txt");
+            if (text == null) {
+                continue;
+            }
+            String html = read(locale + "/" + name + ".html");
+
+            int subjectEnd = text.indexOf('\n');
+            if (subjectEnd < 0) {
+                throw new IllegalStateException("Email template " + locale + "/" + name + ".txt has no body");
+            }
+            String subject = text.substring(0, subjectEnd).trim();
+            String body = text.substring(subjectEnd + 1).strip();
+
+            try {
+                compiled.put(locale, new EmailTemplate.Parts(
+                        EmailTemplate.compile(subject, parameters),
+                        EmailTemplate.compile(body, parameters),
+                        html == null ? null : EmailTemplate.compile(html, parameters),
+                        parameters.size()));
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException("Invalid email template " + locale + "/" + name + ": " + e.getMessage(), e);
+            }
+        }
+        return new EmailTemplate(name, defaultLocale, compiled);
+    }
+
+    private static String read(String path) {
+        ClassPathResource resource = new ClassPathResource(LOCATION + path);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read email template " + path, e);
+        }
+    }
+}
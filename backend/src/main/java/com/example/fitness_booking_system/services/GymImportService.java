@@ -0,0 +1,717 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.ImportErrorDTO;
+import com.example.fitness_booking_system.dto.ImportRecordDTO;
+import com.example.fitness_booking_system.dto.ImportRecordType;
+import com.example.fitness_booking_system.dto.ImportReportDTO;
+import com.example.fitness_booking_system.dto.LoginUserDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
+import com.example.fitness_booking_system.entities.Booking;
+import com.example.fitness_booking_system.entities.BookingStatus;
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import com.example.fitness_booking_system.entities.User;
+import com.example.fitness_booking_system.entities.UserRole;
+import com.example.fitness_booking_system.repositories.BookingRepository;
+import com.example.fitness_booking_system.repositories.ClientRepository;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.TrainerRepository;
+import com.example.fitness_booking_system.repositories.TrainingTypeRepository;
+import com.example.fitness_booking_system.repositories.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Service for importing the members and the schedule of an existing gym from a JSON lines file.
+ * Every line is one trainer, client, time slot or booking (see {@link ImportRecordDTO}); a record may only
+ * reference members and time slots from earlier lines or members that are already registered.
+ * The file is streamed in chunks: the passwords of a chunk are hashed in parallel on a dedicated pool
+ * while the previous chunk is written, and every chunk is written in one transaction with batched inserts.
+ * Invalid lines are skipped and reported; when a chunk cannot be written as a whole,
+ * its lines are retried one by one, so that a single bad line does not discard its neighbours.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GymImportService {
+
+    /**
+     * Statement for writing the seat counts of the time slots that received imported bookings.
+     */
+    private static final String UPDATE_BOOKED_COUNT_SQL =
+            "UPDATE time_slots SET booked_count = ?, status = ? WHERE id = ?";
+
+    private final UserRepository userRepository;
+    private final ClientRepository clientRepository;
+    private final TrainerRepository trainerRepository;
+    private final TrainingTypeRepository trainingTypeRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final BookingRepository bookingRepository;
+
+    /**
+     * JDBC template for the batched seat count updates.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Transaction template for writing one chunk per transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Services whose in-memory state has to follow the imported trainers, time slots and bookings.
+     */
+    private final TrainerService trainerService;
+    private final TrainerFreeBusyIndex trainerFreeBusyIndex;
+    private final TrainerStatsService trainerStatsService;
+    private final CalendarFeedService calendarFeedService;
+
+    /**
+     * File imported when the application starts; nothing is imported when empty.
+     */
+    @Value("${app.import.file:}")
+    private String importFile;
+
+    /**
+     * Number of lines written per transaction.
+     */
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Number of threads hashing passwords; 0 means one per available core.
+     */
+    @Value("${app.import.hashing-threads:0}")
+    private int hashingThreads;
+
+    /**
+     * Maximum number of failed lines listed in the report.
+     */
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Imports the configured file once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (importFile == null || importFile.isBlank()) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(Path.of(importFile), StandardCharsets.UTF_8)) {
+            ImportReportDTO report = importJsonLines(reader);
+            log.info("Import of {} finished in {} ms: {} trainers, {} clients, {} time slots, {} bookings, {} failed lines",
+                    importFile, report.getDurationMs(), report.getTrainersImported(), report.getClientsImported(),
+                    report.getTimeSlotsImported(), report.getBookingsImported(), report.getFailedLines());
+        } catch (IOException e) {
+            log.error("Could not read import file {}: {}", importFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Imports the records of a JSON lines file.
+     *
+     * @param reader the file contents
+     * @return the number of imported records and the failed lines
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReportDTO importJsonLines(Reader reader) throws IOException {
+        long started = System.nanoTime();
+        ImportJob job = new ImportJob(loadTrainingTypes());
+        ForkJoinPool hashingPool = new ForkJoinPool(hashingThreads > 0
+                ? hashingThreads : Runtime.getRuntime().availableProcessors());
+
+        try {
+            BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+            CompletableFuture<List<ImportRow>> previous = null;
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            int lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(new ImportRow(lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    // Hash this chunk while the previous one is being written
+                    List<ImportRow> rows = chunk;
+                    CompletableFuture<List<ImportRow>> next = CompletableFuture.supplyAsync(() -> prepare(rows), hashingPool);
+                    if (previous != null) {
+                        List<ImportRow> written = previous.join();
+                        write(job, written);
+                        logProgress(job, written.get(written.size() - 1).lineNumber);
+                    }
+                    previous = next;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (previous != null) {
+                write(job, previous.join());
+            }
+            if (!chunk.isEmpty()) {
+                List<ImportRow> rows = chunk;
+                write(job, CompletableFuture.supplyAsync(() -> prepare(rows), hashingPool).join());
+            }
+            job.report.setLinesRead(lineNumber);
+        } finally {
+            hashingPool.shutdown();
+        }
+
+        job.report.setDurationMs((System.nanoTime() - started) / 1_000_000);
+        return job.report;
+    }
+
+    /**
+     * Parses the lines of a chunk and hashes the passwords of its members in parallel.
+     * Runs on the hashing pool, so the parallel stream uses all of its threads.
+     *
+     * @param rows the lines of the chunk
+     * @return the same rows, parsed
+     */
+    private List<ImportRow> prepare(List<ImportRow> rows) {
+        rows.parallelStream().forEach(row -> {
+            try {
+                row.record = objectMapper.readValue(row.line, ImportRecordDTO.class);
+            } catch (JsonProcessingException e) {
+                row.error = "Невалиден JSON: " + e.getOriginalMessage();
+                return;
+            }
+            row.line = null;
+
+            ImportRecordDTO record = row.record;
+            if (record.getType() == null) {
+                row.error = "Липсва тип на записа";
+            } else if (record.getPasswordHash() != null) {
+                if (!record.getPasswordHash().startsWith("$2")) {
+                    row.error = "Хешът на паролата трябва да бъде BCrypt";
+                }
+                row.passwordHash = record.getPasswordHash();
+            } else if (record.getPassword() != null) {
+                if (record.getPassword().length() < 6) {
+                    row.error = "Паролата трябва да бъде поне 6 символа";
+                } else {
+                    row.passwordHash = passwordEncoder.encode(record.getPassword());
+                }
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Writes a parsed chunk in one transaction and applies the result to the job once it commits.
+     * If the transaction fails, every line of the chunk is retried in a transaction of its own.
+     *
+     * @param job  the running import
+     * @param rows the parsed lines of the chunk
+     */
+    private void write(ImportJob job, List<ImportRow> rows) {
+        List<ImportRow> valid = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (row.error != null) {
+                job.fail(row.lineNumber, row.error);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            job.apply(transactionTemplate.execute(status -> writeRows(job, valid)));
+        } catch (RuntimeException e) {
+            if (valid.size() == 1) {
+                log.debug("Import of line {} failed", valid.get(0).lineNumber, e);
+                job.fail(valid.get(0).lineNumber, "Грешка при запис: " + e.getMessage());
+                return;
+            }
+            log.warn("Import chunk of lines {}-{} failed, retrying line by line: {}",
+                    valid.get(0).lineNumber, valid.get(valid.size() - 1).lineNumber, e.getMessage());
+            for (ImportRow row : valid) {
+                write(job, List.of(row));
+            }
+        }
+    }
+
+    private void logProgress(ImportJob job, int lineNumber) {
+        log.info("Import progress: {} lines, {} trainers, {} clients, {} time slots, {} bookings, {} failed lines",
+                lineNumber, job.report.getTrainersImported(), job.report.getClientsImported(),
+                job.report.getTimeSlotsImported(), job.report.getBookingsImported(), job.report.getFailedLines());
+    }
+
+    /**
+     * Writes the lines of a chunk inside the current transaction.
+     * The entities get their IDs from the pooled sequences, so the inserts are sent as JDBC batches on flush.
+     *
+     * @param job  the running import
+     * @param rows the valid lines of the chunk
+     * @return the changes of the chunk, applied to the job after the commit
+     */
+    private ChunkResult writeRows(ImportJob job, List<ImportRow> rows) {
+        ChunkResult chunk = new ChunkResult(job);
+
+        // One query for all members of the chunk that may already be registered
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : rows) {
+            addUnknownEmail(job, emails, row.record.getEmail());
+            addUnknownEmail(job, emails, row.record.getTrainerEmail());
+            addUnknownEmail(job, emails, row.record.getClientEmail());
+        }
+        if (!emails.isEmpty()) {
+            for (LoginUserDTO user : userRepository.findLoginsByEmailIn(emails)) {
+                chunk.registered.put(user.getEmail(), user);
+            }
+        }
+
+        // The time range of the new slots of each trainer, so that the existing slots are read with one query per trainer
+        for (ImportRow row : rows) {
+            ImportRecordDTO record = row.record;
+            if (record.getType() == ImportRecordType.TIME_SLOT && record.getTrainerEmail() != null
+                    && record.getStartTime() != null && record.getEndTime() != null) {
+                chunk.slotRanges.merge(record.getTrainerEmail(),
+                        new TimeRangeDTO(record.getStartTime(), record.getEndTime()),
+                        (range, other) -> new TimeRangeDTO(
+                                range.getStartTime().isBefore(other.getStartTime()) ? range.getStartTime() : other.getStartTime(),
+                                range.getEndTime().isAfter(other.getEndTime()) ? range.getEndTime() : other.getEndTime()));
+            }
+        }
+
+        for (ImportRow row : rows) {
+            try {
+                switch (row.record.getType()) {
+                    case TRAINER -> importTrainer(chunk, row);
+                    case CLIENT -> importClient(chunk, row);
+                    case TIME_SLOT -> importTimeSlot(chunk, row.record);
+                    case BOOKING -> importBooking(chunk, row.record);
+                }
+            } catch (ResponseStatusException e) {
+                chunk.errors.add(new ImportErrorDTO(row.lineNumber, e.getReason()));
+            }
+        }
+
+        if (!chunk.bookedSlots.isEmpty()) {
+            // The new time slots have to be inserted before their seat counts are updated
+            timeSlotRepository.flush();
+            List<Object[]> counts = chunk.bookedSlots.stream()
+                    .map(chunk.slots::get)
+                    .map(slot -> new Object[]{slot.bookedCount(), slot.status().name(), slot.id()})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate(UPDATE_BOOKED_COUNT_SQL, counts);
+        }
+        // Indexed as one batch, so the price arrays of the search index are rebuilt once per chunk
+        trainerService.indexTrainers(chunk.newTrainers);
+        calendarFeedService.markTrainersChanged(chunk.changedTrainers);
+        calendarFeedService.markClientsChanged(chunk.changedClients);
+        return chunk;
+    }
+
+    private void importTrainer(ChunkResult chunk, ImportRow row) {
+        ImportRecordDTO record = row.record;
+        if (record.getPersonalPrice() != null && record.getPersonalPrice() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Цената за персонална тренировка трябва да бъде положителна");
+        }
+        if (record.getGroupPrice() != null && record.getGroupPrice() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Цената за групова тренировка трябва да бъде положителна");
+        }
+        Set<TrainingType> trainingTypes = new HashSet<>();
+        if (record.getTrainingTypes() != null) {
+            for (String name : record.getTrainingTypes()) {
+                trainingTypes.add(trainingTypeRepository.getReferenceById(chunk.trainingType(name).getId()));
+            }
+        }
+
+        Trainer trainer = new Trainer();
+        trainer.setUser(createUser(chunk, row, UserRole.TRAINER));
+        trainer.setBio(record.getBio());
+        if (record.getSpecializations() != null) {
+            trainer.setSpecializations(new HashSet<>(Arrays.asList(record.getSpecializations())));
+        }
+        trainer.setPersonalPrice(record.getPersonalPrice());
+        trainer.setGroupPrice(record.getGroupPrice());
+        trainer.setTrainingTypes(trainingTypes);
+
+        Trainer savedTrainer = trainerRepository.save(trainer);
+        chunk.newTrainers.add(savedTrainer);
+        chunk.trainers.put(record.getEmail(), savedTrainer.getId());
+    }
+
+    private void importClient(ChunkResult chunk, ImportRow row) {
+        ImportRecordDTO record = row.record;
+        LocalDate birthDate = null;
+        if (record.getDateOfBirth() != null && !record.getDateOfBirth().isEmpty()) {
+            try {
+                birthDate = LocalDate.parse(record.getDateOfBirth());
+            } catch (DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Невалиден формат на датата на раждане");
+            }
+        }
+
+        Client client = new Client();
+        client.setUser(createUser(chunk, row, UserRole.CLIENT));
+        client.setDateOfBirth(birthDate);
+        client.setHealthInformation(record.getHealthInformation());
+        client.setFitnessGoals(record.getFitnessGoals());
+
+        chunk.clients.put(record.getEmail(), clientRepository.save(client).getId());
+    }
+
+    private User createUser(ChunkResult chunk, ImportRow row, UserRole role) {
+        ImportRecordDTO record = row.record;
+        if (isBlank(record.getEmail())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Имейлът е задължителен");
+        }
+        if (isBlank(record.getFullName())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Името е задължително");
+        }
+        if (row.passwordHash == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Паролата е задължителна");
+        }
+        if (chunk.isEmailTaken(record.getEmail())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Имейлът вече е зает");
+        }
+
+        User user = new User();
+        user.setEmail(record.getEmail());
+        user.setPassword(row.passwordHash);
+        user.setFullName(record.getFullName());
+        user.setPhone(record.getPhone());
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        chunk.emails.add(record.getEmail());
+        return userRepository.save(user);
+    }
+
+    private void importTimeSlot(ChunkResult chunk, ImportRecordDTO record) {
+        if (isBlank(record.getRef())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Липсва идентификатор (ref) на слота");
+        }
+        if (chunk.slot(record.getRef()) != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Слотът " + record.getRef() + " вече е импортиран");
+        }
+        if (record.getStartTime() == null || record.getEndTime() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Началният и крайният час са задължителни");
+        }
+        if (!record.getStartTime().isBefore(record.getEndTime())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Началният час трябва да е преди крайния час");
+        }
+        if (Duration.between(record.getStartTime(), record.getEndTime()).compareTo(TimeSlotRepository.MAX_SLOT_DURATION) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Слотът не може да бъде по-дълъг от едно денонощие");
+        }
+
+        Long trainerId = chunk.trainerId(record.getTrainerEmail());
+        TrainingType trainingType = chunk.trainingType(record.getTrainingType());
+        Integer capacity = record.getCapacity();
+        if (capacity == null) {
+            capacity = trainingType.getCategory() == TrainingTypeCategory.PERSONAL ? 1 : trainingType.getMaxClients();
+        } else if (trainingType.getCategory() == TrainingTypeCategory.PERSONAL && capacity > 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Персоналните тренировки могат да имат капацитет максимум 1");
+        } else if (trainingType.getCategory() == TrainingTypeCategory.GROUP && capacity > trainingType.getMaxClients()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Капацитетът не може да надвишава максималния брой клиенти (" + trainingType.getMaxClients() + ")");
+        }
+        TimeSlotStatus status = record.getSlotStatus() != null ? record.getSlotStatus() : TimeSlotStatus.AVAILABLE;
+        if (status != TimeSlotStatus.CANCELLED) {
+            checkOverlap(chunk, trainerId, record);
+        }
+
+        TimeSlot timeSlot = new TimeSlot();
+        timeSlot.setTrainer(trainerRepository.getReferenceById(trainerId));
+        timeSlot.setTrainingType(trainingTypeRepository.getReferenceById(trainingType.getId()));
+        timeSlot.setStartTime(record.getStartTime());
+        timeSlot.setEndTime(record.getEndTime());
+        timeSlot.setCapacity(capacity);
+        timeSlot.setStatus(status);
+        Long id = timeSlotRepository.save(timeSlot).getId();
+
+        chunk.timeSlots++;
+        chunk.slots.put(record.getRef(), new ImportedSlot(id, trainerId, trainingType.getId(),
+                record.getStartTime(), record.getEndTime(), capacity, 0, status));
+        chunk.changedTrainers.add(trainerId);
+        if (status != TimeSlotStatus.CANCELLED) {
+            trainerFreeBusyIndex.markBusy(trainerId, record.getStartTime(), record.getEndTime());
+            trainerStatsService.recordSlotCreated(trainerId, trainingType.getId(),
+                    record.getStartTime().toLocalDate(), capacity);
+        }
+    }
+
+    /**
+     * Rejects a time slot that overlaps another (not cancelled) slot of the same trainer,
+     * like TimeSlotService does for the slots created through the API.
+     * The slots of the chunk are checked in memory; the slots already in the database, including those of
+     * the earlier chunks, are read with the same busy-range query as the batch creation, once per trainer and chunk.
+     *
+     * @param chunk     the chunk being written
+     * @param trainerId the ID of the trainer of the new slot
+     * @param record    the line of the new slot
+     */
+    private void checkOverlap(ChunkResult chunk, Long trainerId, ImportRecordDTO record) {
+        for (ImportedSlot other : chunk.slots.values()) {
+            if (other.trainerId().equals(trainerId) && other.status() != TimeSlotStatus.CANCELLED
+                    && overlaps(other.startTime(), other.endTime(), record.getStartTime(), record.getEndTime())) {
+                throw overlapConflict();
+            }
+        }
+
+        List<TimeRangeDTO> busy = chunk.busy.get(trainerId);
+        if (busy == null) {
+            // Read before the first slot of the trainer in this chunk is saved, so it only returns existing slots
+            TimeRangeDTO range = chunk.slotRanges.get(record.getTrainerEmail());
+            busy = timeSlotRepository.findBusyTimeRanges(trainerId,
+                    range.getStartTime().minus(TimeSlotRepository.MAX_SLOT_DURATION), range.getStartTime(), range.getEndTime());
+            chunk.busy.put(trainerId, busy);
+        }
+        for (TimeRangeDTO other : busy) {
+            if (overlaps(other.getStartTime(), other.getEndTime(), record.getStartTime(), record.getEndTime())) {
+                throw overlapConflict();
+            }
+        }
+    }
+
+    private void importBooking(ChunkResult chunk, ImportRecordDTO record) {
+        ImportedSlot slot = chunk.slot(record.getSlotRef());
+        if (slot == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Времевият слот " + record.getSlotRef() + " не е импортиран");
+        }
+        Long clientId = chunk.clientId(record.getClientEmail());
+        BookingStatus status = record.getBookingStatus() != null ? record.getBookingStatus() : BookingStatus.CONFIRMED;
+
+        if (status != BookingStatus.CANCELLED) {
+            String bookingKey = clientId + ":" + slot.id();
+            if (chunk.bookingKeys.contains(bookingKey) || chunk.job.bookingKeys.contains(bookingKey)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Клиентът вече има резервация за този времеви слот");
+            }
+            if (slot.status() == TimeSlotStatus.CANCELLED || slot.bookedCount() >= slot.capacity()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Този времеви слот вече е зает или отменен");
+            }
+            chunk.bookingKeys.add(bookingKey);
+            int bookedCount = slot.bookedCount() + 1;
+            slot = new ImportedSlot(slot.id(), slot.trainerId(), slot.trainingTypeId(), slot.startTime(), slot.endTime(),
+                    slot.capacity(), bookedCount, bookedCount >= slot.capacity() ? TimeSlotStatus.BOOKED : slot.status());
+            chunk.slots.put(record.getSlotRef(), slot);
+            chunk.bookedSlots.add(record.getSlotRef());
+        }
+
+        Booking booking = new Booking();
+        booking.setClient(clientRepository.getReferenceById(clientId));
+        booking.setTimeSlot(timeSlotRepository.getReferenceById(slot.id()));
+        booking.setSlotStartTime(slot.startTime());
+        booking.setStatus(status);
+        booking.setBookingTime(record.getBookingTime() != null ? record.getBookingTime() : LocalDateTime.now());
+        bookingRepository.save(booking);
+
+        chunk.bookings++;
+        chunk.changedClients.add(clientId);
+        LocalDate date = slot.startTime().toLocalDate();
+        trainerStatsService.recordBookingCreated(slot.trainerId(), slot.trainingTypeId(), date);
+        if (status == BookingStatus.CANCELLED) {
+            trainerStatsService.recordBookingCancelled(slot.trainerId(), slot.trainingTypeId(), date);
+        }
+    }
+
+    private Map<String, TrainingType> loadTrainingTypes() {
+        Map<String, TrainingType> trainingTypes = new HashMap<>();
+        for (TrainingType trainingType : trainingTypeRepository.findAll()) {
+            trainingTypes.put(normalize(trainingType.getName()), trainingType);
+        }
+        return trainingTypes;
+    }
+
+    private static void addUnknownEmail(ImportJob job, Set<String> emails, String email) {
+        if (email != null && !job.emails.contains(email)) {
+            emails.add(email);
+        }
+    }
+
+    private static boolean overlaps(LocalDateTime start, LocalDateTime end,
+                                    LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+
+    private static ResponseStatusException overlapConflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Има припокриващ се слот за този треньор в избрания период");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A line of the import file; parsed and hashed on the hashing pool, then written by the importing thread.
+     */
+    private static final class ImportRow {
+        private final int lineNumber;
+        private String line;
+        private ImportRecordDTO record;
+        private String passwordHash;
+        private String error;
+
+        private ImportRow(int lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    /**
+     * An imported time slot, kept in memory for the bookings that reference it.
+     */
+    private record ImportedSlot(Long id, Long trainerId, Long trainingTypeId, LocalDateTime startTime,
+                                LocalDateTime endTime, int capacity, int bookedCount, TimeSlotStatus status) {
+    }
+
+    /**
+     * State of a running import: everything committed so far that later lines may reference.
+     */
+    private final class ImportJob {
+        private final Map<String, TrainingType> trainingTypes;
+        private final Set<String> emails = new HashSet<>();
+        private final Map<String, Long> trainers = new HashMap<>();
+        private final List<Trainer> newTrainers = new ArrayList<>();
+        private final Map<String, Long> clients = new HashMap<>();
+        private final Map<String, ImportedSlot> slots = new HashMap<>();
+        private final Set<String> bookingKeys = new HashSet<>();
+        private final ImportReportDTO report = new ImportReportDTO();
+
+        private ImportJob(Map<String, TrainingType> trainingTypes) {
+            this.trainingTypes = trainingTypes;
+        }
+
+        private void apply(ChunkResult chunk) {
+            emails.addAll(chunk.emails);
+            trainers.putAll(chunk.trainers);
+            clients.putAll(chunk.clients);
+            slots.putAll(chunk.slots);
+            bookingKeys.addAll(chunk.bookingKeys);
+            report.setTrainersImported(report.getTrainersImported() + chunk.trainers.size());
+            report.setClientsImported(report.getClientsImported() + chunk.clients.size());
+            report.setTimeSlotsImported(report.getTimeSlotsImported() + chunk.timeSlots);
+            report.setBookingsImported(report.getBookingsImported() + chunk.bookings);
+            chunk.errors.forEach(error -> fail(error.getLine(), error.getMessage()));
+        }
+
+        private void fail(int lineNumber, String message) {
+            report.setFailedLines(report.getFailedLines() + 1);
+            if (report.getErrors().size() < maxReportedErrors) {
+                report.getErrors().add(new ImportErrorDTO(lineNumber, message));
+                log.warn("Import line {} skipped: {}", lineNumber, message);
+            }
+        }
+    }
+
+    /**
+     * Changes made by one chunk; lookups see the chunk first and then the committed state of the job.
+     */
+    private static final class ChunkResult {
+        private final ImportJob job;
+        private final Map<String, LoginUserDTO> registered = new HashMap<>();
+        private final Set<String> emails = new HashSet<>();
+        private final Map<String, Long> trainers = new HashMap<>();
+        private final List<Trainer> newTrainers = new ArrayList<>();
+        private final Map<String, Long> clients = new HashMap<>();
+        private final Map<String, ImportedSlot> slots = new HashMap<>();
+        private final Set<String> bookedSlots = new LinkedHashSet<>();
+        private final Set<String> bookingKeys = new HashSet<>();
+        private final Map<String, TimeRangeDTO> slotRanges = new HashMap<>();
+        private final Map<Long, List<TimeRangeDTO>> busy = new HashMap<>();
+        private final Set<Long> changedTrainers = new HashSet<>();
+        private final Set<Long> changedClients = new HashSet<>();
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+        private int timeSlots;
+        private int bookings;
+
+        private ChunkResult(ImportJob job) {
+            this.job = job;
+        }
+
+        private boolean isEmailTaken(String email) {
+            return emails.contains(email) || job.emails.contains(email) || registered.containsKey(email);
+        }
+
+        private Long trainerId(String email) {
+            Long id = trainers.containsKey(email) ? trainers.get(email) : job.trainers.get(email);
+            if (id == null && registered.containsKey(email)) {
+                id = registered.get(email).getTrainerId();
+            }
+            if (id == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Треньорът не е намерен: " + email);
+            }
+            return id;
+        }
+
+        private Long clientId(String email) {
+            Long id = clients.containsKey(email) ? clients.get(email) : job.clients.get(email);
+            if (id == null && registered.containsKey(email)) {
+                id = registered.get(email).getClientId();
+            }
+            if (id == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Клиентът не е намерен: " + email);
+            }
+            return id;
+        }
+
+        private ImportedSlot slot(String ref) {
+            if (ref == null) {
+                return null;
+            }
+            return slots.containsKey(ref) ? slots.get(ref) : job.slots.get(ref);
+        }
+
+        private TrainingType trainingType(String name) {
+            TrainingType trainingType = name == null ? null : job.trainingTypes.get(normalize(name));
+            if (trainingType == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Типът тренировка не е намерен: " + name);
+            }
+            return trainingType;
+        }
+    }
+}
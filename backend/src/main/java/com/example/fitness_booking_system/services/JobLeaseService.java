@@ -0,0 +1,78 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.repositories.JobLeaseRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Service for the leases of scheduled jobs that must run on a single instance, such as corrections
+ * that would be applied once per instance otherwise. The lease is never released: the owner renews it
+ * on its next run, and another instance takes over only after the owner missed a whole lease period.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobLeaseService {
+
+    /**
+     * Identifies this instance as the owner of leases.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Repository for the leases.
+     */
+    private final JobLeaseRepository jobLeaseRepository;
+
+    /**
+     * Transaction template for the single-statement updates.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Clock used for the expiry of the leases.
+     */
+    private final Clock clock;
+
+    /**
+     * Takes or renews the lease of a job. The lease period must be longer than the interval between two runs,
+     * so that the owner renews it before it expires.
+     *
+     * @param jobName the name of the job
+     * @param period  how long the lease is held
+     * @return true if this instance holds the lease and should run the job, false otherwise
+     */
+    public boolean tryAcquire(String jobName, Duration period) {
+        long now = clock.millis();
+        long lockedUntil = now + period.toMillis();
+        try {
+            Integer updated = transactionTemplate.execute(status ->
+                    jobLeaseRepository.acquire(jobName, instanceId, now, lockedUntil));
+            if (updated != null && updated > 0) {
+                return true;
+            }
+            if (jobLeaseRepository.existsById(jobName)) {
+                return false;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    jobLeaseRepository.insert(jobName, instanceId, lockedUntil));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lease first
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Could not acquire the lease of {}, skipping this run: {}", jobName, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.tracing.Span;
+import com.example.fitness_booking_system.tracing.SpanKind;
+import com.example.fitness_booking_system.tracing.Tracer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the outgoing emails over a small pool of long-lived SMTP connections.
+ * JavaMailSender opens a new connection, with its TLS and authentication handshake, for every message.
+ * Here every worker thread keeps one authenticated connection open, takes the queued messages in batches
+ * and sends them one after another over that connection. A broken connection is closed and the message is retried
+ * over a new one after an exponentially growing, jittered delay, so that the workers do not hammer a server that is
+ * down all at the same moment; idle connections are closed after a timeout.
+ * Exposes the metrics mail.sent, mail.failed, mail.rejected (queue full), mail.connections (connects),
+ * mail.batch (time per batch) and mail.queue (queue depth).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MailTransportPool {
+
+    /**
+     * How often an idle worker wakes up to check for shutdown and for idle connections.
+     */
+    private static final long POLL_INTERVAL_MS = 200;
+
+    /**
+     * Mail sender holding the session and the SMTP server settings (spring.mail.*).
+     */
+    private final JavaMailSenderImpl mailSender;
+
+    /**
+     * Registry for the mail metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Tracer recording a span per batch and per sent message.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Number of worker threads, each with its own SMTP connection.
+     */
+    @Value("${app.mail.pool.size:2}")
+    private int poolSize;
+
+    /**
+     * Maximum number of messages a worker takes from the queue at once.
+     */
+    @Value("${app.mail.pool.batch-size:20}")
+    private int batchSize;
+
+    /**
+     * Maximum number of queued messages; further messages are dropped and counted in mail.rejected.
+     */
+    @Value("${app.mail.pool.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * Number of messages after which a connection is reopened; SMTP servers limit the messages per connection.
+     */
+    @Value("${app.mail.pool.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    /**
+     * Time after which an unused connection is closed.
+     */
+    @Value("${app.mail.pool.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    /**
+     * Number of attempts per message before it is given up.
+     */
+    @Value("${app.mail.pool.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Delay before the first retry of a message; it doubles with every further attempt.
+     */
+    @Value("${app.mail.pool.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    /**
+     * Upper bound for the delay between two attempts.
+     */
+    @Value("${app.mail.pool.retry-backoff-max-ms:10000}")
+    private long retryBackoffMaxMs;
+
+    /**
+     * Maximum time to wait on shutdown for the queued messages to be sent.
+     */
+    @Value("${app.mail.pool.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<MimeMessage> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+    private Counter connectionsCounter;
+    private Timer batchTimer;
+
+    /**
+     * Starts the worker threads and registers the metrics.
+     */
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        sentCounter = Counter.builder("mail.sent").register(meterRegistry);
+        failedCounter = Counter.builder("mail.failed").register(meterRegistry);
+        rejectedCounter = Counter.builder("mail.rejected").register(meterRegistry);
+        connectionsCounter = Counter.builder("mail.connections").register(meterRegistry);
+        batchTimer = Timer.builder("mail.batch").register(meterRegistry);
+        meterRegistry.gauge("mail.queue", queue, BlockingQueue::size);
+
+        running = true;
+        for (int i = 1; i <= poolSize; i++) {
+            Thread worker = new Thread(this::work, "mail-transport-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Sends the queued messages and stops the worker threads.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} emails were not sent before shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Queues a message for sending.
+     *
+     * @param message the message to send
+     * @return true if the message was queued, false if the queue is full
+     */
+    public boolean send(MimeMessage message) {
+        if (!queue.offer(message)) {
+            rejectedCounter.increment();
+            log.warn("Email queue is full, dropping message to {}", recipients(message));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of messages waiting to be sent.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void work() {
+        Connection connection = new Connection();
+        List<MimeMessage> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                MimeMessage first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (connection.isIdleFor(idleTimeoutMs)) {
+                        connection.close();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                try (Span span = tracer.startSpan("smtp batch", SpanKind.INTERNAL)) {
+                    span.setAttribute("mail.messages", batch.size());
+                    batchTimer.record(() -> batch.forEach(message -> send(connection, message)));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void send(Connection connection, MimeMessage message) {
+        try (Span span = tracer.startSpan("smtp send", SpanKind.CLIENT)) {
+            int attempts = sendWithRetries(connection, message);
+            span.setAttribute("mail.attempts", attempts);
+        }
+    }
+
+    /**
+     * Sends a message, reopening the connection and retrying after a connection failure.
+     *
+     * @return the number of attempts made
+     */
+    private int sendWithRetries(Connection connection, MimeMessage message) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (attempt == 1) {
+                    message.setSentDate(new Date());
+                    message.saveChanges();
+                }
+                connection.transport().sendMessage(message, message.getAllRecipients());
+                connection.sent();
+                sentCounter.increment();
+                return attempt;
+            } catch (MessagingException e) {
+                if (e instanceof SendFailedException failed && failed.getInvalidAddresses() != null
+                        && failed.getInvalidAddresses().length > 0) {
+                    // Rejected recipients; the connection itself is fine and a retry would fail again
+                    failedCounter.increment();
+                    log.warn("Email to {} was rejected: {}", recipients(message), e.getMessage());
+                    return attempt;
+                }
+                connection.close();
+                if (attempt >= maxAttempts || !sleep(retryDelayMs(attempt))) {
+                    failedCounter.increment();
+                    log.warn("Could not send email to {} after {} attempts: {}", recipients(message), attempt, e.getMessage());
+                    return attempt;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the delay before the next attempt: the backoff doubled per failed attempt, capped at the maximum,
+     * of which a random half is waited so that workers failing at the same time retry at different times.
+     *
+     * @param failedAttempts the number of attempts made so far
+     * @return the delay in milliseconds
+     */
+    long retryDelayMs(int failedAttempts) {
+        long delay = Math.min(retryBackoffMaxMs, retryBackoffMs << Math.min(failedAttempts - 1, 30));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Waits before a retry.
+     *
+     * @return false if the worker was interrupted, in which case the message is given up
+     */
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String recipients(MimeMessage message) {
+        try {
+            Address[] addresses = message.getAllRecipients();
+            return addresses == null ? "no recipients"
+                    : Arrays.stream(addresses).map(Address::toString).collect(Collectors.joining(", "));
+        } catch (MessagingException e) {
+            return "unknown recipients";
+        }
+    }
+
+    /**
+     * The SMTP connection of one worker; opened on first use and reopened after the message limit or a failure.
+     */
+    private final class Connection {
+        private Transport transport;
+        private int messages;
+        private long lastUsed;
+
+        private Transport transport() throws MessagingException {
+            if (transport != null && messages >= maxMessagesPerConnection) {
+                close();
+            }
+            if (transport == null) {
+                Session session = mailSender.getSession();
+                String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol()
+                        : session.getProperty("mail.transport.protocol");
+                Transport opened = session.getTransport(protocol != null ? protocol : "smtp");
+                opened.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+                connectionsCounter.increment();
+                transport = opened;
+                messages = 0;
+                lastUsed = System.currentTimeMillis();
+            }
+            return transport;
+        }
+
+        private void sent() {
+            messages++;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private boolean isIdleFor(long millis) {
+            return transport != null && System.currentTimeMillis() - lastUsed > millis;
+        }
+
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Could not close SMTP connection cleanly: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
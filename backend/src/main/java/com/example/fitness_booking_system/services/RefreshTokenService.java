@@ -0,0 +1,165 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.entities.RefreshToken;
+import com.example.fitness_booking_system.repositories.RefreshTokenRepository;
+import com.example.fitness_booking_system.repositories.RevokedAccessTokenRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Service for issuing and rotating refresh tokens.
+ * A refresh token is an opaque random value; only its hash is stored. Each use revokes it and issues
+ * a new one in the same family, so a stolen token that is used after its owner already rotated it
+ * is detected, and the whole family is revoked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    /**
+     * Number of random bytes in a refresh token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Repository for the refresh tokens.
+     */
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * Repository for the revoked access tokens, cleaned up together with the refresh tokens.
+     */
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    /**
+     * Clock used for the expiration of the tokens.
+     */
+    private final Clock clock;
+
+    /**
+     * Lifetime of a refresh token.
+     */
+    @Value("${app.auth.refresh-token.ttl:P14D}")
+    private Duration refreshTokenTtl;
+
+    /**
+     * Issues a refresh token in a new family, on login or registration.
+     *
+     * @param userId the ID of the user
+     * @return the refresh token value to be given to the client
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one of the same family.
+     *
+     * @param token the refresh token presented by the client
+     * @return the user ID and the new refresh token value
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public IssuedToken rotate(String token) {
+        RefreshToken refreshToken = findValid(token);
+        return new IssuedToken(refreshToken.getUserId(), issue(refreshToken.getUserId(), refreshToken.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of a refresh token, on logout.
+     * Unknown or already revoked tokens are ignored.
+     *
+     * @param token the refresh token presented by the client
+     */
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.revokeFamily(refreshToken.getFamilyId()));
+    }
+
+    /**
+     * Deletes the expired refresh tokens and access token revocations.
+     */
+    @Scheduled(cron = "${app.auth.refresh-token.cleanup-cron:0 15 * * * *}")
+    @Transactional
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int refreshTokens = refreshTokenRepository.deleteExpired(now);
+        int revocations = revokedAccessTokenRepository.deleteExpired(now);
+        log.debug("Deleted {} expired refresh tokens and {} expired revocations", refreshTokens, revocations);
+    }
+
+    private RefreshToken findValid(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED,
+                        "Невалиден токен за опресняване"));
+
+        if (!refreshToken.getExpiresAt().isAfter(LocalDateTime.now(clock))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Токенът за опресняване е изтекъл");
+        }
+        // The conditional update lets only one of two concurrent refreshes with the same token succeed
+        if (refreshToken.isRevoked() || refreshTokenRepository.markUsed(refreshToken.getId()) == 0) {
+            // The token was already used: either the client retried or someone else holds a copy
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            log.warn("Reuse of a rotated refresh token of user {}, revoking its family", refreshToken.getUserId());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Невалиден токен за опресняване");
+        }
+        return refreshToken;
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(new RefreshToken(null, userId, hash(token), familyId,
+                LocalDateTime.now(clock).plus(refreshTokenTtl), false));
+        return token;
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 hash of a token value.
+     *
+     * @param token the token value
+     * @return the hash stored in the database
+     */
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A newly issued refresh token.
+     *
+     * @param userId the ID of the user the token belongs to
+     * @param token  the refresh token value
+     */
+    public record IssuedToken(Long userId, String token) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.fitness_booking_system.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Service for maintaining the monthly range partitions of the time_slots table.
+ * When time_slots has been converted to a partitioned table (see db/partitioning/partition_time_slots.sql),
+ * this service creates the partitions for the upcoming months ahead of the scheduling horizon,
+ * so that new time slots never fall into the default partition.
+ * On databases where time_slots is a plain table, the service does nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimeSlotPartitionService {
+
+    /**
+     * Formatter for the partition table suffix, e.g. time_slots_p2025_06.
+     */
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    /**
+     * Pattern for finding the time_slots partitions referenced in a query plan.
+     */
+    private static final Pattern PARTITION_IN_PLAN = Pattern.compile("time_slots_(p\\d{4}_\\d{2}|default)");
+
+    /**
+     * JDBC template for executing partition DDL and catalog queries.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Clock used to determine the current month.
+     */
+    private final Clock clock;
+
+    /**
+     * Whether partition maintenance is enabled.
+     */
+    @Value("${app.time-slots.partitioning.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * How many months after the current one should already have partitions.
+     * This must cover the period in which trainers are allowed to create time slots.
+     */
+    @Value("${app.time-slots.partitioning.months-ahead:6}")
+    private int monthsAhead;
+
+    /**
+     * Creates the missing partitions when the application starts
+     * and checks that a one-month range query is pruned to a single partition.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (ensurePartitions() > 0) {
+            verifyPruning(YearMonth.now(clock));
+        }
+    }
+
+    /**
+     * Creates the partitions for the current month and the configured number of months ahead.
+     * Runs once a day, so the horizon moves forward together with the calendar.
+     *
+     * @return the number of months for which a partition was ensured
+     */
+    @Scheduled(cron = "${app.time-slots.partitioning.cron:0 30 3 * * *}")
+    public int ensurePartitions() {
+        if (!enabled || !isPartitioned()) {
+            return 0;
+        }
+
+        int ensured = 0;
+        for (YearMonth month : horizon()) {
+            try {
+                jdbcTemplate.execute(createPartitionSql(month));
+                ensured++;
+            } catch (DataAccessException e) {
+                // Usually means that rows for this month are already in the default partition
+                log.warn("Could not create partition {} for time_slots: {}", partitionName(month), e.getMessage());
+            }
+        }
+        return ensured;
+    }
+
+    /**
+     * Checks whether the time_slots table is a partitioned table.
+     *
+     * @return true if time_slots is range-partitioned, false if it is a plain table or the database is not PostgreSQL
+     */
+    public boolean isPartitioned() {
+        try {
+            Boolean partitioned = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt " +
+                            "JOIN pg_class c ON c.oid = pt.partrelid " +
+                            "WHERE c.relname = 'time_slots' AND pg_table_is_visible(c.oid))",
+                    Boolean.class);
+            return Boolean.TRUE.equals(partitioned);
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Explains a range query over one month and returns the partitions the planner would scan.
+     * A correctly pruned plan contains only the partition of that month.
+     *
+     * @param month the month to query
+     * @return the names of the partitions present in the plan
+     */
+    public Set<String> verifyPruning(YearMonth month) {
+        List<String> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM time_slots WHERE start_time >= TIMESTAMP '" + month.atDay(1) +
+                        " 00:00:00' AND start_time < TIMESTAMP '" + month.plusMonths(1).atDay(1) + " 00:00:00'",
+                String.class);
+
+        Set<String> partitions = new LinkedHashSet<>();
+        for (String line : plan) {
+            Matcher matcher = PARTITION_IN_PLAN.matcher(line);
+            while (matcher.find()) {
+                partitions.add(matcher.group());
+            }
+        }
+
+        if (partitions.size() > 1) {
+            log.warn("Range query over {} scans {} time_slots partitions instead of one: {}",
+                    month, partitions.size(), partitions);
+        }
+        return partitions;
+    }
+
+    /**
+     * Builds the DDL statement for creating the partition of a given month.
+     *
+     * @param month the month covered by the partition
+     * @return the CREATE TABLE ... PARTITION OF statement
+     */
+    String createPartitionSql(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF time_slots " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+
+    /**
+     * Returns the name of the partition for a given month.
+     *
+     * @param month the month covered by the partition
+     * @return the partition table name
+     */
+    String partitionName(YearMonth month) {
+        return "time_slots_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * Returns the months that should currently have a partition.
+     *
+     * @return the months from the current one to the end of the horizon
+     */
+    List<YearMonth> horizon() {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth current = YearMonth.now(clock);
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        return months;
+    }
+}
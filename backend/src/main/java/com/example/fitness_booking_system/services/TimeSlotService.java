@@ -1,8 +1,12 @@
 package com.example.fitness_booking_system.services;
 
 import com.example.fitness_booking_system.dto.BookedClientInfoDTO;
+import com.example.fitness_booking_system.dto.FreeBusyDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
 import com.example.fitness_booking_system.dto.TimeSlotCreateDTO;
 import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterRowDTO;
 import com.example.fitness_booking_system.entities.*;
 import com.example.fitness_booking_system.repositories.BookingRepository;
 import com.example.fitness_booking_system.repositories.TimeSlotRepository;
@@ -12,15 +16,24 @@ import com.example.fitness_booking_system.repositories.TrainingTypeRepository;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for managing time slots in the fitness booking system.
@@ -33,6 +46,14 @@ public class TimeSlotService {
      * Repository for accessing time slot data.
      */
     private final TimeSlotRepository timeSlotRepository;
+    /**
+     * Maximum number of days in a single free/busy request.
+     */
+    private static final int MAX_FREE_BUSY_DAYS = 62;
+    /**
+     * Maximum number of days in a single roster request.
+     */
+    private static final int MAX_ROSTER_DAYS = 31;
     /**
      * Repository for accessing trainer data.
      */
@@ -41,11 +62,31 @@ public class TimeSlotService {
      * Repository for accessing training type data.
      */
     private final TrainingTypeRepository trainingTypeRepository;
+    /**
+     * Service for the calendar feeds, notified when the slots of a trainer change.
+     */
+    private final CalendarFeedService calendarFeedService;
+    /**
+     * In-memory free/busy calendar of the trainers, used for overlap checks and the free/busy API.
+     */
+    private final TrainerFreeBusyIndex trainerFreeBusyIndex;
+    /**
+     * Service for the trainer utilization counters.
+     */
+    private final TrainerStatsService trainerStatsService;
     /**
      * Repository for accessing booking data.
      */
     @Autowired
     private BookingRepository bookingRepository;
+    /**
+     * Whether a range that is free in the free/busy bitmap is accepted without an overlap query.
+     * Off by default, as each application instance only sees its own changes in the bitmap, and the overlap
+     * query is the only check: the time_slots table has no exclusion constraint that would reject an overlapping
+     * slot created through another instance. Only enable it when a single instance creates the time slots.
+     */
+    @Value("${app.time-slots.free-busy.skip-overlap-query:false}")
+    private boolean skipOverlapQueryWhenFree;
 
     /**
      * Maps a TimeSlot entity to a TimeSlotDTO.
@@ -75,10 +116,9 @@ public class TimeSlotService {
      *
      * @return a list of TimeSlotDTOs
      */
+    @Transactional(readOnly = true)
     public List<TimeSlotDTO> getAllTimeSlots() {
-        return timeSlotRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findAllSlotViews();
     }
 
     /**
@@ -89,15 +129,111 @@ public class TimeSlotService {
      * @param end       the end date and time of the range
      * @return a list of TimeSlotDTOs for the specified trainer and date range
      */
+    @Transactional(readOnly = true)
     public List<TimeSlotDTO> getTimeSlotsByTrainerAndDateRange(Long trainerId, LocalDateTime start, LocalDateTime end) {
         if (!trainerRepository.existsById(trainerId)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Треньорът не е намерен с ID: " + trainerId);
         }
 
-        return timeSlotRepository.findByTrainerIdAndStartTimeBetween(trainerId, start, end).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(trainerId, start, end);
+    }
+
+    /**
+     * Checks the range of a time slot export.
+     * Called before the streamed response starts, as its status can no longer be changed once elements are written.
+     *
+     * @param start the start date and time of the range (inclusive)
+     * @param end   the end date and time of the range (exclusive)
+     * @throws ResponseStatusException with BAD_REQUEST if the range is empty or inverted
+     */
+    public void validateExportRange(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Началната дата трябва да е преди крайната дата");
+        }
+    }
+
+    /**
+     * Streams all time slots starting within a date range to a consumer, one at a time.
+     * Used for exporting large listings without holding the whole result in memory.
+     * The range is checked beforehand with {@link #validateExportRange}.
+     *
+     * @param start    the start date and time of the range (inclusive)
+     * @param end      the end date and time of the range (exclusive)
+     * @param consumer receives the TimeSlotDTOs in order of start time
+     */
+    @Transactional(readOnly = true)
+    public void streamTimeSlots(LocalDateTime start, LocalDateTime end, Consumer<TimeSlotDTO> consumer) {
+        try (Stream<TimeSlotDTO> timeSlots = timeSlotRepository.streamSlotViewsByStartTimeBetween(start, end)) {
+            timeSlots.forEach(consumer);
+        }
+    }
+
+    /**
+     * Retrieves the free/busy calendar of a trainer from the in-memory bitmaps.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return the busy and free ranges of the trainer
+     */
+    public FreeBusyDTO getTrainerFreeBusy(Long trainerId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Началната дата трябва да е преди крайната дата");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_FREE_BUSY_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Периодът не може да бъде по-дълъг от " + MAX_FREE_BUSY_DAYS + " дни");
+        }
+
+        return trainerFreeBusyIndex.getFreeBusy(trainerId, startDate, endDate);
+    }
+
+    /**
+     * Retrieves the roster of a trainer for a date range: the time slots with the clients of their confirmed bookings.
+     * The roster contains the contact and health details of the clients, so only the trainer may read it.
+     * The slots, bookings, clients and users are read with a single joined query.
+     *
+     * @param trainerId   the ID of the trainer
+     * @param callerEmail the email of the authenticated user
+     * @param startDate   the first day (inclusive)
+     * @param endDate     the last day (inclusive)
+     * @return a list of TimeSlotRosterDTOs ordered by start time
+     * @throws ResponseStatusException with FORBIDDEN if the caller is not the trainer
+     */
+    @Transactional(readOnly = true)
+    public List<TimeSlotRosterDTO> getTrainerRoster(Long trainerId, String callerEmail, LocalDate startDate,
+                                                    LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Началната дата трябва да е преди крайната дата");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_ROSTER_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Периодът не може да бъде по-дълъг от " + MAX_ROSTER_DAYS + " дни");
+        }
+
+        Long callerTrainerId = trainerRepository.findIdByUserEmail(callerEmail).orElse(null);
+        if (!trainerId.equals(callerTrainerId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Нямате достъп до графика на този треньор");
+        }
+
+        List<TimeSlotRosterRowDTO> rows = timeSlotRepository.findRosterRowsByTrainerIdAndStartTimeBetween(
+                trainerId, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX), BookingStatus.CONFIRMED);
+
+        // Редовете са подредени по слот, така че клиентите на един слот са последователни
+        Map<Long, TimeSlotRosterDTO> roster = new LinkedHashMap<>();
+        for (TimeSlotRosterRowDTO row : rows) {
+            TimeSlotRosterDTO slot = roster.computeIfAbsent(row.getTimeSlot().getId(),
+                    id -> new TimeSlotRosterDTO(row.getTimeSlot(), new ArrayList<>()));
+            if (row.getClient() != null) {
+                slot.getClients().add(row.getClient());
+            }
+        }
+        return new ArrayList<>(roster.values());
     }
 
     /**
@@ -106,12 +242,11 @@ public class TimeSlotService {
      * @param id the ID of the time slot
      * @return the TimeSlotDTO for the specified ID
      */
+    @Transactional(readOnly = true)
     public TimeSlotDTO getTimeSlotById(Long id) {
-        TimeSlot timeSlot = timeSlotRepository.findById(id)
+        return timeSlotRepository.findSlotViewById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Времевият слот не е намерен с ID: " + id));
-
-        return mapToDTO(timeSlot);
     }
 
     /**
@@ -122,10 +257,122 @@ public class TimeSlotService {
      */
     @Transactional
     public TimeSlotDTO createTimeSlot(TimeSlotCreateDTO createDTO) {
+        TimeSlot timeSlot = buildTimeSlot(createDTO);
+        // A free range in the bitmap needs no query; a busy one may be only partly taken and is confirmed in the database
+        if (!isKnownFree(timeSlot) && timeSlotRepository.hasOverlappingTimeSlot(createDTO.getTrainerId(),
+                createDTO.getStartTime(), createDTO.getEndTime())) {
+            throw overlapConflict();
+        }
+        TimeSlot savedTimeSlot = timeSlotRepository.save(timeSlot);
+        trainerFreeBusyIndex.markBusy(createDTO.getTrainerId(), createDTO.getStartTime(), createDTO.getEndTime());
+        recordSlotCreated(savedTimeSlot);
+        calendarFeedService.markTrainerChanged(createDTO.getTrainerId());
+        return mapToDTO(savedTimeSlot);
+    }
+
+    /**
+     * Creates several time slots at once, e.g. when a trainer generates a weekly schedule.
+     * All slots are validated first and then inserted with a single batched statement per JDBC batch.
+     * The existing slots of each trainer are read with one query covering the whole batch,
+     * instead of one overlap query per slot.
+     *
+     * @param createDTOs the DTOs containing time slot creation details
+     * @return the created TimeSlotDTOs
+     */
+    @Transactional
+    public List<TimeSlotDTO> createTimeSlots(List<TimeSlotCreateDTO> createDTOs) {
+        List<TimeSlot> timeSlots = new ArrayList<>(createDTOs.size());
+        for (TimeSlotCreateDTO createDTO : createDTOs) {
+            TimeSlot timeSlot = buildTimeSlot(createDTO);
+
+            for (TimeSlot other : timeSlots) {
+                if (other.getTrainer().getId().equals(timeSlot.getTrainer().getId()) && overlaps(other.getStartTime(),
+                        other.getEndTime(), timeSlot.getStartTime(), timeSlot.getEndTime())) {
+                    throw overlapConflict();
+                }
+            }
+            timeSlots.add(timeSlot);
+        }
+
+        Map<Long, List<TimeSlot>> timeSlotsByTrainer = timeSlots.stream()
+                .filter(timeSlot -> !isKnownFree(timeSlot))
+                .collect(Collectors.groupingBy(timeSlot -> timeSlot.getTrainer().getId()));
+        timeSlotsByTrainer.forEach((trainerId, trainerTimeSlots) -> {
+            LocalDateTime start = trainerTimeSlots.stream().map(TimeSlot::getStartTime)
+                    .min(LocalDateTime::compareTo).orElseThrow();
+            LocalDateTime end = trainerTimeSlots.stream().map(TimeSlot::getEndTime)
+                    .max(LocalDateTime::compareTo).orElseThrow();
+            List<TimeRangeDTO> busy = timeSlotRepository.findBusyTimeRanges(trainerId,
+                    start.minus(TimeSlotRepository.MAX_SLOT_DURATION), start, end);
+            for (TimeSlot timeSlot : trainerTimeSlots) {
+                for (TimeRangeDTO range : busy) {
+                    if (overlaps(range.getStartTime(), range.getEndTime(), timeSlot.getStartTime(), timeSlot.getEndTime())) {
+                        throw overlapConflict();
+                    }
+                }
+            }
+        });
+
+        List<TimeSlot> savedTimeSlots = timeSlotRepository.saveAll(timeSlots);
+        savedTimeSlots.forEach(this::recordSlotCreated);
+        List<TimeSlotDTO> created = savedTimeSlots.stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+        created.forEach(timeSlot -> trainerFreeBusyIndex.markBusy(
+                timeSlot.getTrainerId(), timeSlot.getStartTime(), timeSlot.getEndTime()));
+        calendarFeedService.markTrainersChanged(created.stream()
+                .map(TimeSlotDTO::getTrainerId)
+                .collect(Collectors.toSet()));
+        return created;
+    }
+
+    /**
+     * Checks whether a new time slot is known to be free from the free/busy bitmap, when that is enabled.
+     *
+     * @param timeSlot the new TimeSlot entity
+     * @return true if the overlap check in the database can be skipped
+     */
+    private boolean isKnownFree(TimeSlot timeSlot) {
+        return skipOverlapQueryWhenFree && trainerFreeBusyIndex.isFree(
+                timeSlot.getTrainer().getId(), timeSlot.getStartTime(), timeSlot.getEndTime());
+    }
+
+    private static boolean overlaps(LocalDateTime start, LocalDateTime end,
+                                    LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+
+    private static ResponseStatusException overlapConflict() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "Има припокриващ се слот за този треньор в избрания период");
+    }
+
+    /**
+     * Records a created time slot in the trainer utilization counters.
+     *
+     * @param timeSlot the saved TimeSlot entity
+     */
+    private void recordSlotCreated(TimeSlot timeSlot) {
+        trainerStatsService.recordSlotCreated(timeSlot.getTrainer().getId(), timeSlot.getTrainingType().getId(),
+                timeSlot.getStartTime().toLocalDate(), timeSlot.getCapacity());
+    }
+
+    /**
+     * Validates the time slot creation details and builds a new, not yet persisted time slot.
+     *
+     * @param createDTO the DTO containing time slot creation details
+     * @return the new TimeSlot entity
+     */
+    private TimeSlot buildTimeSlot(TimeSlotCreateDTO createDTO) {
         if (createDTO.getStartTime().isAfter(createDTO.getEndTime())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Началният час трябва да е преди крайния час");
         }
+        if (Duration.between(createDTO.getStartTime(), createDTO.getEndTime())
+                .compareTo(TimeSlotRepository.MAX_SLOT_DURATION) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Слотът не може да бъде по-дълъг от едно денонощие");
+        }
 
         TrainingType trainingType = trainingTypeRepository.findById(createDTO.getTrainingTypeId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -143,12 +390,6 @@ public class TimeSlotService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Треньорът не е намерен с ID: " + createDTO.getTrainerId()));
 
-        if (timeSlotRepository.hasOverlappingTimeSlot(createDTO.getTrainerId(),
-                createDTO.getStartTime(), createDTO.getEndTime())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT,
-                    "Има припокриващ се слот за този треньор в избрания период");
-        }
-
         Integer capacity = createDTO.getCapacity();
         if (capacity == null) {
             if (trainingType.getCategory() == TrainingTypeCategory.PERSONAL) {
@@ -179,8 +420,7 @@ public class TimeSlotService {
         timeSlot.setBookedCount(0);
         timeSlot.setStatus(TimeSlotStatus.AVAILABLE);
 
-        TimeSlot savedTimeSlot = timeSlotRepository.save(timeSlot);
-        return mapToDTO(savedTimeSlot);
+        return timeSlot;
     }
 
 
@@ -203,25 +443,23 @@ public class TimeSlotService {
 
         timeSlot.setStatus(TimeSlotStatus.CANCELLED);
         TimeSlot cancelledTimeSlot = timeSlotRepository.save(timeSlot);
+        calendarFeedService.markTrainerChanged(timeSlot.getTrainer().getId());
+        trainerFreeBusyIndex.markFree(timeSlot.getTrainer().getId(), timeSlot.getStartTime(), timeSlot.getEndTime());
+        trainerStatsService.recordSlotCancelled(timeSlot.getTrainer().getId(), timeSlot.getTrainingType().getId(),
+                timeSlot.getStartTime().toLocalDate(), timeSlot.getCapacity());
         return mapToDTO(cancelledTimeSlot);
     }
 
     /**
      * Increments the booking count for a time slot.
+     * The count is changed with a conditional UPDATE, so a concurrent group booking of the same slot is not overwritten.
      *
      * @param timeSlotId the ID of the time slot to increment
      */
     @Transactional
     public void incrementBookingCount(Long timeSlotId) {
-        TimeSlot timeSlot = timeSlotRepository.findById(timeSlotId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Времевият слот не е намерен с ID: " + timeSlotId));
-
-        try {
-            timeSlot.addBooking();
-            timeSlotRepository.save(timeSlot);
-        } catch (IllegalStateException e) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        if (timeSlotRepository.addBookings(timeSlotId, 1, TimeSlotStatus.BOOKED) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Този слот не може да бъде резервиран");
         }
     }
 
@@ -232,15 +470,8 @@ public class TimeSlotService {
      */
     @Transactional
     public void decrementBookingCount(Long timeSlotId) {
-        TimeSlot timeSlot = timeSlotRepository.findById(timeSlotId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Времевият слот не е намерен с ID: " + timeSlotId));
-
-        try {
-            timeSlot.removeBooking();
-            timeSlotRepository.save(timeSlot);
-        } catch (IllegalStateException e) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        if (timeSlotRepository.addBookings(timeSlotId, -1, TimeSlotStatus.BOOKED) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Няма резервации за премахване");
         }
     }
 
@@ -250,29 +481,10 @@ public class TimeSlotService {
      * @param timeSlotId the ID of the time slot
      * @return a list of BookedClientInfoDTOs for the specified time slot
      */
+    @Transactional(readOnly = true)
     public List<BookedClientInfoDTO> getClientsForTimeSlot(Long timeSlotId) {
-        // Намираме всички активни резервации за този времеви слот
-        List<Booking> bookings = bookingRepository.findByTimeSlotIdAndStatus(
-                timeSlotId, BookingStatus.CONFIRMED);
-
-        // Конвертираме информацията за клиентите в DTO
-        return bookings.stream()
-                .map(booking -> {
-                    Client client = booking.getClient();
-                    User user = client.getUser();
-
-                    return BookedClientInfoDTO.builder()
-                            .id(client.getId())
-                            .userId(user.getId())
-                            .fullName(user.getFullName())
-                            .email(user.getEmail())
-                            .phone(user.getPhone())
-                            .dateOfBirth(client.getDateOfBirth())
-                            .healthInformation(client.getHealthInformation())
-                            .fitnessGoals(client.getFitnessGoals())
-                            .build();
-                })
-                .collect(Collectors.toList());
+        // Клиентите на активните резервации, заедно с потребителите им, с една заявка
+        return bookingRepository.findBookedClientInfosByTimeSlotId(timeSlotId, BookingStatus.CONFIRMED);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.DigestWindow;
+import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.Trainer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for the booking and cancellation emails to the trainers.
+ * Trainers with the IMMEDIATE window get one email per booking or cancellation, as before.
+ * For the HOURLY and DAILY windows the events are collected in memory per trainer after the change commits,
+ * coalesced per time slot (a client who books and cancels within the same window cancels out) and sent
+ * as one summary email when the window closes: at the next full hour, or at the configured hour of the day.
+ * The buffer is per application instance and is sent when the application shuts down.
+ * Exposes the metrics notifications.trainer.events and notifications.trainer.emails.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrainerDigestService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    /**
+     * Service sending the individual notifications and the digests.
+     */
+    private final EmailService emailService;
+
+    /**
+     * Clock deciding when a window closes.
+     */
+    private final Clock clock;
+
+    /**
+     * Registry for the notification metrics.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Window of the trainers who have not chosen one; IMMEDIATE keeps the former one email per event,
+     * so the digests are opt-in per trainer unless the default is changed.
+     */
+    @Value("${app.notifications.trainer-digest.default-window:IMMEDIATE}")
+    private DigestWindow defaultWindow = DigestWindow.IMMEDIATE;
+
+    /**
+     * Hour of the day (in the time zone of the clock) at which the daily digests are sent.
+     */
+    @Value("${app.notifications.trainer-digest.daily-hour:7}")
+    private int dailyHour = 7;
+
+    /**
+     * Digests not yet sent, by trainer ID.
+     */
+    private final Map<Long, Digest> pending = new ConcurrentHashMap<>();
+
+    private Counter eventsCounter;
+    private Counter emailsCounter;
+
+    /**
+     * Registers the metrics.
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        eventsCounter = Counter.builder("notifications.trainer.events").register(meterRegistry);
+        emailsCounter = Counter.builder("notifications.trainer.emails").register(meterRegistry);
+    }
+
+    /**
+     * Records a confirmed booking for the trainer of the time slot.
+     *
+     * @param timeSlot the booked time slot
+     * @param client   the client who booked it
+     */
+    public void recordBooking(TimeSlot timeSlot, Client client) {
+        record(timeSlot, client, true);
+    }
+
+    /**
+     * Records a cancelled booking for the trainer of the time slot.
+     *
+     * @param timeSlot the time slot of the cancelled booking
+     * @param client   the client whose booking was cancelled
+     */
+    public void recordCancellation(TimeSlot timeSlot, Client client) {
+        record(timeSlot, client, false);
+    }
+
+    /**
+     * Sends the digests whose window has closed.
+     *
+     * @return the number of digest emails sent
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.trainer-digest.check-interval-ms:60000}")
+    public int sendDueDigests() {
+        return send(clock.instant());
+    }
+
+    /**
+     * Sends all collected digests when the application shuts down.
+     */
+    @PreDestroy
+    public void sendOnShutdown() {
+        send(Instant.MAX);
+    }
+
+    /**
+     * Returns the number of trainers with a digest waiting to be sent.
+     *
+     * @return the number of pending digests
+     */
+    public int getPendingDigests() {
+        return pending.size();
+    }
+
+    private void record(TimeSlot timeSlot, Client client, boolean booked) {
+        Trainer trainer = timeSlot.getTrainer();
+        DigestWindow window = trainer.getNotificationDigest() != null ? trainer.getNotificationDigest() : defaultWindow;
+        Long trainerId = trainer.getId();
+        String trainerEmail = trainer.getUser().getEmail();
+        String trainerName = trainer.getUser().getFullName();
+        Long clientId = client.getId();
+        String clientName = client.getUser().getFullName();
+        SlotChanges slot = new SlotChanges(timeSlot.getStartTime(), timeSlot.getTrainingType().getName(),
+                timeSlot.getStartTime().format(DATE_FORMATTER),
+                timeSlot.getStartTime().format(TIME_FORMATTER) + " - " + timeSlot.getEndTime().format(TIME_FORMATTER));
+
+        if (window == DigestWindow.IMMEDIATE) {
+            // EmailService already queues the message after the commit
+            eventsCounter.increment();
+            emailsCounter.increment();
+            if (booked) {
+                emailService.sendBookingNotificationToTrainer(trainerEmail, trainerName, clientName,
+                        slot.trainingType, slot.date, slot.time);
+            } else {
+                emailService.sendCancellationNotificationToTrainer(trainerEmail, trainerName, clientName,
+                        slot.trainingType, slot.date, slot.time);
+            }
+            return;
+        }
+
+        Runnable add = () -> {
+            eventsCounter.increment();
+            pending.compute(trainerId, (id, digest) -> {
+                if (digest == null) {
+                    digest = new Digest(trainerEmail, trainerName, closeOf(window, clock.instant()));
+                }
+                digest.slots.computeIfAbsent(timeSlot.getId(), slotId -> slot).add(clientId, clientName, booked);
+                return digest;
+            });
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add.run();
+            }
+        });
+    }
+
+    private int send(Instant now) {
+        List<Digest> due = new ArrayList<>();
+        for (Long trainerId : new ArrayList<>(pending.keySet())) {
+            pending.computeIfPresent(trainerId, (id, digest) -> {
+                if (digest.closesAt.isAfter(now)) {
+                    return digest;
+                }
+                due.add(digest);
+                return null;
+            });
+        }
+
+        int sent = 0;
+        for (Digest digest : due) {
+            List<SlotChanges> slots = digest.slots.values().stream()
+                    .filter(SlotChanges::hasChanges)
+                    .sorted(Comparator.comparing(slot -> slot.startTime))
+                    .toList();
+            if (slots.isEmpty()) {
+                // Every booking in the window was cancelled again
+                continue;
+            }
+            int changes = slots.stream().mapToInt(slot -> slot.booked.size() + slot.cancelled.size()).sum();
+            try {
+                emailService.sendTrainerDigest(digest.trainerEmail, digest.trainerName, changes, summary(slots));
+                emailsCounter.increment();
+                sent++;
+            } catch (RuntimeException e) {
+                log.warn("Could not send the booking digest to {}: {}", digest.trainerEmail, e.getMessage());
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Returns the instant at which a window opened at the given instant closes.
+     *
+     * @param window the window
+     * @param opened the instant of the first event in the window
+     * @return the next full hour, or the next daily hour
+     */
+    private Instant closeOf(DigestWindow window, Instant opened) {
+        ZonedDateTime time = opened.atZone(clock.getZone());
+        if (window == DigestWindow.HOURLY) {
+            return time.truncatedTo(ChronoUnit.HOURS).plusHours(1).toInstant();
+        }
+        ZonedDateTime close = time.truncatedTo(ChronoUnit.DAYS).withHour(dailyHour);
+        return (close.isAfter(time) ? close : close.plusDays(1)).toInstant();
+    }
+
+    private static String summary(List<SlotChanges> slots) {
+        StringBuilder summary = new StringBuilder();
+        for (SlotChanges slot : slots) {
+            summary.append(slot.trainingType).append(", ").append(slot.date).append(", ").append(slot.time).append('\n');
+            if (!slot.booked.isEmpty()) {
+                summary.append("  Нови резервации (").append(slot.booked.size()).append("): ")
+                        .append(String.join(", ", slot.booked.values())).append('\n');
+            }
+            if (!slot.cancelled.isEmpty()) {
+                summary.append("  Отменени резервации (").append(slot.cancelled.size()).append("): ")
+                        .append(String.join(", ", slot.cancelled.values())).append('\n');
+            }
+        }
+        return summary.toString().stripTrailing();
+    }
+
+    /**
+     * The collected events of one trainer; changed only inside pending.compute.
+     */
+    private static final class Digest {
+        private final String trainerEmail;
+        private final String trainerName;
+        private final Instant closesAt;
+        private final Map<Long, SlotChanges> slots = new LinkedHashMap<>();
+
+        private Digest(String trainerEmail, String trainerName, Instant closesAt) {
+            this.trainerEmail = trainerEmail;
+            this.trainerName = trainerName;
+            this.closesAt = closesAt;
+        }
+    }
+
+    /**
+     * The net bookings and cancellations of one time slot within a window, by client ID.
+     */
+    private static final class SlotChanges {
+        private final LocalDateTime startTime;
+        private final String trainingType;
+        private final String date;
+        private final String time;
+        private final Map<Long, String> booked = new LinkedHashMap<>();
+        private final Map<Long, String> cancelled = new LinkedHashMap<>();
+
+        private SlotChanges(LocalDateTime startTime, String trainingType, String date, String time) {
+            this.startTime = startTime;
+            this.trainingType = trainingType;
+            this.date = date;
+            this.time = time;
+        }
+
+        private SlotChanges add(Long clientId, String clientName, boolean booking) {
+            if (booking) {
+                // A booking cancelled earlier in the window was made again: no change for the trainer
+                if (cancelled.remove(clientId) == null) {
+                    booked.put(clientId, clientName);
+                }
+            } else if (booked.remove(clientId) == null) {
+                cancelled.put(clientId, clientName);
+            }
+            return this;
+        }
+
+        private boolean hasChanges() {
+            return !booked.isEmpty() || !cancelled.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.datasource.ReplicationRoutingDataSource;
+import com.example.fitness_booking_system.dto.FreeBusyDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.TrainerRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory free/busy calendar of the trainers.
+ * Every trainer day is a bitmap of 5-minute cells (288 cells packed into 5 longs); a cell is busy
+ * when any not cancelled time slot of the trainer touches it. Cells are rounded outwards,
+ * so a free cell is always really free, while a busy cell may only be partly taken.
+ * A trainer's calendar is loaded from the database on first use, starting {@value #RETAINED_DAYS} days
+ * in the past, and is then kept up to date by {@link TimeSlotService} when time slots are created or cancelled.
+ * Days before the loaded range are read from the database on demand and are not cached.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainerFreeBusyIndex {
+
+    /**
+     * Size of one cell in seconds (5 minutes).
+     */
+    static final int CELL_SECONDS = 5 * 60;
+
+    /**
+     * Number of cells and of 64-bit words per day.
+     */
+    static final int CELLS_PER_DAY = 24 * 60 * 60 / CELL_SECONDS;
+    static final int WORDS_PER_DAY = (CELLS_PER_DAY + 63) / 64;
+
+    /**
+     * How many past days are kept in a loaded calendar.
+     */
+    private static final int RETAINED_DAYS = 31;
+
+    /**
+     * Number of change counters; trainers share a counter by their ID modulo this number.
+     */
+    private static final int CHANGE_STRIPES = 64;
+
+    /**
+     * How often a calendar is loaded again when changes of its trainer commit during the load,
+     * before it is used for the current call without being cached.
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    /**
+     * Repository for loading the busy ranges of a trainer.
+     */
+    private final TimeSlotRepository timeSlotRepository;
+
+    /**
+     * Repository for checking that a trainer without time slots exists before its empty calendar is cached.
+     */
+    private final TrainerRepository trainerRepository;
+
+    /**
+     * Clock used to determine the first loaded day.
+     */
+    private final Clock clock;
+
+    /**
+     * Loaded calendars by trainer ID.
+     */
+    private final Map<Long, TrainerCalendar> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * Number of committed changes per stripe of trainers, counted whether or not their calendar is loaded,
+     * so that a load can tell whether a change may have missed both its query and the cached calendar.
+     */
+    private final AtomicLongArray changes = new AtomicLongArray(CHANGE_STRIPES);
+
+    /**
+     * Checks whether a time range is completely free in the trainer's calendar.
+     * A false result only means that the range may be taken and must be confirmed against the database.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startTime the start of the range
+     * @param endTime   the end of the range
+     * @return true if no cell touched by the range is busy
+     */
+    public boolean isFree(Long trainerId, LocalDateTime startTime, LocalDateTime endTime) {
+        TrainerCalendar calendar = calendar(trainerId);
+        if (startTime.toLocalDate().isBefore(calendar.firstDay)) {
+            return false;
+        }
+        synchronized (calendar) {
+            for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+                long[] words = calendar.days.get(day);
+                if (words != null && !isClear(words, firstCell(day, startTime), endCell(day, endTime))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks a time range as busy once the current transaction commits.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startTime the start of the range
+     * @param endTime   the end of the range
+     */
+    public void markBusy(Long trainerId, LocalDateTime startTime, LocalDateTime endTime) {
+        afterCommit(() -> update(trainerId, startTime, endTime, true));
+    }
+
+    /**
+     * Marks a time range as free once the current transaction commits.
+     * Only the cells completely covered by the range are cleared: a partly covered cell at either end
+     * may be shared with a back-to-back slot, so it stays busy and is confirmed against the database when needed.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startTime the start of the range
+     * @param endTime   the end of the range
+     */
+    public void markFree(Long trainerId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDateTime innerStart = ceilToCell(startTime);
+        LocalDateTime innerEnd = floorToCell(endTime);
+        if (innerStart.isBefore(innerEnd)) {
+            afterCommit(() -> update(trainerId, innerStart, innerEnd, false));
+        }
+    }
+
+    /**
+     * Returns the busy and free ranges of a trainer for a range of days.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return the free/busy calendar of the trainer
+     */
+    public FreeBusyDTO getFreeBusy(Long trainerId, LocalDate startDate, LocalDate endDate) {
+        TrainerCalendar calendar = calendar(trainerId);
+
+        Map<LocalDate, long[]> uncached = Map.of();
+        if (startDate.isBefore(calendar.firstDay)) {
+            uncached = load(trainerId, startDate, calendar.firstDay);
+        }
+
+        List<TimeRangeDTO> busy = new ArrayList<>();
+        List<TimeRangeDTO> free = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            long[] words;
+            if (day.isBefore(calendar.firstDay)) {
+                words = uncached.get(day);
+            } else {
+                synchronized (calendar) {
+                    words = calendar.days.get(day);
+                    words = words == null ? null : words.clone();
+                }
+            }
+            collectRuns(day, words == null ? new long[WORDS_PER_DAY] : words, busy, free);
+        }
+        return new FreeBusyDTO(trainerId, startDate, endDate, busy, free);
+    }
+
+    /**
+     * Drops the days that fell out of the retained range from all loaded calendars.
+     */
+    @Scheduled(cron = "${app.time-slots.free-busy.evict-cron:0 45 3 * * *}")
+    public void evictPastDays() {
+        LocalDate firstDay = LocalDate.now(clock).minusDays(RETAINED_DAYS);
+        for (TrainerCalendar calendar : calendars.values()) {
+            synchronized (calendar) {
+                if (calendar.firstDay.isBefore(firstDay)) {
+                    calendar.days.keySet().removeIf(day -> day.isBefore(firstDay));
+                    calendar.firstDay = firstDay;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the calendar of a trainer, loading it from the database on first use.
+     * The queries run outside the map, so a slow load does not block the other trainers in the same bin.
+     * A change that commits while the calendar is loaded may be missing from the query and arrive before the
+     * calendar is cached; the change counter of the trainer then has moved, and the calendar is loaded again.
+     * An empty calendar is only cached for an existing trainer, so unknown IDs cannot fill the map.
+     *
+     * @throws ResponseStatusException with NOT_FOUND if the trainer has no time slots and does not exist
+     */
+    private TrainerCalendar calendar(Long trainerId) {
+        TrainerCalendar calendar = calendars.get(trainerId);
+        if (calendar != null) {
+            return calendar;
+        }
+
+        int stripe = stripe(trainerId);
+        for (int attempt = 1; ; attempt++) {
+            long changesBefore = changes.get(stripe);
+            LocalDate firstDay = LocalDate.now(clock).minusDays(RETAINED_DAYS);
+            Map<LocalDate, long[]> days = load(trainerId, firstDay, null);
+            if (days.isEmpty() && !trainerRepository.existsById(trainerId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Треньорът не е намерен с ID: " + trainerId);
+            }
+            TrainerCalendar loaded = new TrainerCalendar(firstDay, days);
+
+            TrainerCalendar existing = calendars.putIfAbsent(trainerId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            // Checked after the calendar is cached: a change counted later finds it in update()
+            if (changes.get(stripe) == changesBefore) {
+                return loaded;
+            }
+            calendars.remove(trainerId, loaded);
+            if (attempt == MAX_LOAD_ATTEMPTS) {
+                // Up to date as of its query, like a database check, but not kept
+                return loaded;
+            }
+        }
+    }
+
+    /**
+     * Builds the day bitmaps of a trainer from the not cancelled time slots in the database.
+     *
+     * @param trainerId the ID of the trainer
+     * @param fromDay   the first day to load
+     * @param toDay     the day after the last day to load, or null for all future days
+     * @return the bitmaps by day
+     */
+    private Map<LocalDate, long[]> load(Long trainerId, LocalDate fromDay, LocalDate toDay) {
+        LocalDateTime from = fromDay.atStartOfDay();
+        LocalDateTime to = toDay == null ? LocalDateTime.of(9999, 1, 1, 0, 0) : toDay.atStartOfDay();
+
+        // The bitmaps are trusted by the overlap check, so they must not be built from a lagging replica
+        List<TimeRangeDTO> ranges = ReplicationRoutingDataSource.runOnPrimary(() -> timeSlotRepository
+                .findBusyTimeRanges(trainerId, from.minus(TimeSlotRepository.MAX_SLOT_DURATION), from, to));
+
+        Map<LocalDate, long[]> days = new HashMap<>();
+        for (TimeRangeDTO range : ranges) {
+            setCells(days, range.getStartTime(), range.getEndTime(), true, fromDay);
+        }
+        return days;
+    }
+
+    private void update(Long trainerId, LocalDateTime startTime, LocalDateTime endTime, boolean busy) {
+        // Counted before the calendar is looked up, so a load running meanwhile sees the change and loads again;
+        // calendars not loaded yet will read it from the database
+        changes.incrementAndGet(stripe(trainerId));
+        calendars.computeIfPresent(trainerId, (id, calendar) -> {
+            synchronized (calendar) {
+                setCells(calendar.days, startTime, endTime, busy, calendar.firstDay);
+            }
+            return calendar;
+        });
+    }
+
+    private static int stripe(Long trainerId) {
+        return (int) Math.floorMod(trainerId, (long) CHANGE_STRIPES);
+    }
+
+    private static void setCells(Map<LocalDate, long[]> days, LocalDateTime startTime, LocalDateTime endTime,
+                                 boolean busy, LocalDate firstDay) {
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(endTime.toLocalDate()); day = day.plusDays(1)) {
+            int from = firstCell(day, startTime);
+            int to = endCell(day, endTime);
+            if (day.isBefore(firstDay) || from >= to) {
+                continue;
+            }
+            long[] words = days.get(day);
+            if (words == null) {
+                if (!busy) {
+                    continue;
+                }
+                words = new long[WORDS_PER_DAY];
+                days.put(day, words);
+            }
+            setRange(words, from, to, busy);
+            if (!busy && isClear(words, 0, CELLS_PER_DAY)) {
+                days.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Returns the first cell of a day touched by a range starting at the given time.
+     */
+    static int firstCell(LocalDate day, LocalDateTime startTime) {
+        if (startTime.toLocalDate().isBefore(day)) {
+            return 0;
+        }
+        return startTime.toLocalTime().toSecondOfDay() / CELL_SECONDS;
+    }
+
+    /**
+     * Returns the cell after the last cell of a day touched by a range ending at the given time.
+     */
+    static int endCell(LocalDate day, LocalDateTime endTime) {
+        if (endTime.toLocalDate().isAfter(day)) {
+            return CELLS_PER_DAY;
+        }
+        return (endTime.toLocalTime().toSecondOfDay() + CELL_SECONDS - 1) / CELL_SECONDS;
+    }
+
+    /**
+     * Sets or clears the cells [from, to) using whole-word masks.
+     */
+    static void setRange(long[] words, int from, int to, boolean value) {
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            long mask = rangeMask(word, from, to);
+            words[word] = value ? words[word] | mask : words[word] & ~mask;
+        }
+    }
+
+    /**
+     * Checks that none of the cells [from, to) is set.
+     */
+    static boolean isClear(long[] words, int from, int to) {
+        if (from >= to) {
+            return true;
+        }
+        for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+            if ((words[word] & rangeMask(word, from, to)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long rangeMask(int word, int from, int to) {
+        int low = Math.max(from - (word << 6), 0);
+        int high = Math.min(to - (word << 6), 64);
+        long upper = high == 64 ? -1L : (1L << high) - 1;
+        return upper & (-1L << low);
+    }
+
+    /**
+     * Turns the cells of a day into runs of busy and free ranges.
+     */
+    private static void collectRuns(LocalDate day, long[] words, List<TimeRangeDTO> busy, List<TimeRangeDTO> free) {
+        int cell = 0;
+        while (cell < CELLS_PER_DAY) {
+            boolean isBusy = (words[cell >>> 6] & (1L << cell)) != 0;
+            int end = nextCell(words, cell, !isBusy);
+            TimeRangeDTO range = new TimeRangeDTO(cellTime(day, cell), cellTime(day, end));
+            List<TimeRangeDTO> target = isBusy ? busy : free;
+            TimeRangeDTO previous = target.isEmpty() ? null : target.get(target.size() - 1);
+            if (previous != null && previous.getEndTime().equals(range.getStartTime())) {
+                previous.setEndTime(range.getEndTime());
+            } else {
+                target.add(range);
+            }
+            cell = end;
+        }
+    }
+
+    /**
+     * Returns the first cell from the given one with the given state, or CELLS_PER_DAY if there is none.
+     */
+    private static int nextCell(long[] words, int from, boolean set) {
+        int word = from >>> 6;
+        long bits = (set ? words[word] : ~words[word]) & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), CELLS_PER_DAY);
+            }
+            if (++word == WORDS_PER_DAY) {
+                return CELLS_PER_DAY;
+            }
+            bits = set ? words[word] : ~words[word];
+        }
+    }
+
+    private static LocalDateTime floorToCell(LocalDateTime time) {
+        return cellTime(time.toLocalDate(), time.toLocalTime().toSecondOfDay() / CELL_SECONDS);
+    }
+
+    private static LocalDateTime ceilToCell(LocalDateTime time) {
+        LocalDateTime floor = floorToCell(time);
+        return floor.equals(time) ? floor : floor.plusSeconds(CELL_SECONDS);
+    }
+
+    private static LocalDateTime cellTime(LocalDate day, int cell) {
+        return day.atStartOfDay().plusSeconds((long) cell * CELL_SECONDS);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * The loaded days of one trainer; guarded by its own monitor.
+     */
+    private static final class TrainerCalendar {
+        private LocalDate firstDay;
+        private final Map<LocalDate, long[]> days;
+
+        private TrainerCalendar(LocalDate firstDay, Map<LocalDate, long[]> days) {
+            this.firstDay = firstDay;
+            this.days = days;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TrainerDTO;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the trainer profiles, used for searching trainers without database access.
+ * Every trainer gets a dense ordinal; specializations and training types map to bitmaps of ordinals,
+ * and the personal and group prices are kept in sorted arrays, so a search is a handful of
+ * bitmap intersections and two binary searches.
+ * The index is filled by {@link TrainerService} on startup and kept up to date on every profile change.
+ */
+@Component
+public class TrainerSearchIndex {
+
+    /**
+     * Guards all index structures; searches share the read lock, updates take the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Ordinal of every indexed trainer by trainer ID.
+     */
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+
+    /**
+     * Trainer profiles and their training type IDs by ordinal.
+     */
+    private final List<TrainerDTO> trainers = new ArrayList<>();
+    private final List<Set<Long>> trainingTypeIds = new ArrayList<>();
+
+    /**
+     * Posting bitmaps by normalized specialization and by training type ID.
+     */
+    private final Map<String, BitSet> bySpecialization = new HashMap<>();
+    private final Map<Long, BitSet> byTrainingType = new HashMap<>();
+
+    /**
+     * Trainers sorted by personal and by group price, rebuilt once per update batch.
+     */
+    private PriceIndex personalPrices = PriceIndex.EMPTY;
+    private PriceIndex groupPrices = PriceIndex.EMPTY;
+
+    /**
+     * Adds a trainer to the index or replaces the previously indexed profile.
+     *
+     * @param trainer         the trainer profile
+     * @param trainingTypeIds the IDs of the training types the trainer conducts
+     */
+    public void put(TrainerDTO trainer, Set<Long> trainingTypeIds) {
+        putAll(List.of(new Entry(trainer, trainingTypeIds)));
+    }
+
+    /**
+     * Adds several trainers to the index or replaces their previously indexed profiles.
+     * The price arrays are rebuilt once for the whole batch, so loading n trainers costs
+     * a single sort instead of one per trainer.
+     *
+     * @param entries the trainer profiles with the IDs of the training types they conduct
+     */
+    public void putAll(Collection<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Entry> snapshots = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            snapshots.add(snapshot(entry));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Entry snapshot : snapshots) {
+                link(snapshot.trainer(), snapshot.trainingTypeIds());
+            }
+            personalPrices = PriceIndex.build(this.trainers, TrainingTypeCategory.PERSONAL);
+            groupPrices = PriceIndex.build(this.trainers, TrainingTypeCategory.GROUP);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the indexed trainers. All given criteria must match; null criteria are ignored.
+     *
+     * @param specializations the specializations the trainer must all have
+     * @param trainingTypeId  the training type the trainer must conduct
+     * @param priceCategory   which price the price range and the ordering refer to
+     * @param minPrice        the minimum price (inclusive)
+     * @param maxPrice        the maximum price (inclusive)
+     * @return the matching trainers ordered by the selected price, trainers without a price last
+     */
+    public List<TrainerDTO> search(Collection<String> specializations, Long trainingTypeId,
+                                   TrainingTypeCategory priceCategory, Double minPrice, Double maxPrice) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet(trainers.size());
+            result.set(0, trainers.size());
+
+            if (specializations != null) {
+                for (String specialization : specializations) {
+                    intersect(result, bySpecialization.get(normalize(specialization)));
+                }
+            }
+            if (trainingTypeId != null) {
+                intersect(result, byTrainingType.get(trainingTypeId));
+            }
+
+            PriceIndex prices = priceCategory == TrainingTypeCategory.GROUP ? groupPrices : personalPrices;
+            if (minPrice != null || maxPrice != null) {
+                result.and(prices.range(minPrice, maxPrice));
+            }
+
+            List<TrainerDTO> matches = new ArrayList<>(result.cardinality());
+            for (int ordinal : prices.ordinals) {
+                if (result.get(ordinal)) {
+                    matches.add(trainers.get(ordinal));
+                    result.clear(ordinal);
+                }
+            }
+            // Trainers without a price for the selected category
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                matches.add(trainers.get(ordinal));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed trainers.
+     *
+     * @return the number of trainers
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies an entry, so later changes to the caller's profile never leak into the index.
+     *
+     * @param entry the entry to copy
+     * @return the immutable copy
+     */
+    private static Entry snapshot(Entry entry) {
+        TrainerDTO trainer = entry.trainer();
+        TrainerDTO snapshot = TrainerDTO.builder()
+                .id(trainer.getId())
+                .userId(trainer.getUserId())
+                .fullName(trainer.getFullName())
+                .email(trainer.getEmail())
+                .phone(trainer.getPhone())
+                .bio(trainer.getBio())
+                .specializations(trainer.getSpecializations() == null
+                        ? Set.of() : Set.copyOf(trainer.getSpecializations()))
+                .personalPrice(trainer.getPersonalPrice())
+                .groupPrice(trainer.getGroupPrice())
+                .build();
+        return new Entry(snapshot, entry.trainingTypeIds() == null ? Set.of() : Set.copyOf(entry.trainingTypeIds()));
+    }
+
+    /**
+     * Assigns the trainer an ordinal and adds it to the posting bitmaps; the caller holds the write lock
+     * and rebuilds the price arrays afterwards.
+     *
+     * @param snapshot the trainer profile
+     * @param types    the IDs of the training types the trainer conducts
+     */
+    private void link(TrainerDTO snapshot, Set<Long> types) {
+        Integer ordinal = ordinals.get(snapshot.getId());
+        if (ordinal == null) {
+            ordinal = trainers.size();
+            ordinals.put(snapshot.getId(), ordinal);
+            this.trainers.add(null);
+            this.trainingTypeIds.add(Set.of());
+        } else {
+            unlink(ordinal);
+        }
+
+        this.trainers.set(ordinal, snapshot);
+        this.trainingTypeIds.set(ordinal, types);
+        for (String specialization : snapshot.getSpecializations()) {
+            bySpecialization.computeIfAbsent(normalize(specialization), key -> new BitSet()).set(ordinal);
+        }
+        for (Long trainingTypeId : types) {
+            byTrainingType.computeIfAbsent(trainingTypeId, key -> new BitSet()).set(ordinal);
+        }
+    }
+
+    /**
+     * Removes an ordinal from the posting bitmaps of its previously indexed profile.
+     *
+     * @param ordinal the ordinal of the trainer
+     */
+    private void unlink(int ordinal) {
+        for (String specialization : trainers.get(ordinal).getSpecializations()) {
+            BitSet postings = bySpecialization.get(normalize(specialization));
+            if (postings != null) {
+                postings.clear(ordinal);
+                if (postings.isEmpty()) {
+                    bySpecialization.remove(normalize(specialization));
+                }
+            }
+        }
+        for (Long trainingTypeId : trainingTypeIds.get(ordinal)) {
+            BitSet postings = byTrainingType.get(trainingTypeId);
+            postings.clear(ordinal);
+            if (postings.isEmpty()) {
+                byTrainingType.remove(trainingTypeId);
+            }
+        }
+    }
+
+    private static void intersect(BitSet result, BitSet postings) {
+        if (postings == null) {
+            result.clear();
+        } else {
+            result.and(postings);
+        }
+    }
+
+    private static String normalize(String specialization) {
+        return specialization.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A trainer profile to index together with the IDs of the training types the trainer conducts.
+     *
+     * @param trainer         the trainer profile
+     * @param trainingTypeIds the IDs of the training types
+     */
+    public record Entry(TrainerDTO trainer, Set<Long> trainingTypeIds) {
+    }
+
+    /**
+     * Ordinals of the trainers with a price, sorted by that price.
+     */
+    private static final class PriceIndex {
+        private static final PriceIndex EMPTY = new PriceIndex(new double[0], new int[0]);
+
+        private final double[] prices;
+        private final int[] ordinals;
+
+        private PriceIndex(double[] prices, int[] ordinals) {
+            this.prices = prices;
+            this.ordinals = ordinals;
+        }
+
+        private static PriceIndex build(List<TrainerDTO> trainers, TrainingTypeCategory category) {
+            List<Integer> priced = new ArrayList<>(trainers.size());
+            for (int ordinal = 0; ordinal < trainers.size(); ordinal++) {
+                if (price(trainers.get(ordinal), category) != null) {
+                    priced.add(ordinal);
+                }
+            }
+            priced.sort((a, b) -> Double.compare(price(trainers.get(a), category), price(trainers.get(b), category)));
+
+            double[] prices = new double[priced.size()];
+            int[] ordinals = new int[priced.size()];
+            for (int i = 0; i < priced.size(); i++) {
+                ordinals[i] = priced.get(i);
+                prices[i] = price(trainers.get(ordinals[i]), category);
+            }
+            return new PriceIndex(prices, ordinals);
+        }
+
+        private static Double price(TrainerDTO trainer, TrainingTypeCategory category) {
+            return category == TrainingTypeCategory.GROUP ? trainer.getGroupPrice() : trainer.getPersonalPrice();
+        }
+
+        /**
+         * Returns the ordinals of the trainers whose price is within [min, max].
+         */
+        private BitSet range(Double min, Double max) {
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? prices.length : upperBound(max);
+            BitSet matches = new BitSet();
+            for (int i = from; i < to; i++) {
+                matches.set(ordinals[i]);
+            }
+            return matches;
+        }
+
+        private int lowerBound(double value) {
+            int index = Arrays.binarySearch(prices, value);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && prices[index - 1] == value) {
+                index--;
+            }
+            return index;
+        }
+
+        private int upperBound(double value) {
+            int index = Arrays.binarySearch(prices, value);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index < prices.length && prices[index] == value) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -3,19 +3,27 @@ package com.example.fitness_booking_system.services;
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.dto.TrainerDTO;
 import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
 import com.example.fitness_booking_system.entities.User;
 import com.example.fitness_booking_system.repositories.TrainerRepository;
 import com.example.fitness_booking_system.repositories.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -33,14 +41,32 @@ public class TrainerService {
      * Repository for accessing user data.
      */
     private final UserRepository userRepository;
+    /**
+     * In-memory index used for searching trainers.
+     */
+    private final TrainerSearchIndex trainerSearchIndex;
+    /**
+     * Service for the calendar feeds, which show the name of the trainer.
+     */
+    private final CalendarFeedService calendarFeedService;
+
+    /**
+     * Loads all trainer profiles into the search index when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadSearchIndex() {
+        indexTrainers(trainerRepository.findAllForSearchIndex());
+    }
 
     /**
      * Retrieves all trainers from the database and maps them to TrainerDTOs.
      *
      * @return a list of TrainerDTOs
      */
+    @Transactional(readOnly = true)
     public List<TrainerDTO> getAllTrainers() {
-        return trainerRepository.findAll().stream()
+        return trainerRepository.findAllWithProfiles().stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
@@ -51,6 +77,7 @@ public class TrainerService {
      * @param id the ID of the trainer
      * @return the TrainerDTO containing the trainer's profile information
      */
+    @Transactional(readOnly = true)
     public TrainerDTO getTrainerProfile(Long id) {
         Trainer trainer = trainerRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
@@ -74,6 +101,8 @@ public class TrainerService {
 
         User user = trainer.getUser();
 
+        boolean renamed = profileUpdateDTO.getFullName() != null
+                && !profileUpdateDTO.getFullName().equals(user.getFullName());
         if (profileUpdateDTO.getFullName() != null) {
             user.setFullName(profileUpdateDTO.getFullName());
         }
@@ -93,6 +122,9 @@ public class TrainerService {
         if (profileUpdateDTO.getGroupPrice() != null) {
             trainer.setGroupPrice(profileUpdateDTO.getGroupPrice());
         }
+        if (profileUpdateDTO.getNotificationDigest() != null) {
+            trainer.setNotificationDigest(profileUpdateDTO.getNotificationDigest());
+        }
 
         if (profileUpdateDTO.getTrainingTypeIds() != null) {
             trainer.setTrainingTypes(new HashSet<>(trainer.getTrainingTypes()));
@@ -101,10 +133,68 @@ public class TrainerService {
 
         userRepository.save(user);
         Trainer updatedTrainer = trainerRepository.save(trainer);
+        indexTrainer(updatedTrainer);
+        if (renamed) {
+            calendarFeedService.markTrainerRenamed(id);
+        }
 
         return mapToDTO(updatedTrainer);
     }
 
+    /**
+     * Searches trainers by specializations, training type and price using the in-memory index.
+     *
+     * @param specializations the specializations the trainer must all have, or null
+     * @param trainingTypeId  the training type the trainer must conduct, or null
+     * @param priceCategory   which price (personal or group) the price range refers to
+     * @param minPrice        the minimum price (inclusive), or null
+     * @param maxPrice        the maximum price (inclusive), or null
+     * @return the matching TrainerDTOs ordered by price
+     */
+    public List<TrainerDTO> searchTrainers(List<String> specializations, Long trainingTypeId,
+                                           TrainingTypeCategory priceCategory, Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Минималната цена не може да бъде по-голяма от максималната");
+        }
+
+        return trainerSearchIndex.search(specializations, trainingTypeId, priceCategory, minPrice, maxPrice);
+    }
+
+    /**
+     * Puts a trainer into the search index once the current transaction commits,
+     * so that a rolled back change never becomes searchable.
+     *
+     * @param trainer the created or updated Trainer entity
+     */
+    public void indexTrainer(Trainer trainer) {
+        indexTrainers(List.of(trainer));
+    }
+
+    /**
+     * Puts several trainers into the search index as one batch once the current transaction commits.
+     *
+     * @param trainers the created or updated Trainer entities
+     */
+    public void indexTrainers(Collection<Trainer> trainers) {
+        List<TrainerSearchIndex.Entry> entries = trainers.stream()
+                .map(trainer -> new TrainerSearchIndex.Entry(mapToDTO(trainer), trainer.getTrainingTypes().stream()
+                        .map(TrainingType::getId)
+                        .collect(Collectors.toSet())))
+                .collect(Collectors.toList());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            trainerSearchIndex.putAll(entries);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                trainerSearchIndex.putAll(entries);
+            }
+        });
+    }
+
     /**
      * Maps a Trainer entity to a TrainerDTO.
      *
@@ -124,6 +214,7 @@ public class TrainerService {
                 .specializations(trainer.getSpecializations())
                 .personalPrice(trainer.getPersonalPrice())
                 .groupPrice(trainer.getGroupPrice())
+                .notificationDigest(trainer.getNotificationDigest())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,479 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TrainerDailyStatsDTO;
+import com.example.fitness_booking_system.dto.TrainerStatsDTO;
+import com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO;
+import com.example.fitness_booking_system.entities.TrainerDailyStats;
+import com.example.fitness_booking_system.repositories.TrainerDailyStatsRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Service for the trainer utilization counters.
+ * The write paths record deltas (offered slots and seats, booked seats, cancellations) per trainer,
+ * training type and day. The deltas are collected in memory after the change commits and are added
+ * to the trainer_daily_stats rollup table in the background, so the booking path itself does no extra writes.
+ * The dashboard reads one rollup row per day and training type and overlays the deltas not yet written.
+ * <p>
+ * The deltas only live in memory until the next flush, so an instance that dies without a clean shutdown
+ * loses up to one flush interval of changes. A periodic reconcile compares the rollup with the time_slots
+ * and booking rows and overwrites the wrong rows with the counted values, so such a loss is repaired within two
+ * reconcile runs. The reconcile runs on the one instance holding its lease, so a correction is written only once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrainerStatsService {
+
+    /**
+     * Maximum number of days in a single dashboard request.
+     */
+    private static final int MAX_STATS_DAYS = 366;
+
+    /**
+     * Name of the lease of the reconcile job.
+     */
+    private static final String RECONCILE_JOB = "trainer-stats-reconcile";
+
+    /**
+     * Repository for the rollup table.
+     */
+    private final TrainerDailyStatsRepository trainerDailyStatsRepository;
+
+    /**
+     * Transaction template for writing the pending deltas in one transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Clock used to determine the days covered by the reconcile.
+     */
+    private final Clock clock;
+
+    /**
+     * Lease making sure that only one instance reconciles.
+     */
+    private final JobLeaseService jobLeaseService;
+
+    /**
+     * Deltas not yet written to the rollup table.
+     */
+    private final Map<StatsKey, long[]> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Deltas taken from {@link #pending} by the running flush and not yet committed to the table.
+     */
+    private volatile Map<StatsKey, long[]> inFlight = Map.of();
+
+    /**
+     * Held exclusively while a flush moves deltas from {@link #pending} to {@link #inFlight} and while it commits
+     * them, and shared by the readers, so a reader sees every delta exactly once: pending, in flight or in the table.
+     * The statements of the flush run without it.
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    /**
+     * Differences found by the previous reconcile run. A difference is only corrected when the next run finds
+     * the same one, so deltas that were still on their way (for example pending on another instance) are not
+     * counted twice. The lease keeps the reconcile on the same instance, so consecutive runs see each other's findings.
+     */
+    private Map<StatsKey, long[]> suspectedDrift = Map.of();
+
+    /**
+     * How many past days the reconcile compares.
+     */
+    @Value("${app.trainer-stats.reconcile.days-back:7}")
+    private int reconcileDaysBack;
+
+    /**
+     * How many future days the reconcile compares. This must cover the period in which time slots are created.
+     */
+    @Value("${app.trainer-stats.reconcile.days-ahead:186}")
+    private int reconcileDaysAhead;
+
+    /**
+     * How long the reconcile lease is held. This must be longer than the interval between two reconcile runs,
+     * so that the instance running the reconcile renews it before another instance can take over.
+     */
+    @Value("${app.trainer-stats.reconcile.lease:PT90M}")
+    private Duration reconcileLease;
+
+    /**
+     * Records a created time slot.
+     *
+     * @param trainerId      the ID of the trainer
+     * @param trainingTypeId the ID of the training type
+     * @param date           the day the slot starts on
+     * @param capacity       the capacity of the slot
+     */
+    public void recordSlotCreated(Long trainerId, Long trainingTypeId, LocalDate date, int capacity) {
+        record(new StatsKey(trainerId, trainingTypeId, date), 1, capacity, 0, 0);
+    }
+
+    /**
+     * Records a cancelled time slot.
+     *
+     * @param trainerId      the ID of the trainer
+     * @param trainingTypeId the ID of the training type
+     * @param date           the day the slot starts on
+     * @param capacity       the capacity of the slot
+     */
+    public void recordSlotCancelled(Long trainerId, Long trainingTypeId, LocalDate date, int capacity) {
+        record(new StatsKey(trainerId, trainingTypeId, date), -1, -capacity, 0, 0);
+    }
+
+    /**
+     * Records a confirmed booking.
+     *
+     * @param trainerId      the ID of the trainer
+     * @param trainingTypeId the ID of the training type
+     * @param date           the day the booked slot starts on
+     */
+    public void recordBookingCreated(Long trainerId, Long trainingTypeId, LocalDate date) {
+        record(new StatsKey(trainerId, trainingTypeId, date), 0, 0, 1, 0);
+    }
+
+    /**
+     * Records a cancelled booking.
+     *
+     * @param trainerId      the ID of the trainer
+     * @param trainingTypeId the ID of the training type
+     * @param date           the day the booked slot starts on
+     */
+    public void recordBookingCancelled(Long trainerId, Long trainingTypeId, LocalDate date) {
+        record(new StatsKey(trainerId, trainingTypeId, date), 0, 0, -1, 1);
+    }
+
+    /**
+     * Returns the utilization of a trainer for a range of days.
+     *
+     * @param trainerId the ID of the trainer
+     * @param startDate the first day (inclusive)
+     * @param endDate   the last day (inclusive)
+     * @return the totals and the daily rows of the trainer
+     */
+    @Transactional(readOnly = true)
+    public TrainerStatsDTO getTrainerStats(Long trainerId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Началната дата трябва да е преди крайната дата");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_STATS_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Периодът не може да бъде по-дълъг от " + MAX_STATS_DAYS + " дни");
+        }
+
+        Map<StatsKey, TrainerDailyStatsDTO> days = new HashMap<>();
+        flushLock.readLock().lock();
+        try {
+            for (TrainerDailyStats stats : trainerDailyStatsRepository
+                    .findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(trainerId, startDate, endDate)) {
+                days.put(new StatsKey(trainerId, stats.getTrainingTypeId(), stats.getStatDate()), mapToDTO(stats));
+            }
+
+            forEachUnwritten((key, deltas) -> {
+                if (key.trainerId().equals(trainerId) && !key.date().isBefore(startDate) && !key.date().isAfter(endDate)) {
+                    TrainerDailyStatsDTO day = days.computeIfAbsent(key,
+                            k -> new TrainerDailyStatsDTO(k.date(), k.trainingTypeId(), 0, 0, 0, 0));
+                    day.setSlotsOffered(day.getSlotsOffered() + deltas[0]);
+                    day.setSeatsOffered(day.getSeatsOffered() + deltas[1]);
+                    day.setSeatsBooked(day.getSeatsBooked() + deltas[2]);
+                    day.setCancellations(day.getCancellations() + deltas[3]);
+                }
+            });
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        List<TrainerDailyStatsDTO> rows = new ArrayList<>(days.values());
+        rows.sort(Comparator.comparing(TrainerDailyStatsDTO::getDate)
+                .thenComparing(TrainerDailyStatsDTO::getTrainingTypeId));
+
+        TrainerStatsDTO result = TrainerStatsDTO.builder()
+                .trainerId(trainerId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .days(rows)
+                .build();
+        for (TrainerDailyStatsDTO row : rows) {
+            result.setSlotsOffered(result.getSlotsOffered() + row.getSlotsOffered());
+            result.setSeatsOffered(result.getSeatsOffered() + row.getSeatsOffered());
+            result.setSeatsBooked(result.getSeatsBooked() + row.getSeatsBooked());
+            result.setCancellations(result.getCancellations() + row.getCancellations());
+        }
+        result.setFillRate(result.getSeatsOffered() == 0
+                ? 0 : (double) result.getSeatsBooked() / result.getSeatsOffered());
+        return result;
+    }
+
+    /**
+     * Adds the pending deltas to the rollup table in one transaction: an in-place increment of the existing row,
+     * or a new row for the first change of a trainer, training type and day.
+     * If the transaction fails, the deltas are put back and retried on the next run.
+     * Readers only wait while the deltas are taken out of the pending map and while the transaction commits,
+     * not while its statements run.
+     *
+     * @return the number of rollup rows written
+     */
+    @Scheduled(fixedDelayString = "${app.trainer-stats.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        Map<StatsKey, long[]> batch = new HashMap<>();
+        flushLock.writeLock().lock();
+        try {
+            for (StatsKey key : new ArrayList<>(pending.keySet())) {
+                long[] deltas = pending.remove(key);
+                if (deltas != null) {
+                    batch.put(key, deltas);
+                }
+            }
+            inFlight = batch;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        PlatformTransactionManager transactionManager = Objects.requireNonNull(transactionTemplate.getTransactionManager());
+        TransactionStatus status = transactionManager.getTransaction(transactionTemplate);
+        RuntimeException failure = null;
+        try {
+            batch.forEach(this::apply);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            failure = e;
+        }
+
+        flushLock.writeLock().lock();
+        try {
+            if (failure == null) {
+                transactionManager.commit(status);
+                return batch.size();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            if (failure != null) {
+                // Usually another instance inserted the same new row concurrently; the retry will update it
+                log.warn("Could not write {} trainer stats rows, retrying later: {}", batch.size(), failure.getMessage());
+                batch.forEach((key, deltas) -> pending.merge(key, deltas, TrainerStatsService::add));
+            }
+            inFlight = Map.of();
+            flushLock.writeLock().unlock();
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the rollup rows of the recent and upcoming days with the time_slots and booking rows
+     * and corrects the differences, e.g. deltas lost when an instance crashed before its flush.
+     * A difference is only corrected if the previous run found exactly the same one; differences caused by changes
+     * made while the comparison ran, or by deltas still pending on other instances, are gone by the next run.
+     * Only the instance holding the reconcile lease runs it. A correction overwrites the row with the counted values,
+     * and only if the row still has the values it was compared with, so it is never applied twice.
+     *
+     * @return the number of corrected rollup rows
+     */
+    @Scheduled(cron = "${app.trainer-stats.reconcile.cron:0 50 * * * *}")
+    public synchronized int reconcile() {
+        if (!jobLeaseService.tryAcquire(RECONCILE_JOB, reconcileLease)) {
+            suspectedDrift = Map.of();
+            return 0;
+        }
+        LocalDate startDate = LocalDate.now(clock).minusDays(reconcileDaysBack);
+        LocalDate endDate = LocalDate.now(clock).plusDays(reconcileDaysAhead);
+        flush();
+
+        Map<StatsKey, long[]> drift = new HashMap<>();
+        List<TrainerStatsTotalsDTO> totals = new ArrayList<>(trainerDailyStatsRepository
+                .sumTimeSlots(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()));
+        totals.addAll(trainerDailyStatsRepository
+                .sumBookings(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()));
+        for (TrainerStatsTotalsDTO total : totals) {
+            add(drift.computeIfAbsent(new StatsKey(total.getTrainerId(), total.getTrainingTypeId(), total.getDate()),
+                    key -> new long[4]), new long[]{total.getSlotsOffered(), total.getSeatsOffered(),
+                    total.getSeatsBooked(), total.getCancellations()});
+        }
+
+        Map<StatsKey, long[]> stored = new HashMap<>();
+        flushLock.readLock().lock();
+        try {
+            for (TrainerDailyStats stats : trainerDailyStatsRepository.findByStatDateBetween(startDate, endDate)) {
+                StatsKey key = new StatsKey(stats.getTrainerId(), stats.getTrainingTypeId(), stats.getStatDate());
+                long[] values = {stats.getSlotsOffered(), stats.getSeatsOffered(),
+                        stats.getSeatsBooked(), stats.getCancellations()};
+                stored.put(key, values);
+                subtract(drift.computeIfAbsent(key, k -> new long[4]), values);
+            }
+            forEachUnwritten((key, deltas) -> {
+                if (!key.date().isBefore(startDate) && !key.date().isAfter(endDate)) {
+                    subtract(drift.computeIfAbsent(key, k -> new long[4]), deltas);
+                }
+            });
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        Map<StatsKey, long[]> suspected = new HashMap<>();
+        int corrected = 0;
+        for (Map.Entry<StatsKey, long[]> entry : drift.entrySet()) {
+            long[] difference = entry.getValue();
+            if (Arrays.stream(difference).allMatch(value -> value == 0)) {
+                continue;
+            }
+            if (Arrays.equals(difference, suspectedDrift.get(entry.getKey()))) {
+                if (correct(entry.getKey(), stored.get(entry.getKey()), difference)) {
+                    corrected++;
+                }
+            } else {
+                suspected.put(entry.getKey(), difference);
+            }
+        }
+        suspectedDrift = suspected;
+        return corrected;
+    }
+
+    /**
+     * Writes the remaining deltas when the application shuts down.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void apply(StatsKey key, long[] deltas) {
+        int updated = trainerDailyStatsRepository.increment(key.trainerId(), key.trainingTypeId(), key.date(),
+                deltas[0], deltas[1], deltas[2], deltas[3]);
+        if (updated == 0) {
+            trainerDailyStatsRepository.saveAndFlush(new TrainerDailyStats(null, key.trainerId(), key.trainingTypeId(),
+                    key.date(), deltas[0], deltas[1], deltas[2], deltas[3]));
+        }
+    }
+
+    /**
+     * Overwrites a rollup row with its stored values plus the confirmed difference, or creates the missing row.
+     *
+     * @param key        the key of the row
+     * @param stored     the values the row had when it was compared, or null if there was no row
+     * @param difference the confirmed difference
+     * @return true if the row was written, false if it changed in the meantime (the next runs will look at it again)
+     */
+    private boolean correct(StatsKey key, long[] stored, long[] difference) {
+        long[] expected = stored != null ? stored : new long[4];
+        long[] values = expected.clone();
+        add(values, difference);
+        log.warn("Correcting trainer stats of {} from {} to {}", key, Arrays.toString(expected), Arrays.toString(values));
+        try {
+            Boolean written = transactionTemplate.execute(status -> {
+                if (stored == null) {
+                    trainerDailyStatsRepository.saveAndFlush(new TrainerDailyStats(null, key.trainerId(),
+                            key.trainingTypeId(), key.date(), values[0], values[1], values[2], values[3]));
+                    return true;
+                }
+                return trainerDailyStatsRepository.replace(key.trainerId(), key.trainingTypeId(), key.date(),
+                        expected[0], expected[1], expected[2], expected[3],
+                        values[0], values[1], values[2], values[3]) > 0;
+            });
+            return Boolean.TRUE.equals(written);
+        } catch (RuntimeException e) {
+            // Usually a flush created the row in the meantime
+            log.warn("Could not correct trainer stats of {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Passes the deltas that are not in the table yet, pending or in flight, to the consumer.
+     * Must be called with the read lock held.
+     *
+     * @param consumer receives the key and the deltas
+     */
+    private void forEachUnwritten(BiConsumer<StatsKey, long[]> consumer) {
+        BiConsumer<StatsKey, long[]> copying = (key, deltas) -> {
+            long[] copy;
+            synchronized (deltas) {
+                copy = deltas.clone();
+            }
+            consumer.accept(key, copy);
+        };
+        pending.forEach(copying);
+        inFlight.forEach(copying);
+    }
+
+    private void record(StatsKey key, long slotsOffered, long seatsOffered, long seatsBooked, long cancellations) {
+        long[] deltas = {slotsOffered, seatsOffered, seatsBooked, cancellations};
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.merge(key, deltas, TrainerStatsService::add);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.merge(key, deltas, TrainerStatsService::add);
+            }
+        });
+    }
+
+    private static void subtract(long[] current, long[] deltas) {
+        for (int i = 0; i < current.length; i++) {
+            current[i] -= deltas[i];
+        }
+    }
+
+    private static long[] add(long[] current, long[] deltas) {
+        synchronized (current) {
+            for (int i = 0; i < current.length; i++) {
+                current[i] += deltas[i];
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Maps a TrainerDailyStats entity to a TrainerDailyStatsDTO.
+     *
+     * @param stats the TrainerDailyStats entity to map
+     * @return the mapped TrainerDailyStatsDTO
+     */
+    private TrainerDailyStatsDTO mapToDTO(TrainerDailyStats stats) {
+        return new TrainerDailyStatsDTO(stats.getStatDate(), stats.getTrainingTypeId(), stats.getSlotsOffered(),
+                stats.getSeatsOffered(), stats.getSeatsBooked(), stats.getCancellations());
+    }
+
+    /**
+     * Key of a rollup row.
+     */
+    private record StatsKey(Long trainerId, Long trainingTypeId, LocalDate date) {
+    }
+}
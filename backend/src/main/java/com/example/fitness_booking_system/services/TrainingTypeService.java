@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -78,6 +79,7 @@ public class TrainingTypeService {
      *
      * @return a list of TrainingTypeDTOs representing all training types
      */
+    @Transactional(readOnly = true)
     public List<TrainingTypeDTO> getAllTrainingTypes() {
         return trainingTypeRepository.findAll().stream()
                 .map(this::mapToDTO)
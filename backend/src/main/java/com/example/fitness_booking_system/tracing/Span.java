@@ -0,0 +1,146 @@
+package com.example.fitness_booking_system.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A timed operation within a trace: the request, a service or repository method, an SQL statement, an SMTP send.
+ * Spans are created by the {@link Tracer} and ended with {@link #end()}, usually through try-with-resources.
+ * A span and its children are only used by the thread that created them.
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * Span returned when tracing is off or a child span is asked for outside of a trace; records nothing.
+     */
+    static final Span NOOP = new Span();
+
+    private final Tracer tracer;
+    private final Trace trace;
+    private final Span parent;
+    private final String spanId;
+    private final SpanKind kind;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private final List<Span> children = new ArrayList<>();
+    private String name;
+    private long durationNanos = -1;
+    private String error;
+
+    Span(Tracer tracer, Trace trace, Span parent, String spanId, String name, SpanKind kind,
+         long startEpochNanos, long startNanos) {
+        this.tracer = tracer;
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = spanId;
+        this.name = name;
+        this.kind = kind;
+        this.startEpochNanos = startEpochNanos;
+        this.startNanos = startNanos;
+    }
+
+    private Span() {
+        this(null, null, null, null, "noop", SpanKind.INTERNAL, 0, 0);
+    }
+
+    /**
+     * Renames the span, e.g. once the route of a request is known.
+     *
+     * @param name the new name
+     */
+    public void setName(String name) {
+        if (tracer != null) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Adds an attribute to the span.
+     *
+     * @param key   the attribute name
+     * @param value the value; strings, numbers and booleans
+     */
+    public void setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            attributes.put(key, value);
+        }
+    }
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param exception the exception that ended the operation
+     */
+    public void setError(Throwable exception) {
+        if (tracer != null) {
+            error = exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        }
+    }
+
+    /**
+     * Ends the span; the trace is finished when its root span ends.
+     */
+    public void end() {
+        if (tracer != null && durationNanos < 0) {
+            durationNanos = System.nanoTime() - startNanos;
+            tracer.end(this);
+        }
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    void addChild(Span child) {
+        children.add(child);
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    Trace getTrace() {
+        return trace;
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    String getSpanId() {
+        return spanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    SpanKind getKind() {
+        return kind;
+    }
+
+    long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public List<Span> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.fitness_booking_system.tracing;
+
+/**
+ * Enum representing the kind of a span, with the numeric values of the OTLP format.
+ */
+public enum SpanKind {
+    INTERNAL(1),
+    SERVER(2),
+    CLIENT(3);
+
+    private final int otlpValue;
+
+    SpanKind(int otlpValue) {
+        this.otlpValue = otlpValue;
+    }
+
+    public int getOtlpValue() {
+        return otlpValue;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.fitness_booking_system.tracing;
+
+/**
+ * The spans of one request or background operation, with the counters of the slow-request log.
+ */
+public final class Trace {
+
+    private final String traceId;
+    private Span root;
+    private int spans;
+    private int droppedSpans;
+    private int sqlStatements;
+    private long sqlNanos;
+
+    Trace(String traceId) {
+        this.traceId = traceId;
+    }
+
+    String getTraceId() {
+        return traceId;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    void setRoot(Span root) {
+        this.root = root;
+    }
+
+    /**
+     * Counts a new span; returns false once the trace has reached its span limit.
+     */
+    boolean addSpan(int maxSpans) {
+        if (spans >= maxSpans) {
+            droppedSpans++;
+            return false;
+        }
+        spans++;
+        return true;
+    }
+
+    void addSqlStatement(long nanos) {
+        sqlStatements++;
+        sqlNanos += nanos;
+    }
+
+    public int getSpans() {
+        return spans;
+    }
+
+    public int getDroppedSpans() {
+        return droppedSpans;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public long getSqlNanos() {
+        return sqlNanos;
+    }
+}
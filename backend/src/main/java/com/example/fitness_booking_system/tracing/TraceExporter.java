@@ -0,0 +1,269 @@
+package com.example.fitness_booking_system.tracing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the finished traces in the OTLP/JSON format, off the request threads.
+ * With app.tracing.export=file every batch of traces is appended to a local file as one line
+ * (an ExportTraceServiceRequest, as written by the OpenTelemetry file exporter); with otlp it is posted to
+ * an OTLP/HTTP collector such as the OpenTelemetry Collector or Jaeger; with none (the default) nothing is exported.
+ * Slow traces are always exported, the others with the configured sample rate.
+ * When the queue is full further traces are dropped.
+ */
+@Slf4j
+@Component
+public class TraceExporter {
+
+    /**
+     * Maximum number of traces written or posted at once.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Where the traces go: none, file or otlp.
+     */
+    @Value("${app.tracing.export:none}")
+    private String export = "none";
+
+    /**
+     * File the traces are appended to with export=file.
+     */
+    @Value("${app.tracing.export-file:traces.jsonl}")
+    private String exportFile = "traces.jsonl";
+
+    /**
+     * OTLP/HTTP traces endpoint with export=otlp.
+     */
+    @Value("${app.tracing.otlp-endpoint:http://localhost:4318/v1/traces}")
+    private String otlpEndpoint = "http://localhost:4318/v1/traces";
+
+    /**
+     * Fraction of the traces that are not slow which is exported.
+     */
+    @Value("${app.tracing.export-sample-rate:1.0}")
+    private double exportSampleRate = 1.0;
+
+    /**
+     * Maximum number of traces waiting for the exporter thread.
+     */
+    @Value("${app.tracing.export-queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    /**
+     * Service name reported with the spans.
+     */
+    @Value("${spring.application.name:fitness-booking-system}")
+    private String serviceName = "fitness-booking-system";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private BlockingQueue<Trace> queue;
+    private HttpClient httpClient;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * Starts the exporter thread unless exporting is off.
+     */
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        if ("none".equals(export)) {
+            return;
+        }
+        if ("otlp".equals(export)) {
+            httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        }
+        running = true;
+        worker = new Thread(this::work, "trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Exports the queued traces and stops the exporter thread.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues a finished trace for export.
+     *
+     * @param trace the trace
+     * @param slow  whether the trace was slower than the threshold; slow traces are not sampled out
+     */
+    public void export(Trace trace, boolean slow) {
+        if (!running || !slow && ThreadLocalRandom.current().nextDouble() >= exportSampleRate) {
+            return;
+        }
+        if (!queue.offer(trace)) {
+            log.debug("Trace export queue is full, dropping trace {}", trace.getTraceId());
+        }
+    }
+
+    private void work() {
+        List<Trace> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (running || !queue.isEmpty()) {
+                Trace first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                try {
+                    write(toOtlpJson(batch));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not export {} traces: {}", batch.size(), e.getMessage());
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(byte[] request) throws IOException, InterruptedException {
+        if ("file".equals(export)) {
+            Files.write(Path.of(exportFile), appendNewline(request), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return;
+        }
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(otlpEndpoint))
+                        .timeout(Duration.ofSeconds(10))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(request))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            log.warn("Trace collector at {} answered with status {}", otlpEndpoint, response.statusCode());
+        }
+    }
+
+    private static byte[] appendNewline(byte[] request) {
+        byte[] line = new byte[request.length + 1];
+        System.arraycopy(request, 0, line, 0, request.length);
+        line[request.length] = '\n';
+        return line;
+    }
+
+    /**
+     * Encodes traces as an OTLP ExportTraceServiceRequest in the JSON encoding.
+     *
+     * @param traces the finished traces
+     * @return the request body
+     */
+    byte[] toOtlpJson(List<Trace> traces) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("resourceSpans");
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("resource");
+            generator.writeArrayFieldStart("attributes");
+            writeAttribute(generator, "service.name", serviceName);
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("scopeSpans");
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("scope");
+            generator.writeStringField("name", Tracer.class.getName());
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("spans");
+            for (Trace trace : traces) {
+                writeSpan(generator, trace, trace.getRoot());
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeSpan(JsonGenerator generator, Trace trace, Span span) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("traceId", trace.getTraceId());
+        generator.writeStringField("spanId", span.getSpanId());
+        if (span.getParent() != null) {
+            generator.writeStringField("parentSpanId", span.getParent().getSpanId());
+        }
+        generator.writeStringField("name", span.getName());
+        generator.writeNumberField("kind", span.getKind().getOtlpValue());
+        // 64-bit integers are strings in the JSON encoding of protobuf
+        generator.writeStringField("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        generator.writeStringField("endTimeUnixNano", Long.toString(span.getStartEpochNanos() + span.getDurationNanos()));
+        generator.writeArrayFieldStart("attributes");
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            writeAttribute(generator, attribute.getKey(), attribute.getValue());
+        }
+        generator.writeEndArray();
+        if (span.getError() != null) {
+            generator.writeObjectFieldStart("status");
+            generator.writeNumberField("code", 2);
+            generator.writeStringField("message", span.getError());
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        for (Span child : span.getChildren()) {
+            writeSpan(generator, trace, child);
+        }
+    }
+
+    private static void writeAttribute(JsonGenerator generator, String key, Object value) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("key", key);
+        generator.writeObjectFieldStart("value");
+        if (value instanceof Boolean bool) {
+            generator.writeBooleanField("boolValue", bool);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeStringField("intValue", value.toString());
+        } else if (value instanceof Number number) {
+            generator.writeNumberField("doubleValue", number.doubleValue());
+        } else {
+            generator.writeStringField("stringValue", value.toString());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.fitness_booking_system.tracing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lightweight in-process tracer.
+ * The current span is kept per thread: a span started while another one is open becomes its child,
+ * and the trace ends with its root span. Requests get their root span in {@link TracingFilter}, service and
+ * repository methods in {@link TracingAspect}, SQL statements from the SQL listener of {@link TracingConfig}
+ * and SMTP sends in MailTransportPool.
+ * Finished traces go to the {@link TraceExporter}; a trace slower than the threshold is also written to the log
+ * as a span tree with its SQL statement count, for the configured fraction of the slow traces.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class Tracer {
+
+    /**
+     * Maximum length of an SQL statement stored in a span.
+     */
+    private static final int MAX_STATEMENT_LENGTH = 500;
+
+    /**
+     * Attribute holding the repository method of a repository span and of the SQL statements sent from it.
+     */
+    public static final String REPOSITORY_ATTRIBUTE = "db.repository";
+
+    /**
+     * Exporter of the finished traces.
+     */
+    private final TraceExporter traceExporter;
+
+    /**
+     * Whether spans are recorded at all.
+     */
+    @Value("${app.tracing.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * Duration from which a trace is logged as slow.
+     */
+    @Value("${app.tracing.slow-threshold-ms:500}")
+    private long slowThresholdMs = 500;
+
+    /**
+     * Fraction of the slow traces written to the log.
+     */
+    @Value("${app.tracing.slow-log-sample-rate:1.0}")
+    private double slowLogSampleRate = 1.0;
+
+    /**
+     * Maximum number of spans kept per trace; an N+1 loop is still counted but not recorded span by span.
+     */
+    @Value("${app.tracing.max-spans:1000}")
+    private int maxSpans = 1000;
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+
+    /**
+     * Starts a span as a child of the current span, or as the root of a new trace.
+     *
+     * @param name the span name
+     * @param kind the span kind
+     * @return the started span, to be ended by the caller
+     */
+    public Span startSpan(String name, SpanKind kind) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        Span parent = current.get();
+        Trace trace = parent != null ? parent.getTrace() : new Trace(randomId(16));
+        if (!trace.addSpan(maxSpans)) {
+            return Span.NOOP;
+        }
+        Span span = new Span(this, trace, parent, randomId(8), name, kind, epochNanos(), System.nanoTime());
+        if (parent != null) {
+            parent.addChild(span);
+        } else {
+            trace.setRoot(span);
+        }
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Starts a span only inside a trace, e.g. for repository calls of a request.
+     *
+     * @param name the span name
+     * @param kind the span kind
+     * @return the started span, or a span recording nothing outside of a trace
+     */
+    public Span startChildSpan(String name, SpanKind kind) {
+        return isActive() ? startSpan(name, kind) : Span.NOOP;
+    }
+
+    /**
+     * Returns whether the current thread is inside a trace.
+     *
+     * @return true if a span is open
+     */
+    public boolean isActive() {
+        return current.get() != null;
+    }
+
+    /**
+     * Returns the innermost open span of the current thread.
+     *
+     * @return the current span, or null outside of a trace
+     */
+    public Span currentSpan() {
+        return current.get();
+    }
+
+    /**
+     * Records an executed SQL statement as a finished child of the current span.
+     * The statement is tagged with the repository method it was sent from, if any.
+     *
+     * @param sql           the statement
+     * @param batchSize     the number of batched executions, 0 if not batched
+     * @param elapsedMillis the execution time
+     * @param success       whether the statement succeeded
+     */
+    public void recordSql(String sql, int batchSize, long elapsedMillis, boolean success) {
+        Span parent = current.get();
+        if (parent == null) {
+            return;
+        }
+        long nanos = elapsedMillis * 1_000_000;
+        Trace trace = parent.getTrace();
+        trace.addSqlStatement(nanos);
+        if (!trace.addSpan(maxSpans)) {
+            return;
+        }
+        Span span = new Span(this, trace, parent, randomId(8), "SQL " + verb(sql), SpanKind.CLIENT,
+                epochNanos() - nanos, System.nanoTime() - nanos);
+        span.setAttribute("db.statement", sql.length() > MAX_STATEMENT_LENGTH ? sql.substring(0, MAX_STATEMENT_LENGTH) : sql);
+        if (batchSize > 0) {
+            span.setAttribute("db.batch_size", batchSize);
+        }
+        for (Span caller = parent; caller != null; caller = caller.getParent()) {
+            Object repositoryMethod = caller.getAttributes().get(REPOSITORY_ATTRIBUTE);
+            if (repositoryMethod != null) {
+                span.setAttribute(REPOSITORY_ATTRIBUTE, repositoryMethod);
+                break;
+            }
+        }
+        if (!success) {
+            span.setAttribute("error", true);
+        }
+        span.setDurationNanos(nanos);
+        parent.addChild(span);
+    }
+
+    /**
+     * Called by {@link Span#end()}: makes the parent current again and finishes the trace with its root span.
+     */
+    void end(Span span) {
+        if (span.getParent() != null) {
+            if (current.get() == span) {
+                current.set(span.getParent());
+            }
+            return;
+        }
+        // Also drops spans left open by mistake, so the thread does not carry them into its next request
+        current.remove();
+
+        Trace trace = span.getTrace();
+        boolean slow = span.getDurationNanos() >= slowThresholdMs * 1_000_000;
+        if (slow && ThreadLocalRandom.current().nextDouble() < slowLogSampleRate) {
+            log.warn("Slow {} took {} ms ({} SQL statements, {} ms in SQL)\n{}", span.getName(),
+                    span.getDurationNanos() / 1_000_000, trace.getSqlStatements(), trace.getSqlNanos() / 1_000_000,
+                    format(trace));
+        }
+        traceExporter.export(trace, slow);
+    }
+
+    /**
+     * Formats a trace as an indented span tree, one span per line.
+     *
+     * @param trace the finished trace
+     * @return the span tree
+     */
+    static String format(Trace trace) {
+        StringBuilder tree = new StringBuilder();
+        append(tree, trace.getRoot(), 0);
+        if (trace.getDroppedSpans() > 0) {
+            tree.append("... ").append(trace.getDroppedSpans()).append(" more spans not recorded\n");
+        }
+        return tree.toString().stripTrailing();
+    }
+
+    private static void append(StringBuilder tree, Span span, int depth) {
+        tree.append("  ".repeat(depth)).append(span.getName())
+                .append(String.format(Locale.ROOT, " %.1f ms", span.getDurationNanos() / 1e6));
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            tree.append(' ').append(attribute.getKey()).append('=').append(attribute.getValue());
+        }
+        if (span.getError() != null) {
+            tree.append(" error=").append(span.getError());
+        }
+        tree.append('\n');
+        // Children are added in the order they ran; statements when they complete
+        for (Span child : span.getChildren()) {
+            append(tree, child, depth + 1);
+        }
+    }
+
+    private static String verb(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = trimmed.indexOf(' ');
+        return (end < 0 ? trimmed : trimmed.substring(0, end)).toUpperCase();
+    }
+
+    private static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000 + now.getNano();
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+}
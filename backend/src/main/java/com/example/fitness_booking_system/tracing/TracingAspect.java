@@ -0,0 +1,80 @@
+package com.example.fitness_booking_system.tracing;
+
+import lombok.RequiredArgsConstructor;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a span per call of a service method, of the JWT utility and of a Spring Data repository method.
+ * Service spans start a new trace when called outside of a request (scheduled jobs, the admission lanes);
+ * repository spans are only recorded inside a trace.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingAspect {
+
+    /**
+     * Package of the application's repository interfaces.
+     */
+    private static final String REPOSITORY_PACKAGE = "com.example.fitness_booking_system.repositories";
+
+    /**
+     * Tracer recording the spans.
+     */
+    private final Tracer tracer;
+
+    /**
+     * Repository interface names by repository proxy class.
+     */
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    @Around("@within(org.springframework.stereotype.Service)"
+            + " || execution(public * com.example.fitness_booking_system.security.JwtUtil.*(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "." + joinPoint.getSignature().getName();
+        return proceed(joinPoint, tracer.startSpan(name, SpanKind.INTERNAL));
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!tracer.isActive()) {
+            return joinPoint.proceed();
+        }
+        String name = repositoryName(joinPoint.getTarget().getClass()) + "." + joinPoint.getSignature().getName();
+        Span span = tracer.startSpan(name, SpanKind.INTERNAL);
+        span.setAttribute(Tracer.REPOSITORY_ATTRIBUTE, name);
+        return proceed(joinPoint, span);
+    }
+
+    private Object proceed(ProceedingJoinPoint joinPoint, Span span) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.setError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private String repositoryName(Class<?> proxyClass) {
+        return repositoryNames.computeIfAbsent(proxyClass, type -> {
+            for (Class<?> repositoryInterface : type.getInterfaces()) {
+                if (repositoryInterface.getName().startsWith(REPOSITORY_PACKAGE)) {
+                    return repositoryInterface.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
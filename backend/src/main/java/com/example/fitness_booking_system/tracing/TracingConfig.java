@@ -0,0 +1,51 @@
+package com.example.fitness_booking_system.tracing;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Configuration of the request tracing: the root span filter and the SQL statement spans.
+ * The service and repository spans come from {@link TracingAspect}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    /**
+     * Registers the tracing filter ahead of the Spring Security filters.
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Records every SQL statement as a span of the current trace.
+     * The statements reach it through the DataSource proxy of DataSourceProxyConfig.
+     */
+    @Bean
+    public QueryExecutionListener sqlTracingListener(Tracer tracer) {
+        return new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                tracer.recordSql(queryInfoList.get(0).getQuery(), execInfo.isBatch() ? execInfo.getBatchSize() : 0,
+                        execInfo.getElapsedTime(), execInfo.isSuccess());
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+-- Fills booking.slot_start_time for the bookings made before the column was introduced.
+-- Until every booking of an existing time slot has this column set, the application pages the booking history
+-- by the joined time slot instead of the keyset index, so run this once after deploying:
+--   psql -d fitness_booking_db -f backfill_booking_slot_start.sql
+-- Safe to re-run; rows are updated in ID ranges to keep locks short. Bookings whose time slot no longer exists
+-- cannot be filled; they are skipped and counted at the end.
+
+DO $$
+DECLARE
+    batch_start BIGINT;
+    last_id     BIGINT;
+    orphans     BIGINT;
+BEGIN
+    SELECT min(id), max(id) INTO batch_start, last_id FROM booking WHERE slot_start_time IS NULL;
+    WHILE batch_start <= last_id LOOP
+        UPDATE booking b
+        SET slot_start_time = ts.start_time
+        FROM time_slots ts
+        WHERE ts.id = b.time_slot_id
+          AND b.id >= batch_start AND b.id < batch_start + 10000
+          AND b.slot_start_time IS NULL;
+        COMMIT;
+        batch_start := batch_start + 10000;
+    END LOOP;
+
+    SELECT count(*) INTO orphans FROM booking WHERE slot_start_time IS NULL;
+    IF orphans > 0 THEN
+        RAISE NOTICE '% bookings reference a missing time slot and were left without slot_start_time', orphans;
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_booking_client_slot_start ON booking (client_id, slot_start_time, id);
@@ -0,0 +1,117 @@
+-- Benchmark: partitioned vs. unpartitioned range queries over time_slots.
+-- Creates two scratch tables with the same 10 million rows (about 3 years of slots for 500 trainers)
+-- and compares the queries issued by TimeSlotRepository. Run against a scratch database:
+--   psql -d fitness_bench -f benchmark_time_slots.sql
+-- The scratch tables are dropped at the end.
+--
+-- Results on PostgreSQL 16.2 (1 vCPU, shared_buffers = 512MB, default work_mem), execution times from EXPLAIN ANALYZE:
+--   one trainer, one week               plain 0.76 ms (bitmap scan, 130 buffers)    partitioned 0.31 ms (1 partition)
+--   overlap check without lower bound   plain 79.9 ms (14.5k heap blocks)
+--   overlap check with lower bound      plain 0.08 ms                               partitioned 0.10 ms
+--   one month, all trainers (283k rows) plain 2030 ms (lossy parallel bitmap scan)  partitioned 83 ms (seq scan of 1 partition)
+--   prepared one-week query, generic plan                                           partitioned 0.32 ms, "Subplans Removed: 35"
+-- The overlap check is fast because of the start_time lower bound, not because of the partitions. The month query
+-- is the worst case for the plain table: the generated start times are scattered over all heap pages, while
+-- slots created in time order would be clustered and narrow the gap.
+
+\timing on
+
+DROP TABLE IF EXISTS bench_slots_plain;
+DROP TABLE IF EXISTS bench_slots_part;
+
+CREATE TABLE bench_slots_plain (
+    id               BIGINT       NOT NULL PRIMARY KEY,
+    trainer_id       BIGINT       NOT NULL,
+    training_type_id BIGINT       NOT NULL,
+    start_time       TIMESTAMP(6) NOT NULL,
+    end_time         TIMESTAMP(6) NOT NULL,
+    capacity         INTEGER,
+    booked_count     INTEGER,
+    status           VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE bench_slots_part (LIKE bench_slots_plain INCLUDING DEFAULTS) PARTITION BY RANGE (start_time);
+ALTER TABLE bench_slots_part ADD PRIMARY KEY (id, start_time);
+
+DO $$
+DECLARE
+    month_start DATE := DATE '2023-01-01';
+BEGIN
+    WHILE month_start < DATE '2026-01-01' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bench_slots_part FOR VALUES FROM (%L) TO (%L)',
+                       'bench_slots_part_' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- 10M slots: 500 trainers, start times scattered over the 315360 five-minute steps of 2023-2025
+-- (7919 is prime, so g * 7919 walks all steps instead of filling the first weeks in order)
+INSERT INTO bench_slots_plain
+SELECT g,
+       1 + (g % 500),
+       1 + (g % 12),
+       TIMESTAMP '2023-01-01' + ((g::BIGINT * 7919) % 315360) * INTERVAL '5 minutes',
+       TIMESTAMP '2023-01-01' + ((g::BIGINT * 7919) % 315360) * INTERVAL '5 minutes' + INTERVAL '1 hour',
+       10,
+       g % 11,
+       CASE WHEN g % 11 = 10 THEN 'BOOKED' ELSE 'AVAILABLE' END
+FROM generate_series(1, 10000000) AS g;
+
+INSERT INTO bench_slots_part SELECT * FROM bench_slots_plain;
+
+CREATE INDEX ON bench_slots_plain (trainer_id, start_time);
+CREATE INDEX ON bench_slots_plain (start_time);
+CREATE INDEX ON bench_slots_part (trainer_id, start_time);
+CREATE INDEX ON bench_slots_part (start_time);
+
+VACUUM ANALYZE bench_slots_plain;
+VACUUM ANALYZE bench_slots_part;
+
+-- findByTrainerIdAndStartTimeBetween: one trainer, one week
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_slots_plain
+WHERE trainer_id = 42 AND start_time BETWEEN TIMESTAMP '2025-03-03' AND TIMESTAMP '2025-03-10';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_slots_part
+WHERE trainer_id = 42 AND start_time BETWEEN TIMESTAMP '2025-03-03' AND TIMESTAMP '2025-03-10';
+
+-- hasOverlappingTimeSlot: the overlap predicate is only pruned when it is bounded by start_time,
+-- so the query relies on slots never being longer than a day. Both tables get the same predicate as the
+-- repository query; the unbounded form is kept for comparison, it reads every earlier slot of the trainer.
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) > 0 FROM bench_slots_plain
+WHERE trainer_id = 42 AND start_time < TIMESTAMP '2025-03-03 11:00' AND end_time > TIMESTAMP '2025-03-03 10:00';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) > 0 FROM bench_slots_plain
+WHERE trainer_id = 42 AND start_time < TIMESTAMP '2025-03-03 11:00' AND end_time > TIMESTAMP '2025-03-03 10:00'
+  AND start_time > TIMESTAMP '2025-03-03 10:00' - INTERVAL '1 day';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) > 0 FROM bench_slots_part
+WHERE trainer_id = 42 AND start_time < TIMESTAMP '2025-03-03 11:00' AND end_time > TIMESTAMP '2025-03-03 10:00'
+  AND start_time > TIMESTAMP '2025-03-03 10:00' - INTERVAL '1 day';
+
+-- getAllTimeSlots restricted to one month for all trainers
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_slots_plain
+WHERE start_time >= TIMESTAMP '2025-03-01' AND start_time < TIMESTAMP '2025-04-01';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM bench_slots_part
+WHERE start_time >= TIMESTAMP '2025-03-01' AND start_time < TIMESTAMP '2025-04-01';
+
+-- Prepared statements with bind parameters are pruned at execution time ("Subplans Removed") once the driver
+-- switches to a generic plan, which is forced here instead of executing the statement five times first
+SET plan_cache_mode = force_generic_plan;
+PREPARE part_range(BIGINT, TIMESTAMP, TIMESTAMP) AS
+    SELECT * FROM bench_slots_part WHERE trainer_id = $1 AND start_time BETWEEN $2 AND $3;
+EXPLAIN (ANALYZE) EXECUTE part_range(42, TIMESTAMP '2025-03-03', TIMESTAMP '2025-03-10');
+DEALLOCATE part_range;
+RESET plan_cache_mode;
+
+DROP TABLE bench_slots_plain;
+DROP TABLE bench_slots_part;
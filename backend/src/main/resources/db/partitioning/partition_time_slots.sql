@@ -0,0 +1,120 @@
+-- Converts the time_slots table into a table range-partitioned by month on start_time.
+-- Run once against PostgreSQL (11+) while the application is stopped,
+-- after db/sequences/sync_id_sequences.sql has created time_slots_seq:
+--   psql -d fitness_booking_db -f partition_time_slots.sql
+-- After the conversion TimeSlotPartitionService keeps creating the partitions
+-- for the upcoming months (app.time-slots.partitioning.months-ahead).
+
+BEGIN;
+
+DO $$
+BEGIN
+    IF to_regclass('time_slots_seq') IS NULL THEN
+        RAISE EXCEPTION 'time_slots_seq does not exist, run db/sequences/sync_id_sequences.sql first';
+    END IF;
+END $$;
+
+-- A partitioned table cannot be referenced by a foreign key on id alone,
+-- so the booking -> time_slots constraint is dropped (the mapping no longer generates it)
+-- and replaced by the triggers at the end of this script.
+DO $$
+DECLARE
+    fk_name TEXT;
+BEGIN
+    FOR fk_name IN
+        SELECT con.conname
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        JOIN pg_class ref ON ref.oid = con.confrelid
+        WHERE con.contype = 'f' AND rel.relname = 'booking' AND ref.relname = 'time_slots'
+    LOOP
+        EXECUTE format('ALTER TABLE booking DROP CONSTRAINT %I', fk_name);
+    END LOOP;
+END $$;
+
+ALTER TABLE time_slots RENAME TO time_slots_unpartitioned;
+
+-- The primary key of a partitioned table has to contain the partition key.
+-- The ids come from time_slots_seq, which the application reads in blocks of 50 (allocationSize),
+-- so the column has no default: a plain nextval would hand out an id of a block already in use.
+-- A slot may not be longer than TimeSlotRepository.MAX_SLOT_DURATION, which the overlap checks rely on.
+CREATE TABLE time_slots (
+    id               BIGINT       NOT NULL,
+    trainer_id       BIGINT       NOT NULL REFERENCES trainers (id),
+    training_type_id BIGINT       NOT NULL REFERENCES training_types (id),
+    start_time       TIMESTAMP(6) NOT NULL,
+    end_time         TIMESTAMP(6) NOT NULL,
+    capacity         INTEGER,
+    booked_count     INTEGER,
+    status           VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id, start_time),
+    CONSTRAINT time_slots_max_duration CHECK (end_time - start_time <= INTERVAL '1 day')
+) PARTITION BY RANGE (start_time);
+
+CREATE INDEX idx_time_slots_trainer_start ON time_slots (trainer_id, start_time);
+CREATE INDEX idx_time_slots_start ON time_slots (start_time);
+
+-- Catches rows outside of the created months instead of failing the insert.
+CREATE TABLE time_slots_default PARTITION OF time_slots DEFAULT;
+
+-- One partition per month from the oldest existing slot up to six months ahead.
+DO $$
+DECLARE
+    month_start DATE;
+    last_month  DATE := date_trunc('month', now() + INTERVAL '6 months')::DATE;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(start_time))::DATE, date_trunc('month', now())::DATE)
+    INTO month_start
+    FROM time_slots_unpartitioned;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF time_slots FOR VALUES FROM (%L) TO (%L)',
+                       'time_slots_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+INSERT INTO time_slots (id, trainer_id, training_type_id, start_time, end_time, capacity, booked_count, status)
+SELECT id, trainer_id, training_type_id, start_time, end_time, capacity, booked_count, status
+FROM time_slots_unpartitioned;
+
+DROP TABLE time_slots_unpartitioned;
+
+-- Replacement for the dropped foreign key: a booking has to refer to an existing time slot
+-- (the slot row is locked as the foreign key would, so a concurrent delete waits),
+-- and a time slot with bookings cannot be deleted. Both fail with foreign_key_violation.
+CREATE INDEX IF NOT EXISTS idx_booking_time_slot ON booking (time_slot_id);
+
+CREATE OR REPLACE FUNCTION booking_time_slot_exists() RETURNS trigger AS $$
+BEGIN
+    PERFORM 1 FROM time_slots WHERE id = NEW.time_slot_id FOR KEY SHARE;
+    IF NOT FOUND THEN
+        RAISE EXCEPTION 'booking % refers to missing time slot %', NEW.id, NEW.time_slot_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER booking_time_slot_fk
+    BEFORE INSERT OR UPDATE OF time_slot_id ON booking
+    FOR EACH ROW EXECUTE FUNCTION booking_time_slot_exists();
+
+CREATE OR REPLACE FUNCTION time_slot_has_no_bookings() RETURNS trigger AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM booking WHERE time_slot_id = OLD.id) THEN
+        RAISE EXCEPTION 'time slot % still has bookings', OLD.id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN OLD;
+END $$ LANGUAGE plpgsql;
+
+-- PostgreSQL 11 only allows AFTER row triggers on partitioned tables
+CREATE TRIGGER time_slots_booking_fk
+    AFTER DELETE ON time_slots
+    FOR EACH ROW EXECUTE FUNCTION time_slot_has_no_bookings();
+
+COMMIT;
+
+ANALYZE time_slots;
@@ -0,0 +1,41 @@
+-- Rebuilds the trainer_daily_stats rollup from the raw time_slots and booking rows.
+-- The application only adds deltas for changes made after it started maintaining the rollup,
+-- so run this once when the table is introduced (or to repair it) while no bookings are being made:
+--   psql -d fitness_booking_db -f backfill_trainer_daily_stats.sql
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS trainer_daily_stats_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS trainer_daily_stats (
+    id               BIGINT PRIMARY KEY,
+    trainer_id       BIGINT NOT NULL,
+    training_type_id BIGINT NOT NULL,
+    stat_date        DATE   NOT NULL,
+    slots_offered    BIGINT NOT NULL,
+    seats_offered    BIGINT NOT NULL,
+    seats_booked     BIGINT NOT NULL,
+    cancellations    BIGINT NOT NULL,
+    CONSTRAINT uk_trainer_daily_stats_key UNIQUE (trainer_id, stat_date, training_type_id)
+);
+
+TRUNCATE trainer_daily_stats;
+
+INSERT INTO trainer_daily_stats (id, trainer_id, training_type_id, stat_date,
+                                 slots_offered, seats_offered, seats_booked, cancellations)
+SELECT nextval('trainer_daily_stats_seq'), s.trainer_id, s.training_type_id, s.stat_date,
+       s.slots_offered, s.seats_offered, COALESCE(b.seats_booked, 0), COALESCE(b.cancellations, 0)
+FROM (SELECT ts.trainer_id, ts.training_type_id, ts.start_time::date AS stat_date,
+             COUNT(*) FILTER (WHERE ts.status <> 'CANCELLED') AS slots_offered,
+             COALESCE(SUM(ts.capacity) FILTER (WHERE ts.status <> 'CANCELLED'), 0) AS seats_offered
+      FROM time_slots ts
+      GROUP BY ts.trainer_id, ts.training_type_id, ts.start_time::date) s
+LEFT JOIN (SELECT ts.trainer_id, ts.training_type_id, ts.start_time::date AS stat_date,
+                  COUNT(*) FILTER (WHERE bk.status = 'CONFIRMED' OR bk.status = 'COMPLETED') AS seats_booked,
+                  COUNT(*) FILTER (WHERE bk.status = 'CANCELLED') AS cancellations
+           FROM booking bk
+           JOIN time_slots ts ON ts.id = bk.time_slot_id
+           GROUP BY ts.trainer_id, ts.training_type_id, ts.start_time::date) b
+       ON b.trainer_id = s.trainer_id AND b.training_type_id = s.training_type_id AND b.stat_date = s.stat_date;
+
+COMMIT;
@@ -0,0 +1,19 @@
+-- Creates the pooled id sequences (INCREMENT BY 50, matching allocationSize in the entities)
+-- and moves them past the ids that were generated by the former IDENTITY columns.
+-- Run once against an existing database before starting the application with sequence ids:
+--   psql -d fitness_booking_db -f sync_id_sequences.sql
+
+DO $$
+DECLARE
+    tbl TEXT;
+    max_id BIGINT;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['users', 'clients', 'trainers', 'trainer_availabilities',
+                               'training_types', 'time_slots', 'booking']
+    LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', tbl || '_seq');
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', tbl) INTO max_id;
+        -- The next value handed out by the sequence is the upper bound of a fresh block of 50 ids
+        EXECUTE format('SELECT setval(%L, %s, false)', tbl || '_seq', max_id + 50);
+    END LOOP;
+END $$;
@@ -0,0 +1,120 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.dto.AuthResponseDTO;
+import com.example.fitness_booking_system.dto.LoginRequestDTO;
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.services.AuthService;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class AuthControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private AuthService authService;
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(4)
+    @ParameterizedTest(name = "{0} existing users")
+    @ValueSource(ints = {1, 10, 40})
+    void register(int users) throws Exception {
+        testData.clients(users);
+        String body = "{\"email\":\"new" + users + "@test.com\",\"password\":\"" + TestData.PASSWORD + "\","
+                + "\"fullName\":\"Нов Клиент\",\"phone\":\"0888111222\",\"role\":\"CLIENT\"}";
+
+        statementCounter.measure("POST /api/auth/register", () -> mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated()));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} existing users")
+    @ValueSource(ints = {1, 10, 40})
+    void login(int users) throws Exception {
+        List<Client> clients = testData.clients(users);
+        String email = clients.get(users - 1).getUser().getEmail();
+
+        statementCounter.measure("POST /api/auth/login", () -> mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"" + TestData.PASSWORD + "\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(4)
+    @ParameterizedTest(name = "{0} logged in users")
+    @ValueSource(ints = {1, 10, 40})
+    void refresh(int users) throws Exception {
+        AuthResponseDTO session = logIn(users);
+
+        statementCounter.measure("POST /api/auth/refresh", () -> mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + session.getRefreshToken() + "\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(4)
+    @ParameterizedTest(name = "{0} logged in users")
+    @ValueSource(ints = {1, 10, 40})
+    void logout(int users) throws Exception {
+        AuthResponseDTO session = logIn(users);
+
+        statementCounter.measure("POST /api/auth/logout", () -> mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + session.getToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + session.getRefreshToken() + "\"}"))
+                .andExpect(status().isNoContent()));
+    }
+
+    @QueryBudget(0)
+    @ParameterizedTest(name = "{0} logged in users")
+    @ValueSource(ints = {1, 10, 40})
+    void validateToken(int users) throws Exception {
+        AuthResponseDTO session = logIn(users);
+
+        statementCounter.measure("GET /api/auth/validate", () -> mockMvc.perform(get("/api/auth/validate")
+                        .header("Authorization", "Bearer " + session.getToken()))
+                .andExpect(status().isOk()));
+    }
+
+    /**
+     * Logs in the given number of users, returning the session of the last one.
+     */
+    private AuthResponseDTO logIn(int users) {
+        AuthResponseDTO session = null;
+        for (Client client : testData.clients(users)) {
+            LoginRequestDTO request = new LoginRequestDTO();
+            request.setEmail(client.getUser().getEmail());
+            request.setPassword(TestData.PASSWORD);
+            session = authService.login(request);
+        }
+        return session;
+    }
+}
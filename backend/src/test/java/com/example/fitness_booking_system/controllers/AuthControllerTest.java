@@ -3,21 +3,31 @@ package com.example.fitness_booking_system.controllers;
 import com.example.fitness_booking_system.SecurityConfig;
 import com.example.fitness_booking_system.dto.AuthResponseDTO;
 import com.example.fitness_booking_system.dto.LoginRequestDTO;
+import com.example.fitness_booking_system.dto.RefreshTokenRequestDTO;
 import com.example.fitness_booking_system.dto.RegisterRequestDTO;
 import com.example.fitness_booking_system.entities.UserRole;
-import com.example.fitness_booking_system.repositories.UserRepository;
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.LoginRateLimiter;
+import com.example.fitness_booking_system.security.TokenRevocationList;
 import com.example.fitness_booking_system.services.AuthService;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -44,9 +54,15 @@ class AuthControllerTest {
     @Autowired
     private JwtUtil jwtUtil;
 
-    // Simulated UserRepository to avoid hitting the actual database during tests
+    // Simulated revocation list used by the JWT filter, so that no database is needed during tests
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
+
+    @MockitoBean
+    private LoginRateLimiter loginRateLimiter;
+
+    @MockitoBean
+    private CalendarFeedService calendarFeedService;
 
     @Test
     void shouldRegisterUserWhenDataIsValid() throws Exception {
@@ -131,4 +147,92 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnTooManyRequestsWhenLoginIsThrottled() throws Exception {
+        LoginRequestDTO loginRequest = new LoginRequestDTO();
+        loginRequest.setEmail("test@example.com");
+        loginRequest.setPassword("password");
+
+        doThrow(new TooManyRequestsException("Твърде много опити за вход. Моля, опитайте отново по-късно", 30))
+                .when(loginRateLimiter).acquire(anyString(), eq("test@example.com"));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+
+        verify(authService, never()).login(any(LoginRequestDTO.class));
+    }
+
+    @Test
+    void shouldRefreshTokensWithoutAuthentication() throws Exception {
+        RefreshTokenRequestDTO refreshRequest = new RefreshTokenRequestDTO();
+        refreshRequest.setRefreshToken("refresh-token");
+
+        AuthResponseDTO authResponse = AuthResponseDTO.builder()
+                .userId(1L)
+                .token("new-token")
+                .refreshToken("new-refresh-token")
+                .build();
+
+        when(authService.refresh("refresh-token")).thenReturn(authResponse);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"));
+    }
+
+    @Test
+    void shouldLogoutWithValidAccessToken() throws Exception {
+        RefreshTokenRequestDTO logoutRequest = new RefreshTokenRequestDTO();
+        logoutRequest.setRefreshToken("refresh-token");
+        String token = jwtUtil.generateToken("test@example.com", "CLIENT");
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutRequest)))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout(token, "refresh-token");
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnUnauthorizedOnLogoutWithoutBearerToken() throws Exception {
+        RefreshTokenRequestDTO logoutRequest = new RefreshTokenRequestDTO();
+        logoutRequest.setRefreshToken("refresh-token");
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Basic dXNlcjpwYXNz")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutRequest)))
+                .andExpect(status().isUnauthorized());
+
+        verify(authService, never()).logout(anyString(), anyString());
+    }
+
+    @Test
+    void shouldRejectRevokedAccessToken() throws Exception {
+        RefreshTokenRequestDTO logoutRequest = new RefreshTokenRequestDTO();
+        logoutRequest.setRefreshToken("refresh-token");
+        String token = jwtUtil.generateToken("test@example.com", "CLIENT");
+
+        when(tokenRevocationList.isRevoked(jwtUtil.extractTokenId(token))).thenReturn(true);
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(logoutRequest)))
+                // SecurityConfig has no authentication entry point, so anonymous requests get 403
+                .andExpect(status().isForbidden());
+
+        verify(authService, never()).logout(anyString(), anyString());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class BookingControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    private TrainingType groupTraining;
+    private Trainer trainer;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        groupTraining = testData.trainingType("Пилатес", TrainingTypeCategory.GROUP);
+        trainer = testData.trainer(groupTraining);
+        start = LocalDate.now().plusDays(7).atTime(8, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(10)
+    @ParameterizedTest(name = "{0} booked clients")
+    @ValueSource(ints = {1, 10, 19})
+    void createBooking(int bookedClients) throws Exception {
+        TimeSlot timeSlot = testData.timeSlots(trainer, groupTraining, start, 1).get(0);
+        testData.bookings(timeSlot, testData.clients(bookedClients));
+        Client client = testData.client();
+
+        statementCounter.measure("POST /api/bookings/client/{clientId}", () -> mockMvc.perform(
+                        post("/api/bookings/client/{clientId}", client.getId())
+                                .header("Authorization", testData.token(client.getUser()))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"timeSlotId\":" + timeSlot.getId() + "}"))
+                .andExpect(status().isCreated()));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 10, 40})
+    void getClientBookings(int bookings) throws Exception {
+        Client client = testData.client();
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining, start, bookings));
+
+        statementCounter.measure("GET /api/bookings/client/{clientId}/bookings", () -> mockMvc.perform(
+                        get("/api/bookings/client/{clientId}/bookings", client.getId())
+                                .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(bookings))));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 10, 40})
+    void getClientBookingPage(int bookings) throws Exception {
+        Client client = testData.client();
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining, start, bookings));
+
+        statementCounter.measure("GET /api/bookings/client/{clientId}/bookings/page", () -> mockMvc.perform(
+                        get("/api/bookings/client/{clientId}/bookings/page", client.getId())
+                                .param("size", "50")
+                                .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(bookings))));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 10, 40})
+    void getClientCalendar(int bookings) throws Exception {
+        Client client = testData.client();
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining, start, bookings));
+
+        String token = testData.calendarToken(client.getUser());
+
+        statementCounter.measure("GET /api/bookings/client/{clientId}/calendar.ics", () -> {
+            MvcResult result = mockMvc.perform(get("/api/bookings/client/{clientId}/calendar.ics", client.getId())
+                            .param("token", token))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+        });
+    }
+
+    @QueryBudget(9)
+    @ParameterizedTest(name = "{0} other booked clients")
+    @ValueSource(ints = {1, 10, 19})
+    void cancelBooking(int otherClients) throws Exception {
+        TimeSlot timeSlot = testData.timeSlots(trainer, groupTraining, start, 1).get(0);
+        testData.bookings(timeSlot, testData.clients(otherClients));
+        Client client = testData.client();
+        Booking booking = testData.bookings(timeSlot, List.of(client)).get(0);
+
+        statementCounter.measure("PUT /api/bookings/{id}/cancel", () -> mockMvc.perform(
+                        put("/api/bookings/{id}/cancel", booking.getId())
+                                .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED")));
+    }
+}
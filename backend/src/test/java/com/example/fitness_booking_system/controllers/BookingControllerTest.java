@@ -2,10 +2,16 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.BookingCreateDTO;
 import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.BookingPageDTO;
+import com.example.fitness_booking_system.dto.BookingScope;
 import com.example.fitness_booking_system.entities.BookingStatus;
-import com.example.fitness_booking_system.repositories.UserRepository;
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+import com.example.fitness_booking_system.security.BookingRateLimiter;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
+import com.example.fitness_booking_system.services.BookingAdmissionService;
 import com.example.fitness_booking_system.services.BookingService;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,17 +20,29 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // This annotation does not load the full application context but only the web layer.
@@ -42,13 +60,22 @@ class BookingControllerTest {
     private JwtUtil jwtUtil;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     // MockitoBean is used to create a mock of the BookingService, which will be injected into the controller.
     // It creates a simulated version of the BookingService for testing purposes.
     @MockitoBean
     private BookingService bookingService;
 
+    @MockitoBean
+    private BookingAdmissionService bookingAdmissionService;
+
+    @MockitoBean
+    private CalendarFeedService calendarFeedService;
+
+    @MockitoBean
+    private BookingRateLimiter bookingRateLimiter;
+
     @Test
     // WithMockUser is used to simulate an authenticated user for the test.
     @WithMockUser
@@ -67,7 +94,7 @@ class BookingControllerTest {
         bookingDTO.setStartTime(LocalDateTime.now().plusHours(1));
         bookingDTO.setEndTime(LocalDateTime.now().plusHours(2));
 
-        when(bookingService.createBooking(eq(clientId), any(BookingCreateDTO.class))).thenReturn(bookingDTO);
+        when(bookingAdmissionService.createBooking(eq(clientId), any(BookingCreateDTO.class))).thenReturn(bookingDTO);
 
         mockMvc.perform(post("/api/bookings/client/{clientId}", clientId)
                         // Using csrf() for PUT and POST requests to prevent CSRF attacks.
@@ -112,6 +139,25 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].clientId").value(clientId));
     }
 
+    @Test
+    @WithMockUser
+    void shouldReturnClientBookingPage() throws Exception {
+        BookingDTO bookingDTO = new BookingDTO();
+        bookingDTO.setId(7L);
+
+        when(bookingService.getClientBookingPage(1L, BookingScope.PAST, BookingStatus.COMPLETED, "abc", 10))
+                .thenReturn(new BookingPageDTO(List.of(bookingDTO), "def"));
+
+        mockMvc.perform(get("/api/bookings/client/{clientId}/bookings/page", 1L)
+                        .param("scope", "PAST")
+                        .param("status", "COMPLETED")
+                        .param("cursor", "abc")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7L))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
     @Test
     @WithMockUser
     void shouldCancelBookingWhenBookingExists() throws Exception {
@@ -128,4 +174,92 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.id").value(bookingId))
                 .andExpect(jsonPath("$.status").value("CANCELLED"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    void shouldReturnClientCalendarWithEtag() throws Exception {
+        when(calendarFeedService.getClientEtag(1L, "feed-token")).thenReturn("\"v1\"");
+        // The feed is written after the request thread has completed, as in the export test
+        CountDownLatch requestCompleted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            requestCompleted.await(5, TimeUnit.SECONDS);
+            Writer writer = invocation.getArgument(1);
+            writer.write("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n");
+            return null;
+        }).when(calendarFeedService).writeClientFeed(eq(1L), any(Writer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/bookings/client/{clientId}/calendar.ics", 1L)
+                        .param("token", "feed-token"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestCompleted.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().contentTypeCompatibleWith("text/calendar"))
+                .andExpect(content().string(containsString("BEGIN:VCALENDAR")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedWhenClientCalendarIsUnchanged() throws Exception {
+        when(calendarFeedService.getClientEtag(1L, "feed-token")).thenReturn("\"v1\"");
+
+        mockMvc.perform(get("/api/bookings/client/{clientId}/calendar.ics", 1L)
+                        .param("token", "feed-token")
+                        .header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified());
+
+        verify(calendarFeedService, never()).writeClientFeed(any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnTooManyRequestsWithoutCallingServiceWhenBookingIsThrottled() throws Exception {
+        BookingCreateDTO createDTO = new BookingCreateDTO();
+        createDTO.setTimeSlotId(2L);
+        doThrow(new TooManyRequestsException("Твърде много заявки", 6))
+                .when(bookingRateLimiter).acquireBooking("user", 2L);
+
+        mockMvc.perform(post("/api/bookings/client/{clientId}", 1L)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createDTO)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "6"));
+
+        verify(bookingAdmissionService, never()).createBooking(any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldNotThrottleHotSlotBySlotBucket() throws Exception {
+        BookingCreateDTO createDTO = new BookingCreateDTO();
+        createDTO.setTimeSlotId(2L);
+        when(bookingAdmissionService.isHot(2L)).thenReturn(true);
+        when(bookingAdmissionService.createBooking(eq(1L), any(BookingCreateDTO.class))).thenReturn(new BookingDTO());
+
+        mockMvc.perform(post("/api/bookings/client/{clientId}", 1L)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createDTO)))
+                .andExpect(status().isCreated());
+
+        verify(bookingRateLimiter).acquireBooking("user", null);
+    }
+
+    @Test
+    @WithMockUser(username = "client@test.com")
+    void shouldReturnTooManyRequestsWithoutCallingServiceWhenCancellationIsThrottled() throws Exception {
+        doThrow(new TooManyRequestsException("Твърде много заявки", 3))
+                .when(bookingRateLimiter).acquireCancellation("client@test.com");
+
+        mockMvc.perform(put("/api/bookings/{id}/cancel", 1L)
+                        .with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"));
+
+        verify(bookingService, never()).cancelBooking(any());
+    }
+}
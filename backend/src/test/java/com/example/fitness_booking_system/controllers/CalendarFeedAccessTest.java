@@ -0,0 +1,123 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calendar apps fetch the feeds without a JWT, so the feeds are authorized only by the feed token in their URL,
+ * which has to belong to the trainer or client of the feed.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import({StatementCounter.class, TestData.class})
+class CalendarFeedAccessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    private Trainer trainer;
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType groupTraining = testData.trainingType("Пилатес", TrainingTypeCategory.GROUP);
+        trainer = testData.trainer(groupTraining);
+        client = testData.client();
+        LocalDateTime start = LocalDate.now().plusDays(7).atTime(8, 0);
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining, start, 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @Test
+    void shouldServeFeedsWithTheirOwnTokenAndNoJwt() throws Exception {
+        MvcResult trainerFeed = getTrainerFeed(testData.calendarToken(trainer.getUser()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(trainerFeed))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("SUMMARY:Пилатес")));
+
+        MvcResult clientFeed = getClientFeed(testData.calendarToken(client.getUser()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(clientFeed))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("SUMMARY:Пилатес")));
+    }
+
+    @Test
+    void shouldRejectTokenOfAnotherUser() throws Exception {
+        Trainer otherTrainer = testData.trainer();
+
+        getTrainerFeed(testData.calendarToken(otherTrainer.getUser()))
+                .andExpect(status().isForbidden());
+        getClientFeed(testData.calendarToken(trainer.getUser()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldRejectMissingOrRotatedToken() throws Exception {
+        String token = testData.calendarToken(trainer.getUser());
+        testData.calendarToken(trainer.getUser());
+
+        getTrainerFeed(token)
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/calendar.ics", trainer.getId()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldIssueTokenOnlyToAuthenticatedUsers() throws Exception {
+        mockMvc.perform(post("/api/auth/calendar-token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/auth/calendar-token")
+                        .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty());
+    }
+
+    private ResultActions getTrainerFeed(String token) throws Exception {
+        return mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/calendar.ics", trainer.getId())
+                .param("token", token));
+    }
+
+    private ResultActions getClientFeed(String token) throws Exception {
+        return mockMvc.perform(get("/api/bookings/client/{clientId}/calendar.ics", client.getId())
+                .param("token", token));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class ClientControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 10, 40})
+    void getClientProfile(int bookings) throws Exception {
+        Client client = clientWithBookings(bookings);
+
+        statementCounter.measure("GET /api/clients/{id}", () -> mockMvc.perform(get("/api/clients/{id}", client.getId())
+                        .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(4)
+    @ParameterizedTest(name = "{0} bookings")
+    @ValueSource(ints = {1, 10, 40})
+    void updateClientProfile(int bookings) throws Exception {
+        Client client = clientWithBookings(bookings);
+        String body = "{\"fullName\":\"Мария Иванова\",\"phone\":\"0888654321\",\"dateOfBirth\":\"1992-03-14\","
+                + "\"healthInformation\":\"Няма\",\"fitnessGoals\":\"Отслабване\"}";
+
+        statementCounter.measure("PUT /api/clients/{id}", () -> mockMvc.perform(put("/api/clients/{id}", client.getId())
+                        .header("Authorization", testData.token(client.getUser()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    private Client clientWithBookings(int bookings) {
+        TrainingType groupTraining = testData.trainingType("Спининг", TrainingTypeCategory.GROUP);
+        Trainer trainer = testData.trainer(groupTraining);
+        Client client = testData.client();
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining,
+                LocalDate.now().plusDays(7).atTime(8, 0), bookings));
+        return client;
+    }
+}
@@ -2,8 +2,8 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.ClientDTO;
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
-import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
 import com.example.fitness_booking_system.services.ClientService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -49,11 +49,11 @@ class ClientControllerTest {
     private JwtUtil jwtUtil;
 
     /**
-     * Injects the UserRepository into the test context.
-     * This is used to mock user-related database operations.
+     * Injects the TokenRevocationList into the test context.
+     * This is used by the JWT filter to check revoked tokens.
      */
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     /**
      * Mocked service for handling client-related operations.
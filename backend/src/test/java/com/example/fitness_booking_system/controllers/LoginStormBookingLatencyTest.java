@@ -0,0 +1,156 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import com.example.fitness_booking_system.security.PasswordHashingExecutor;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that bookings stay fast while a burst of logins keeps the password hashing busy.
+ * The login storm runs more concurrent BCrypt verifications than there are hashing threads; without the bounded
+ * hashing executor each of them would take a core, and the booking requests would slow down with the storm size.
+ * The login throttling is disabled, so that every login of the storm reaches the hashing executor.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "app.auth.hashing.threads=1",
+        "app.auth.rate-limit.ip.capacity=1000000",
+        "app.auth.rate-limit.ip.per-minute=1000000",
+        "app.auth.rate-limit.email.capacity=1000000",
+        "app.auth.rate-limit.email.per-minute=1000000"})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import({StatementCounter.class, TestData.class})
+class LoginStormBookingLatencyTest {
+
+    private static final int WARMUP = 20;
+    private static final int BOOKINGS = 30;
+    private static final int STORM_THREADS = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    private final ExecutorService storm = Executors.newFixedThreadPool(STORM_THREADS);
+    private final AtomicBoolean storming = new AtomicBoolean(true);
+    private final AtomicInteger logins = new AtomicInteger();
+
+    private List<TimeSlot> timeSlots;
+    private List<Client> clients;
+    private int nextBooking;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType groupTraining = testData.trainingType("Пилатес", TrainingTypeCategory.GROUP);
+        Trainer trainer = testData.trainer(groupTraining);
+        int count = WARMUP + 2 * BOOKINGS;
+        timeSlots = testData.timeSlots(trainer, groupTraining, LocalDate.now().plusDays(7).atTime(0, 0), count);
+        clients = testData.clients(count);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storming.set(false);
+        storm.shutdown();
+        storm.awaitTermination(30, TimeUnit.SECONDS);
+        testData.clear();
+    }
+
+    @Test
+    void createBooking_DuringLoginStorm_ShouldKeepLatency() throws Exception {
+        String victim = clients.get(0).getUser().getEmail();
+        book(WARMUP);
+        long baseline = median(book(BOOKINGS));
+
+        for (int i = 0; i < STORM_THREADS; i++) {
+            storm.submit(() -> {
+                while (storming.get()) {
+                    int status = mockMvc.perform(post("/api/auth/login")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{\"email\":\"" + victim + "\",\"password\":\"wrong-password\"}"))
+                            .andReturn().getResponse().getStatus();
+                    // 429 once a login has waited longer than the hashing timeout
+                    assertTrue(status == 401 || status == 429, "login returned " + status);
+                    logins.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (passwordHashingExecutor.getQueueDepth() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(passwordHashingExecutor.getQueueDepth() > 0, "the login storm did not saturate the hashing executor");
+
+        int loginsBefore = logins.get();
+        long underStorm = median(book(BOOKINGS));
+        int stormLogins = logins.get() - loginsBefore;
+        log.info("Booking median {} ms without and {} ms during the login storm ({} logins meanwhile)",
+                baseline / 1_000_000.0, underStorm / 1_000_000.0, stormLogins);
+
+        assertTrue(stormLogins > 0, "no login of the storm completed while booking");
+        // With all eight verifications running at once a booking would get a ninth of the CPU;
+        // the single hashing thread leaves it at least half of it
+        assertTrue(underStorm <= 3 * baseline + TimeUnit.MILLISECONDS.toNanos(20),
+                "booking median " + underStorm / 1_000_000.0 + " ms during the storm, "
+                        + baseline / 1_000_000.0 + " ms without");
+    }
+
+    /**
+     * Books the next time slots, each for another client, and returns the latency of each request in nanoseconds.
+     */
+    private long[] book(int count) throws Exception {
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++, nextBooking++) {
+            Client client = clients.get(nextBooking);
+            String token = testData.token(client.getUser());
+            long started = System.nanoTime();
+            mockMvc.perform(post("/api/bookings/client/{clientId}", client.getId())
+                            .header("Authorization", token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"timeSlotId\":" + timeSlots.get(nextBooking).getId() + "}"))
+                    .andExpect(status().isCreated());
+            latencies[i] = System.nanoTime() - started;
+        }
+        return latencies;
+    }
+
+    private static long median(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
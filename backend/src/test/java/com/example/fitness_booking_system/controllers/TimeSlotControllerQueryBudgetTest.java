@@ -0,0 +1,240 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class TimeSlotControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    private TrainingType groupTraining;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        groupTraining = testData.trainingType("Йога", TrainingTypeCategory.GROUP);
+        start = LocalDate.now().plusDays(7).atTime(8, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} trainers")
+    @ValueSource(ints = {1, 10, 40})
+    void getAllTimeSlots(int trainers) throws Exception {
+        Client client = testData.client();
+        for (Trainer trainer : testData.trainers(trainers, groupTraining)) {
+            testData.timeSlots(trainer, groupTraining, start, 2);
+        }
+
+        statementCounter.measure("GET /api/time-slots", () -> mockMvc.perform(get("/api/time-slots")
+                        .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(trainers * 2))));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void getTimeSlotsByTrainerAndDateRange(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        testData.timeSlots(trainer, groupTraining, start, timeSlots);
+
+        statementCounter.measure("GET /api/time-slots/trainer/{trainerId}", () -> mockMvc.perform(
+                        get("/api/time-slots/trainer/{trainerId}", trainer.getId())
+                                .param("startDate", start.minusDays(1).toString())
+                                .param("endDate", start.plusDays(3).toString())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(timeSlots))));
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void exportTimeSlots(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        testData.timeSlots(trainer, groupTraining, start, timeSlots);
+
+        statementCounter.measure("GET /api/time-slots/export", () -> {
+            MvcResult result = mockMvc.perform(get("/api/time-slots/export")
+                            .param("startDate", start.minusDays(1).toString())
+                            .param("endDate", start.plusDays(3).toString())
+                            .header("Authorization", testData.token(trainer.getUser())))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(timeSlots)));
+        });
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void getTrainerFreeBusy(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        testData.timeSlots(trainer, groupTraining, start, timeSlots);
+
+        statementCounter.measure("GET /api/time-slots/trainer/{trainerId}/free-busy", () -> mockMvc.perform(
+                        get("/api/time-slots/trainer/{trainerId}/free-busy", trainer.getId())
+                                .param("startDate", start.toLocalDate().toString())
+                                .param("endDate", start.toLocalDate().plusDays(3).toString())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void getTrainerCalendar(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        testData.timeSlots(trainer, groupTraining, start, timeSlots);
+
+        String token = testData.calendarToken(trainer.getUser());
+
+        statementCounter.measure("GET /api/time-slots/trainer/{trainerId}/calendar.ics", () -> {
+            MvcResult result = mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/calendar.ics", trainer.getId())
+                            .param("token", token))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+        });
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} booked clients")
+    @ValueSource(ints = {1, 10, 20})
+    void getTimeSlotById(int clients) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        TimeSlot timeSlot = testData.timeSlots(trainer, groupTraining, start, 1).get(0);
+        testData.bookings(timeSlot, testData.clients(clients));
+
+        statementCounter.measure("GET /api/time-slots/{id}", () -> mockMvc.perform(
+                        get("/api/time-slots/{id}", timeSlot.getId())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookedCount").value(clients)));
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} booked clients")
+    @ValueSource(ints = {1, 10, 20})
+    void getClientsForTimeSlot(int clients) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        TimeSlot timeSlot = testData.timeSlots(trainer, groupTraining, start, 1).get(0);
+        testData.bookings(timeSlot, testData.clients(clients));
+
+        statementCounter.measure("GET /api/time-slots/{id}/clients", () -> mockMvc.perform(
+                        get("/api/time-slots/{id}/clients", timeSlot.getId())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(clients))));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 5, 12})
+    void getTrainerRoster(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        List<Client> clients = testData.clients(3);
+        for (TimeSlot timeSlot : testData.timeSlots(trainer, groupTraining, start, timeSlots)) {
+            testData.bookings(timeSlot, clients);
+        }
+
+        statementCounter.measure("GET /api/time-slots/trainer/{trainerId}/roster", () -> mockMvc.perform(
+                        get("/api/time-slots/trainer/{trainerId}/roster", trainer.getId())
+                                .param("startDate", start.toLocalDate().toString())
+                                .param("endDate", start.toLocalDate().toString())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(timeSlots)))
+                .andExpect(jsonPath("$[0].clients", hasSize(3))));
+    }
+
+    @QueryBudget(6)
+    @ParameterizedTest(name = "{0} existing time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void createTimeSlot(int existing) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        testData.timeSlots(trainer, groupTraining, start, existing);
+        String body = timeSlotJson(trainer, start.plusDays(2));
+
+        statementCounter.measure("POST /api/time-slots", () -> mockMvc.perform(post("/api/time-slots")
+                        .header("Authorization", testData.token(trainer.getUser()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated()));
+    }
+
+    @QueryBudget(6)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void createTimeSlots(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        List<String> slots = new ArrayList<>();
+        for (int i = 0; i < timeSlots; i++) {
+            slots.add(timeSlotJson(trainer, start.plusHours(i)));
+        }
+        String body = "{\"timeSlots\":[" + String.join(",", slots) + "]}";
+
+        statementCounter.measure("POST /api/time-slots/batch", () -> mockMvc.perform(post("/api/time-slots/batch")
+                        .header("Authorization", testData.token(trainer.getUser()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(timeSlots))));
+    }
+
+    @QueryBudget(6)
+    @ParameterizedTest(name = "{0} other time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void cancelTimeSlot(int otherTimeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        TimeSlot timeSlot = testData.timeSlots(trainer, groupTraining, start, 1).get(0);
+        testData.timeSlots(trainer, groupTraining, start.plusDays(1), otherTimeSlots);
+
+        statementCounter.measure("PUT /api/time-slots/{id}/cancel", () -> mockMvc.perform(
+                        put("/api/time-slots/{id}/cancel", timeSlot.getId())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED")));
+    }
+
+    private String timeSlotJson(Trainer trainer, LocalDateTime startTime) {
+        return String.format("{\"trainerId\":%d,\"trainingTypeId\":%d,\"startTime\":\"%s\",\"endTime\":\"%s\"}",
+                trainer.getId(), groupTraining.getId(), startTime, startTime.plusHours(1));
+    }
+}
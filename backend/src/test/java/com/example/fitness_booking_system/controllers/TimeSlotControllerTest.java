@@ -1,35 +1,64 @@
 package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.BookedClientInfoDTO;
+import com.example.fitness_booking_system.dto.FreeBusyDTO;
+import com.example.fitness_booking_system.dto.TimeSlotBatchCreateDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
 import com.example.fitness_booking_system.dto.TimeSlotCreateDTO;
 import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterDTO;
 import com.example.fitness_booking_system.entities.TimeSlotStatus;
-import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
+import com.example.fitness_booking_system.services.CalendarFeedService;
 import com.example.fitness_booking_system.services.TimeSlotService;
+import com.example.fitness_booking_system.serialization.ColumnarJsonHttpMessageConverter;
+import com.example.fitness_booking_system.serialization.JacksonConfig;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.Writer;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 // This annotation is used to test the web layer of the application, focusing on the TimeSlotController without starting the entire application.
 @WebMvcTest(TimeSlotController.class)
+@Import(JacksonConfig.class)
 class TimeSlotControllerTest {
 
     // MockMvc is used to simulate HTTP requests and verify responses without needing a running server.
@@ -43,11 +72,14 @@ class TimeSlotControllerTest {
     @MockitoBean
     private TimeSlotService timeSlotService;
 
+    @MockitoBean
+    private CalendarFeedService calendarFeedService;
+
     @MockitoBean
     private JwtUtil jwtUtil;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     private TimeSlotDTO timeSlotDTO;
 
@@ -73,6 +105,45 @@ class TimeSlotControllerTest {
                 .andExpect(jsonPath("$[0].trainerName").value("Test Trainer"));
     }
 
+    @Test
+    @WithMockUser
+    void shouldGetTimeSlotsInColumnarFormWhenAsked() throws Exception {
+        TimeSlotDTO second = new TimeSlotDTO();
+        second.setId(2L);
+        second.setTrainerName("Test Trainer");
+        second.setStatus(TimeSlotStatus.BOOKED);
+        when(timeSlotService.getAllTimeSlots()).thenReturn(List.of(timeSlotDTO, second));
+
+        mockMvc.perform(get("/api/time-slots").accept(ColumnarJsonHttpMessageConverter.COLUMNAR_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ColumnarJsonHttpMessageConverter.COLUMNAR_JSON))
+                .andExpect(jsonPath("$.columns[0]").value("id"))
+                .andExpect(jsonPath("$.columns[2]").value("trainerName"))
+                .andExpect(jsonPath("$.rows[1][0]").value(2))
+                .andExpect(jsonPath("$.rows[0][2]").value(0))
+                .andExpect(jsonPath("$.rows[1][2]").value(0))
+                .andExpect(jsonPath("$.dictionaries.trainerName[0]").value("Test Trainer"))
+                .andExpect(jsonPath("$.dictionaries.status[1]").value("BOOKED"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldGetTimeSlotsAsCborWhenAsked() throws Exception {
+        when(timeSlotService.getAllTimeSlots()).thenReturn(Collections.singletonList(timeSlotDTO));
+
+        MvcResult result = mockMvc.perform(get("/api/time-slots").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode slots = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(1L, slots.get(0).get("id").asLong());
+        assertEquals("Test Trainer", slots.get(0).get("trainerName").asText());
+        // Dates are written as in the JSON responses
+        assertEquals(objectMapper.writeValueAsString(timeSlotDTO.getStartTime()),
+                '"' + slots.get(0).get("startTime").asText() + '"');
+    }
+
     @Test
     @WithMockUser
     void shouldGetTimeSlotsByTrainerAndDateRangeWhenDataIsValid() throws Exception {
@@ -91,6 +162,47 @@ class TimeSlotControllerTest {
                 .andExpect(jsonPath("$[0].trainerId").value(trainerId));
     }
 
+    @Test
+    @WithMockUser
+    @SuppressWarnings("unchecked")
+    void shouldStreamTimeSlotsAsJsonArrayWhenExporting() throws Exception {
+        // The body is written on the async thread; holding it back until the request thread has left the filter chain
+        // keeps the two threads from modifying the (not thread-safe) mock response at the same time
+        CountDownLatch requestCompleted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            requestCompleted.await(5, TimeUnit.SECONDS);
+            Consumer<TimeSlotDTO> consumer = invocation.getArgument(2);
+            consumer.accept(timeSlotDTO);
+            consumer.accept(timeSlotDTO);
+            return null;
+        }).when(timeSlotService).streamTimeSlots(any(LocalDateTime.class), any(LocalDateTime.class), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/time-slots/export")
+                        .param("startDate", "2030-01-01T00:00:00")
+                        .param("endDate", "2031-01-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestCompleted.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].trainerName").value("Test Trainer"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnBadRequestWhenExportRangeIsInverted() throws Exception {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Началната дата трябва да е преди крайната дата"))
+                .when(timeSlotService).validateExportRange(any(LocalDateTime.class), any(LocalDateTime.class));
+
+        mockMvc.perform(get("/api/time-slots/export")
+                        .param("startDate", "2031-01-01T00:00:00")
+                        .param("endDate", "2030-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+        verify(timeSlotService, never()).streamTimeSlots(any(), any(), any());
+    }
+
     @Test
     @WithMockUser
     void shouldGetTimeSlotByIdWhenIdIsValid() throws Exception {
@@ -122,6 +234,41 @@ class TimeSlotControllerTest {
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    @Test
+    @WithMockUser(roles = "TRAINER")
+    void shouldCreateTimeSlotsInBatchWhenDataIsValid() throws Exception {
+        TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+        createDTO.setTrainerId(1L);
+        createDTO.setTrainingTypeId(1L);
+        createDTO.setStartTime(LocalDateTime.now().plusHours(2));
+        createDTO.setEndTime(LocalDateTime.now().plusHours(3));
+
+        TimeSlotBatchCreateDTO batchCreateDTO = new TimeSlotBatchCreateDTO();
+        batchCreateDTO.setTimeSlots(List.of(createDTO));
+
+        when(timeSlotService.createTimeSlots(any())).thenReturn(List.of(timeSlotDTO));
+
+        mockMvc.perform(post("/api/time-slots/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchCreateDTO)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].id").value(1L));
+    }
+
+    @Test
+    @WithMockUser(roles = "TRAINER")
+    void shouldReturnBadRequestWhenBatchContainsInvalidTimeSlot() throws Exception {
+        TimeSlotBatchCreateDTO batchCreateDTO = new TimeSlotBatchCreateDTO();
+        batchCreateDTO.setTimeSlots(List.of(new TimeSlotCreateDTO()));
+
+        mockMvc.perform(post("/api/time-slots/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchCreateDTO)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "TRAINER")
     void shouldReturnBadRequestWhenCreatingTimeSlotWithInvalidData() throws Exception {
@@ -169,4 +316,79 @@ class TimeSlotControllerTest {
                 .andExpect(jsonPath("$[0].id").value(10L))
                 .andExpect(jsonPath("$[0].fullName").value("Test Client"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    void shouldReturnTrainerFreeBusy() throws Exception {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        FreeBusyDTO freeBusyDTO = new FreeBusyDTO(1L, day, day,
+                List.of(new TimeRangeDTO(day.atTime(10, 0), day.atTime(11, 0))), List.of());
+        when(timeSlotService.getTrainerFreeBusy(1L, day, day)).thenReturn(freeBusyDTO);
+
+        mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/free-busy", 1L)
+                        .param("startDate", "2030-01-07")
+                        .param("endDate", "2030-01-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trainerId").value(1L))
+                .andExpect(jsonPath("$.busy[0].startTime").value("2030-01-07T10:00:00"))
+                .andExpect(jsonPath("$.busy[0].endTime").value("2030-01-07T11:00:00"));
+    }
+
+    @Test
+    @WithMockUser(username = "trainer@test.com", roles = "TRAINER")
+    void shouldReturnTrainerRoster() throws Exception {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        TimeSlotDTO slot = new TimeSlotDTO(5L, 1L, "Test Trainer", 2L, "Йога", day.atTime(10, 0), day.atTime(11, 0),
+                10, 1, TimeSlotStatus.AVAILABLE, 9);
+        BookedClientInfoDTO clientInfo = BookedClientInfoDTO.builder().id(10L).fullName("Test Client").build();
+        when(timeSlotService.getTrainerRoster(1L, "trainer@test.com", day, day))
+                .thenReturn(List.of(new TimeSlotRosterDTO(slot, List.of(clientInfo))));
+
+        mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/roster", 1L)
+                        .param("startDate", "2030-01-07")
+                        .param("endDate", "2030-01-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].timeSlot.id").value(5L))
+                .andExpect(jsonPath("$[0].clients[0].id").value(10L))
+                .andExpect(jsonPath("$[0].clients[0].fullName").value("Test Client"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnTrainerCalendarWithEtag() throws Exception {
+        when(calendarFeedService.getTrainerEtag(1L, "feed-token")).thenReturn("\"v1\"");
+        // The feed is written after the request thread has completed, as in the export test
+        CountDownLatch requestCompleted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            requestCompleted.await(5, TimeUnit.SECONDS);
+            Writer writer = invocation.getArgument(1);
+            writer.write("BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n");
+            return null;
+        }).when(calendarFeedService).writeTrainerFeed(eq(1L), any(Writer.class));
+
+        MvcResult result = mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/calendar.ics", 1L)
+                        .param("token", "feed-token"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestCompleted.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().contentTypeCompatibleWith("text/calendar"))
+                .andExpect(content().string(containsString("BEGIN:VCALENDAR")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedWhenTrainerCalendarIsUnchanged() throws Exception {
+        when(calendarFeedService.getTrainerEtag(1L, "feed-token")).thenReturn("\"v1\"");
+
+        mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/calendar.ics", 1L)
+                        .param("token", "feed-token")
+                        .header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified());
+
+        verify(calendarFeedService, never()).writeTrainerFeed(any(), any());
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.fitness_booking_system.controllers;
 
-import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -23,7 +23,7 @@ class TokenValidationControllerTest {
     private JwtUtil jwtUtil;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     @Test
     // This test simulates an authenticated user using @WithMockUser annotation.
@@ -0,0 +1,143 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.services.TrainerService;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class TrainerControllerQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private TrainerService trainerService;
+
+    private TrainingType groupTraining;
+    private Client client;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        groupTraining = testData.trainingType("Кросфит", TrainingTypeCategory.GROUP);
+        client = testData.client();
+        start = LocalDate.now().plusDays(7).atTime(8, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(3)
+    @ParameterizedTest(name = "{0} training types")
+    @ValueSource(ints = {1, 10, 30})
+    void getTrainerProfile(int trainingTypes) throws Exception {
+        Trainer trainer = testData.trainer(trainingTypes(trainingTypes));
+
+        statementCounter.measure("GET /api/trainers/{id}", () -> mockMvc.perform(get("/api/trainers/{id}", trainer.getId())
+                        .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} time slots")
+    @ValueSource(ints = {1, 10, 40})
+    void getTrainerStats(int timeSlots) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        for (TimeSlot timeSlot : testData.timeSlots(trainer, groupTraining, start, timeSlots)) {
+            testData.bookings(timeSlot, List.of(client));
+        }
+
+        statementCounter.measure("GET /api/trainers/{id}/stats", () -> mockMvc.perform(
+                        get("/api/trainers/{id}/stats", trainer.getId())
+                                .param("startDate", start.toLocalDate().toString())
+                                .param("endDate", start.toLocalDate().plusDays(3).toString())
+                                .header("Authorization", testData.token(trainer.getUser())))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(10)
+    @ParameterizedTest(name = "{0} training types")
+    @ValueSource(ints = {1, 10, 30})
+    void updateTrainerProfile(int trainingTypes) throws Exception {
+        Trainer trainer = testData.trainer(groupTraining);
+        String trainingTypeIds = List.of(trainingTypes(trainingTypes)).stream()
+                .map(trainingType -> trainingType.getId().toString())
+                .collect(Collectors.joining(","));
+        String body = "{\"fullName\":\"Иван Петров\",\"phone\":\"0888123456\",\"bio\":\"Нова био\","
+                + "\"specializations\":[\"йога\",\"бокс\"],\"personalPrice\":45.0,\"groupPrice\":18.0,"
+                + "\"trainingTypeIds\":[" + trainingTypeIds + "]}";
+
+        statementCounter.measure("PUT /api/trainers/{id}", () -> mockMvc.perform(put("/api/trainers/{id}", trainer.getId())
+                        .header("Authorization", testData.token(trainer.getUser()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(0)
+    @ParameterizedTest(name = "{0} trainers")
+    @ValueSource(ints = {1, 10, 40})
+    void searchTrainers(int trainers) throws Exception {
+        testData.trainers(trainers, groupTraining);
+        // The search index is loaded at startup and kept up to date by the service, not by the test data
+        trainerService.loadSearchIndex();
+
+        statementCounter.measure("GET /api/trainers/search", () -> mockMvc.perform(get("/api/trainers/search")
+                        .param("specialization", "йога")
+                        .param("trainingTypeId", groupTraining.getId().toString())
+                        .param("priceType", "GROUP")
+                        .param("maxPrice", "20")
+                        .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(trainers))));
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} trainers")
+    @ValueSource(ints = {1, 10, 40})
+    void getAllTrainers(int trainers) throws Exception {
+        testData.trainers(trainers, groupTraining);
+
+        statementCounter.measure("GET /api/trainers", () -> mockMvc.perform(get("/api/trainers")
+                        .header("Authorization", testData.token(client.getUser())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(trainers))));
+    }
+
+    private TrainingType[] trainingTypes(int count) {
+        List<TrainingType> trainingTypes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            trainingTypes.add(testData.trainingType("Тип", TrainingTypeCategory.PERSONAL));
+        }
+        return trainingTypes.toArray(new TrainingType[0]);
+    }
+}
@@ -3,9 +3,13 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.dto.TrainerDTO;
-import com.example.fitness_booking_system.repositories.UserRepository;
+import com.example.fitness_booking_system.dto.TrainerDailyStatsDTO;
+import com.example.fitness_booking_system.dto.TrainerStatsDTO;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
 import com.example.fitness_booking_system.services.TrainerService;
+import com.example.fitness_booking_system.services.TrainerStatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,7 +20,9 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -39,11 +45,14 @@ class TrainerControllerTest {
     @MockitoBean
     private TrainerService trainerService;
 
+    @MockitoBean
+    private TrainerStatsService trainerStatsService;
+
     @MockitoBean
     private JwtUtil jwtUtil;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     private TrainerDTO trainerDTO;
 
@@ -137,4 +146,46 @@ class TrainerControllerTest {
                         .content(objectMapper.writeValueAsString(updateDTO)))
                 .andExpect(status().isUnauthorized());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    void shouldSearchTrainersByFilters() throws Exception {
+        when(trainerService.searchTrainers(eq(List.of("Yoga")), eq(3L), eq(TrainingTypeCategory.GROUP),
+                eq(20.0), eq(30.0))).thenReturn(List.of(trainerDTO));
+
+        mockMvc.perform(get("/api/trainers/search")
+                        .param("specialization", "Yoga")
+                        .param("trainingTypeId", "3")
+                        .param("priceType", "GROUP")
+                        .param("minPrice", "20")
+                        .param("maxPrice", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L))
+                .andExpect(jsonPath("$[0].groupPrice").value(25.0));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnTrainerStats() throws Exception {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        TrainerStatsDTO statsDTO = TrainerStatsDTO.builder()
+                .trainerId(1L)
+                .startDate(day)
+                .endDate(day)
+                .slotsOffered(2)
+                .seatsOffered(20)
+                .seatsBooked(15)
+                .fillRate(0.75)
+                .days(List.of(new TrainerDailyStatsDTO(day, 3L, 2, 20, 15, 1)))
+                .build();
+        when(trainerStatsService.getTrainerStats(1L, day, day)).thenReturn(statsDTO);
+
+        mockMvc.perform(get("/api/trainers/{id}/stats", 1L)
+                        .param("startDate", "2030-01-07")
+                        .param("endDate", "2030-01-07"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fillRate").value(0.75))
+                .andExpect(jsonPath("$.days[0].trainingTypeId").value(3L))
+                .andExpect(jsonPath("$.days[0].cancellations").value(1));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The roster shows the contact and health details of the booked clients, so only its trainer may read it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import({StatementCounter.class, TestData.class})
+class TrainerRosterAccessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    private Trainer trainer;
+    private Client client;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType groupTraining = testData.trainingType("Пилатес", TrainingTypeCategory.GROUP);
+        trainer = testData.trainer(groupTraining);
+        client = testData.client();
+        start = LocalDate.now().plusDays(7).atTime(8, 0);
+        testData.bookings(client, testData.timeSlots(trainer, groupTraining, start, 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @Test
+    void shouldReturnRosterToItsTrainer() throws Exception {
+        getRoster(testData.token(trainer.getUser()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].clients", hasSize(1)));
+    }
+
+    @Test
+    void shouldRejectAnotherTrainer() throws Exception {
+        Trainer otherTrainer = testData.trainer();
+
+        getRoster(testData.token(otherTrainer.getUser()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldRejectAClient() throws Exception {
+        getRoster(testData.token(client.getUser()))
+                .andExpect(status().isForbidden());
+    }
+
+    private ResultActions getRoster(String token) throws Exception {
+        return mockMvc.perform(get("/api/time-slots/trainer/{trainerId}/roster", trainer.getId())
+                .param("startDate", start.toLocalDate().toString())
+                .param("endDate", start.toLocalDate().toString())
+                .header("Authorization", token));
+    }
+}
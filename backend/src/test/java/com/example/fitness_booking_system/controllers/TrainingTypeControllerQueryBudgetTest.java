@@ -0,0 +1,105 @@
+package com.example.fitness_booking_system.controllers;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.QueryBudget;
+import com.example.fitness_booking_system.support.QueryBudgetTest;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@QueryBudgetTest
+class TrainingTypeControllerQueryBudgetTest {
+
+    private static final String TRAINING_TYPE_JSON =
+            "{\"name\":\"Зумба\",\"description\":\"Танцова тренировка\",\"duration\":45,\"category\":\"GROUP\",\"maxClients\":15}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TestData testData;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        token = testData.token(testData.trainer().getUser());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.clear();
+    }
+
+    @QueryBudget(1)
+    @ParameterizedTest(name = "{0} training types")
+    @ValueSource(ints = {1, 10, 40})
+    void getAllTrainingTypes(int trainingTypes) throws Exception {
+        for (int i = 0; i < trainingTypes; i++) {
+            testData.trainers(2, testData.trainingType("Тип", TrainingTypeCategory.GROUP));
+        }
+
+        statementCounter.measure("GET /api/training-types", () -> mockMvc.perform(get("/api/training-types")
+                        .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(trainingTypes))));
+    }
+
+    @QueryBudget(2)
+    @ParameterizedTest(name = "{0} existing training types")
+    @ValueSource(ints = {1, 10, 40})
+    void createTrainingType(int existing) throws Exception {
+        for (int i = 0; i < existing; i++) {
+            testData.trainingType("Тип", TrainingTypeCategory.GROUP);
+        }
+
+        statementCounter.measure("POST /api/training-types", () -> mockMvc.perform(post("/api/training-types")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TRAINING_TYPE_JSON))
+                .andExpect(status().isCreated()));
+    }
+
+    @QueryBudget(3)
+    @ParameterizedTest(name = "{0} trainers")
+    @ValueSource(ints = {1, 10, 40})
+    void updateTrainingType(int trainers) throws Exception {
+        TrainingType trainingType = testData.trainingType("Тип", TrainingTypeCategory.GROUP);
+        testData.trainers(trainers, trainingType);
+
+        statementCounter.measure("PUT /api/training-types/{id}", () -> mockMvc.perform(
+                        put("/api/training-types/{id}", trainingType.getId())
+                                .header("Authorization", token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(TRAINING_TYPE_JSON))
+                .andExpect(status().isOk()));
+    }
+
+    @QueryBudget(3)
+    @ParameterizedTest(name = "{0} other training types")
+    @ValueSource(ints = {1, 10, 40})
+    void deleteTrainingType(int otherTrainingTypes) throws Exception {
+        TrainingType trainingType = testData.trainingType("Тип", TrainingTypeCategory.GROUP);
+        for (int i = 0; i < otherTrainingTypes; i++) {
+            testData.trainingType("Тип", TrainingTypeCategory.GROUP);
+        }
+
+        statementCounter.measure("DELETE /api/training-types/{id}", () -> mockMvc.perform(
+                        delete("/api/training-types/{id}", trainingType.getId())
+                                .header("Authorization", token))
+                .andExpect(status().isNoContent()));
+    }
+}
@@ -2,8 +2,8 @@ package com.example.fitness_booking_system.controllers;
 
 import com.example.fitness_booking_system.dto.TrainingTypeDTO;
 import com.example.fitness_booking_system.entities.TrainingTypeCategory;
-import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.TokenRevocationList;
 import com.example.fitness_booking_system.services.TrainingTypeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -42,7 +42,7 @@ class TrainingTypeControllerTest {
     private JwtUtil jwtUtil;
 
     @MockitoBean
-    private UserRepository userRepository;
+    private TokenRevocationList tokenRevocationList;
 
     private TrainingTypeDTO trainingTypeDTO;
 
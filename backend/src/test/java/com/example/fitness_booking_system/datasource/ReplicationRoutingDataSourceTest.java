@@ -0,0 +1,150 @@
+package com.example.fitness_booking_system.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Routes between two embedded H2 databases, each of which contains a marker row with its own name.
+class ReplicationRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                DataSourceRole.PRIMARY, primary,
+                DataSourceRole.REPLICA, replica));
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicationRoutingDataSource.forcePrimary(false);
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldGoToReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void writeTransaction_ShouldGoToPrimary() {
+        assertEquals("primary", writeTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void noTransaction_ShouldGoToPrimary() {
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void runOnPrimary_WhenNested_ShouldKeepOuterScopeOnPrimary() {
+        DataSourceRole afterInner = readOnlyTransaction.execute(status -> ReplicationRoutingDataSource.runOnPrimary(() -> {
+            ReplicationRoutingDataSource.runOnPrimary(this::currentDatabase);
+            return ReplicationRoutingDataSource.currentRole();
+        }));
+
+        assertEquals(DataSourceRole.PRIMARY, afterInner);
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void readOnlyTransaction_AfterClientWrite_ShouldStayOnPrimaryWithinWindow() {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-01T10:00:00Z"), ZoneOffset.UTC);
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(clock, 5000);
+        tracker.markWrite(7L);
+
+        String stickyClient = readOnlyTransaction.execute(status -> {
+            tracker.routeReadsOf(7L);
+            return currentDatabase();
+        });
+        String otherClient = readOnlyTransaction.execute(status -> {
+            tracker.routeReadsOf(8L);
+            return currentDatabase();
+        });
+
+        assertEquals("primary", stickyClient);
+        assertEquals("replica", otherClient);
+    }
+
+    @Test
+    void readYourWritesTracker_ShouldExpireAfterWindow() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-06-01T10:00:00Z"));
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(clock, 5000);
+        tracker.markWrite(7L);
+        assertTrue(tracker.isSticky(7L));
+
+        clock.instant = clock.instant.plusSeconds(6);
+        assertFalse(tracker.isSticky(7L));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private EmbeddedDatabase createDatabase(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + System.nanoTime())
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE marker (name VARCHAR(20))");
+        new JdbcTemplate(database).update("INSERT INTO marker VALUES (?)", name);
+        return database;
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.fitness_booking_system.querystats;
+
+import com.example.fitness_booking_system.entities.UserRole;
+import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.example.fitness_booking_system.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The query statistics show the SQL of the application and can be reset, so only administrators may use them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import({StatementCounter.class, TestData.class})
+class QueryStatisticsEndpointSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void shouldRejectAnonymousUsers() throws Exception {
+        mockMvc.perform(get("/actuator/querystats"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldRejectClientsAndTrainers() throws Exception {
+        for (UserRole role : new UserRole[]{UserRole.CLIENT, UserRole.TRAINER}) {
+            mockMvc.perform(get("/actuator/querystats").header("Authorization", token(role)))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(delete("/actuator/querystats").header("Authorization", token(role)))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get("/actuator/metrics").header("Authorization", token(role)))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    void shouldServeAndResetStatisticsForAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/querystats").header("Authorization", token(UserRole.ADMIN)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/actuator/querystats").header("Authorization", token(UserRole.ADMIN)))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    private String token(UserRole role) {
+        return "Bearer " + jwtUtil.generateToken(role.name().toLowerCase() + "@test.com", role.name());
+    }
+}
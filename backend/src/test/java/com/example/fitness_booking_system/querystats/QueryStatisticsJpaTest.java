@@ -0,0 +1,98 @@
+package com.example.fitness_booking_system.querystats;
+
+import com.example.fitness_booking_system.datasource.DataSourceProxyConfig;
+import com.example.fitness_booking_system.dto.QueryStatsDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.tracing.TraceExporter;
+import com.example.fitness_booking_system.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DataSourceProxyConfig.class, QueryStatistics.class, Tracer.class, TraceExporter.class})
+class QueryStatisticsJpaTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private QueryStatistics queryStatistics;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Пилатес");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(10);
+        entityManager.persist(trainingType);
+
+        LocalDateTime start = LocalDateTime.of(2031, 3, 3, 8, 0);
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setEmail("stats-trainer" + i + "@test.com");
+            user.setPassword("hash");
+            user.setFullName("Треньор " + i);
+            user.setRole(UserRole.TRAINER);
+            entityManager.persist(user);
+
+            Trainer trainer = new Trainer();
+            trainer.setUser(user);
+            entityManager.persist(trainer);
+
+            for (int j = 0; j < 2; j++) {
+                TimeSlot timeSlot = new TimeSlot();
+                timeSlot.setTrainer(trainer);
+                timeSlot.setTrainingType(trainingType);
+                timeSlot.setStartTime(start.plusDays(i).plusHours(j));
+                timeSlot.setEndTime(start.plusDays(i).plusHours(j + 1));
+                timeSlot.setCapacity(10);
+                entityManager.persist(timeSlot);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        queryStatistics.reset();
+    }
+
+    @Test
+    void lazyLoadsPerRow_ShouldShowAsOneFingerprintWithAnExecutionPerTrainer() {
+        List<TimeSlot> timeSlots = timeSlotRepository.findAll();
+        timeSlots.forEach(timeSlot -> timeSlot.getTrainer().getUser().getFullName());
+
+        List<QueryStatsDTO> top = queryStatistics.top(10, QueryStatistics.Order.EXECUTIONS);
+
+        QueryStatsDTO slots = find(top, "from time_slots");
+        assertEquals(1, slots.getExecutions());
+        assertEquals(6, slots.getRows());
+        QueryStatsDTO trainers = find(top, "from trainers");
+        assertEquals(3, trainers.getExecutions());
+        assertEquals(3, trainers.getRows());
+        assertTrue(trainers.getFingerprint().endsWith("=?"), trainers.getFingerprint());
+        assertTrue(trainers.getP99Ms() <= trainers.getMaxMs());
+    }
+
+    private static QueryStatsDTO find(List<QueryStatsDTO> top, String table) {
+        return top.stream()
+                .filter(stats -> stats.getFingerprint().startsWith("select") && stats.getFingerprint().contains(table))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No query on " + table + " in " + top));
+    }
+}
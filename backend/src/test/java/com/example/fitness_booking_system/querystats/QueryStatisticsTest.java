@@ -0,0 +1,113 @@
+package com.example.fitness_booking_system.querystats;
+
+import com.example.fitness_booking_system.dto.QueryStatsDTO;
+import com.example.fitness_booking_system.tracing.Span;
+import com.example.fitness_booking_system.tracing.SpanKind;
+import com.example.fitness_booking_system.tracing.TraceExporter;
+import com.example.fitness_booking_system.tracing.Tracer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryStatisticsTest {
+
+    private Tracer tracer;
+    private QueryStatistics queryStatistics;
+
+    @BeforeEach
+    void setUp() {
+        tracer = new Tracer(new TraceExporter());
+        queryStatistics = new QueryStatistics(tracer);
+    }
+
+    @Test
+    void fingerprint_ShouldReplaceLiteralsAndCollapseInLists() {
+        assertEquals("select t1_0.id from trainers t1_0 where t1_0.id=?",
+                SqlFingerprint.of("select t1_0.id from trainers t1_0 where t1_0.id=?"));
+        assertEquals("select * from users where email = ? and created_at > ? limit ?",
+                SqlFingerprint.of("SELECT *\n  FROM users /* login */ WHERE email = 'a''b@c.d'   AND created_at > '2030-01-01' LIMIT 10"));
+        assertEquals(SqlFingerprint.of("select c1_0.id from clients c1_0 where c1_0.id in (?,?)"),
+                SqlFingerprint.of("select c1_0.id from clients c1_0 where c1_0.id in (?,?,?,?,?)"));
+        assertEquals("delete from bookings where id in (?...)",
+                SqlFingerprint.of("delete from bookings where id in (1, 2, 3)"));
+    }
+
+    @Test
+    void executions_ShouldBeCountedPerFingerprintWithTheirRowsAndCaller() {
+        try (Span service = tracer.startSpan("TimeSlotService.getAllTimeSlots", SpanKind.INTERNAL)) {
+            for (long id = 1; id <= 5; id++) {
+                execute("select t1_0.id from trainers t1_0 where t1_0.id=" + id, 2_000_000, null);
+            }
+        }
+        execute("update time_slots set booked_count=booked_count+1 where id=?", 500_000, new int[]{1, 1, 1});
+
+        List<QueryStatsDTO> top = queryStatistics.top(10, QueryStatistics.Order.EXECUTIONS);
+
+        assertEquals(2, top.size());
+        QueryStatsDTO trainers = top.get(0);
+        assertEquals("select t1_0.id from trainers t1_0 where t1_0.id=?", trainers.getFingerprint());
+        assertEquals(5, trainers.getExecutions());
+        assertEquals("TimeSlotService.getAllTimeSlots", trainers.getLastCaller());
+        assertTrue(trainers.getTotalMs() >= 10);
+        assertTrue(trainers.getDbTimePercent() > 90);
+        QueryStatsDTO update = top.get(1);
+        assertEquals(3, update.getRows());
+        assertNull(update.getLastCaller());
+        assertEquals(update.getFingerprint(), queryStatistics.top(1, QueryStatistics.Order.ROWS).get(0).getFingerprint());
+    }
+
+    @Test
+    void fingerprints_BeyondTheLimit_ShouldBeCountedTogether() {
+        ReflectionTestUtils.setField(queryStatistics, "maxFingerprints", 2);
+
+        execute("select id from users", 0, null);
+        execute("select id from clients", 0, null);
+        execute("select id from trainers", 0, null);
+        execute("select id from bookings", 0, null);
+
+        List<QueryStatsDTO> top = queryStatistics.top(10, QueryStatistics.Order.EXECUTIONS);
+        assertEquals(3, top.size());
+        assertEquals(QueryStatistics.OTHER, top.get(0).getFingerprint());
+        assertEquals(2, top.get(0).getExecutions());
+    }
+
+    @Test
+    void percentile_ShouldBeWithinTheBucketPrecision() {
+        QueryStats stats = new QueryStats("select 1");
+        for (int i = 1; i <= 1000; i++) {
+            stats.record(i * 10_000L, true, null);
+        }
+
+        long p99 = stats.percentileNanos(0.99);
+        long p50 = stats.percentileNanos(0.5);
+
+        assertTrue(p99 >= 9_900_000 && p99 <= 9_900_000 * 1.125, "p99 " + p99);
+        assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 1.125, "p50 " + p50);
+        assertEquals(10_000_000, stats.percentileNanos(1.0));
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            assertTrue(QueryStats.upperBoundMicros(QueryStats.bucket(micros)) >= micros);
+        }
+    }
+
+    /**
+     * Runs a statement through the listener as the DataSource proxy would, lasting at least the given time.
+     */
+    private void execute(String sql, long nanos, Object result) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setSuccess(true);
+        execInfo.setResult(result);
+        List<QueryInfo> queries = List.of(new QueryInfo(sql));
+        queryStatistics.beforeQuery(execInfo, queries);
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        queryStatistics.afterQuery(execInfo, queries);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCounter.class)
+class BookingRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final List<Booking> bookings = new ArrayList<>();
+    private Client client;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Йога");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(10);
+        entityManager.persist(trainingType);
+
+        User trainerUser = new User();
+        trainerUser.setEmail("trainer@test.com");
+        trainerUser.setPassword("hash");
+        trainerUser.setFullName("Треньор");
+        trainerUser.setRole(UserRole.TRAINER);
+        entityManager.persist(trainerUser);
+
+        Trainer trainer = new Trainer();
+        trainer.setUser(trainerUser);
+        entityManager.persist(trainer);
+
+        User clientUser = new User();
+        clientUser.setEmail("client@test.com");
+        clientUser.setPassword("hash");
+        clientUser.setFullName("Клиент");
+        clientUser.setRole(UserRole.CLIENT);
+        entityManager.persist(clientUser);
+
+        client = new Client();
+        client.setUser(clientUser);
+        entityManager.persist(client);
+
+        start = LocalDateTime.of(2030, 1, 7, 8, 0);
+        for (int i = 0; i < 6; i++) {
+            TimeSlot timeSlot = new TimeSlot();
+            timeSlot.setTrainer(trainer);
+            timeSlot.setTrainingType(trainingType);
+            // Two slots share each start time, so the booking ID breaks the tie
+            timeSlot.setStartTime(start.plusDays(i / 2));
+            timeSlot.setEndTime(start.plusDays(i / 2).plusHours(1));
+            timeSlot.setCapacity(10);
+            timeSlot.setBookedCount(1);
+            entityManager.persist(timeSlot);
+
+            Booking booking = new Booking();
+            booking.setClient(client);
+            booking.setTimeSlot(timeSlot);
+            booking.setSlotStartTime(timeSlot.getStartTime());
+            booking.setStatus(i == 3 ? BookingStatus.CANCELLED : BookingStatus.CONFIRMED);
+            entityManager.persist(booking);
+            bookings.add(booking);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statementCounter.reset();
+    }
+
+    @Test
+    void findClientBookingViewsAfter_ShouldPageForwardByStartTimeAndId() {
+        List<BookingDTO> first = bookingRepository.findClientBookingViewsAfter(client.getId(),
+                EnumSet.allOf(BookingStatus.class), start, Long.MIN_VALUE, Limit.of(3));
+        BookingDTO last = first.get(2);
+        List<BookingDTO> second = bookingRepository.findClientBookingViewsAfter(client.getId(),
+                EnumSet.allOf(BookingStatus.class), last.getStartTime(), last.getId(), Limit.of(3));
+
+        assertEquals(2, statementCounter.total());
+        assertEquals(List.of(bookings.get(0).getId(), bookings.get(1).getId(), bookings.get(2).getId()),
+                first.stream().map(BookingDTO::getId).toList());
+        assertEquals(List.of(bookings.get(3).getId(), bookings.get(4).getId(), bookings.get(5).getId()),
+                second.stream().map(BookingDTO::getId).toList());
+        assertEquals("Клиент", first.get(0).getClientName());
+        assertEquals("Треньор", first.get(0).getTrainerName());
+        assertEquals("Йога", first.get(0).getTrainingTypeName());
+    }
+
+    @Test
+    void findClientBookingViewsBefore_ShouldPageBackwardsAndFilterByStatus() {
+        List<BookingDTO> past = bookingRepository.findClientBookingViewsBefore(client.getId(),
+                EnumSet.of(BookingStatus.CONFIRMED), start.plusDays(2), bookings.get(4).getId(), Limit.of(10));
+
+        assertEquals(1, statementCounter.total());
+        assertEquals(List.of(bookings.get(2).getId(), bookings.get(1).getId(), bookings.get(0).getId()),
+                past.stream().map(BookingDTO::getId).toList());
+    }
+
+    @Test
+    void findClientBookingViewsAfterBySlotJoin_ShouldIncludeBookingsNotYetBackfilled() {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Booking b SET b.slotStartTime = null WHERE b.id = :id")
+                .setParameter("id", bookings.get(1).getId())
+                .executeUpdate();
+        statementCounter.reset();
+
+        List<BookingDTO> joined = bookingRepository.findClientBookingViewsAfterBySlotJoin(client.getId(),
+                EnumSet.allOf(BookingStatus.class), start, Long.MIN_VALUE, Limit.of(3));
+        List<BookingDTO> keyset = bookingRepository.findClientBookingViewsAfter(client.getId(),
+                EnumSet.allOf(BookingStatus.class), start, Long.MIN_VALUE, Limit.of(3));
+
+        assertEquals(List.of(bookings.get(0).getId(), bookings.get(1).getId(), bookings.get(2).getId()),
+                joined.stream().map(BookingDTO::getId).toList());
+        assertFalse(keyset.stream().map(BookingDTO::getId).toList().contains(bookings.get(1).getId()));
+        assertEquals(List.of(bookings.get(1).getId()), bookingRepository.findIdsWithoutSlotStartTime(Limit.of(1)));
+    }
+}
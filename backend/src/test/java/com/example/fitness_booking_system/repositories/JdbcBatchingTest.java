@@ -0,0 +1,135 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.TimeSlotCreateDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.services.CalendarFeedService;
+import com.example.fitness_booking_system.services.JobLeaseService;
+import com.example.fitness_booking_system.services.TimeSlotService;
+import com.example.fitness_booking_system.services.TrainerFreeBusyIndex;
+import com.example.fitness_booking_system.services.TrainerStatsService;
+import com.example.fitness_booking_system.support.StatementCounter;
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checks that sequence ids and hibernate.jdbc.batch_size turn bulk inserts into JDBC batches.
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StatementCounter.class, TimeSlotService.class, CalendarFeedService.class,
+        TrainerFreeBusyIndex.class, TrainerStatsService.class, JobLeaseService.class})
+class JdbcBatchingTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TimeSlotService timeSlotService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Trainer trainer;
+    private TrainingType trainingType;
+
+    @BeforeEach
+    void setUp() {
+        trainer = new Trainer();
+        trainer.setUser(persistUser("trainer@test.com", UserRole.TRAINER));
+        entityManager.persist(trainer);
+
+        trainingType = new TrainingType();
+        trainingType.setName("Пилатес");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(10);
+        entityManager.persist(trainingType);
+
+        entityManager.flush();
+        statementCounter.reset();
+    }
+
+    @Test
+    void createTimeSlots_ShouldInsertSlotsInBatches() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+        List<TimeSlotCreateDTO> createDTOs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+            createDTO.setTrainerId(trainer.getId());
+            createDTO.setTrainingTypeId(trainingType.getId());
+            createDTO.setStartTime(start.plusHours(i));
+            createDTO.setEndTime(start.plusHours(i).plusMinutes(60));
+            createDTOs.add(createDTO);
+        }
+
+        timeSlotService.createTimeSlots(createDTOs);
+        entityManager.flush();
+
+        // 100 rows with batch_size=50 -> two INSERT executions
+        assertEquals(2, statementCounter.executions(QueryType.INSERT));
+        assertEquals(100, statementCounter.batchedRows(QueryType.INSERT));
+    }
+
+    @Test
+    void saveAllBookings_ShouldInsertBookingsInBatches() {
+        TimeSlot timeSlot = new TimeSlot();
+        timeSlot.setTrainer(trainer);
+        timeSlot.setTrainingType(trainingType);
+        timeSlot.setStartTime(LocalDateTime.now().plusDays(1));
+        timeSlot.setEndTime(LocalDateTime.now().plusDays(1).plusHours(1));
+        timeSlot.setCapacity(100);
+        entityManager.persist(timeSlot);
+
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Client client = new Client();
+            client.setUser(persistUser("client" + i + "@test.com", UserRole.CLIENT));
+            clients.add(client);
+        }
+        clientRepository.saveAll(clients);
+        entityManager.flush();
+        statementCounter.reset();
+
+        List<Booking> bookings = new ArrayList<>();
+        for (Client client : clients) {
+            Booking booking = new Booking();
+            booking.setClient(client);
+            booking.setTimeSlot(timeSlot);
+            bookings.add(booking);
+        }
+        bookingRepository.saveAll(bookings);
+        entityManager.flush();
+
+        assertEquals(2, statementCounter.executions(QueryType.INSERT));
+        assertEquals(100, statementCounter.batchedRows(QueryType.INSERT));
+    }
+
+    private User persistUser(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setFullName(email);
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterRowDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCounter.class)
+class TimeSlotRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    private final List<Trainer> trainers = new ArrayList<>();
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Йога");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(10);
+        entityManager.persist(trainingType);
+
+        start = LocalDateTime.of(2030, 1, 7, 8, 0);
+        for (int t = 0; t < 3; t++) {
+            User user = new User();
+            user.setEmail("trainer" + t + "@test.com");
+            user.setPassword("hash");
+            user.setFullName("Треньор " + t);
+            user.setRole(UserRole.TRAINER);
+            entityManager.persist(user);
+
+            Trainer trainer = new Trainer();
+            trainer.setUser(user);
+            entityManager.persist(trainer);
+            trainers.add(trainer);
+
+            for (int i = 0; i < 5; i++) {
+                TimeSlot timeSlot = new TimeSlot();
+                timeSlot.setTrainer(trainer);
+                timeSlot.setTrainingType(trainingType);
+                timeSlot.setStartTime(start.plusDays(i));
+                timeSlot.setEndTime(start.plusDays(i).plusHours(1));
+                timeSlot.setCapacity(10);
+                timeSlot.setBookedCount(i);
+                entityManager.persist(timeSlot);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        statementCounter.reset();
+    }
+
+    @Test
+    void findAllSlotViews_ShouldLoadNamesWithOneQuery() {
+        List<TimeSlotDTO> views = timeSlotRepository.findAllSlotViews();
+
+        assertEquals(15, views.size());
+        assertEquals(1, statementCounter.total());
+        assertTrue(views.stream().allMatch(view -> view.getTrainerName().startsWith("Треньор ")));
+        assertTrue(views.stream().allMatch(view -> "Йога".equals(view.getTrainingTypeName())));
+        assertTrue(views.stream().allMatch(view -> view.getAvailableSpots() == view.getCapacity() - view.getBookedCount()));
+    }
+
+    @Test
+    void findSlotViewsByTrainerIdAndStartTimeBetween_ShouldFilterByTrainerAndRange() {
+        Long trainerId = trainers.get(1).getId();
+
+        List<TimeSlotDTO> views = timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(
+                trainerId, start.plusDays(1), start.plusDays(3));
+
+        assertEquals(3, views.size());
+        assertEquals(1, statementCounter.total());
+        assertTrue(views.stream().allMatch(view -> view.getTrainerId().equals(trainerId)));
+        assertEquals(start.plusDays(1), views.get(0).getStartTime());
+    }
+
+    @Test
+    void findRosterRowsByTrainerIdAndStartTimeBetween_ShouldJoinConfirmedClientsWithOneQuery() {
+        Trainer trainer = entityManager.find(Trainer.class, trainers.get(0).getId());
+        TimeSlot booked = timeSlotRepository.findByTrainerIdAndStartTimeBetween(
+                trainer.getId(), start, start).get(0);
+        List<Client> clients = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            User user = new User();
+            user.setEmail("client" + c + "@test.com");
+            user.setPassword("hash");
+            user.setFullName("Клиент " + c);
+            user.setRole(UserRole.CLIENT);
+            entityManager.persist(user);
+
+            Client client = new Client();
+            client.setUser(user);
+            entityManager.persist(client);
+            clients.add(client);
+
+            Booking booking = new Booking();
+            booking.setClient(client);
+            booking.setTimeSlot(booked);
+            booking.setTrainer(trainer);
+            // The last booking was made before slotStartTime was introduced and is not backfilled yet
+            if (c < 2) {
+                booking.setSlotStartTime(booked.getStartTime());
+            }
+            if (c == 1) {
+                booking.cancel();
+            }
+            entityManager.persist(booking);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statementCounter.reset();
+
+        List<TimeSlotRosterRowDTO> rows = timeSlotRepository.findRosterRowsByTrainerIdAndStartTimeBetween(
+                trainer.getId(), start, start.plusDays(1), BookingStatus.CONFIRMED);
+
+        assertEquals(1, statementCounter.total());
+        // The two confirmed clients of the first slot, then the second slot without clients
+        assertEquals(3, rows.size());
+        assertEquals(List.of(clients.get(0).getId(), clients.get(2).getId()),
+                rows.subList(0, 2).stream().map(row -> row.getClient().getId()).collect(Collectors.toList()));
+        assertEquals("Клиент 0", rows.get(0).getClient().getFullName());
+        assertEquals(booked.getId(), rows.get(1).getTimeSlot().getId());
+        assertEquals(start.plusDays(1), rows.get(2).getTimeSlot().getStartTime());
+        assertNull(rows.get(2).getClient());
+    }
+
+    @Test
+    void streamSlotViewsByStartTimeBetween_ShouldStreamRangeInOrder() {
+        List<TimeSlotDTO> views;
+        try (Stream<TimeSlotDTO> stream = timeSlotRepository.streamSlotViewsByStartTimeBetween(
+                start.plusDays(2), start.plusDays(4))) {
+            views = stream.collect(Collectors.toList());
+        }
+
+        // Two days for each of the three trainers, end of the range is exclusive
+        assertEquals(6, views.size());
+        assertEquals(1, statementCounter.total());
+        for (int i = 1; i < views.size(); i++) {
+            assertFalse(views.get(i).getStartTime().isBefore(views.get(i - 1).getStartTime()));
+        }
+    }
+
+    @Test
+    void findSlotViewById_ShouldReturnEmptyForUnknownId() {
+        Optional<TimeSlotDTO> view = timeSlotRepository.findSlotViewById(-1L);
+
+        assertTrue(view.isEmpty());
+    }
+
+    @Test
+    void hasOverlappingTimeSlot_ShouldIgnoreCancelledSlots() {
+        Long trainerId = trainers.get(0).getId();
+        assertTrue(timeSlotRepository.hasOverlappingTimeSlot(trainerId, start.plusMinutes(30), start.plusMinutes(90)));
+
+        TimeSlot timeSlot = timeSlotRepository.findByTrainerIdAndStartTimeBetween(trainerId, start, start).get(0);
+        timeSlot.setStatus(TimeSlotStatus.CANCELLED);
+        entityManager.flush();
+
+        assertFalse(timeSlotRepository.hasOverlappingTimeSlot(trainerId, start.plusMinutes(30), start.plusMinutes(90)));
+    }
+
+    @Test
+    void findBusyTimeRanges_ShouldReturnSlotsTouchingTheRange() {
+        Long trainerId = trainers.get(2).getId();
+
+        List<TimeRangeDTO> ranges = timeSlotRepository.findBusyTimeRanges(trainerId,
+                start.minusDays(1), start.plusMinutes(30), start.plusDays(2));
+
+        assertEquals(2, ranges.size());
+        assertEquals(1, statementCounter.total());
+        assertTrue(ranges.stream().anyMatch(range -> range.getStartTime().equals(start)));
+        assertTrue(ranges.stream().anyMatch(range -> range.getEndTime().equals(start.plusDays(1).plusHours(1))));
+    }
+
+    @Test
+    void addBookings_ShouldAddAndRemoveSeatsAndUpdateStatus() {
+        // The slot on the last day already has 4 of 10 seats booked
+        TimeSlot timeSlot = timeSlotRepository.findByTrainerIdAndStartTimeBetween(trainers.get(0).getId(),
+                start.plusDays(4), start.plusDays(4)).get(0);
+        Long id = timeSlot.getId();
+        entityManager.clear();
+
+        assertEquals(0, timeSlotRepository.addBookings(id, 7, TimeSlotStatus.BOOKED));
+        assertEquals(1, timeSlotRepository.addBookings(id, 6, TimeSlotStatus.BOOKED));
+        assertEquals(0, timeSlotRepository.addBookings(id, 1, TimeSlotStatus.BOOKED));
+        entityManager.clear();
+        assertEquals(TimeSlotStatus.BOOKED, timeSlotRepository.findById(id).orElseThrow().getStatus());
+
+        assertEquals(1, timeSlotRepository.addBookings(id, -1, TimeSlotStatus.BOOKED));
+        entityManager.clear();
+        TimeSlot reloaded = timeSlotRepository.findById(id).orElseThrow();
+        assertEquals(9, reloaded.getBookedCount());
+        assertEquals(TimeSlotStatus.AVAILABLE, reloaded.getStatus());
+
+        assertEquals(0, timeSlotRepository.addBookings(id, -10, TimeSlotStatus.BOOKED));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCounter.class)
+class TrainerDailyStatsRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TrainerDailyStatsRepository trainerDailyStatsRepository;
+
+    private final LocalDate day = LocalDate.of(2030, 1, 7);
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 30; i++) {
+            entityManager.persist(new TrainerDailyStats(null, 1L, 3L, day.plusDays(i), 2, 20, i, 0));
+        }
+        entityManager.persist(new TrainerDailyStats(null, 2L, 3L, day, 1, 10, 5, 0));
+        entityManager.flush();
+        entityManager.clear();
+        statementCounter.reset();
+    }
+
+    @Test
+    void increment_ShouldUpdateCountersInPlace() {
+        int updated = trainerDailyStatsRepository.increment(1L, 3L, day, 0, 0, 1, 1);
+        entityManager.clear();
+
+        assertEquals(1, updated);
+        assertEquals(1, statementCounter.total());
+        TrainerDailyStats stats = trainerDailyStatsRepository
+                .findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(1L, day, day).get(0);
+        assertEquals(1, stats.getSeatsBooked());
+        assertEquals(1, stats.getCancellations());
+    }
+
+    @Test
+    void increment_ShouldReportMissingRow() {
+        assertEquals(0, trainerDailyStatsRepository.increment(1L, 9L, day, 1, 10, 0, 0));
+    }
+
+    @Test
+    void replace_ShouldOverwriteOnlyRowWithExpectedValues() {
+        // Row of day 3 has 3 booked seats; a second identical correction no longer matches and is a no-op
+        assertEquals(1, trainerDailyStatsRepository.replace(1L, 3L, day.plusDays(3), 2, 20, 3, 0, 2, 20, 4, 0));
+        assertEquals(0, trainerDailyStatsRepository.replace(1L, 3L, day.plusDays(3), 2, 20, 3, 0, 2, 20, 4, 0));
+        entityManager.clear();
+
+        TrainerDailyStats stats = trainerDailyStatsRepository
+                .findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(1L, day.plusDays(3), day.plusDays(3))
+                .get(0);
+        assertEquals(4, stats.getSeatsBooked());
+    }
+
+    @Test
+    void findByTrainerIdAndStatDateBetween_ShouldReadOneRowPerDay() {
+        List<TrainerDailyStats> rows = trainerDailyStatsRepository
+                .findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(1L, day, day.plusDays(6));
+
+        assertEquals(7, rows.size());
+        assertEquals(1, statementCounter.total());
+        assertEquals(day.plusDays(6), rows.get(6).getStatDate());
+    }
+
+    @Test
+    void sumTimeSlotsAndBookings_ShouldAggregateRawRowsPerTrainerTypeAndDay() {
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Йога");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(10);
+        entityManager.persist(trainingType);
+        Trainer trainer = new Trainer();
+        trainer.setUser(user("trainer@test.com", UserRole.TRAINER));
+        entityManager.persist(trainer);
+        Client client = new Client();
+        client.setUser(user("client@test.com", UserRole.CLIENT));
+        entityManager.persist(client);
+
+        LocalDateTime start = day.atTime(8, 0);
+        TimeSlot first = timeSlot(trainer, trainingType, start, TimeSlotStatus.AVAILABLE);
+        timeSlot(trainer, trainingType, start.plusHours(2), TimeSlotStatus.AVAILABLE);
+        timeSlot(trainer, trainingType, start.plusDays(1), TimeSlotStatus.CANCELLED);
+        booking(client, first, BookingStatus.CONFIRMED);
+        booking(client, first, BookingStatus.COMPLETED);
+        booking(client, first, BookingStatus.CANCELLED);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TrainerStatsTotalsDTO> slots = trainerDailyStatsRepository
+                .sumTimeSlots(day.atStartOfDay(), day.plusDays(2).atStartOfDay());
+        List<TrainerStatsTotalsDTO> bookings = trainerDailyStatsRepository
+                .sumBookings(day.atStartOfDay(), day.plusDays(2).atStartOfDay());
+
+        assertEquals(List.of(new TrainerStatsTotalsDTO(trainer.getId(), trainingType.getId(), day, 2, 20, 0, 0)), slots);
+        assertEquals(List.of(new TrainerStatsTotalsDTO(trainer.getId(), trainingType.getId(), day, 0, 0, 2, 1)), bookings);
+    }
+
+    private User user(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setFullName("Потребител");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private TimeSlot timeSlot(Trainer trainer, TrainingType trainingType, LocalDateTime start, TimeSlotStatus status) {
+        TimeSlot timeSlot = new TimeSlot();
+        timeSlot.setTrainer(trainer);
+        timeSlot.setTrainingType(trainingType);
+        timeSlot.setStartTime(start);
+        timeSlot.setEndTime(start.plusHours(1));
+        timeSlot.setCapacity(10);
+        timeSlot.setStatus(status);
+        return entityManager.persist(timeSlot);
+    }
+
+    private void booking(Client client, TimeSlot timeSlot, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setClient(client);
+        booking.setTimeSlot(timeSlot);
+        booking.setSlotStartTime(timeSlot.getStartTime());
+        booking.setStatus(status);
+        entityManager.persist(booking);
+    }
+}
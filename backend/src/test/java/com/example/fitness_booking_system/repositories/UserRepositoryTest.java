@@ -0,0 +1,82 @@
+package com.example.fitness_booking_system.repositories;
+
+import com.example.fitness_booking_system.dto.LoginUserDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCounter.class)
+class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Client client;
+    private Trainer trainer;
+
+    @BeforeEach
+    void setUp() {
+        client = new Client();
+        client.setUser(persistUser("client@test.com", UserRole.CLIENT));
+        entityManager.persist(client);
+
+        trainer = new Trainer();
+        trainer.setUser(persistUser("trainer@test.com", UserRole.TRAINER));
+        entityManager.persist(trainer);
+
+        // A user whose profile has not been created
+        persistUser("new@test.com", UserRole.CLIENT);
+
+        entityManager.flush();
+        entityManager.clear();
+        statementCounter.reset();
+    }
+
+    private User persistUser(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash-" + email);
+        user.setFullName("Потребител " + email);
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    @Test
+    void findLoginByEmail_ShouldLoadCredentialsAndProfileWithOneQuery() {
+        LoginUserDTO clientLogin = userRepository.findLoginByEmail("client@test.com").orElseThrow();
+        LoginUserDTO trainerLogin = userRepository.findLoginByEmail("trainer@test.com").orElseThrow();
+        LoginUserDTO newLogin = userRepository.findLoginByEmail("new@test.com").orElseThrow();
+
+        assertEquals(3, statementCounter.total());
+        assertEquals("hash-client@test.com", clientLogin.getPassword());
+        assertEquals(client.getId(), clientLogin.getClientId());
+        assertNull(clientLogin.getTrainerId());
+        assertEquals(trainer.getId(), trainerLogin.getTrainerId());
+        assertEquals(UserRole.TRAINER, trainerLogin.getRole());
+        assertNull(newLogin.getClientId());
+        assertNull(newLogin.getTrainerId());
+    }
+
+    @Test
+    void findLoginByEmail_ShouldReturnEmptyForUnknownEmail() {
+        assertTrue(userRepository.findLoginByEmail("nobody@test.com").isEmpty());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRateLimiterTest {
+
+    private Instant now = Instant.parse("2030-01-07T07:00:00Z");
+    private InMemoryRateLimitStore store;
+    private SimpleMeterRegistry meterRegistry;
+    private BookingRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        store = new InMemoryRateLimitStore();
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimiter = new BookingRateLimiter(store, clock, meterRegistry);
+        ReflectionTestUtils.setField(rateLimiter, "clientCapacity", 2);
+        ReflectionTestUtils.setField(rateLimiter, "clientPerMinute", 6);
+        ReflectionTestUtils.setField(rateLimiter, "slotCapacity", 3);
+        ReflectionTestUtils.setField(rateLimiter, "slotPerMinute", 60);
+        rateLimiter.registerMetrics();
+    }
+
+    @Test
+    void acquireBooking_ShouldThrottleUserAfterBurstAndRefillOverTime() {
+        rateLimiter.acquireBooking("client@test.com", 10L);
+        rateLimiter.acquireBooking("client@test.com", 11L);
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquireBooking("client@test.com", 12L));
+        assertEquals("10", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.counter("booking.rate_limit.throttled").count());
+
+        now = now.plus(Duration.ofSeconds(10));
+        assertDoesNotThrow(() -> rateLimiter.acquireBooking("client@test.com", 12L));
+    }
+
+    @Test
+    void acquireBooking_ShouldThrottleSlotAcrossClients() {
+        for (int client = 1; client <= 3; client++) {
+            rateLimiter.acquireBooking("client" + client + "@test.com", 10L);
+        }
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquireBooking("client4@test.com", 10L));
+        assertEquals("1", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertDoesNotThrow(() -> rateLimiter.acquireBooking("client4@test.com", 11L));
+    }
+
+    @Test
+    void acquireBooking_WhenSlotRejects_ShouldNotUseUpTheUserToken() {
+        for (int client = 1; client <= 3; client++) {
+            rateLimiter.acquireBooking("client" + client + "@test.com", 10L);
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquireBooking("client4@test.com", 10L));
+        }
+
+        // Both tokens of the user are still there
+        assertDoesNotThrow(() -> rateLimiter.acquireBooking("client4@test.com", 11L));
+        assertDoesNotThrow(() -> rateLimiter.acquireBooking("client4@test.com", 12L));
+    }
+
+    @Test
+    void acquireBookingAndCancellation_ShouldShareTheUserBucket() {
+        rateLimiter.acquireBooking("client@test.com", 10L);
+        rateLimiter.acquireCancellation("client@test.com");
+
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquireBooking("client@test.com", 11L));
+    }
+
+    @Test
+    void acquireCancellation_ShouldThrottleUser() {
+        rateLimiter.acquireCancellation("client@test.com");
+        rateLimiter.acquireCancellation("client@test.com");
+
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquireCancellation("client@test.com"));
+        assertDoesNotThrow(() -> rateLimiter.acquireCancellation("other@test.com"));
+    }
+
+    @Test
+    void evictFullBuckets_ShouldDropRefilledBuckets() {
+        rateLimiter.acquireBooking("client@test.com", 10L);
+        assertEquals(2, store.size());
+
+        now = now.plus(Duration.ofMinutes(1));
+        rateLimiter.evictFullBuckets();
+
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.repositories.RateLimitBucketRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "app.rate-limit.store=database")
+@Import(DatabaseRateLimitStore.class)
+class DatabaseRateLimitStoreTest {
+
+    private static final long NOW = 1_900_000_000_000L;
+
+    @Autowired
+    private DatabaseRateLimitStore store;
+
+    @Autowired
+    private RateLimitBucketRepository rateLimitBucketRepository;
+
+    @Test
+    void take_ShouldThrottleAfterBurstAndRefillOverTime() {
+        assertEquals(0, store.take("booking-client:1", 2, 6, NOW));
+        assertEquals(0, store.take("booking-client:1", 2, 6, NOW));
+
+        // 6 tokens per minute -> the next token in 10 seconds
+        assertEquals(10_000, store.take("booking-client:1", 2, 6, NOW));
+        assertEquals(5_000, store.take("booking-client:1", 2, 6, NOW + 5_000));
+
+        assertEquals(0, store.take("booking-client:1", 2, 6, NOW + 10_000));
+        assertEquals(0, store.take("booking-client:2", 2, 6, NOW + 10_000));
+    }
+
+    @Test
+    void refund_ShouldPutBackOneTokenUpToCapacity() {
+        store.take("booking-user:a@test.com", 2, 6, NOW);
+        store.take("booking-user:a@test.com", 2, 6, NOW);
+        store.refund("booking-user:a@test.com", 2, NOW);
+
+        assertEquals(0, store.take("booking-user:a@test.com", 2, 6, NOW));
+        assertEquals(10_000, store.take("booking-user:a@test.com", 2, 6, NOW));
+
+        store.refund("booking-user:a@test.com", 2, NOW);
+        store.refund("booking-user:a@test.com", 2, NOW);
+        store.refund("booking-user:a@test.com", 2, NOW);
+        assertEquals(2.0, rateLimitBucketRepository.findById("booking-user:a@test.com").orElseThrow().getTokens());
+    }
+
+    @Test
+    void evictFullBuckets_ShouldDeleteOnlyRefilledBuckets() {
+        store.take("booking-client:1", 2, 6, NOW);
+        store.take("booking-slot:1", 50, 60, NOW + 60_000);
+
+        assertEquals(1, store.evictFullBuckets(NOW + 60_000));
+
+        assertFalse(rateLimitBucketRepository.existsById("booking-client:1"));
+        assertTrue(rateLimitBucketRepository.existsById("booking-slot:1"));
+    }
+}
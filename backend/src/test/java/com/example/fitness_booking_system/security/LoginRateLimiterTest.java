@@ -0,0 +1,94 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private Instant now = Instant.parse("2030-01-07T07:00:00Z");
+    private LoginRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        rateLimiter = new LoginRateLimiter(clock, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateLimiter, "ipCapacity", 3);
+        ReflectionTestUtils.setField(rateLimiter, "ipPerMinute", 60);
+        ReflectionTestUtils.setField(rateLimiter, "emailCapacity", 2);
+        ReflectionTestUtils.setField(rateLimiter, "emailPerMinute", 6);
+        rateLimiter.registerMetrics();
+    }
+
+    @Test
+    void acquire_ShouldThrottleEmailAfterBurstAndRefillOverTime() {
+        rateLimiter.acquire("10.0.0.1", "Client@Test.com");
+        rateLimiter.acquire("10.0.0.1", "client@test.com");
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> rateLimiter.acquire("10.0.0.1", "client@test.com"));
+        assertEquals("10", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        now = now.plus(Duration.ofSeconds(10));
+        assertDoesNotThrow(() -> rateLimiter.acquire("10.0.0.1", "client@test.com"));
+    }
+
+    @Test
+    void acquire_ShouldNotLockOutAccountFromOtherAddresses() {
+        rateLimiter.acquire("10.0.0.1", "client@test.com");
+        rateLimiter.acquire("10.0.0.1", "client@test.com");
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("10.0.0.1", "client@test.com"));
+
+        assertDoesNotThrow(() -> rateLimiter.acquire("10.0.0.2", "client@test.com"));
+    }
+
+    @Test
+    void acquire_ShouldThrottleIpAcrossEmails() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("10.0.0.1", "user" + i + "@test.com");
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("10.0.0.1", "other@test.com"));
+        assertDoesNotThrow(() -> rateLimiter.acquire("10.0.0.2", "other@test.com"));
+    }
+
+    @Test
+    void evictFullBuckets_ShouldDropRefilledBuckets() {
+        rateLimiter.acquire("10.0.0.1", "client@test.com");
+        @SuppressWarnings("unchecked")
+        Map<String, ?> buckets = (Map<String, ?>) ReflectionTestUtils.getField(rateLimiter, "buckets");
+        assertEquals(2, buckets.size());
+
+        now = now.plus(Duration.ofMinutes(1));
+        rateLimiter.evictFullBuckets();
+
+        assertTrue(buckets.isEmpty());
+    }
+}
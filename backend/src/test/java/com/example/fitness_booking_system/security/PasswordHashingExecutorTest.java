@@ -0,0 +1,106 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private PasswordHashingExecutor hashingExecutor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hashingExecutor.stop();
+    }
+
+    private void start(PasswordEncoder passwordEncoder, int queueCapacity) {
+        hashingExecutor = new PasswordHashingExecutor(passwordEncoder, meterRegistry);
+        ReflectionTestUtils.setField(hashingExecutor, "threads", 1);
+        ReflectionTestUtils.setField(hashingExecutor, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(hashingExecutor, "timeoutMs", 5000L);
+        hashingExecutor.start();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRunOnHashingThreadAndRecordLatency() {
+        start(new PlainEncoder(), 4);
+
+        assertEquals("hashed:secret@password-hashing-1", hashingExecutor.encode("secret"));
+        assertTrue(hashingExecutor.matches("secret", "hashed:secret"));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void matchesNone_ShouldVerifyDummyHashAndRecordLatency() {
+        start(new PlainEncoder(), 4);
+
+        hashingExecutor.matchesNone("secret");
+
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_WhenThreadAndQueueAreFull_ShouldRejectImmediately() throws Exception {
+        start(new PlainEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                // The dummy hash is encoded on the calling thread when the executor starts
+                if (!Thread.currentThread().getName().startsWith("password-hashing-")) {
+                    return super.encode(rawPassword);
+                }
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        }, 1);
+
+        // One task runs on the single thread, one waits in the queue
+        callers.submit(() -> hashingExecutor.encode("first"));
+        callers.submit(() -> hashingExecutor.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hashingExecutor.getQueueDepth() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> hashingExecutor.encode("third"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+        assertEquals("1", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("auth.password.queue").gauge().value());
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+    }
+
+    private static class PlainEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hashed:" + rawPassword + "@" + Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.fitness_booking_system.security;
+
+import com.example.fitness_booking_system.entities.RevokedAccessToken;
+import com.example.fitness_booking_system.repositories.RevokedAccessTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    private Instant instant = Instant.parse("2030-01-07T07:00:00Z");
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return instant;
+            }
+        };
+        revocationList = new TokenRevocationList(revokedAccessTokenRepository, clock);
+        ReflectionTestUtils.setField(revocationList, "pollIntervalMs", 5000L);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    @Test
+    void revoke_ShouldTakeEffectLocallyAndBeStored() {
+        revocationList.revoke("token-1", now().plusMinutes(10));
+
+        assertTrue(revocationList.isRevoked("token-1"));
+        assertFalse(revocationList.isRevoked("token-2"));
+        verify(revokedAccessTokenRepository).save(any(RevokedAccessToken.class));
+    }
+
+    @Test
+    void poll_ShouldPickUpRevocationsOfOtherInstancesAndDropExpiredOnes() {
+        when(revokedAccessTokenRepository.findByExpiresAtAfter(now()))
+                .thenReturn(List.of(new RevokedAccessToken("loaded", now().plusMinutes(1), now().minusMinutes(5))));
+        revocationList.load();
+
+        when(revokedAccessTokenRepository.findByRevokedAtGreaterThanEqual(now().minusSeconds(5)))
+                .thenReturn(List.of(new RevokedAccessToken("remote", now().plusMinutes(10), now())));
+        revocationList.poll();
+
+        assertTrue(revocationList.isRevoked("loaded"));
+        assertTrue(revocationList.isRevoked("remote"));
+
+        instant = instant.plusSeconds(120);
+        when(revokedAccessTokenRepository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of());
+        revocationList.poll();
+
+        assertFalse(revocationList.isRevoked("loaded"));
+        assertTrue(revocationList.isRevoked("remote"));
+        assertEquals(1, revocationList.size());
+    }
+
+    @Test
+    void bloomFilter_ShouldHaveNoFalseNegativesAndFewFalsePositives() {
+        TokenRevocationList.BloomFilter bloomFilter = new TokenRevocationList.BloomFilter();
+        List<String> revoked = Stream.generate(() -> UUID.randomUUID().toString())
+                .limit(2000).toList();
+        revoked.forEach(bloomFilter::put);
+
+        assertTrue(revoked.stream().allMatch(bloomFilter::mightContain));
+        long falsePositives = Stream.generate(() -> UUID.randomUUID().toString())
+                .limit(10_000).filter(bloomFilter::mightContain).count();
+        assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+    }
+}
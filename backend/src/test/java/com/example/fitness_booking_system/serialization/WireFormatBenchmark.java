@@ -0,0 +1,104 @@
+package com.example.fitness_booking_system.serialization;
+
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the encodings of a 5,000-slot list response: plain JSON with and without Blackbird, CBOR and
+ * the columnar JSON. Not a unit test; run it from the IDE or with
+ * {@code java -cp target/classes:target/test-classes:<dependencies> com.example.fitness_booking_system.serialization.WireFormatBenchmark}.
+ * Logs the payload size (plain and gzipped) and the CPU time per response.
+ */
+@Slf4j
+public class WireFormatBenchmark {
+
+    private static final int SLOTS = 5_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 500;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws IOException {
+        List<TimeSlotDTO> slots = slots();
+        ObjectMapper json = mapper().build();
+        ObjectMapper blackbird = mapper().modulesToInstall(new BlackbirdModule()).build();
+        ObjectMapper cbor = mapper().modulesToInstall(new BlackbirdModule()).factory(new CBORFactory()).build();
+        ColumnarJsonHttpMessageConverter columnar = new ColumnarJsonHttpMessageConverter(blackbird);
+
+        for (int round = 0; round < 3; round++) {
+            measure("JSON", () -> json.writeValueAsBytes(slots));
+            measure("JSON + Blackbird", () -> blackbird.writeValueAsBytes(slots));
+            measure("CBOR + Blackbird", () -> cbor.writeValueAsBytes(slots));
+            measure("columnar JSON", () -> {
+                MockHttpOutputMessage message = new MockHttpOutputMessage();
+                columnar.write(slots, ColumnarJsonHttpMessageConverter.COLUMNAR_JSON, message);
+                return message.getBodyAsBytes();
+            });
+        }
+    }
+
+    private static Jackson2ObjectMapperBuilder mapper() {
+        // The settings Spring Boot applies to its ObjectMapper
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static List<TimeSlotDTO> slots() {
+        String[] trainers = {"Иван Петров", "Мария Иванова", "Георги Димитров", "Елена Николова", "Петър Стоянов"};
+        String[] trainingTypes = {"Пилатес", "Йога", "Кросфит", "Спининг"};
+        LocalDateTime start = LocalDateTime.of(2025, 3, 3, 7, 0);
+        List<TimeSlotDTO> slots = new ArrayList<>(SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            LocalDateTime startTime = start.plusDays(i / 50).plusHours(i % 12);
+            int bookedCount = i % 11;
+            slots.add(new TimeSlotDTO((long) i + 1, (long) i % trainers.length + 1, trainers[i % trainers.length],
+                    (long) i % trainingTypes.length + 1, trainingTypes[i % trainingTypes.length],
+                    startTime, startTime.plusHours(1), 10, bookedCount,
+                    bookedCount >= 10 ? TimeSlotStatus.BOOKED : TimeSlotStatus.AVAILABLE, Math.max(0, 10 - bookedCount)));
+        }
+        return slots;
+    }
+
+    private static void measure(String name, Encoder encoder) throws IOException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        byte[] payload = encoder.encode();
+        for (int i = 0; i < WARMUP; i++) {
+            sink = encoder.encode().length;
+        }
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = encoder.encode().length;
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuBefore;
+        log.info(String.format("%-18s %9d B %8d B gzip %8.2f ms CPU/response",
+                name, payload.length, gzipped(payload), cpu / 1e6 / ITERATIONS));
+    }
+
+    private static int gzipped(byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(payload);
+        }
+        return compressed.size();
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        byte[] encode() throws IOException;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.fitness_booking_system.services;
 
 import com.example.fitness_booking_system.dto.AuthResponseDTO;
 import com.example.fitness_booking_system.dto.LoginRequestDTO;
+import com.example.fitness_booking_system.dto.LoginUserDTO;
 import com.example.fitness_booking_system.dto.RegisterRequestDTO;
 import com.example.fitness_booking_system.entities.Client;
 import com.example.fitness_booking_system.entities.Trainer;
@@ -11,16 +12,26 @@ import com.example.fitness_booking_system.repositories.ClientRepository;
 import com.example.fitness_booking_system.repositories.TrainerRepository;
 import com.example.fitness_booking_system.repositories.UserRepository;
 import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.security.PasswordHashingExecutor;
+import com.example.fitness_booking_system.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,7 +43,7 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
 
-    // Creates simulated versions of the UserRepository, ClientRepository, TrainerRepository, PasswordEncoder, and JwtUtil.
+    // Creates simulated versions of the UserRepository, ClientRepository, TrainerRepository, PasswordHashingExecutor, and JwtUtil.
     @Mock
     private UserRepository userRepository;
 
@@ -43,11 +54,24 @@ class AuthServiceTest {
     private TrainerRepository trainerRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private TrainerService trainerService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    // Runs the callback against a mocked transaction manager, so that the start of the transaction can be verified.
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     // Creates an instance of AuthService and injects the mocked dependencies into it.
     @InjectMocks
     private AuthService authService;
@@ -77,7 +101,7 @@ class AuthServiceTest {
     void shouldRegisterClientWhenDataIsValid() {
         // Arrange
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(passwordHashingExecutor.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         Client client = new Client();
@@ -97,6 +121,12 @@ class AuthServiceTest {
         verify(userRepository, times(1)).save(any(User.class));
         verify(clientRepository, times(1)).save(any(Client.class));
         verify(trainerRepository, never()).save(any(Trainer.class));
+
+        // The password is hashed before the transaction that saves the user begins
+        InOrder inOrder = inOrder(passwordHashingExecutor, transactionTemplate.getTransactionManager(), userRepository);
+        inOrder.verify(passwordHashingExecutor).encode("password123");
+        inOrder.verify(transactionTemplate.getTransactionManager()).getTransaction(any());
+        inOrder.verify(userRepository).save(any(User.class));
     }
 
     @Test
@@ -107,7 +137,7 @@ class AuthServiceTest {
         user.setRole(UserRole.TRAINER);
 
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(passwordHashingExecutor.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         Trainer trainer = new Trainer();
@@ -126,6 +156,7 @@ class AuthServiceTest {
         assertEquals(UserRole.TRAINER, response.getRole());
         verify(userRepository, times(1)).save(any(User.class));
         verify(trainerRepository, times(1)).save(any(Trainer.class));
+        verify(trainerService).indexTrainer(trainer);
         verify(clientRepository, never()).save(any(Client.class));
     }
 
@@ -156,6 +187,20 @@ class AuthServiceTest {
         assertEquals("400 BAD_REQUEST \"Трябва да сте поне на 16 години\"", exception.getMessage());
     }
 
+    @Test
+    void shouldThrowForbiddenWhenRegisteringAsAdmin() {
+        // Arrange
+        registerRequestDTO.setRole(UserRole.ADMIN);
+
+        // Act & Assert
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+            authService.register(registerRequestDTO);
+        });
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verify(userRepository, never()).save(any());
+    }
+
 
     @Test
     void shouldLoginUserWhenCredentialsAreValid() {
@@ -164,13 +209,10 @@ class AuthServiceTest {
         loginRequest.setEmail("test@example.com");
         loginRequest.setPassword("password123");
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-
-        Client client = new Client();
-        client.setId(10L);
-        when(clientRepository.findByUser(any(User.class))).thenReturn(Optional.of(client));
+        when(userRepository.findLoginByEmail(anyString())).thenReturn(Optional.of(loginUser(10L, null)));
+        when(passwordHashingExecutor.matches(anyString(), anyString())).thenReturn(true);
         when(jwtUtil.generateToken(anyString(), anyString())).thenReturn("test.token");
+        when(refreshTokenService.issue(user.getId())).thenReturn("refresh.token");
 
         // Act
         AuthResponseDTO response = authService.login(loginRequest);
@@ -178,8 +220,11 @@ class AuthServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals(user.getId(), response.getUserId());
-        assertEquals(client.getId(), response.getProfileId());
+        assertEquals(10L, response.getProfileId());
         assertEquals("test.token", response.getToken());
+        assertEquals("refresh.token", response.getRefreshToken());
+        verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(clientRepository, trainerRepository);
     }
 
     @Test
@@ -189,7 +234,7 @@ class AuthServiceTest {
         loginRequest.setEmail("nouser@example.com");
         loginRequest.setPassword("password123");
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findLoginByEmail(anyString())).thenReturn(Optional.empty());
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
@@ -197,6 +242,8 @@ class AuthServiceTest {
         });
 
         assertEquals("401 UNAUTHORIZED \"Невалидни потребителски данни\"", exception.getMessage());
+        // The password is still verified, so an unknown email is not answered faster than a wrong password
+        verify(passwordHashingExecutor).matchesNone("password123");
     }
 
     @Test
@@ -206,8 +253,8 @@ class AuthServiceTest {
         loginRequest.setEmail("test@example.com");
         loginRequest.setPassword("wrongpassword");
 
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(false);
+        when(userRepository.findLoginByEmail(anyString())).thenReturn(Optional.of(loginUser(10L, null)));
+        when(passwordHashingExecutor.matches(anyString(), anyString())).thenReturn(false);
 
         // Act & Assert
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
@@ -216,4 +263,38 @@ class AuthServiceTest {
 
         assertEquals("401 UNAUTHORIZED \"Невалидни потребителски данни\"", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRotateRefreshTokenAndIssueNewAccessToken() {
+        when(refreshTokenService.rotate("old.refresh"))
+                .thenReturn(new RefreshTokenService.IssuedToken(user.getId(), "new.refresh"));
+        when(userRepository.findLoginById(user.getId())).thenReturn(Optional.of(loginUser(10L, null)));
+        when(jwtUtil.generateToken(user.getEmail(), "CLIENT")).thenReturn("new.token");
+
+        AuthResponseDTO response = authService.refresh("old.refresh");
+
+        assertEquals("new.token", response.getToken());
+        assertEquals("new.refresh", response.getRefreshToken());
+        assertEquals(10L, response.getProfileId());
+    }
+
+    @Test
+    void shouldRevokeAccessAndRefreshTokensOnLogout() {
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        Claims claims = mock(Claims.class);
+        when(claims.getId()).thenReturn("token-id");
+        when(claims.getExpiration()).thenReturn(expiration);
+        when(jwtUtil.extractAllClaims("access.token")).thenReturn(claims);
+
+        authService.logout("access.token", "refresh.token");
+
+        verify(tokenRevocationList).revoke("token-id",
+                LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault()));
+        verify(refreshTokenService).revoke("refresh.token");
+    }
+
+    private LoginUserDTO loginUser(Long clientId, Long trainerId) {
+        return new LoginUserDTO(user.getId(), user.getEmail(), user.getFullName(), user.getPassword(),
+                user.getRole(), clientId, trainerId);
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.BookingCreateDTO;
+import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAdmissionServiceTest {
+
+    @Mock
+    private BookingService bookingService;
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingAdmissionService admissionService;
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionService = new BookingAdmissionService(bookingService, timeSlotRepository, meterRegistry);
+        ReflectionTestUtils.setField(admissionService, "hotThreshold", 1);
+        ReflectionTestUtils.setField(admissionService, "idleTimeoutMs", 100L);
+        admissionService.registerMetrics();
+        clients = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+    }
+
+    @Test
+    void createBooking_ShouldBookHotSlotInArrivalOrderAndRejectTheRestWithoutDatabaseWork() throws Exception {
+        ReflectionTestUtils.setField(admissionService, "idleTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(admissionService, "refreshIntervalMs", 60000L);
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.of(slot(3, 1)));
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        when(bookingService.createBooking(any(), any())).thenAnswer(invocation -> {
+            Long clientId = invocation.getArgument(0);
+            if (clientId == 1L) {
+                firstStarted.countDown();
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            }
+            BookingDTO booking = new BookingDTO();
+            booking.setClientId(clientId);
+            return booking;
+        });
+
+        List<Future<BookingDTO>> results = new ArrayList<>();
+        results.add(clients.submit(() -> admissionService.createBooking(1L, request(1L))));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        for (long clientId = 2; clientId <= 5; clientId++) {
+            long id = clientId;
+            results.add(clients.submit(() -> admissionService.createBooking(id, request(1L))));
+            awaitQueueDepth((int) clientId - 1);
+        }
+        assertEquals(4.0, meterRegistry.get("booking.admission.queue").tag("slot", "1").gauge().value());
+        releaseFirst.countDown();
+
+        assertEquals(1L, results.get(0).get(5, TimeUnit.SECONDS).getClientId());
+        assertEquals(2L, results.get(1).get(5, TimeUnit.SECONDS).getClientId());
+        for (int i = 2; i < 5; i++) {
+            ExecutionException exception = assertThrows(ExecutionException.class, results.get(i)::get);
+            assertEquals(HttpStatus.CONFLICT, ((ResponseStatusException) exception.getCause()).getStatusCode());
+        }
+
+        InOrder inOrder = inOrder(bookingService);
+        inOrder.verify(bookingService).createBooking(eq(1L), any());
+        inOrder.verify(bookingService).createBooking(eq(2L), any());
+        verifyNoMoreInteractions(bookingService);
+        verify(timeSlotRepository, times(1)).findSlotViewById(1L);
+        assertEquals(3.0, meterRegistry.get("booking.admission.rejected").tag("reason", "full").counter().count());
+
+        // A full lane answers new requests at once, without queueing them
+        assertThrows(ResponseStatusException.class, () -> admissionService.createBooking(6L, request(1L)));
+        assertEquals(0, admissionService.getQueueDepth(1L));
+    }
+
+    @Test
+    void createBooking_ShouldCommitQueuedRequestsAsOneGroup() throws Exception {
+        ReflectionTestUtils.setField(admissionService, "idleTimeoutMs", 5000L);
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.of(slot(10, 0)));
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        when(bookingService.createBooking(eq(1L), any())).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            releaseFirst.await(5, TimeUnit.SECONDS);
+            return new BookingDTO();
+        });
+        when(bookingService.createBookings(eq(1L), anyList())).thenAnswer(invocation -> {
+            List<Long> clientIds = invocation.getArgument(1);
+            return clientIds.stream().map(clientId -> {
+                if (clientId == 3L) {
+                    return BookingService.GroupBookingResult.failed(new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Вече имате резервация за този времеви слот"));
+                }
+                BookingDTO booking = new BookingDTO();
+                booking.setClientId(clientId);
+                return BookingService.GroupBookingResult.booked(booking);
+            }).toList();
+        });
+
+        List<Future<BookingDTO>> results = new ArrayList<>();
+        results.add(clients.submit(() -> admissionService.createBooking(1L, request(1L))));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        for (long clientId = 2; clientId <= 5; clientId++) {
+            long id = clientId;
+            results.add(clients.submit(() -> admissionService.createBooking(id, request(1L))));
+            awaitQueueDepth((int) clientId - 1);
+        }
+        releaseFirst.countDown();
+
+        results.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals(2L, results.get(1).get(5, TimeUnit.SECONDS).getClientId());
+        ExecutionException exception = assertThrows(ExecutionException.class, results.get(2)::get);
+        assertEquals(HttpStatus.CONFLICT, ((ResponseStatusException) exception.getCause()).getStatusCode());
+        assertEquals(4L, results.get(3).get(5, TimeUnit.SECONDS).getClientId());
+        assertEquals(5L, results.get(4).get(5, TimeUnit.SECONDS).getClientId());
+
+        verify(bookingService).createBookings(1L, List.of(2L, 3L, 4L, 5L));
+        verify(bookingService, times(1)).createBooking(any(), any());
+        assertEquals(4.0, meterRegistry.get("booking.admission.group").summary().max());
+    }
+
+    @Test
+    void createBooking_AfterMaxWait_ShouldNeverBookTheCancelledRequestButWaitForTheClaimedOne() throws Exception {
+        ReflectionTestUtils.setField(admissionService, "idleTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(admissionService, "maxWaitMs", 100L);
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.of(slot(10, 0)));
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        BookingDTO booking = new BookingDTO();
+        when(bookingService.createBooking(eq(1L), any())).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            releaseFirst.await(5, TimeUnit.SECONDS);
+            return booking;
+        });
+
+        Future<BookingDTO> first = clients.submit(() -> admissionService.createBooking(1L, request(1L)));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // The second request is still queued when its caller stops waiting
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> admissionService.createBooking(2L, request(1L)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        releaseFirst.countDown();
+
+        // The first request was already being booked, so its caller gets the booking instead of 503
+        assertSame(booking, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("booking.admission.rejected").tag("reason", "timeout").counter().count());
+        verify(bookingService, after(200).never()).createBooking(eq(2L), any());
+        verify(bookingService, never()).createBookings(any(), anyList());
+    }
+
+    @Test
+    void createBooking_BelowHotThreshold_ShouldBookDirectly() {
+        ReflectionTestUtils.setField(admissionService, "hotThreshold", 4);
+        BookingDTO booking = new BookingDTO();
+        when(bookingService.createBooking(eq(1L), any())).thenReturn(booking);
+
+        assertSame(booking, admissionService.createBooking(1L, request(1L)));
+
+        assertFalse(admissionService.isHot(1L));
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    @Test
+    void createBooking_ShouldPassOnBookingErrorsAndEndIdleLane() throws Exception {
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.of(slot(10, 0)));
+        when(bookingService.createBooking(eq(1L), any())).thenThrow(new ResponseStatusException(HttpStatus.CONFLICT,
+                "Вече имате резервация за този времеви слот"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> admissionService.createBooking(1L, request(1L)));
+        assertEquals("Вече имате резервация за този времеви слот", exception.getReason());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (admissionService.isHot(1L)) {
+            assertTrue(System.currentTimeMillis() < deadline, "idle lane did not end");
+            Thread.sleep(10);
+        }
+        assertNull(meterRegistry.find("booking.admission.queue").tag("slot", "1").gauge());
+        assertNull(meterRegistry.find("booking.admission.wait").tag("slot", "1").timer());
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (admissionService.getQueueDepth(1L) < depth) {
+            assertTrue(System.currentTimeMillis() < deadline, "request was not queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private static BookingCreateDTO request(Long timeSlotId) {
+        BookingCreateDTO createDTO = new BookingCreateDTO();
+        createDTO.setTimeSlotId(timeSlotId);
+        return createDTO;
+    }
+
+    private static TimeSlotDTO slot(int capacity, int bookedCount) {
+        TimeSlotDTO slot = new TimeSlotDTO();
+        slot.setId(1L);
+        slot.setCapacity(capacity);
+        slot.setBookedCount(bookedCount);
+        slot.setStatus(TimeSlotStatus.AVAILABLE);
+        return slot;
+    }
+}
@@ -1,8 +1,11 @@
 
 package com.example.fitness_booking_system.services;
 
+import com.example.fitness_booking_system.datasource.ReadYourWritesTracker;
 import com.example.fitness_booking_system.dto.BookingCreateDTO;
 import com.example.fitness_booking_system.dto.BookingDTO;
+import com.example.fitness_booking_system.dto.BookingPageDTO;
+import com.example.fitness_booking_system.dto.BookingScope;
 import com.example.fitness_booking_system.entities.*;
 import com.example.fitness_booking_system.repositories.BookingRepository;
 import com.example.fitness_booking_system.repositories.ClientRepository;
@@ -12,11 +15,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +51,21 @@ class BookingServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private CalendarFeedService calendarFeedService;
+
+    @Mock
+    private TrainerStatsService trainerStatsService;
+
+    @Mock
+    private TrainerDigestService trainerDigestService;
+
+    @Spy
+    private Clock clock = Clock.systemDefaultZone();
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -94,14 +118,17 @@ class BookingServiceTest {
     @Test
     void shouldGetClientBookings() {
         when(clientRepository.existsById(1L)).thenReturn(true);
-        when(bookingRepository.findByClientId(1L)).thenReturn(Collections.singletonList(booking));
+        BookingDTO view = new BookingDTO(1L, 1L, "Test Client", 1L, 1L, "Test Trainer", "Йога",
+                timeSlot.getStartTime(), timeSlot.getEndTime(), BookingStatus.CONFIRMED);
+        when(bookingRepository.findBookingViewsByClientId(1L)).thenReturn(List.of(view));
 
         List<BookingDTO> result = bookingService.getClientBookings(1L);
 
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(booking.getId(), result.get(0).getId());
-        verify(bookingRepository).findByClientId(1L);
+        assertNotNull(result.get(0).getFormattedDate());
+        verify(bookingRepository).findBookingViewsByClientId(1L);
     }
 
     @Test
@@ -110,6 +137,82 @@ class BookingServiceTest {
         assertThrows(ResponseStatusException.class, () -> bookingService.getClientBookings(1L));
     }
 
+    @Test
+    void shouldReturnFirstUpcomingPageWithCursor() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 7, 8, 0);
+        List<BookingDTO> views = List.of(
+                new BookingDTO(5L, 1L, "Test Client", 1L, 1L, "Test Trainer", "Yoga",
+                        start, start.plusHours(1), BookingStatus.CONFIRMED),
+                new BookingDTO(3L, 1L, "Test Client", 2L, 1L, "Test Trainer", "Yoga",
+                        start.plusDays(1), start.plusDays(1).plusHours(1), BookingStatus.CONFIRMED),
+                new BookingDTO(9L, 1L, "Test Client", 3L, 1L, "Test Trainer", "Yoga",
+                        start.plusDays(2), start.plusDays(2).plusHours(1), BookingStatus.CONFIRMED));
+        when(clientRepository.existsById(1L)).thenReturn(true);
+        bookingService.checkSlotStartTimeFilled();
+        when(bookingRepository.findClientBookingViewsAfter(eq(1L), eq(EnumSet.of(BookingStatus.CONFIRMED)),
+                any(LocalDateTime.class), eq(Long.MIN_VALUE), eq(Limit.of(3)))).thenReturn(views);
+
+        BookingPageDTO page = bookingService.getClientBookingPage(1L, BookingScope.UPCOMING,
+                BookingStatus.CONFIRMED, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("08.01.2030", page.getItems().get(1).getFormattedDate());
+        assertEquals("08:00 - 09:00", page.getItems().get(1).getFormattedTime());
+        assertNotNull(page.getNextCursor());
+
+        when(bookingRepository.findClientBookingViewsAfter(1L, EnumSet.allOf(BookingStatus.class),
+                start.plusDays(1), 3L, Limit.of(3))).thenReturn(views.subList(2, 3));
+
+        BookingPageDTO next = bookingService.getClientBookingPage(1L, BookingScope.UPCOMING,
+                null, page.getNextCursor(), 2);
+
+        assertEquals(1, next.getItems().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void shouldReadPastPagesBackwards() {
+        when(clientRepository.existsById(1L)).thenReturn(true);
+        bookingService.checkSlotStartTimeFilled();
+        when(bookingRepository.findClientBookingViewsBefore(eq(1L), any(), any(LocalDateTime.class),
+                eq(Long.MIN_VALUE), eq(Limit.of(21)))).thenReturn(List.of());
+
+        BookingPageDTO page = bookingService.getClientBookingPage(1L, BookingScope.PAST, null, null, 20);
+
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(bookingRepository, never()).findClientBookingViewsAfter(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldPageBySlotJoinUntilSlotStartTimeIsBackfilled() {
+        when(clientRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findIdsWithoutSlotStartTime(Limit.of(1))).thenReturn(List.of(7L));
+        bookingService.checkSlotStartTimeFilled();
+        LocalDateTime now = LocalDateTime.of(2030, 1, 7, 8, 0);
+        Instant instant = now.atZone(clock.getZone()).toInstant();
+        doReturn(instant).when(clock).instant();
+
+        bookingService.getClientBookingPage(1L, BookingScope.UPCOMING, null, null, 20);
+
+        verify(bookingRepository).findClientBookingViewsAfterBySlotJoin(1L, EnumSet.allOf(BookingStatus.class),
+                now, Long.MIN_VALUE, Limit.of(21));
+        verify(bookingRepository, never()).findClientBookingViewsAfter(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectInvalidCursorAndPageSize() {
+        when(clientRepository.existsById(1L)).thenReturn(true);
+
+        ResponseStatusException cursorException = assertThrows(ResponseStatusException.class,
+                () -> bookingService.getClientBookingPage(1L, BookingScope.UPCOMING, null, "not-a-cursor", 20));
+        ResponseStatusException sizeException = assertThrows(ResponseStatusException.class,
+                () -> bookingService.getClientBookingPage(1L, BookingScope.UPCOMING, null, null, 500));
+
+        assertEquals(HttpStatus.BAD_REQUEST, cursorException.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sizeException.getStatusCode());
+    }
+
     @Test
     void shouldCreateBookingSuccessfully() {
         BookingCreateDTO createDTO = new BookingCreateDTO();
@@ -137,14 +240,59 @@ class BookingServiceTest {
                 anyString()
         );
 
-        verify(emailService).sendBookingNotificationToTrainer(
-                eq("trainer@test.com"),
-                eq("Test Trainer"),
-                eq("Test Client"),
-                eq("Yoga"),
-                anyString(),
-                anyString()
-        );
+        verify(calendarFeedService).markClientChanged(client.getId());
+
+        verify(trainerDigestService).recordBooking(timeSlot, client);
+    }
+
+    @Test
+    void shouldCreateGroupOfBookingsWithOneCapacityUpdate() {
+        timeSlot.setCapacity(3);
+        Client second = new Client();
+        second.setId(2L);
+        second.setUser(clientUser);
+        Client third = new Client();
+        third.setId(3L);
+        third.setUser(clientUser);
+        List<Long> clientIds = List.of(1L, 2L, 3L, 4L, 1L);
+
+        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(timeSlot));
+        when(clientRepository.findWithUserByIdIn(clientIds)).thenReturn(List.of(client, second, third));
+        when(bookingRepository.findClientIdsWithBookingForTimeSlot(1L, clientIds, BookingStatus.CANCELLED))
+                .thenReturn(List.of(3L));
+        when(timeSlotRepository.addBookings(1L, 2, TimeSlotStatus.BOOKED)).thenReturn(1);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingService.GroupBookingResult> results = bookingService.createBookings(1L, clientIds);
+
+        assertEquals(5, results.size());
+        assertEquals(1L, results.get(0).booking().getClientId());
+        assertEquals(2L, results.get(1).booking().getClientId());
+        assertEquals(HttpStatus.CONFLICT, results.get(2).error().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, results.get(3).error().getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, results.get(4).error().getStatusCode());
+        verify(timeSlotRepository).addBookings(1L, 2, TimeSlotStatus.BOOKED);
+        verify(bookingRepository).saveAll(argThat(bookings -> ((List<?>) bookings).size() == 2));
+        verify(timeSlotService, never()).incrementBookingCount(any());
+        verify(emailService, times(2)).sendBookingConfirmationToClient(anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldRejectWholeGroupWhenCapacityUpdateFails() {
+        timeSlot.setCapacity(3);
+        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(timeSlot));
+        when(clientRepository.findWithUserByIdIn(List.of(1L))).thenReturn(List.of(client));
+        when(bookingRepository.findClientIdsWithBookingForTimeSlot(1L, List.of(1L), BookingStatus.CANCELLED))
+                .thenReturn(List.of());
+        when(timeSlotRepository.addBookings(1L, 1, TimeSlotStatus.BOOKED)).thenReturn(0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> bookingService.createBookings(1L, List.of(1L)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(bookingRepository, never()).saveAll(any());
+        verifyNoInteractions(emailService);
     }
 
     @Test
@@ -163,7 +311,7 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно създаване
         verify(emailService, never()).sendBookingConfirmationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendBookingNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordBooking(any(), any());
     }
 
     @Test
@@ -179,7 +327,7 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно създаване
         verify(emailService, never()).sendBookingConfirmationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendBookingNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordBooking(any(), any());
     }
 
     @Test
@@ -198,7 +346,7 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно създаване
         verify(emailService, never()).sendBookingConfirmationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendBookingNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordBooking(any(), any());
     }
 
     @Test
@@ -223,14 +371,10 @@ class BookingServiceTest {
                 anyString()
         );
 
-        verify(emailService).sendCancellationNotificationToTrainer(
-                eq("trainer@test.com"),
-                eq("Test Trainer"),
-                eq("Test Client"),
-                eq("Yoga"),
-                anyString(),
-                anyString()
-        );
+        verify(trainerStatsService).recordBookingCancelled(eq(trainer.getId()), any(), any());
+        verify(calendarFeedService).markClientChanged(client.getId());
+
+        verify(trainerDigestService).recordCancellation(booking.getTimeSlot(), client);
     }
 
     @Test
@@ -242,7 +386,7 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно отменяне
         verify(emailService, never()).sendCancellationNotificationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendCancellationNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordCancellation(any(), any());
     }
 
     @Test
@@ -254,7 +398,7 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно отменяне
         verify(emailService, never()).sendCancellationNotificationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendCancellationNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordCancellation(any(), any());
     }
 
     @Test
@@ -265,6 +409,6 @@ class BookingServiceTest {
 
         // Проверяваме че не се изпращат имейли при неуспешно отменяне
         verify(emailService, never()).sendCancellationNotificationToClient(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
-        verify(emailService, never()).sendCancellationNotificationToTrainer(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(trainerDigestService, never()).recordCancellation(any(), any());
     }
 }
\ No newline at end of file
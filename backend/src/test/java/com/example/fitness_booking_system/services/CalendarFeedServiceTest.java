@@ -0,0 +1,225 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.entities.BookingStatus;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.repositories.BookingRepository;
+import com.example.fitness_booking_system.repositories.ClientRepository;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.TrainerRepository;
+import com.example.fitness_booking_system.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarFeedServiceTest {
+
+    private static final String TOKEN = "feed-token";
+    private static final String TOKEN_HASH = RefreshTokenService.hash(TOKEN);
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private TrainerRepository trainerRepository;
+
+    @Mock
+    private ClientRepository clientRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CalendarFeedService calendarFeedService;
+
+    private TimeSlotDTO timeSlot;
+
+    @BeforeEach
+    void setUp() {
+        calendarFeedService = serviceAt("2025-11-15T10:00:00Z");
+
+        timeSlot = new TimeSlotDTO(7L, 1L, "Иван Петров", 2L, "Йога, за начинаещи",
+                LocalDateTime.of(2025, 11, 20, 18, 0), LocalDateTime.of(2025, 11, 20, 19, 0),
+                10, 3, TimeSlotStatus.AVAILABLE, 7);
+    }
+
+    @Test
+    void shouldRenderTrainerFeed() throws IOException {
+        when(timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(eq(1L),
+                eq(LocalDateTime.of(2025, 10, 16, 0, 0)), eq(LocalDateTime.of(2026, 5, 15, 0, 0))))
+                .thenReturn(List.of(timeSlot));
+
+        String content = trainerFeed(1L);
+
+        assertTrue(content.startsWith("BEGIN:VCALENDAR\r\n"));
+        assertTrue(content.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(content.contains("UID:time-slot-7@fitness-booking-system\r\n"));
+        assertTrue(content.contains("DTSTART:20251120T180000\r\n"));
+        assertTrue(content.contains("SUMMARY:Йога\\, за начинаещи\r\n"));
+        assertTrue(content.contains("STATUS:CONFIRMED\r\n"));
+    }
+
+    @Test
+    void shouldFoldLongLinesAt75Octets() throws IOException {
+        timeSlot.setTrainingTypeName("Функционална тренировка с тежести и кардио за напреднали, група вечер \uD83C\uDFCB");
+        when(timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(eq(1L), any(), any()))
+                .thenReturn(List.of(timeSlot));
+
+        String content = trainerFeed(1L);
+
+        for (String line : content.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        String unfolded = content.replace("\r\n ", "");
+        assertTrue(unfolded.contains("SUMMARY:" + timeSlot.getTrainingTypeName().replace(",", "\\,")));
+    }
+
+    @Test
+    void shouldReuseRenderedEventUntilTimeSlotChanges() throws IOException {
+        // Every render would get a later DTSTAMP, so an unchanged feed shows that the event was reused
+        Clock clock = mock(Clock.class);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        when(clock.instant()).thenReturn(Instant.parse("2025-11-15T10:00:00Z"), Instant.parse("2025-11-15T10:05:00Z"),
+                Instant.parse("2025-11-15T10:10:00Z"), Instant.parse("2025-11-15T10:15:00Z"),
+                Instant.parse("2025-11-15T10:20:00Z"));
+        calendarFeedService = new CalendarFeedService(timeSlotRepository, bookingRepository,
+                trainerRepository, clientRepository, userRepository, clock);
+        when(timeSlotRepository.findSlotViewsByTrainerIdAndStartTimeBetween(eq(1L), any(), any()))
+                .thenReturn(List.of(timeSlot));
+
+        String first = trainerFeed(1L);
+        assertEquals(first, trainerFeed(1L));
+
+        timeSlot.setStatus(TimeSlotStatus.CANCELLED);
+        String changed = trainerFeed(1L);
+        assertTrue(changed.contains("STATUS:CANCELLED\r\n"));
+        assertTrue(changed.contains("DTSTAMP:20251115T102000Z\r\n"), changed);
+    }
+
+    @Test
+    void shouldDeriveEtagFromPersistedVersionAndWindow() {
+        when(trainerRepository.findFeedVersionByIdAndTokenHash(1L, TOKEN_HASH)).thenReturn(Optional.of(3L), Optional.of(4L));
+
+        String etag = calendarFeedService.getTrainerEtag(1L, TOKEN);
+
+        assertEquals("\"t1-3-20251016\"", etag);
+        assertNotEquals(etag, calendarFeedService.getTrainerEtag(1L, TOKEN));
+    }
+
+    @Test
+    void shouldChangeEtagWhenWindowMovesOnToNextDay() {
+        when(trainerRepository.findFeedVersionByIdAndTokenHash(1L, TOKEN_HASH)).thenReturn(Optional.of(3L));
+
+        String etag = calendarFeedService.getTrainerEtag(1L, TOKEN);
+
+        assertEquals(etag, serviceAt("2025-11-15T23:59:00Z").getTrainerEtag(1L, TOKEN));
+        assertNotEquals(etag, serviceAt("2025-11-16T00:00:00Z").getTrainerEtag(1L, TOKEN));
+    }
+
+    @Test
+    void shouldRejectTokenThatIsNotTheTrainers() {
+        when(trainerRepository.findFeedVersionByIdAndTokenHash(1L, TOKEN_HASH)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> calendarFeedService.getTrainerEtag(1L, TOKEN));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    @Test
+    void shouldRejectMissingTokenWithoutQuery() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> calendarFeedService.getClientEtag(5L, null));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verifyNoInteractions(clientRepository);
+    }
+
+    @Test
+    void shouldStoreOnlyHashOfRotatedToken() {
+        when(userRepository.updateCalendarTokenHash(eq("trainer@test.com"), any())).thenReturn(1);
+
+        String token = calendarFeedService.rotateToken("trainer@test.com");
+
+        verify(userRepository).updateCalendarTokenHash("trainer@test.com", RefreshTokenService.hash(token));
+        assertNotEquals(token, calendarFeedService.rotateToken("trainer@test.com"));
+    }
+
+    @Test
+    void shouldIncrementVersionsOfChangedTrainersInOneStatement() {
+        calendarFeedService.markTrainersChanged(List.of(3L, 1L, 2L));
+
+        verify(trainerRepository).incrementFeedVersions(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L, 3L))));
+    }
+
+    @Test
+    void shouldSkipUpdateWhenNothingChanged() {
+        calendarFeedService.markTrainersChanged(List.of());
+        calendarFeedService.markClientsChanged(List.of());
+
+        verifyNoInteractions(trainerRepository, clientRepository);
+    }
+
+    @Test
+    void shouldInvalidateFeedsOfBookedClientsWhenTrainerIsRenamed() {
+        calendarFeedService.markTrainerRenamed(1L);
+
+        verify(trainerRepository).incrementFeedVersions(Set.of(1L));
+        verify(clientRepository).incrementFeedVersionsByTrainerId(1L, BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    void shouldRenderClientFeedFromConfirmedBookings() throws IOException {
+        when(clientRepository.findFeedVersionByIdAndTokenHash(5L, TOKEN_HASH)).thenReturn(Optional.of(0L));
+        when(bookingRepository.findBookedSlotViewsByClientId(5L, BookingStatus.CONFIRMED,
+                LocalDateTime.of(2025, 10, 16, 0, 0)))
+                .thenReturn(List.of(timeSlot));
+
+        StringWriter out = new StringWriter();
+        calendarFeedService.writeClientFeed(5L, out);
+
+        assertTrue(out.toString().contains("DESCRIPTION:Треньор: Иван Петров\r\n"));
+        assertEquals("\"c5-0-20251016\"", calendarFeedService.getClientEtag(5L, TOKEN));
+    }
+
+    private String trainerFeed(Long trainerId) throws IOException {
+        return render(calendarFeedService, trainerId);
+    }
+
+    private static String render(CalendarFeedService service, Long trainerId) throws IOException {
+        StringWriter out = new StringWriter();
+        service.writeTrainerFeed(trainerId, out);
+        return out.toString();
+    }
+
+    private CalendarFeedService serviceAt(String instant) {
+        Clock clock = Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+        return new CalendarFeedService(timeSlotRepository, bookingRepository,
+                trainerRepository, clientRepository, userRepository, clock);
+    }
+}
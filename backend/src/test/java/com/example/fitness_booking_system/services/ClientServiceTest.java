@@ -1,5 +1,6 @@
 package com.example.fitness_booking_system.services;
 
+import com.example.fitness_booking_system.datasource.ReadYourWritesTracker;
 import com.example.fitness_booking_system.dto.ClientDTO;
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.entities.Client;
@@ -31,6 +32,9 @@ class ClientServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
     @InjectMocks
     private ClientService clientService;
 
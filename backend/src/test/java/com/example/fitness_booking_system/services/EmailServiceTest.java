@@ -0,0 +1,121 @@
+package com.example.fitness_booking_system.services;
+
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+    @Mock
+    private JavaMailSender javaMailSender;
+
+    @Mock
+    private MailTransportPool mailTransportPool;
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        EmailTemplateEngine engine = new EmailTemplateEngine();
+        emailService = new EmailService(javaMailSender, engine, mailTransportPool);
+        ReflectionTestUtils.setField(emailService, "sender", "noreply@fitness.bg");
+        emailService.compileTemplates();
+        when(javaMailSender.createMimeMessage()).thenReturn(new MimeMessage(Session.getInstance(new Properties())));
+    }
+
+    @Test
+    void sendBookingConfirmationToClient_ShouldSendMultipartMessageWithTextAndHtml() throws Exception {
+        emailService.sendBookingConfirmationToClient("maria@test.com", "Мария Иванова",
+                "Пилатес", "Иван Петров", "01.03.2025", "10:00");
+
+        ArgumentCaptor<MimeMessage> captor = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailTransportPool).send(captor.capture());
+        MimeMessage message = captor.getValue();
+        assertEquals("Потвърждение за резервация - Fitness Booking System", message.getSubject());
+        assertEquals("maria@test.com", message.getAllRecipients()[0].toString());
+        assertEquals("noreply@fitness.bg", message.getFrom()[0].toString());
+        assertInstanceOf(Multipart.class, message.getContent());
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        message.writeTo(raw);
+        String content = raw.toString(StandardCharsets.UTF_8);
+        assertTrue(content.contains("text/plain"));
+        assertTrue(content.contains("text/html"));
+    }
+
+    @Test
+    void sendCancellationNotificationToTrainer_WhenMessageCannotBeBuilt_ShouldThrow() {
+        ReflectionTestUtils.setField(emailService, "sender", "not an address");
+
+        assertThrows(RuntimeException.class, () -> emailService.sendCancellationNotificationToTrainer(
+                "trainer@test.com", "Иван Петров", "Мария Иванова", "Пилатес", "01.03.2025", "10:00"));
+        verify(mailTransportPool, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void sendBookingNotificationToTrainer_InsideTransaction_ShouldQueueMessageOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            emailService.sendBookingNotificationToTrainer("trainer@test.com", "Иван Петров",
+                    "Мария Иванова", "Пилатес", "01.03.2025", "10:00");
+            verify(mailTransportPool, never()).send(any(MimeMessage.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(mailTransportPool).send(any(MimeMessage.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendTrainerDigest_ShouldSendTheSummaryWithEscapedHtml() throws Exception {
+        emailService.sendTrainerDigest("trainer@test.com", "Иван Петров", 2,
+                "Пилатес, 01.03.2025, 10:00 - 11:00\n  Нови резервации (2): Мария <Иванова>, Георги Георгиев");
+
+        ArgumentCaptor<MimeMessage> captor = ArgumentCaptor.forClass(MimeMessage.class);
+        verify(mailTransportPool).send(captor.capture());
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        captor.getValue().writeTo(raw);
+        MimeMessage message = new MimeMessage(Session.getInstance(new Properties()),
+                new ByteArrayInputStream(raw.toByteArray()));
+        assertEquals("Обобщение на резервациите (2) - Fitness Booking System", message.getSubject());
+        assertTrue(part(message, "text/html").contains("Мария &lt;Иванова&gt;"));
+        assertTrue(part(message, "text/plain").contains("Мария <Иванова>"));
+    }
+
+    private static String part(Part part, String mimeType) throws Exception {
+        if (part.isMimeType(mimeType)) {
+            return (String) part.getContent();
+        }
+        if (part.getContent() instanceof Multipart multipart) {
+            for (int i = 0; i < multipart.getCount(); i++) {
+                String content = part(multipart.getBodyPart(i), mimeType);
+                if (content != null) {
+                    return content;
+                }
+            }
+        }
+        return null;
+    }
+}
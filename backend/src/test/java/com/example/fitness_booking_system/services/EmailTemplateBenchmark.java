@@ -0,0 +1,85 @@
+package com.example.fitness_booking_system.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.util.HtmlUtils;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares rendering a booking email from the compiled template with the former String.format path,
+ * both for the former text-only message and for the same subject, text and HTML parts the template produces.
+ * Not a unit test; run it from the IDE or with the test classpath, e.g.
+ * {@code java -cp target/classes:target/test-classes:<dependencies> com.example.fitness_booking_system.services.EmailTemplateBenchmark}.
+ * Logs the average time and the allocated bytes per rendered message.
+ */
+@Slf4j
+public class EmailTemplateBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final String FORMAT = "Уважаеми/а %s,\n\n" +
+            "Вашата резервация беше успешно направена!\n\n" +
+            "Детайли за резервацията:\n" +
+            "• Вид тренировка: %s\n" +
+            "• Треньор: %s\n" +
+            "• Дата: %s\n" +
+            "• Час: %s\n\n" +
+            "Моля, бъдете навреме за тренировката си.\n\n" +
+            "С най-добри пожелания,\n" +
+            "Екипът на Fitness Booking System";
+
+    private static final String SUBJECT = "Потвърждение за резервация - Fitness Booking System";
+
+    private static final String HTML_FORMAT = "<!DOCTYPE html>\n" +
+            "<html lang=\"bg\">\n" +
+            "<body style=\"font-family: Arial, sans-serif; color: #222222;\">\n" +
+            "<p>Уважаеми/а %s,</p>\n" +
+            "<p>Вашата резервация беше успешно направена!</p>\n" +
+            "<h3 style=\"margin-bottom: 4px;\">Детайли за резервацията</h3>\n" +
+            "<table cellpadding=\"4\" style=\"border-collapse: collapse;\">\n" +
+            "<tr><td style=\"color: #666666;\">Вид тренировка</td><td><strong>%s</strong></td></tr>\n" +
+            "<tr><td style=\"color: #666666;\">Треньор</td><td><strong>%s</strong></td></tr>\n" +
+            "<tr><td style=\"color: #666666;\">Дата</td><td><strong>%s</strong></td></tr>\n" +
+            "<tr><td style=\"color: #666666;\">Час</td><td><strong>%s</strong></td></tr>\n" +
+            "</table>\n" +
+            "<p>Моля, бъдете навреме за тренировката си.</p>\n" +
+            "<p>С най-добри пожелания,<br>Екипът на Fitness Booking System</p>\n" +
+            "</body>\n" +
+            "</html>";
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        EmailTemplate template = new EmailTemplateEngine().compile("booking-confirmation-client",
+                "clientName", "trainerName", "trainingType", "date", "time");
+
+        Runnable format = () -> sink = String.format(FORMAT, "Мария Иванова", "Пилатес", "Иван Петров", "01.03.2025", "10:00");
+        Runnable formatAll = () -> sink = new EmailTemplate.RenderedEmail(SUBJECT,
+                String.format(FORMAT, "Мария Иванова", "Пилатес", "Иван Петров", "01.03.2025", "10:00"),
+                String.format(HTML_FORMAT, HtmlUtils.htmlEscape("Мария Иванова"), HtmlUtils.htmlEscape("Пилатес"),
+                        HtmlUtils.htmlEscape("Иван Петров"), HtmlUtils.htmlEscape("01.03.2025"), HtmlUtils.htmlEscape("10:00")));
+        Runnable render = () -> sink = template.render("Мария Иванова", "Иван Петров", "Пилатес", "01.03.2025", "10:00");
+
+        for (int round = 0; round < 3; round++) {
+            measure("String.format (text only)", format);
+            measure("String.format (subject + text + html)", formatAll);
+            measure("template (subject + text + html)", render);
+        }
+    }
+
+    private static void measure(String name, Runnable render) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            render.run();
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            render.run();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        log.info(String.format("%-38s %8.1f ns/op %8d B/op", name, (double) elapsed / ITERATIONS, allocated / ITERATIONS));
+    }
+}
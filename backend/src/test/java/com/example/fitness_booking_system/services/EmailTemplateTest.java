@@ -0,0 +1,90 @@
+package com.example.fitness_booking_system.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateTest {
+
+    private static final String[] PARAMETERS = {"clientName", "trainerName", "trainingType", "date", "time"};
+
+    private EmailTemplateEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new EmailTemplateEngine();
+        ReflectionTestUtils.setField(engine, "defaultLocale", "bg");
+        ReflectionTestUtils.setField(engine, "locales", new String[]{"bg", "en"});
+    }
+
+    @Test
+    void render_ShouldProduceTheSameTextAsTheFormerFormatString() {
+        EmailTemplate template = engine.compile("booking-confirmation-client", PARAMETERS);
+
+        EmailTemplate.RenderedEmail email = template.render("Мария Иванова", "Иван Петров", "Пилатес", "01.03.2025", "10:00");
+
+        String expected = String.format(
+                "Уважаеми/а %s,\n\n" +
+                        "Вашата резервация беше успешно направена!\n\n" +
+                        "Детайли за резервацията:\n" +
+                        "• Вид тренировка: %s\n" +
+                        "• Треньор: %s\n" +
+                        "• Дата: %s\n" +
+                        "• Час: %s\n\n" +
+                        "Моля, бъдете навреме за тренировката си.\n\n" +
+                        "С най-добри пожелания,\n" +
+                        "Екипът на Fitness Booking System",
+                "Мария Иванова", "Пилатес", "Иван Петров", "01.03.2025", "10:00");
+        assertEquals("Потвърждение за резервация - Fitness Booking System", email.subject());
+        assertEquals(expected, email.text());
+    }
+
+    @Test
+    void render_ShouldEscapeParametersOnlyInTheHtmlPart() {
+        EmailTemplate template = engine.compile("booking-notification-trainer", PARAMETERS);
+
+        EmailTemplate.RenderedEmail email = template.render("<b>Tom & \"Jerry\"</b>", "Иван", "Йога", "01.03.2025", "10:00");
+
+        assertTrue(email.text().contains("• Клиент: <b>Tom & \"Jerry\"</b>"));
+        assertTrue(email.html().contains("&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;"));
+        assertFalse(email.html().contains("{{"));
+    }
+
+    @Test
+    void render_ShouldUseTheRequestedLocaleAndFallBackToTheDefault() {
+        // The English version exists only in the test resources
+        EmailTemplate template = engine.compile("cancellation-client", PARAMETERS);
+
+        assertTrue(template.render(Locale.ENGLISH, "Maria", "Ivan", "Yoga", "01.03.2025", "10:00")
+                .text().startsWith("Dear Maria,"));
+        assertTrue(template.render(Locale.GERMAN, "Мария", "Иван", "Йога", "01.03.2025", "10:00")
+                .text().startsWith("Уважаеми/а Мария,"));
+    }
+
+    @Test
+    void render_ShouldRejectWrongNumberOfValues() {
+        EmailTemplate template = engine.compile("cancellation-trainer", PARAMETERS);
+
+        assertThrows(IllegalArgumentException.class, () -> template.render("Мария", "Иван"));
+    }
+
+    @Test
+    void compile_ShouldSplitSourceIntoLiteralsAndParameterIndexes() {
+        EmailTemplate.Segments segments = EmailTemplate.compile("Hi {{ name }}, see you at {{time}}!", List.of("time", "name"));
+
+        assertArrayEquals(new String[]{"Hi ", ", see you at ", "!"}, segments.literals());
+        assertArrayEquals(new int[]{1, 0}, segments.parameters());
+    }
+
+    @Test
+    void compile_ShouldRejectUnknownAndUnclosedPlaceholders() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("Hi {{nmae}}", List.of("name")));
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("Hi {{name", List.of("name")));
+        assertThrows(IllegalStateException.class, () -> engine.compile("no-such-template", PARAMETERS));
+    }
+}
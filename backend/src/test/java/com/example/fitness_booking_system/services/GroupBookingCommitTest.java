@@ -0,0 +1,182 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.datasource.ReadYourWritesTracker;
+import com.example.fitness_booking_system.dto.BookingCreateDTO;
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.support.StatementCounter;
+import jakarta.persistence.EntityManager;
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares the commits and statements of a group booking with booking the same clients one by one.
+// The bookings really commit here, so the test cleans up after itself.
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BookingService.class, TimeSlotService.class, CalendarFeedService.class, TrainerFreeBusyIndex.class,
+        TrainerStatsService.class, JobLeaseService.class, StatementCounter.class})
+class GroupBookingCommitTest {
+
+    private static final int CLIENTS = 20;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @MockitoBean
+    private TrainerDigestService trainerDigestService;
+
+    @MockitoBean
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final List<Object> created = new ArrayList<>();
+    private TransactionTemplate transactionTemplate;
+    private TimeSlot groupSlot;
+    private TimeSlot singleSlot;
+    private List<Long> clientIds;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Trainer trainer = new Trainer();
+            trainer.setUser(persistUser("group-trainer@test.com", UserRole.TRAINER));
+            persist(trainer);
+
+            TrainingType trainingType = new TrainingType();
+            trainingType.setName("Кросфит");
+            trainingType.setDuration(60);
+            trainingType.setCategory(TrainingTypeCategory.GROUP);
+            trainingType.setMaxClients(CLIENTS);
+            persist(trainingType);
+
+            groupSlot = persistSlot(trainer, trainingType, LocalDateTime.now().plusDays(1));
+            singleSlot = persistSlot(trainer, trainingType, LocalDateTime.now().plusDays(2));
+
+            clientIds = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                Client client = new Client();
+                client.setUser(persistUser("group-client" + i + "@test.com", UserRole.CLIENT));
+                persist(client);
+                clientIds.add(client.getId());
+            }
+        });
+
+        ((JpaTransactionManager) transactionManager).addListener(new TransactionExecutionListener() {
+            @Override
+            public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+                commits.incrementAndGet();
+            }
+        });
+        statementCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((JpaTransactionManager) transactionManager).getTransactionExecutionListeners().clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Booking b WHERE b.timeSlot.id IN :ids")
+                    .setParameter("ids", List.of(groupSlot.getId(), singleSlot.getId()))
+                    .executeUpdate();
+            for (int i = created.size() - 1; i >= 0; i--) {
+                entityManager.remove(entityManager.merge(created.get(i)));
+            }
+        });
+    }
+
+    @Test
+    void createBookings_ShouldCommitTheWholeGroupAtOnce() {
+        List<BookingService.GroupBookingResult> results = bookingService.createBookings(groupSlot.getId(), clientIds);
+
+        assertTrue(results.stream().allMatch(result -> result.booking() != null));
+        assertEquals(1, commits.get());
+        // The booked count of the slot and the feed versions of all clients
+        assertEquals(2, statementCounter.executions(QueryType.UPDATE));
+        assertEquals(1, statementCounter.executions(QueryType.INSERT));
+        assertEquals(CLIENTS, statementCounter.batchedRows(QueryType.INSERT));
+
+        commits.set(0);
+        statementCounter.reset();
+        for (Long clientId : clientIds) {
+            BookingCreateDTO createDTO = new BookingCreateDTO();
+            createDTO.setTimeSlotId(singleSlot.getId());
+            bookingService.createBooking(clientId, createDTO);
+        }
+
+        assertEquals(CLIENTS, commits.get());
+        assertEquals(CLIENTS, statementCounter.executions(QueryType.INSERT));
+
+        for (TimeSlot timeSlot : List.of(groupSlot, singleSlot)) {
+            TimeSlot reloaded = timeSlotRepository.findById(timeSlot.getId()).orElseThrow();
+            assertEquals(CLIENTS, reloaded.getBookedCount());
+            assertEquals(TimeSlotStatus.BOOKED, reloaded.getStatus());
+        }
+    }
+
+    private TimeSlot persistSlot(Trainer trainer, TrainingType trainingType, LocalDateTime start) {
+        TimeSlot timeSlot = new TimeSlot();
+        timeSlot.setTrainer(trainer);
+        timeSlot.setTrainingType(trainingType);
+        timeSlot.setStartTime(start);
+        timeSlot.setEndTime(start.plusHours(1));
+        timeSlot.setCapacity(CLIENTS);
+        timeSlot.setStatus(TimeSlotStatus.AVAILABLE);
+        persist(timeSlot);
+        return timeSlot;
+    }
+
+    private User persistUser(String email, UserRole role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setFullName(email);
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        persist(user);
+        return user;
+    }
+
+    private void persist(Object entity) {
+        entityManager.persist(entity);
+        created.add(entity);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.ImportErrorDTO;
+import com.example.fitness_booking_system.dto.ImportReportDTO;
+import com.example.fitness_booking_system.entities.Booking;
+import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.TimeSlotStatus;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import com.example.fitness_booking_system.entities.User;
+import com.example.fitness_booking_system.repositories.BookingRepository;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.UserRepository;
+import com.example.fitness_booking_system.support.StatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({GymImportService.class, TrainerService.class, TrainerSearchIndex.class, TrainerFreeBusyIndex.class,
+        TrainerStatsService.class, JobLeaseService.class, CalendarFeedService.class, StatementCounter.class,
+        GymImportServiceTest.ImportTestConfig.class})
+class GymImportServiceTest {
+
+    @TestConfiguration
+    static class ImportTestConfig {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+    }
+
+    @Autowired
+    private GymImportService gymImportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(gymImportService, "chunkSize", 1000);
+
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Пилатес");
+        trainingType.setDuration(60);
+        trainingType.setCategory(TrainingTypeCategory.GROUP);
+        trainingType.setMaxClients(2);
+        entityManager.persist(trainingType);
+        entityManager.flush();
+    }
+
+    @Test
+    void importJsonLines_ShouldImportMembersScheduleAndBookingsAcrossChunks() throws Exception {
+        ReflectionTestUtils.setField(gymImportService, "chunkSize", 2);
+        String file = String.join("\n",
+                "{\"type\":\"TRAINER\",\"email\":\"trainer@gym.bg\",\"password\":\"secret1\",\"fullName\":\"Иван Петров\"," +
+                        "\"specializations\":[\"Пилатес\"],\"trainingTypes\":[\"пилатес\"],\"groupPrice\":20}",
+                "{\"type\":\"CLIENT\",\"email\":\"maria@gym.bg\",\"password\":\"secret2\",\"fullName\":\"Мария Иванова\"," +
+                        "\"dateOfBirth\":\"1990-05-01\"}",
+                "{\"type\":\"CLIENT\",\"email\":\"georgi@gym.bg\",\"passwordHash\":\"$2a$04$abcdefghijklmnopqrstuv\"," +
+                        "\"fullName\":\"Георги Георгиев\"}",
+                "",
+                "{\"type\":\"TIME_SLOT\",\"ref\":\"s1\",\"trainerEmail\":\"trainer@gym.bg\",\"trainingType\":\"Пилатес\"," +
+                        "\"startTime\":\"2024-03-01T10:00:00\",\"endTime\":\"2024-03-01T11:00:00\"}",
+                "{\"type\":\"BOOKING\",\"clientEmail\":\"maria@gym.bg\",\"slotRef\":\"s1\",\"bookingStatus\":\"COMPLETED\"}",
+                "{\"type\":\"BOOKING\",\"clientEmail\":\"georgi@gym.bg\",\"slotRef\":\"s1\"}");
+
+        ImportReportDTO report = gymImportService.importJsonLines(new StringReader(file));
+        entityManager.clear();
+
+        assertEquals(7, report.getLinesRead());
+        assertEquals(1, report.getTrainersImported());
+        assertEquals(2, report.getClientsImported());
+        assertEquals(1, report.getTimeSlotsImported());
+        assertEquals(2, report.getBookingsImported());
+        assertEquals(0, report.getFailedLines());
+
+        User client = userRepository.findByEmail("maria@gym.bg").orElseThrow();
+        assertTrue(passwordEncoder.matches("secret2", client.getPassword()));
+        assertEquals("$2a$04$abcdefghijklmnopqrstuv", userRepository.findByEmail("georgi@gym.bg").orElseThrow().getPassword());
+
+        TimeSlot timeSlot = timeSlotRepository.findAll().get(0);
+        assertEquals(2, timeSlot.getCapacity());
+        assertEquals(2, timeSlot.getBookedCount());
+        assertEquals(TimeSlotStatus.BOOKED, timeSlot.getStatus());
+
+        List<Booking> bookings = bookingRepository.findAll();
+        assertEquals(2, bookings.size());
+        assertTrue(bookings.stream().allMatch(booking -> booking.getSlotStartTime().equals(timeSlot.getStartTime())));
+    }
+
+    @Test
+    void importJsonLines_ShouldReportInvalidLinesAndImportTheRest() throws Exception {
+        String file = String.join("\n",
+                "{\"type\":\"CLIENT\",\"email\":\"maria@gym.bg\",\"password\":\"secret2\",\"fullName\":\"Мария Иванова\"}",
+                "{not json",
+                "{\"type\":\"CLIENT\",\"email\":\"maria@gym.bg\",\"password\":\"secret3\",\"fullName\":\"Друга Мария\"}",
+                "{\"type\":\"TIME_SLOT\",\"ref\":\"s1\",\"trainerEmail\":\"nobody@gym.bg\",\"trainingType\":\"Пилатес\"," +
+                        "\"startTime\":\"2024-03-01T10:00:00\",\"endTime\":\"2024-03-01T11:00:00\"}",
+                "{\"type\":\"BOOKING\",\"clientEmail\":\"maria@gym.bg\",\"slotRef\":\"s1\"}",
+                "{\"type\":\"CLIENT\",\"email\":\"short@gym.bg\",\"password\":\"123\",\"fullName\":\"Къса Парола\"}");
+
+        ImportReportDTO report = gymImportService.importJsonLines(new StringReader(file));
+
+        assertEquals(1, report.getClientsImported());
+        assertEquals(5, report.getFailedLines());
+        assertEquals(List.of(2, 3, 4, 5, 6), report.getErrors().stream()
+                .map(ImportErrorDTO::getLine)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertTrue(userRepository.existsByEmail("maria@gym.bg"));
+        assertFalse(userRepository.existsByEmail("short@gym.bg"));
+    }
+
+    @Test
+    void importJsonLines_ShouldRejectOverlappingTimeSlots() throws Exception {
+        String trainer = "{\"type\":\"TRAINER\",\"email\":\"trainer@gym.bg\",\"password\":\"secret1\"," +
+                "\"fullName\":\"Иван Петров\",\"trainingTypes\":[\"Пилатес\"],\"groupPrice\":20}";
+        String slot = "{\"type\":\"TIME_SLOT\",\"ref\":\"%s\",\"trainerEmail\":\"trainer@gym.bg\"," +
+                "\"trainingType\":\"Пилатес\",\"startTime\":\"%s\",\"endTime\":\"%s\"%s}";
+        gymImportService.importJsonLines(new StringReader(trainer + "\n" +
+                slot.formatted("s1", "2024-03-01T10:00:00", "2024-03-01T11:00:00", "")));
+
+        ReflectionTestUtils.setField(gymImportService, "chunkSize", 3);
+        String file = String.join("\n",
+                // Overlaps s1 from the earlier import
+                slot.formatted("s2", "2024-03-01T10:30:00", "2024-03-01T11:30:00", ""),
+                slot.formatted("s3", "2024-03-01T11:00:00", "2024-03-01T12:00:00", ""),
+                // Overlaps s3 from the same chunk
+                slot.formatted("s4", "2024-03-01T11:45:00", "2024-03-01T12:15:00", ""),
+                // A cancelled slot does not block and is not blocked
+                slot.formatted("s5", "2024-03-01T11:15:00", "2024-03-01T11:45:00", ",\"slotStatus\":\"CANCELLED\""),
+                // Overlaps s3 from the previous chunk
+                slot.formatted("s6", "2024-03-01T11:30:00", "2024-03-01T13:00:00", ""),
+                slot.formatted("s7", "2024-03-01T12:00:00", "2024-03-01T13:00:00", ""));
+
+        ImportReportDTO report = gymImportService.importJsonLines(new StringReader(file));
+
+        assertEquals(3, report.getTimeSlotsImported());
+        assertEquals(List.of(1, 3, 5), report.getErrors().stream()
+                .map(ImportErrorDTO::getLine)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertTrue(report.getErrors().stream().allMatch(error ->
+                error.getMessage().equals("Има припокриващ се слот за този треньор в избрания период")));
+        assertEquals(4, timeSlotRepository.count());
+    }
+
+    @Test
+    void importJsonLines_ShouldInsertMembersInBatches() throws Exception {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            file.append("{\"type\":\"CLIENT\",\"email\":\"client").append(i)
+                    .append("@gym.bg\",\"passwordHash\":\"$2a$04$hash\",\"fullName\":\"Клиент Номер ").append(i)
+                    .append("\"}\n");
+        }
+        statementCounter.reset();
+
+        ImportReportDTO report = gymImportService.importJsonLines(new StringReader(file.toString()));
+        entityManager.flush();
+
+        assertEquals(100, report.getClientsImported());
+        // 100 users and 100 clients with batch_size=50 -> four INSERT executions
+        assertEquals(4, statementCounter.executions(QueryType.INSERT));
+        assertEquals(200, statementCounter.batchedRows(QueryType.INSERT));
+    }
+}
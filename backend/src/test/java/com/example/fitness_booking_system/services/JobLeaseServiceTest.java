@@ -0,0 +1,74 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.repositories.JobLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JobLeaseServiceTest {
+
+    private static final Duration PERIOD = Duration.ofMinutes(90);
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2030-01-07T10:50:00Z"));
+
+    private JobLeaseService first;
+    private JobLeaseService second;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        doAnswer(invocation -> now.get().toEpochMilli()).when(clock).millis();
+        doAnswer(invocation -> ZoneOffset.UTC).when(clock).getZone();
+        first = new JobLeaseService(jobLeaseRepository, transactionTemplate, clock);
+        second = new JobLeaseService(jobLeaseRepository, transactionTemplate, clock);
+    }
+
+    @Test
+    void shouldKeepLeaseOnTheInstanceThatRenewsIt() {
+        assertTrue(first.tryAcquire("reconcile", PERIOD));
+        assertFalse(second.tryAcquire("reconcile", PERIOD));
+
+        now.set(now.get().plus(Duration.ofHours(1)));
+        assertTrue(first.tryAcquire("reconcile", PERIOD));
+        assertFalse(second.tryAcquire("reconcile", PERIOD));
+    }
+
+    @Test
+    void shouldHandOverLeaseWhenItExpires() {
+        assertTrue(first.tryAcquire("reconcile", PERIOD));
+
+        now.set(now.get().plus(PERIOD));
+        assertTrue(second.tryAcquire("reconcile", PERIOD));
+        assertFalse(first.tryAcquire("reconcile", PERIOD));
+    }
+
+    @Test
+    void shouldKeepLeasesOfDifferentJobsApart() {
+        assertTrue(first.tryAcquire("reconcile", PERIOD));
+        assertTrue(second.tryAcquire("cleanup", PERIOD));
+    }
+}
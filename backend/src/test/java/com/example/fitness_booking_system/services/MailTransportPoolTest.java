@@ -0,0 +1,185 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.support.FakeSmtpServer;
+import com.example.fitness_booking_system.tracing.TraceExporter;
+import com.example.fitness_booking_system.tracing.Tracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTransportPoolTest {
+
+    private FakeSmtpServer server;
+    private MailTransportPool pool;
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pool != null) {
+            pool.stop();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void send_ShouldReuseOneConnectionForManyMessages() throws Exception {
+        server = new FakeSmtpServer(0, 0);
+        startPool(1, 100);
+
+        sendAndAwait(30);
+
+        assertEquals(1, server.getConnectionCount());
+        assertEquals(30.0, meterRegistry.counter("mail.sent").count());
+    }
+
+    @Test
+    void send_ShouldReopenConnectionAfterMessageLimit() throws Exception {
+        server = new FakeSmtpServer(0, 0);
+        startPool(1, 10);
+
+        sendAndAwait(25);
+
+        assertEquals(3, server.getConnectionCount());
+    }
+
+    @Test
+    void send_WhenServerDropsConnection_ShouldReconnectAndDeliverEveryMessage() throws Exception {
+        server = new FakeSmtpServer(0, 4);
+        startPool(1, 100);
+
+        sendAndAwait(10);
+
+        assertTrue(server.getConnectionCount() >= 3);
+        assertEquals(0.0, meterRegistry.counter("mail.failed").count());
+    }
+
+    @Test
+    void send_ShouldSpreadMessagesOverOneConnectionPerWorker() throws Exception {
+        server = new FakeSmtpServer(20, 0);
+        // One message per batch, so that every worker takes a share of the 40 messages
+        startPool(4, 100, 1);
+
+        sendAndAwait(40);
+
+        assertEquals(4, server.getConnectionCount());
+        assertEquals(4, server.getMaxOpenSessions());
+        assertEquals(40, server.getMessageCount());
+    }
+
+    @Test
+    void send_WithOneWorker_ShouldUseOneSessionAtATime() throws Exception {
+        server = new FakeSmtpServer(20, 0);
+        startPool(1, 100, 1);
+
+        sendAndAwait(10);
+
+        assertEquals(1, server.getConnectionCount());
+        assertEquals(1, server.getMaxOpenSessions());
+    }
+
+    @Test
+    void retryDelay_ShouldGrowExponentiallyWithJitterUpToTheMaximum() {
+        pool = new MailTransportPool(new JavaMailSenderImpl(), new SimpleMeterRegistry(), tracer());
+        ReflectionTestUtils.setField(pool, "retryBackoffMs", 100L);
+        ReflectionTestUtils.setField(pool, "retryBackoffMaxMs", 1000L);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, pool.retryDelayMs(1));
+            assertBetween(100, 200, pool.retryDelayMs(2));
+            assertBetween(200, 400, pool.retryDelayMs(3));
+            assertBetween(500, 1000, pool.retryDelayMs(5));
+            assertBetween(500, 1000, pool.retryDelayMs(40));
+        }
+        assertTrue(IntStream.range(0, 100).mapToLong(i -> pool.retryDelayMs(3)).distinct().count() > 1,
+                "retry delays should be jittered");
+        pool = null;
+    }
+
+    @Test
+    void send_WhenQueueIsFull_ShouldRejectMessage() throws Exception {
+        server = new FakeSmtpServer(0, 0);
+        pool = new MailTransportPool(mailSender(), meterRegistry = new SimpleMeterRegistry(), tracer());
+        configure(1, 100);
+        ReflectionTestUtils.setField(pool, "queueCapacity", 1);
+        ReflectionTestUtils.setField(pool, "poolSize", 0);
+        pool.start();
+
+        assertTrue(pool.send(message(0)));
+        assertFalse(pool.send(message(1)));
+        assertEquals(1.0, meterRegistry.counter("mail.rejected").count());
+    }
+
+    private void startPool(int size, int maxMessagesPerConnection) {
+        startPool(size, maxMessagesPerConnection, 5);
+    }
+
+    private void startPool(int size, int maxMessagesPerConnection, int batchSize) {
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new MailTransportPool(mailSender(), meterRegistry, tracer());
+        configure(size, maxMessagesPerConnection);
+        ReflectionTestUtils.setField(pool, "batchSize", batchSize);
+        pool.start();
+    }
+
+    private void configure(int size, int maxMessagesPerConnection) {
+        ReflectionTestUtils.setField(pool, "poolSize", size);
+        ReflectionTestUtils.setField(pool, "batchSize", 5);
+        ReflectionTestUtils.setField(pool, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", maxMessagesPerConnection);
+        ReflectionTestUtils.setField(pool, "idleTimeoutMs", 30000L);
+        ReflectionTestUtils.setField(pool, "maxAttempts", 3);
+        ReflectionTestUtils.setField(pool, "retryBackoffMs", 10L);
+        ReflectionTestUtils.setField(pool, "retryBackoffMaxMs", 50L);
+        ReflectionTestUtils.setField(pool, "shutdownTimeoutMs", 5000L);
+    }
+
+    private static Tracer tracer() {
+        return new Tracer(new TraceExporter());
+    }
+
+    private JavaMailSenderImpl mailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+        return mailSender;
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual >= min && actual <= max, actual + " is not between " + min + " and " + max);
+    }
+
+    /**
+     * Queues the messages and waits until the pool has sent all of them.
+     */
+    private void sendAndAwait(int count) throws Exception {
+        double sentBefore = meterRegistry.counter("mail.sent").count();
+        for (int i = 0; i < count; i++) {
+            assertTrue(pool.send(message(i)));
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.counter("mail.sent").count() < sentBefore + count) {
+            assertTrue(System.currentTimeMillis() < deadline, "messages were not sent in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private MimeMessage message(int number) throws Exception {
+        MimeMessage message = new MimeMessage(mailSender().getSession());
+        message.setFrom(new InternetAddress("noreply@fitness.bg"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("client" + number + "@test.com"));
+        message.setSubject("Съобщение " + number, "UTF-8");
+        message.setText("Здравейте!", "UTF-8");
+        return message;
+    }
+}
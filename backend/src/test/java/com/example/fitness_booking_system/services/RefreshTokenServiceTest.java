@@ -0,0 +1,100 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.entities.RefreshToken;
+import com.example.fitness_booking_system.repositories.RefreshTokenRepository;
+import com.example.fitness_booking_system.repositories.RevokedAccessTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private RevokedAccessTokenRepository revokedAccessTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 7, 7, 0);
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2030-01-07T07:00:00Z"), ZoneOffset.UTC);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, revokedAccessTokenRepository, clock);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenTtl", Duration.ofDays(14));
+    }
+
+    @Test
+    void issue_ShouldStoreOnlyTheHashOfTheToken() {
+        String token = refreshTokenService.issue(1L);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(RefreshTokenService.hash(token), saved.getValue().getTokenHash());
+        assertNotEquals(token, saved.getValue().getTokenHash());
+        assertEquals(now.plusDays(14), saved.getValue().getExpiresAt());
+        assertFalse(saved.getValue().isRevoked());
+    }
+
+    @Test
+    void rotate_ShouldIssueNewTokenInSameFamily() {
+        RefreshToken current = new RefreshToken(5L, 1L, RefreshTokenService.hash("old"), "family",
+                now.plusDays(1), false);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("old"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(5L)).thenReturn(1);
+
+        RefreshTokenService.IssuedToken issued = refreshTokenService.rotate("old");
+
+        assertEquals(1L, issued.userId());
+        assertNotEquals("old", issued.token());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals("family", saved.getValue().getFamilyId());
+        verify(refreshTokenRepository, never()).revokeFamily(any());
+    }
+
+    @Test
+    void rotate_WhenTokenWasAlreadyUsed_ShouldRevokeFamily() {
+        RefreshToken used = new RefreshToken(5L, 1L, RefreshTokenService.hash("old"), "family",
+                now.plusDays(1), true);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("old"))).thenReturn(Optional.of(used));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> refreshTokenService.rotate("old"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+        verify(refreshTokenRepository).revokeFamily("family");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_WhenTokenExpired_ShouldReject() {
+        RefreshToken expired = new RefreshToken(5L, 1L, RefreshTokenService.hash("old"), "family",
+                now.minusMinutes(1), false);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("old"))).thenReturn(Optional.of(expired));
+
+        assertThrows(ResponseStatusException.class, () -> refreshTokenService.rotate("old"));
+        verify(refreshTokenRepository, never()).markUsed(anyLong());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.fitness_booking_system.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimeSlotPartitionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TimeSlotPartitionService partitionService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2025-11-15T10:00:00Z"), ZoneOffset.UTC);
+        partitionService = new TimeSlotPartitionService(jdbcTemplate, clock);
+        ReflectionTestUtils.setField(partitionService, "enabled", true);
+        ReflectionTestUtils.setField(partitionService, "monthsAhead", 2);
+    }
+
+    @Test
+    void createPartitionSql_ShouldCoverWholeMonth() {
+        String sql = partitionService.createPartitionSql(YearMonth.of(2025, 12));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS time_slots_p2025_12 PARTITION OF time_slots " +
+                "FOR VALUES FROM ('2025-12-01') TO ('2026-01-01')", sql);
+    }
+
+    @Test
+    void ensurePartitions_WhenPartitioned_ShouldCreateCurrentAndUpcomingMonths() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+
+        int ensured = partitionService.ensurePartitions();
+
+        assertEquals(3, ensured);
+        verify(jdbcTemplate).execute(partitionService.createPartitionSql(YearMonth.of(2025, 11)));
+        verify(jdbcTemplate).execute(partitionService.createPartitionSql(YearMonth.of(2025, 12)));
+        verify(jdbcTemplate).execute(partitionService.createPartitionSql(YearMonth.of(2026, 1)));
+    }
+
+    @Test
+    void ensurePartitions_WhenTableIsNotPartitioned_ShouldDoNothing() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+        assertEquals(0, partitionService.ensurePartitions());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void ensurePartitions_WhenOneMonthFails_ShouldContinueWithTheRest() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+        lenient().doThrow(new DataIntegrityViolationException("default partition contains rows"))
+                .when(jdbcTemplate).execute(partitionService.createPartitionSql(YearMonth.of(2025, 12)));
+
+        assertEquals(2, partitionService.ensurePartitions());
+    }
+
+    @Test
+    void verifyPruning_ShouldReturnPartitionsFromPlan() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "Index Only Scan using time_slots_p2025_11_start_time_idx on time_slots_p2025_11 time_slots",
+                "  Index Cond: ((start_time >= '2025-11-01 00:00:00'::timestamp without time zone))"));
+
+        Set<String> partitions = partitionService.verifyPruning(YearMonth.of(2025, 11));
+
+        assertEquals(Set.of("time_slots_p2025_11"), partitions);
+    }
+}
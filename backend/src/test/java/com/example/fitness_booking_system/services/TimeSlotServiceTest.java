@@ -1,7 +1,11 @@
 package com.example.fitness_booking_system.services;
 
+import com.example.fitness_booking_system.dto.BookedClientInfoDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
 import com.example.fitness_booking_system.dto.TimeSlotCreateDTO;
 import com.example.fitness_booking_system.dto.TimeSlotDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterDTO;
+import com.example.fitness_booking_system.dto.TimeSlotRosterRowDTO;
 import com.example.fitness_booking_system.entities.*;
 import com.example.fitness_booking_system.repositories.BookingRepository;
 import com.example.fitness_booking_system.repositories.TimeSlotRepository;
@@ -13,16 +17,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +51,15 @@ public class TimeSlotServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private CalendarFeedService calendarFeedService;
+
+    @Mock
+    private TrainerFreeBusyIndex trainerFreeBusyIndex;
+
+    @Mock
+    private TrainerStatsService trainerStatsService;
+
     @InjectMocks
     private TimeSlotService timeSlotService;
 
@@ -80,16 +100,42 @@ public class TimeSlotServiceTest {
 
     @Test
     void shouldGetAllTimeSlots() {
-        when(timeSlotRepository.findAll()).thenReturn(Collections.singletonList(timeSlot));
+        TimeSlotDTO view = new TimeSlotDTO();
+        view.setId(timeSlot.getId());
+        when(timeSlotRepository.findAllSlotViews()).thenReturn(Collections.singletonList(view));
         List<TimeSlotDTO> result = timeSlotService.getAllTimeSlots();
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(timeSlot.getId(), result.get(0).getId());
     }
 
+    @Test
+    void shouldStreamTimeSlotsToConsumer() {
+        TimeSlotDTO first = new TimeSlotDTO();
+        first.setId(1L);
+        TimeSlotDTO second = new TimeSlotDTO();
+        second.setId(2L);
+        when(timeSlotRepository.streamSlotViewsByStartTimeBetween(startTime, endTime))
+                .thenReturn(Stream.of(first, second));
+
+        List<TimeSlotDTO> received = new ArrayList<>();
+        timeSlotService.streamTimeSlots(startTime, endTime, received::add);
+
+        assertEquals(List.of(first, second), received);
+    }
+
+    @Test
+    void shouldRejectEmptyOrInvertedExportRange() {
+        assertThrows(ResponseStatusException.class, () -> timeSlotService.validateExportRange(endTime, startTime));
+        assertThrows(ResponseStatusException.class, () -> timeSlotService.validateExportRange(startTime, startTime));
+        assertDoesNotThrow(() -> timeSlotService.validateExportRange(startTime, endTime));
+    }
+
     @Test
     void shouldGetTimeSlotByIdSuccessfully() {
-        when(timeSlotRepository.findById(1L)).thenReturn(Optional.of(timeSlot));
+        TimeSlotDTO view = new TimeSlotDTO();
+        view.setId(timeSlot.getId());
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.of(view));
         TimeSlotDTO result = timeSlotService.getTimeSlotById(1L);
         assertNotNull(result);
         assertEquals(timeSlot.getId(), result.getId());
@@ -97,7 +143,7 @@ public class TimeSlotServiceTest {
 
     @Test
     void shouldThrowNotFoundWhenGettingNonExistentTimeSlot() {
-        when(timeSlotRepository.findById(1L)).thenReturn(Optional.empty());
+        when(timeSlotRepository.findSlotViewById(1L)).thenReturn(Optional.empty());
         assertThrows(ResponseStatusException.class, () -> timeSlotService.getTimeSlotById(1L));
     }
 
@@ -120,6 +166,113 @@ public class TimeSlotServiceTest {
         assertNotNull(result);
         assertEquals(timeSlot.getId(), result.getId());
         verify(timeSlotRepository).save(any(TimeSlot.class));
+        verify(calendarFeedService).markTrainerChanged(1L);
+        verify(trainerFreeBusyIndex).markBusy(1L, startTime, endTime);
+    }
+
+    @Test
+    void shouldSkipOverlapQueryWhenRangeIsFreeInBitmap() {
+        ReflectionTestUtils.setField(timeSlotService, "skipOverlapQueryWhenFree", true);
+        TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+        createDTO.setTrainerId(1L);
+        createDTO.setTrainingTypeId(1L);
+        createDTO.setStartTime(startTime);
+        createDTO.setEndTime(endTime);
+
+        when(trainingTypeRepository.findById(1L)).thenReturn(Optional.of(trainingType));
+        when(trainerRepository.findById(1L)).thenReturn(Optional.of(trainer));
+        when(trainerFreeBusyIndex.isFree(1L, startTime, endTime)).thenReturn(true);
+        when(timeSlotRepository.save(any(TimeSlot.class))).thenReturn(timeSlot);
+
+        timeSlotService.createTimeSlot(createDTO);
+
+        verify(timeSlotRepository, never()).hasOverlappingTimeSlot(any(), any(), any());
+    }
+
+    @Test
+    void shouldConfirmOverlapInDatabaseWhenRangeIsBusyInBitmap() {
+        ReflectionTestUtils.setField(timeSlotService, "skipOverlapQueryWhenFree", true);
+        TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+        createDTO.setTrainerId(1L);
+        createDTO.setTrainingTypeId(1L);
+        createDTO.setStartTime(startTime);
+        createDTO.setEndTime(endTime);
+
+        when(trainingTypeRepository.findById(1L)).thenReturn(Optional.of(trainingType));
+        when(trainerRepository.findById(1L)).thenReturn(Optional.of(trainer));
+        when(trainerFreeBusyIndex.isFree(1L, startTime, endTime)).thenReturn(false);
+        when(timeSlotRepository.hasOverlappingTimeSlot(1L, startTime, endTime)).thenReturn(false);
+        when(timeSlotRepository.save(any(TimeSlot.class))).thenReturn(timeSlot);
+
+        assertNotNull(timeSlotService.createTimeSlot(createDTO));
+        verify(timeSlotRepository).hasOverlappingTimeSlot(1L, startTime, endTime);
+    }
+
+    @Test
+    void shouldThrowBadRequestWhenFreeBusyRangeIsTooLong() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.getTrainerFreeBusy(1L, from, from.plusDays(90)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(trainerFreeBusyIndex);
+    }
+
+    @Test
+    void shouldGroupRosterRowsByTimeSlot() {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        List<TimeSlotRosterRowDTO> rows = List.of(
+                rosterRow(5L, day.atTime(9, 0), 10L),
+                rosterRow(5L, day.atTime(9, 0), 11L),
+                rosterRow(6L, day.atTime(10, 0), null));
+        when(timeSlotRepository.findRosterRowsByTrainerIdAndStartTimeBetween(
+                1L, day.atStartOfDay(), day.atTime(LocalTime.MAX), BookingStatus.CONFIRMED)).thenReturn(rows);
+
+        when(trainerRepository.findIdByUserEmail("trainer@test.com")).thenReturn(Optional.of(1L));
+
+        List<TimeSlotRosterDTO> roster = timeSlotService.getTrainerRoster(1L, "trainer@test.com", day, day);
+
+        assertEquals(2, roster.size());
+        assertEquals(5L, roster.get(0).getTimeSlot().getId());
+        assertEquals(List.of(10L, 11L), roster.get(0).getClients().stream().map(BookedClientInfoDTO::getId).toList());
+        assertEquals(6L, roster.get(1).getTimeSlot().getId());
+        assertTrue(roster.get(1).getClients().isEmpty());
+    }
+
+    @Test
+    void shouldThrowForbiddenWhenRosterIsReadByAnotherTrainer() {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        when(trainerRepository.findIdByUserEmail("other@test.com")).thenReturn(Optional.of(2L));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.getTrainerRoster(1L, "other@test.com", day, day));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    @Test
+    void shouldThrowForbiddenWhenRosterIsReadByAClient() {
+        LocalDate day = LocalDate.of(2030, 1, 7);
+        when(trainerRepository.findIdByUserEmail("client@test.com")).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.getTrainerRoster(1L, "client@test.com", day, day));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verifyNoInteractions(timeSlotRepository);
+    }
+
+    @Test
+    void shouldThrowBadRequestWhenRosterRangeIsTooLong() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.getTrainerRoster(1L, "trainer@test.com", from, from.plusDays(60)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(timeSlotRepository);
     }
 
     @Test
@@ -130,6 +283,21 @@ public class TimeSlotServiceTest {
         assertThrows(ResponseStatusException.class, () -> timeSlotService.createTimeSlot(createDTO));
     }
 
+    @Test
+    void shouldThrowBadRequestWhenCreatingSlotLongerThanOneDay() {
+        TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+        createDTO.setTrainerId(1L);
+        createDTO.setTrainingTypeId(1L);
+        createDTO.setStartTime(startTime);
+        createDTO.setEndTime(startTime.plusDays(1).plusMinutes(1));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.createTimeSlot(createDTO));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(timeSlotRepository);
+    }
+
     @Test
     void shouldThrowBadRequestWhenCreatingSlotWithWrongDuration() {
         TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
@@ -157,4 +325,56 @@ public class TimeSlotServiceTest {
 
         assertThrows(ResponseStatusException.class, () -> timeSlotService.createTimeSlot(createDTO));
     }
+
+    @Test
+    void shouldThrowConflictWhenBatchContainsOverlappingTimeSlots() {
+        TimeSlotCreateDTO first = new TimeSlotCreateDTO();
+        first.setTrainerId(1L);
+        first.setTrainingTypeId(1L);
+        first.setStartTime(startTime);
+        first.setEndTime(endTime);
+
+        TimeSlotCreateDTO second = new TimeSlotCreateDTO();
+        second.setTrainerId(1L);
+        second.setTrainingTypeId(1L);
+        second.setStartTime(startTime.plusMinutes(30));
+        second.setEndTime(endTime.plusMinutes(30));
+
+        when(trainingTypeRepository.findById(1L)).thenReturn(Optional.of(trainingType));
+        when(trainerRepository.findById(1L)).thenReturn(Optional.of(trainer));
+
+        assertThrows(ResponseStatusException.class,
+                () -> timeSlotService.createTimeSlots(List.of(first, second)));
+        verify(timeSlotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldCheckBatchAgainstExistingTimeSlotsWithOneQueryPerTrainer() {
+        List<TimeSlotCreateDTO> createDTOs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TimeSlotCreateDTO createDTO = new TimeSlotCreateDTO();
+            createDTO.setTrainerId(1L);
+            createDTO.setTrainingTypeId(1L);
+            createDTO.setStartTime(startTime.plusDays(i));
+            createDTO.setEndTime(endTime.plusDays(i));
+            createDTOs.add(createDTO);
+        }
+
+        when(trainingTypeRepository.findById(1L)).thenReturn(Optional.of(trainingType));
+        when(trainerRepository.findById(1L)).thenReturn(Optional.of(trainer));
+        when(timeSlotRepository.findBusyTimeRanges(1L, startTime.minus(TimeSlotRepository.MAX_SLOT_DURATION),
+                startTime, endTime.plusDays(2)))
+                .thenReturn(List.of(new TimeRangeDTO(startTime.plusDays(1).plusMinutes(30), endTime.plusDays(1))));
+
+        assertThrows(ResponseStatusException.class, () -> timeSlotService.createTimeSlots(createDTOs));
+        verify(timeSlotRepository, times(1)).findBusyTimeRanges(any(), any(), any(), any());
+        verify(timeSlotRepository, never()).hasOverlappingTimeSlot(any(), any(), any());
+        verify(timeSlotRepository, never()).saveAll(any());
+    }
+
+    private TimeSlotRosterRowDTO rosterRow(Long timeSlotId, LocalDateTime start, Long clientId) {
+        return new TimeSlotRosterRowDTO(timeSlotId, 1L, "Test Trainer", 1L, "Йога", start, start.plusHours(1),
+                10, 2, TimeSlotStatus.AVAILABLE, 8, clientId, clientId, "Client " + clientId,
+                "client" + clientId + "@test.com", null, null, null, null);
+    }
 }
@@ -0,0 +1,191 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.entities.Client;
+import com.example.fitness_booking_system.entities.DigestWindow;
+import com.example.fitness_booking_system.entities.TimeSlot;
+import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingType;
+import com.example.fitness_booking_system.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainerDigestServiceTest {
+
+    @Mock
+    private EmailService emailService;
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private TrainerDigestService trainerDigestService;
+    private Trainer trainer;
+    private TimeSlot timeSlot;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-03-01T10:15:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        trainerDigestService = new TrainerDigestService(emailService, clock, meterRegistry);
+        trainerDigestService.registerMetrics();
+
+        User trainerUser = new User();
+        trainerUser.setEmail("trainer@test.com");
+        trainerUser.setFullName("Иван Петров");
+        trainer = new Trainer();
+        trainer.setId(1L);
+        trainer.setUser(trainerUser);
+        trainer.setNotificationDigest(DigestWindow.HOURLY);
+
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName("Пилатес");
+        timeSlot = new TimeSlot();
+        timeSlot.setId(1L);
+        timeSlot.setTrainer(trainer);
+        timeSlot.setTrainingType(trainingType);
+        timeSlot.setStartTime(LocalDateTime.of(2025, 3, 5, 18, 0));
+        timeSlot.setEndTime(LocalDateTime.of(2025, 3, 5, 19, 0));
+    }
+
+    @Test
+    void hourlyDigest_ShouldCoalesceAGroupClassIntoOneEmail() {
+        for (long i = 1; i <= 30; i++) {
+            trainerDigestService.recordBooking(timeSlot, client(i, "Клиент " + i));
+        }
+        trainerDigestService.recordCancellation(timeSlot, client(30L, "Клиент 30"));
+        trainerDigestService.recordCancellation(timeSlot, client(99L, "Стар Клиент"));
+
+        assertEquals(0, trainerDigestService.sendDueDigests());
+        verifyNoInteractions(emailService);
+
+        clock.set(Instant.parse("2025-03-01T11:00:00Z"));
+        assertEquals(1, trainerDigestService.sendDueDigests());
+
+        ArgumentCaptor<String> summary = ArgumentCaptor.forClass(String.class);
+        verify(emailService).sendTrainerDigest(eq("trainer@test.com"), eq("Иван Петров"), eq(30), summary.capture());
+        assertTrue(summary.getValue().startsWith("Пилатес, 05.03.2025, 18:00 - 19:00"));
+        assertTrue(summary.getValue().contains("Нови резервации (29): Клиент 1, Клиент 2"));
+        assertTrue(summary.getValue().contains("Отменени резервации (1): Стар Клиент"));
+        assertFalse(summary.getValue().contains("Клиент 30"));
+        assertEquals(0, trainerDigestService.getPendingDigests());
+        assertEquals(32, meterRegistry.counter("notifications.trainer.events").count());
+        assertEquals(1, meterRegistry.counter("notifications.trainer.emails").count());
+    }
+
+    @Test
+    void digest_ShouldNotBeSentWhenEveryBookingWasCancelledAgain() {
+        trainerDigestService.recordBooking(timeSlot, client(1L, "Мария Иванова"));
+        trainerDigestService.recordCancellation(timeSlot, client(1L, "Мария Иванова"));
+
+        clock.set(Instant.parse("2025-03-01T11:00:00Z"));
+
+        assertEquals(0, trainerDigestService.sendDueDigests());
+        verifyNoInteractions(emailService);
+        assertEquals(0, trainerDigestService.getPendingDigests());
+    }
+
+    @Test
+    void dailyDigest_ShouldBeSentAtTheConfiguredHour() {
+        trainer.setNotificationDigest(DigestWindow.DAILY);
+        trainerDigestService.recordBooking(timeSlot, client(1L, "Мария Иванова"));
+
+        clock.set(Instant.parse("2025-03-02T06:59:00Z"));
+        assertEquals(0, trainerDigestService.sendDueDigests());
+
+        clock.set(Instant.parse("2025-03-02T07:00:00Z"));
+        assertEquals(1, trainerDigestService.sendDueDigests());
+        verify(emailService).sendTrainerDigest(eq("trainer@test.com"), eq("Иван Петров"), eq(1), anyString());
+    }
+
+    @Test
+    void defaultWindow_ShouldSendOneEmailPerEventAsBefore() {
+        trainer.setNotificationDigest(null);
+
+        trainerDigestService.recordBooking(timeSlot, client(1L, "Мария Иванова"));
+        trainerDigestService.recordCancellation(timeSlot, client(1L, "Мария Иванова"));
+
+        verify(emailService).sendBookingNotificationToTrainer("trainer@test.com", "Иван Петров", "Мария Иванова",
+                "Пилатес", "05.03.2025", "18:00 - 19:00");
+        verify(emailService).sendCancellationNotificationToTrainer("trainer@test.com", "Иван Петров", "Мария Иванова",
+                "Пилатес", "05.03.2025", "18:00 - 19:00");
+        assertEquals(0, trainerDigestService.getPendingDigests());
+    }
+
+    @Test
+    void recordBooking_ShouldBufferTheEventOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            trainerDigestService.recordBooking(timeSlot, client(1L, "Мария Иванова"));
+            assertEquals(0, trainerDigestService.getPendingDigests());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, trainerDigestService.getPendingDigests());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendOnShutdown_ShouldSendTheOpenDigests() {
+        trainerDigestService.recordBooking(timeSlot, client(1L, "Мария Иванова"));
+
+        trainerDigestService.sendOnShutdown();
+
+        verify(emailService).sendTrainerDigest(eq("trainer@test.com"), eq("Иван Петров"), eq(1), anyString());
+    }
+
+    private static Client client(Long id, String fullName) {
+        User user = new User();
+        user.setFullName(fullName);
+        Client client = new Client();
+        client.setId(id);
+        client.setUser(user);
+        return client;
+    }
+
+    /**
+     * A clock in UTC whose time is set by the test.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
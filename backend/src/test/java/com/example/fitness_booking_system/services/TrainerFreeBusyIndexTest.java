@@ -0,0 +1,144 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.FreeBusyDTO;
+import com.example.fitness_booking_system.dto.TimeRangeDTO;
+import com.example.fitness_booking_system.repositories.TimeSlotRepository;
+import com.example.fitness_booking_system.repositories.TrainerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainerFreeBusyIndexTest {
+
+    @Mock
+    private TimeSlotRepository timeSlotRepository;
+
+    @Mock
+    private TrainerRepository trainerRepository;
+
+    private TrainerFreeBusyIndex freeBusyIndex;
+
+    private final LocalDate day = LocalDate.of(2025, 11, 20);
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2025-11-15T10:00:00Z"), ZoneOffset.UTC);
+        freeBusyIndex = new TrainerFreeBusyIndex(timeSlotRepository, trainerRepository, clock);
+        lenient().when(timeSlotRepository.findBusyTimeRanges(eq(1L), any(), any(), any())).thenReturn(List.of(
+                new TimeRangeDTO(day.atTime(10, 0), day.atTime(11, 0)),
+                new TimeRangeDTO(day.atTime(23, 30), day.plusDays(1).atTime(0, 30))));
+    }
+
+    @Test
+    void isFree_ShouldReflectLoadedSlots() {
+        assertFalse(freeBusyIndex.isFree(1L, day.atTime(10, 30), day.atTime(11, 30)));
+        assertTrue(freeBusyIndex.isFree(1L, day.atTime(11, 0), day.atTime(12, 0)));
+        assertTrue(freeBusyIndex.isFree(1L, day.atTime(9, 0), day.atTime(10, 0)));
+        assertFalse(freeBusyIndex.isFree(1L, day.plusDays(1).atTime(0, 0), day.plusDays(1).atTime(1, 0)));
+
+        // The calendar is loaded once and then answered from memory
+        verify(timeSlotRepository, times(1)).findBusyTimeRanges(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void isFree_ShouldTreatPartlyCoveredCellsAsBusy() {
+        assertTrue(freeBusyIndex.isFree(1L, day.atTime(14, 0), day.atTime(15, 30)));
+        freeBusyIndex.markBusy(1L, day.atTime(14, 0), day.atTime(14, 57));
+
+        assertFalse(freeBusyIndex.isFree(1L, day.atTime(14, 58), day.atTime(15, 30)));
+        assertTrue(freeBusyIndex.isFree(1L, day.atTime(15, 0), day.atTime(15, 30)));
+    }
+
+    @Test
+    void isFree_WhenSlotCommitsDuringLoad_ShouldLoadAgain() {
+        LocalDateTime start = day.atTime(14, 0);
+        // The slot commits after the first load query has read the busy ranges, and before the calendar is cached
+        when(timeSlotRepository.findBusyTimeRanges(eq(2L), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    freeBusyIndex.markBusy(2L, start, start.plusHours(1));
+                    return List.of();
+                })
+                .thenReturn(List.of(new TimeRangeDTO(start, start.plusHours(1))));
+        when(trainerRepository.existsById(2L)).thenReturn(true);
+
+        assertFalse(freeBusyIndex.isFree(2L, start, start.plusHours(1)));
+        assertFalse(freeBusyIndex.isFree(2L, start, start.plusHours(1)));
+
+        verify(timeSlotRepository, times(2)).findBusyTimeRanges(eq(2L), any(), any(), any());
+    }
+
+    @Test
+    void getFreeBusy_WhenTrainerDoesNotExist_ShouldThrowNotFoundAndNotCache() {
+        when(trainerRepository.existsById(99L)).thenReturn(false);
+
+        for (int i = 0; i < 2; i++) {
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> freeBusyIndex.getFreeBusy(99L, day, day));
+            assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        }
+        verify(trainerRepository, times(2)).existsById(99L);
+    }
+
+    @Test
+    void isFree_ShouldBeUnknownBeforeLoadedRange() {
+        assertFalse(freeBusyIndex.isFree(1L, LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 1, 11, 0)));
+    }
+
+    @Test
+    void markBusyAndMarkFree_ShouldUpdateLoadedCalendar() {
+        LocalDateTime start = day.atTime(14, 0);
+        assertTrue(freeBusyIndex.isFree(1L, start, start.plusHours(1)));
+
+        freeBusyIndex.markBusy(1L, start, start.plusHours(1));
+        assertFalse(freeBusyIndex.isFree(1L, start.plusMinutes(55), start.plusHours(2)));
+
+        freeBusyIndex.markFree(1L, start, start.plusHours(1));
+        assertTrue(freeBusyIndex.isFree(1L, start, start.plusHours(1)));
+        assertFalse(freeBusyIndex.isFree(1L, day.atTime(10, 0), day.atTime(11, 0)));
+    }
+
+    @Test
+    void getFreeBusy_ShouldReturnMergedRuns() {
+        FreeBusyDTO freeBusy = freeBusyIndex.getFreeBusy(1L, day, day.plusDays(1));
+
+        assertEquals(List.of(
+                new TimeRangeDTO(day.atTime(10, 0), day.atTime(11, 0)),
+                new TimeRangeDTO(day.atTime(23, 30), day.plusDays(1).atTime(0, 30))), freeBusy.getBusy());
+        assertEquals(3, freeBusy.getFree().size());
+        assertEquals(new TimeRangeDTO(day.atStartOfDay(), day.atTime(10, 0)), freeBusy.getFree().get(0));
+        assertEquals(day.plusDays(2).atStartOfDay(), freeBusy.getFree().get(2).getEndTime());
+    }
+
+    @Test
+    void setRange_ShouldHandleRangesAcrossWordBoundaries() {
+        long[] words = new long[TrainerFreeBusyIndex.WORDS_PER_DAY];
+
+        TrainerFreeBusyIndex.setRange(words, 60, 130, true);
+
+        assertTrue(TrainerFreeBusyIndex.isClear(words, 0, 60));
+        assertFalse(TrainerFreeBusyIndex.isClear(words, 63, 65));
+        assertFalse(TrainerFreeBusyIndex.isClear(words, 129, 130));
+        assertTrue(TrainerFreeBusyIndex.isClear(words, 130, TrainerFreeBusyIndex.CELLS_PER_DAY));
+        assertEquals(70, Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2]));
+
+        TrainerFreeBusyIndex.setRange(words, 64, 128, false);
+        assertEquals(6, Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2]));
+    }
+}
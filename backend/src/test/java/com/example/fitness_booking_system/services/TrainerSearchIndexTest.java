@@ -0,0 +1,95 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TrainerDTO;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainerSearchIndexTest {
+
+    private TrainerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrainerSearchIndex();
+        index.put(trainer(1L, Set.of("Йога", "Пилатес"), 60.0, 20.0), Set.of(10L));
+        index.put(trainer(2L, Set.of("йога"), 40.0, null), Set.of(10L, 11L));
+        index.put(trainer(3L, Set.of("Кардио"), 50.0, 25.0), Set.of(11L));
+        index.put(trainer(4L, Set.of("Йога", "Кардио"), null, 15.0), Set.of());
+    }
+
+    @Test
+    void shouldReturnAllTrainersOrderedByPriceWhenNoFilterIsGiven() {
+        List<TrainerDTO> result = index.search(null, null, TrainingTypeCategory.PERSONAL, null, null);
+
+        assertEquals(List.of(2L, 3L, 1L, 4L), ids(result));
+    }
+
+    @Test
+    void shouldMatchSpecializationsIgnoringCase() {
+        List<TrainerDTO> result = index.search(List.of(" ЙОГА "), null, TrainingTypeCategory.PERSONAL, null, null);
+
+        assertEquals(List.of(2L, 1L, 4L), ids(result));
+    }
+
+    @Test
+    void shouldIntersectAllFilters() {
+        List<TrainerDTO> result = index.search(List.of("Йога"), 10L, TrainingTypeCategory.PERSONAL, 45.0, 60.0);
+
+        assertEquals(List.of(1L), ids(result));
+    }
+
+    @Test
+    void shouldFilterByInclusiveGroupPriceRange() {
+        List<TrainerDTO> result = index.search(null, null, TrainingTypeCategory.GROUP, 15.0, 20.0);
+
+        assertEquals(List.of(4L, 1L), ids(result));
+    }
+
+    @Test
+    void shouldReturnNothingForUnknownSpecialization() {
+        assertTrue(index.search(List.of("Бокс"), null, TrainingTypeCategory.PERSONAL, null, null).isEmpty());
+    }
+
+    @Test
+    void shouldReplacePreviousPostingsWhenTrainerIsUpdated() {
+        index.put(trainer(1L, Set.of("Бокс"), 30.0, 20.0), Set.of(11L));
+
+        assertEquals(List.of(2L, 4L), ids(index.search(List.of("Йога"), null, TrainingTypeCategory.PERSONAL, null, null)));
+        assertEquals(List.of(1L), ids(index.search(List.of("Бокс"), 11L, TrainingTypeCategory.PERSONAL, null, 35.0)));
+        assertEquals(List.of(2L), ids(index.search(null, 10L, TrainingTypeCategory.PERSONAL, null, null)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldIndexAndReplaceTrainersInOneBatch() {
+        index.putAll(List.of(
+                new TrainerSearchIndex.Entry(trainer(5L, Set.of("Йога"), 35.0, null), Set.of(10L)),
+                new TrainerSearchIndex.Entry(trainer(2L, Set.of("Бокс"), 70.0, null), Set.of(11L)),
+                new TrainerSearchIndex.Entry(trainer(6L, Set.of("Бокс"), 45.0, 10.0), null)));
+
+        assertEquals(List.of(5L, 6L, 3L, 1L, 2L, 4L), ids(index.search(null, null, TrainingTypeCategory.PERSONAL, null, null)));
+        assertEquals(List.of(5L, 1L, 4L), ids(index.search(List.of("Йога"), null, TrainingTypeCategory.PERSONAL, null, null)));
+        assertEquals(List.of(6L, 4L), ids(index.search(null, null, TrainingTypeCategory.GROUP, null, 15.0)));
+        assertEquals(6, index.size());
+    }
+
+    private static TrainerDTO trainer(Long id, Set<String> specializations, Double personalPrice, Double groupPrice) {
+        return TrainerDTO.builder()
+                .id(id)
+                .fullName("Треньор " + id)
+                .specializations(specializations)
+                .personalPrice(personalPrice)
+                .groupPrice(groupPrice)
+                .build();
+    }
+
+    private static List<Long> ids(List<TrainerDTO> trainers) {
+        return trainers.stream().map(TrainerDTO::getId).toList();
+    }
+}
@@ -3,6 +3,7 @@ package com.example.fitness_booking_system.services;
 import com.example.fitness_booking_system.dto.ProfileUpdateDTO;
 import com.example.fitness_booking_system.dto.TrainerDTO;
 import com.example.fitness_booking_system.entities.Trainer;
+import com.example.fitness_booking_system.entities.TrainingTypeCategory;
 import com.example.fitness_booking_system.entities.User;
 import com.example.fitness_booking_system.repositories.TrainerRepository;
 import com.example.fitness_booking_system.repositories.UserRepository;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
@@ -22,7 +24,9 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +38,12 @@ class TrainerServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TrainerSearchIndex trainerSearchIndex;
+
+    @Mock
+    private CalendarFeedService calendarFeedService;
+
     @InjectMocks
     private TrainerService trainerService;
 
@@ -59,7 +69,7 @@ class TrainerServiceTest {
 
     @Test
     void shouldGetAllTrainers() {
-        when(trainerRepository.findAll()).thenReturn(Collections.singletonList(trainer));
+        when(trainerRepository.findAllWithProfiles()).thenReturn(Collections.singletonList(trainer));
         List<TrainerDTO> result = trainerService.getAllTrainers();
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
@@ -108,6 +118,30 @@ class TrainerServiceTest {
 
         verify(userRepository).save(user);
         verify(trainerRepository).save(trainer);
+        verify(trainerSearchIndex).putAll(List.of(new TrainerSearchIndex.Entry(result, Set.of())));
+        verify(calendarFeedService).markTrainerRenamed(1L);
+    }
+
+    @Test
+    void shouldSearchTrainersInIndex() {
+        TrainerDTO trainerDTO = TrainerDTO.builder().id(1L).personalPrice(50.0).build();
+        when(trainerSearchIndex.search(List.of("Кардио"), null, TrainingTypeCategory.PERSONAL, 40.0, 60.0))
+                .thenReturn(List.of(trainerDTO));
+
+        List<TrainerDTO> result = trainerService.searchTrainers(
+                List.of("Кардио"), null, TrainingTypeCategory.PERSONAL, 40.0, 60.0);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(trainerRepository);
+    }
+
+    @Test
+    void shouldThrowBadRequestWhenMinPriceIsAboveMaxPrice() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> trainerService.searchTrainers(null, null, TrainingTypeCategory.GROUP, 50.0, 20.0));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(trainerSearchIndex);
     }
 
     @Test
@@ -127,6 +161,7 @@ class TrainerServiceTest {
         assertEquals("Актуализирано био.", result.getBio()); // Променено
         assertEquals(55.0, result.getPersonalPrice()); // Променено
         assertEquals(25.0, result.getGroupPrice()); // Не е променено
+        verifyNoInteractions(calendarFeedService);
     }
 
     @Test
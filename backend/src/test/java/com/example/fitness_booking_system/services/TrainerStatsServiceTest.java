@@ -0,0 +1,188 @@
+package com.example.fitness_booking_system.services;
+
+import com.example.fitness_booking_system.dto.TrainerStatsDTO;
+import com.example.fitness_booking_system.dto.TrainerStatsTotalsDTO;
+import com.example.fitness_booking_system.entities.TrainerDailyStats;
+import com.example.fitness_booking_system.repositories.TrainerDailyStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TrainerStatsServiceTest {
+
+    @Mock
+    private TrainerDailyStatsRepository trainerDailyStatsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JobLeaseService jobLeaseService;
+
+    private TrainerStatsService trainerStatsService;
+
+    private final LocalDate day = LocalDate.of(2030, 1, 7);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(jobLeaseService.tryAcquire(eq("trainer-stats-reconcile"), any())).thenReturn(true);
+        trainerStatsService = new TrainerStatsService(trainerDailyStatsRepository,
+                new TransactionTemplate(transactionManager),
+                Clock.fixed(day.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()),
+                jobLeaseService);
+        ReflectionTestUtils.setField(trainerStatsService, "reconcileDaysBack", 7);
+        ReflectionTestUtils.setField(trainerStatsService, "reconcileDaysAhead", 30);
+        ReflectionTestUtils.setField(trainerStatsService, "reconcileLease", Duration.ofMinutes(90));
+    }
+
+    @Test
+    void getTrainerStats_ShouldOverlayPendingDeltasOnRollupRows() {
+        when(trainerDailyStatsRepository.findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(
+                1L, day, day.plusDays(1)))
+                .thenReturn(List.of(new TrainerDailyStats(5L, 1L, 3L, day, 2, 20, 10, 1)));
+
+        trainerStatsService.recordBookingCreated(1L, 3L, day);
+        trainerStatsService.recordSlotCreated(1L, 4L, day.plusDays(1), 1);
+        trainerStatsService.recordBookingCreated(2L, 3L, day);
+
+        TrainerStatsDTO stats = trainerStatsService.getTrainerStats(1L, day, day.plusDays(1));
+
+        assertEquals(2, stats.getDays().size());
+        assertEquals(11, stats.getDays().get(0).getSeatsBooked());
+        assertEquals(3, stats.getSlotsOffered());
+        assertEquals(21, stats.getSeatsOffered());
+        assertEquals(11, stats.getSeatsBooked());
+        assertEquals(11.0 / 21, stats.getFillRate(), 1e-9);
+    }
+
+    @Test
+    void flush_ShouldIncrementExistingRowsAndInsertNewOnes() {
+        when(trainerDailyStatsRepository.increment(1L, 3L, day, 0, 0, 0, 2)).thenReturn(1);
+        when(trainerDailyStatsRepository.increment(1L, 4L, day, 1, 8, 0, 0)).thenReturn(0);
+
+        trainerStatsService.recordBookingCreated(1L, 3L, day);
+        trainerStatsService.recordBookingCancelled(1L, 3L, day);
+        trainerStatsService.recordBookingCreated(1L, 3L, day);
+        trainerStatsService.recordBookingCancelled(1L, 3L, day);
+        trainerStatsService.recordSlotCreated(1L, 4L, day, 8);
+
+        assertEquals(2, trainerStatsService.flush());
+        verify(trainerDailyStatsRepository).saveAndFlush(new TrainerDailyStats(null, 1L, 4L, day, 1, 8, 0, 0));
+        assertEquals(0, trainerStatsService.flush());
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepDeltasForRetry() {
+        when(trainerDailyStatsRepository.increment(1L, 3L, day, 1, 10, 0, 0))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(1);
+
+        trainerStatsService.recordSlotCreated(1L, 3L, day, 10);
+
+        assertEquals(0, trainerStatsService.flush());
+        assertEquals(1, trainerStatsService.flush());
+        verify(trainerDailyStatsRepository, times(2)).increment(1L, 3L, day, 1, 10, 0, 0);
+    }
+
+    @Test
+    void flush_ShouldLetReadersSeeDeltasInFlightWhileStatementsRun() {
+        trainerStatsService.recordBookingCreated(1L, 3L, day);
+        when(trainerDailyStatsRepository.increment(1L, 3L, day, 0, 0, 1, 0)).thenAnswer(invocation -> {
+            // A reader on another thread is not blocked by the running flush and still counts the delta once
+            TrainerStatsDTO stats = CompletableFuture
+                    .supplyAsync(() -> trainerStatsService.getTrainerStats(1L, day, day))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(1, stats.getSeatsBooked());
+            return 1;
+        });
+
+        assertEquals(1, trainerStatsService.flush());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void getTrainerStats_ShouldRejectReversedRange() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> trainerStatsService.getTrainerStats(1L, day, day.minusDays(1)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+    }
+
+    @Test
+    void reconcile_ShouldCorrectOnlyDifferencesFoundByTwoRunsInARow() {
+        LocalDateTime start = day.minusDays(7).atStartOfDay();
+        LocalDateTime end = day.plusDays(31).atStartOfDay();
+        when(trainerDailyStatsRepository.sumTimeSlots(start, end)).thenReturn(List.of(
+                new TrainerStatsTotalsDTO(1L, 3L, day, 2, 20, 0, 0)));
+        when(trainerDailyStatsRepository.sumBookings(start, end)).thenReturn(
+                List.of(new TrainerStatsTotalsDTO(1L, 3L, day, 0, 0, 11, 1)),
+                List.of(new TrainerStatsTotalsDTO(1L, 3L, day, 0, 0, 12, 1)),
+                List.of(new TrainerStatsTotalsDTO(1L, 3L, day, 0, 0, 12, 1)));
+        when(trainerDailyStatsRepository.findByStatDateBetween(day.minusDays(7), day.plusDays(30)))
+                .thenReturn(List.of(new TrainerDailyStats(5L, 1L, 3L, day, 2, 20, 10, 1)));
+        when(trainerDailyStatsRepository.findByTrainerIdAndStatDateBetweenOrderByStatDateAscTrainingTypeIdAsc(
+                1L, day, day))
+                .thenReturn(List.of(new TrainerDailyStats(5L, 1L, 3L, day, 2, 20, 10, 1)));
+
+        // A booking that is still on its way (or a lost delta) shows up once, then the difference changes
+        assertEquals(0, trainerStatsService.reconcile());
+        assertEquals(0, trainerStatsService.reconcile());
+        assertEquals(10, trainerStatsService.getTrainerStats(1L, day, day).getSeatsBooked());
+
+        // The same difference twice in a row is a lost delta: the row is overwritten with the counted values
+        when(trainerDailyStatsRepository.replace(1L, 3L, day, 2, 20, 10, 1, 2, 20, 12, 1)).thenReturn(1);
+        assertEquals(1, trainerStatsService.reconcile());
+        verify(trainerDailyStatsRepository).replace(1L, 3L, day, 2, 20, 10, 1, 2, 20, 12, 1);
+        verify(trainerDailyStatsRepository, never()).increment(any(), any(), any(),
+                anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcile_ShouldNotCountCorrectionWhenRowChangedSinceComparison() {
+        LocalDateTime start = day.minusDays(7).atStartOfDay();
+        LocalDateTime end = day.plusDays(31).atStartOfDay();
+        when(trainerDailyStatsRepository.sumTimeSlots(start, end)).thenReturn(List.of(
+                new TrainerStatsTotalsDTO(1L, 3L, day, 2, 20, 0, 0)));
+        when(trainerDailyStatsRepository.findByStatDateBetween(day.minusDays(7), day.plusDays(30)))
+                .thenReturn(List.of(new TrainerDailyStats(5L, 1L, 3L, day, 1, 10, 0, 0)));
+        when(trainerDailyStatsRepository.replace(1L, 3L, day, 1, 10, 0, 0, 2, 20, 0, 0)).thenReturn(0);
+
+        assertEquals(0, trainerStatsService.reconcile());
+        assertEquals(0, trainerStatsService.reconcile());
+        verify(trainerDailyStatsRepository).replace(1L, 3L, day, 1, 10, 0, 0, 2, 20, 0, 0);
+    }
+
+    @Test
+    void reconcile_WithoutLease_ShouldNotCompareOrWrite() {
+        when(jobLeaseService.tryAcquire(eq("trainer-stats-reconcile"), any())).thenReturn(false);
+
+        assertEquals(0, trainerStatsService.reconcile());
+        verifyNoInteractions(trainerDailyStatsRepository);
+    }
+}
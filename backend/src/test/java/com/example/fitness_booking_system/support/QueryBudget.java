@@ -0,0 +1,22 @@
+package com.example.fitness_booking_system.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the maximum number of SQL statements each endpoint call measured by a test may send.
+ * Checked by {@link QueryBudgetExtension} after the test; when the test is parameterized with dataset sizes,
+ * each call is also checked not to send more statements than it did with the first (smallest) dataset,
+ * so that a query repeated per row fails the test even within the budget.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /**
+     * @return the maximum number of statements per call
+     */
+    int value();
+}
@@ -0,0 +1,65 @@
+package com.example.fitness_booking_system.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks the calls measured with {@link StatementCounter} against the {@link QueryBudget} of the test method.
+ * The statement counts of the first invocation of a parameterized test are kept, and the later invocations
+ * (with larger datasets) may not send more statements for the same call.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        statementCounter(context).reset();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        List<StatementCounter.Measurement> measurements = statementCounter(context).measurements();
+        if (measurements.isEmpty()) {
+            fail("@QueryBudget test " + context.getDisplayName() + " measured no calls");
+        }
+        // Shared by the invocations of a parameterized test
+        ExtensionContext.Store store = context.getParent().orElseThrow().getStore(NAMESPACE);
+        List<Integer> firstCounts = (List<Integer>) store.get(context.getRequiredTestMethod(), List.class);
+
+        List<Integer> counts = new ArrayList<>();
+        for (int i = 0; i < measurements.size(); i++) {
+            StatementCounter.Measurement measurement = measurements.get(i);
+            int count = measurement.statements().size();
+            counts.add(count);
+            if (count > budget.value()) {
+                fail(String.format("%s sent %d SQL statements, budget %d (%s):%n%s", measurement.description(), count,
+                        budget.value(), context.getDisplayName(), String.join("\n", measurement.statements())));
+            }
+            if (firstCounts != null && i < firstCounts.size() && count > firstCounts.get(i)) {
+                fail(String.format("%s sent %d SQL statements with %s but %d with the first dataset:%n%s",
+                        measurement.description(), count, context.getDisplayName(), firstCounts.get(i),
+                        String.join("\n", measurement.statements())));
+            }
+        }
+        if (firstCounts == null) {
+            store.put(context.getRequiredTestMethod(), counts);
+        }
+    }
+
+    private static StatementCounter statementCounter(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(StatementCounter.class);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.fitness_booking_system.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Integration test of the endpoints against real JPA on the embedded H2 database, with the SQL statements of
+ * each call counted by {@link StatementCounter} and checked against the {@link QueryBudget} of the test method.
+ * The test data is created with {@link TestData}, which also empties the database after each test.
+ * All query budget tests share one application context.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@Import({StatementCounter.class, TestData.class})
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudgetTest {
+}
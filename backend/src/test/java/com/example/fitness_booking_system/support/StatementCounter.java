@@ -0,0 +1,148 @@
+package com.example.fitness_booking_system.support;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import com.example.fitness_booking_system.datasource.DataSourceProxyConfig;
+
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test helper that counts the JDBC statements sent to the database.
+ * It is a listener of the application's DataSource proxy (imported with it from {@link DataSourceProxyConfig}),
+ * so the DataSource is wrapped only once, however many observers there are.
+ * A batch of N inserts counts as one execution with N batched rows.
+ * Register it with {@code @Import(StatementCounter.class)} and autowire it into the test.
+ * <p>
+ * The integration tests of {@link QueryBudgetTest} also record the statements of single endpoint calls with
+ * {@link #measure}. Statements of the scheduler threads are not recorded there, as the scheduled jobs run
+ * independently of the call, and neither are the ID sequence calls, as the pooled ID generator fetches a block
+ * of IDs at a time and whether a call needs a new block depends on the earlier tests.
+ */
+@Import(DataSourceProxyConfig.class)
+public class StatementCounter implements QueryExecutionListener {
+
+    private final Map<QueryType, AtomicInteger> executions = new ConcurrentHashMap<>();
+    private final Map<QueryType, AtomicInteger> batchedRows = new ConcurrentHashMap<>();
+    private final AtomicInteger batchExecutions = new AtomicInteger();
+    private final List<Measurement> measurements = Collections.synchronizedList(new ArrayList<>());
+    private volatile List<String> current;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryType type = QueryUtils.getQueryType(queryInfoList.get(0).getQuery());
+        executions.computeIfAbsent(type, key -> new AtomicInteger()).incrementAndGet();
+
+        if (execInfo.isBatch()) {
+            batchExecutions.incrementAndGet();
+            batchedRows.computeIfAbsent(type, key -> new AtomicInteger()).addAndGet(execInfo.getBatchSize());
+        }
+
+        List<String> statements = current;
+        String query = queryInfoList.get(0).getQuery();
+        if (statements != null && !Thread.currentThread().getName().startsWith("scheduling")
+                && !query.startsWith("select next value for")) {
+            statements.add(query);
+        }
+    }
+
+    /**
+     * Forgets everything counted and measured so far.
+     */
+    public void reset() {
+        executions.clear();
+        batchedRows.clear();
+        batchExecutions.set(0);
+        measurements.clear();
+    }
+
+    /**
+     * Runs a call and records the statements it sent.
+     *
+     * @param description what is called, e.g. "GET /api/time-slots", used in the failure messages
+     * @param call        the call, usually a MockMvc request with its expectations
+     * @return the number of statements sent
+     * @throws Exception if the call fails
+     */
+    public int measure(String description, Call call) throws Exception {
+        List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        current = statements;
+        try {
+            call.run();
+        } finally {
+            current = null;
+        }
+        measurements.add(new Measurement(description, List.copyOf(statements)));
+        return statements.size();
+    }
+
+    /**
+     * @return the calls measured since the last {@link #reset()}, in order
+     */
+    public List<Measurement> measurements() {
+        return List.copyOf(measurements);
+    }
+
+    /**
+     * @return the number of statements executed against the database, counting each batch once
+     */
+    public int total() {
+        return executions.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    /**
+     * @param type the statement type, e.g. INSERT
+     * @return the number of executions of that type, counting each batch once
+     */
+    public int executions(QueryType type) {
+        AtomicInteger count = executions.get(type);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @param type the statement type, e.g. INSERT
+     * @return the number of rows sent inside JDBC batches for that type
+     */
+    public int batchedRows(QueryType type) {
+        AtomicInteger count = batchedRows.get(type);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return the number of JDBC batch executions
+     */
+    public int batchExecutions() {
+        return batchExecutions.get();
+    }
+
+    /**
+     * A measured endpoint call.
+     *
+     * @param description what was called
+     * @param statements  the statements it sent, in order
+     */
+    public record Measurement(String description, List<String> statements) {
+    }
+
+    /**
+     * A call that may throw, such as a MockMvc request.
+     */
+    @FunctionalInterface
+    public interface Call {
+        void run() throws Exception;
+    }
+}
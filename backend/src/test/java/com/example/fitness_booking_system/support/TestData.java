@@ -0,0 +1,232 @@
+package com.example.fitness_booking_system.support;
+
+import com.example.fitness_booking_system.entities.*;
+import com.example.fitness_booking_system.security.JwtUtil;
+import com.example.fitness_booking_system.services.CalendarFeedService;
+import com.example.fitness_booking_system.services.TrainerStatsService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Test helper creating committed test data for the integration tests of a full application context,
+ * and emptying the database again with {@link #clear()}, as the embedded database is shared by the test contexts.
+ * Every user gets the password {@link #PASSWORD}.
+ */
+public class TestData {
+
+    /**
+     * Password of the created users.
+     */
+    public static final String PASSWORD = "password123";
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private String passwordHash;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TrainerStatsService trainerStatsService;
+
+    @Autowired
+    private CalendarFeedService calendarFeedService;
+
+    /**
+     * Creates a training type.
+     */
+    public TrainingType trainingType(String name, TrainingTypeCategory category) {
+        TrainingType trainingType = new TrainingType();
+        trainingType.setName(name + " " + sequence.incrementAndGet());
+        trainingType.setDescription("Описание");
+        trainingType.setDuration(60);
+        trainingType.setCategory(category);
+        trainingType.setMaxClients(category == TrainingTypeCategory.GROUP ? 20 : 1);
+        return persist(() -> trainingType);
+    }
+
+    /**
+     * Creates a trainer with a few specializations, conducting the given training types.
+     */
+    public Trainer trainer(TrainingType... trainingTypes) {
+        Trainer created = persist(() -> {
+            Trainer trainer = new Trainer();
+            trainer.setUser(user("Треньор", UserRole.TRAINER));
+            trainer.setBio("Био");
+            trainer.setSpecializations(new HashSet<>(Set.of("йога", "пилатес", "стречинг")));
+            trainer.setPersonalPrice(40.0);
+            trainer.setGroupPrice(15.0);
+            return trainer;
+        });
+        // Linked directly, as adding to the sets changes the hash codes of the entities in them
+        for (TrainingType trainingType : trainingTypes) {
+            jdbcTemplate.update("INSERT INTO trainer_training_types (trainer_id, training_type_id) VALUES (?, ?)",
+                    created.getId(), trainingType.getId());
+        }
+        return created;
+    }
+
+    /**
+     * Creates the given number of trainers.
+     */
+    public List<Trainer> trainers(int count, TrainingType... trainingTypes) {
+        List<Trainer> trainers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            trainers.add(trainer(trainingTypes));
+        }
+        return trainers;
+    }
+
+    /**
+     * Creates a client.
+     */
+    public Client client() {
+        return persist(() -> {
+            Client client = new Client();
+            client.setUser(user("Клиент", UserRole.CLIENT));
+            client.setDateOfBirth(LocalDate.of(1990, 5, 17));
+            client.setFitnessGoals("Здраве");
+            return client;
+        });
+    }
+
+    /**
+     * Creates the given number of clients.
+     */
+    public List<Client> clients(int count) {
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            clients.add(client());
+        }
+        return clients;
+    }
+
+    /**
+     * Creates consecutive one-hour time slots of a trainer, the first one starting at the given time.
+     */
+    public List<TimeSlot> timeSlots(Trainer trainer, TrainingType trainingType, LocalDateTime start, int count) {
+        List<TimeSlot> timeSlots = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                TimeSlot timeSlot = new TimeSlot();
+                timeSlot.setTrainer(entityManager.getReference(Trainer.class, trainer.getId()));
+                timeSlot.setTrainingType(entityManager.getReference(TrainingType.class, trainingType.getId()));
+                timeSlot.setStartTime(start.plusHours(i));
+                timeSlot.setEndTime(start.plusHours(i + 1));
+                timeSlot.setCapacity(trainingType.getMaxClients());
+                entityManager.persist(timeSlot);
+                timeSlots.add(timeSlot);
+            }
+        });
+        return timeSlots;
+    }
+
+    /**
+     * Books a time slot for each of the clients.
+     */
+    public List<Booking> bookings(TimeSlot timeSlot, List<Client> clients) {
+        List<Booking> bookings = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            TimeSlot managed = entityManager.find(TimeSlot.class, timeSlot.getId());
+            for (Client client : clients) {
+                Booking booking = new Booking();
+                booking.setClient(entityManager.getReference(Client.class, client.getId()));
+                booking.setTimeSlot(managed);
+                booking.setTrainer(managed.getTrainer());
+                booking.setSlotStartTime(managed.getStartTime());
+                entityManager.persist(booking);
+                bookings.add(booking);
+            }
+            managed.setBookedCount(managed.getBookedCount() + clients.size());
+        });
+        return bookings;
+    }
+
+    /**
+     * Books each of the time slots for a client.
+     */
+    public List<Booking> bookings(Client client, List<TimeSlot> timeSlots) {
+        List<Booking> bookings = new ArrayList<>();
+        for (TimeSlot timeSlot : timeSlots) {
+            bookings.addAll(bookings(timeSlot, List.of(client)));
+        }
+        return bookings;
+    }
+
+    /**
+     * Returns an access token of a user.
+     */
+    public String token(User user) {
+        return "Bearer " + jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+    }
+
+    /**
+     * Issues a calendar feed token for a user.
+     */
+    public String calendarToken(User user) {
+        return calendarFeedService.rotateToken(user.getEmail());
+    }
+
+    /**
+     * Deletes all rows of all tables, after writing the pending trainer stats that could refer to them.
+     */
+    public void clear() {
+        trainerStatsService.flush();
+        List<String> tables = jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables "
+                + "WHERE table_schema = 'public' AND table_type = 'BASE TABLE'", String.class);
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        try {
+            tables.forEach(table -> jdbcTemplate.execute("TRUNCATE TABLE " + table));
+        } finally {
+            jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+        }
+    }
+
+    private User user(String fullName, UserRole role) {
+        if (passwordHash == null) {
+            passwordHash = passwordEncoder.encode(PASSWORD);
+        }
+        int number = sequence.incrementAndGet();
+        User user = new User();
+        user.setEmail(role.name().toLowerCase() + number + "@test.com");
+        user.setPassword(passwordHash);
+        user.setFullName(fullName + " " + number);
+        user.setRole(role);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private <T> T persist(Supplier<T> entity) {
+        return transactionTemplate.execute(status -> {
+            T created = entity.get();
+            entityManager.persist(created);
+            return created;
+        });
+    }
+}
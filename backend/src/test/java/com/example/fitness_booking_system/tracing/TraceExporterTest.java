@@ -0,0 +1,126 @@
+package com.example.fitness_booking_system.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceExporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TraceExporter traceExporter;
+    private HttpServer collector;
+
+    @BeforeEach
+    void setUp() {
+        traceExporter = new TraceExporter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        traceExporter.stop();
+        if (collector != null) {
+            collector.stop(0);
+        }
+    }
+
+    @Test
+    void toOtlpJson_ShouldWriteEverySpanWithItsParent() throws IOException {
+        Trace trace = trace();
+
+        JsonNode request = objectMapper.readTree(traceExporter.toOtlpJson(List.of(trace)));
+
+        JsonNode resource = request.get("resourceSpans").get(0);
+        assertEquals("fitness-booking-system",
+                resource.get("resource").get("attributes").get(0).get("value").get("stringValue").asText());
+        JsonNode spans = resource.get("scopeSpans").get(0).get("spans");
+        assertEquals(3, spans.size());
+        assertEquals(32, spans.get(0).get("traceId").asText().length());
+        assertEquals(2, spans.get(0).get("kind").asInt());
+        assertNull(spans.get(0).get("parentSpanId"));
+        assertEquals(spans.get(0).get("spanId"), spans.get(1).get("parentSpanId"));
+        assertEquals(spans.get(1).get("spanId"), spans.get(2).get("parentSpanId"));
+        assertEquals("200", spans.get(0).get("attributes").get(0).get("value").get("intValue").asText());
+        assertEquals("BookingRepository.findByClientId",
+                spans.get(2).get("attributes").get(1).get("value").get("stringValue").asText());
+        assertTrue(spans.get(2).get("endTimeUnixNano").asLong() > spans.get(2).get("startTimeUnixNano").asLong());
+    }
+
+    @Test
+    void export_ToFile_ShouldAppendOneRequestPerBatch(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("traces.jsonl");
+        ReflectionTestUtils.setField(traceExporter, "export", "file");
+        ReflectionTestUtils.setField(traceExporter, "exportFile", file.toString());
+        traceExporter.start();
+
+        Trace trace = trace();
+        traceExporter.export(trace, false);
+        traceExporter.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertEquals(trace.getTraceId(), objectMapper.readTree(lines.get(0)).get("resourceSpans").get(0)
+                .get("scopeSpans").get(0).get("spans").get(0).get("traceId").asText());
+    }
+
+    @Test
+    void export_ToCollector_ShouldPostTheTraces() throws Exception {
+        BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(10);
+        collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/v1/traces", exchange -> {
+            received.add(exchange.getRequestBody().readAllBytes());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+        ReflectionTestUtils.setField(traceExporter, "export", "otlp");
+        ReflectionTestUtils.setField(traceExporter, "otlpEndpoint",
+                "http://localhost:" + collector.getAddress().getPort() + "/v1/traces");
+        ReflectionTestUtils.setField(traceExporter, "exportSampleRate", 0.0);
+        traceExporter.start();
+
+        // Sampled out unless slow
+        traceExporter.export(trace(), false);
+        Trace slow = trace();
+        traceExporter.export(slow, true);
+
+        byte[] body = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(body);
+        JsonNode spans = objectMapper.readTree(body).get("resourceSpans").get(0).get("scopeSpans").get(0).get("spans");
+        assertEquals(3, spans.size());
+        assertEquals(slow.getTraceId(), spans.get(0).get("traceId").asText());
+        assertNull(received.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Builds a finished trace of a request with a service and a repository span.
+     */
+    private Trace trace() {
+        Tracer tracer = new Tracer(new TraceExporter());
+        Span request = tracer.startSpan("GET /api/bookings/client/{clientId}/bookings", SpanKind.SERVER);
+        request.setAttribute("http.status_code", 200);
+        try (Span service = tracer.startSpan("BookingService.getClientBookings", SpanKind.INTERNAL);
+             Span repository = tracer.startSpan("BookingRepository.findByClientId", SpanKind.INTERNAL)) {
+            repository.setAttribute("code.arguments", 1);
+            repository.setAttribute(Tracer.REPOSITORY_ATTRIBUTE, "BookingRepository.findByClientId");
+        }
+        Trace trace = request.getTrace();
+        request.end();
+        return trace;
+    }
+}
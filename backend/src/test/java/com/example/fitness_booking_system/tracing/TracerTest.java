@@ -0,0 +1,139 @@
+package com.example.fitness_booking_system.tracing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TracerTest {
+
+    @Mock
+    private TraceExporter traceExporter;
+
+    private Tracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        tracer = new Tracer(traceExporter);
+        ReflectionTestUtils.setField(tracer, "slowThresholdMs", 0L);
+    }
+
+    @Test
+    void spans_ShouldFormATreeWithTheSqlStatementsUnderTheirRepositoryMethod() {
+        try (Span request = tracer.startSpan("GET /api/bookings/{id}", SpanKind.SERVER)) {
+            try (Span service = tracer.startSpan("BookingService.getBooking", SpanKind.INTERNAL)) {
+                try (Span repository = tracer.startSpan("BookingRepository.findById", SpanKind.INTERNAL)) {
+                    repository.setAttribute(Tracer.REPOSITORY_ATTRIBUTE, "BookingRepository.findById");
+                    tracer.recordSql("select b1_0.id from bookings b1_0 where b1_0.id=?", 0, 3, true);
+                }
+                tracer.recordSql("update time_slots set booked_count=? where id=?", 0, 1, true);
+                assertSame(service, tracer.currentSpan());
+            }
+            request.setAttribute("http.status_code", 200);
+        }
+
+        assertFalse(tracer.isActive());
+        ArgumentCaptor<Trace> captor = ArgumentCaptor.forClass(Trace.class);
+        verify(traceExporter).export(captor.capture(), eq(true));
+        Trace trace = captor.getValue();
+        assertEquals(2, trace.getSqlStatements());
+        assertEquals(5, trace.getSpans());
+
+        Span service = trace.getRoot().getChildren().get(0);
+        Span select = service.getChildren().get(0).getChildren().get(0);
+        Span update = service.getChildren().get(1);
+        assertEquals("SQL SELECT", select.getName());
+        assertEquals("BookingRepository.findById", select.getAttributes().get(Tracer.REPOSITORY_ATTRIBUTE));
+        assertEquals(3_000_000, select.getDurationNanos());
+        assertFalse(update.getAttributes().containsKey(Tracer.REPOSITORY_ATTRIBUTE));
+
+        String[] lines = Tracer.format(trace).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].startsWith("GET /api/bookings/{id} "));
+        assertTrue(lines[0].endsWith("http.status_code=200"));
+        assertTrue(lines[2].startsWith("    BookingRepository.findById "));
+        assertTrue(lines[3].startsWith("      SQL SELECT 3.0 ms db.statement=select b1_0.id"));
+        assertTrue(lines[4].startsWith("    SQL UPDATE "));
+    }
+
+    @Test
+    void spans_BeyondTheLimit_ShouldBeCountedButNotRecorded() {
+        ReflectionTestUtils.setField(tracer, "maxSpans", 2);
+
+        try (Span request = tracer.startSpan("GET /api/time-slots", SpanKind.SERVER)) {
+            for (int i = 0; i < 10; i++) {
+                try (Span repository = tracer.startSpan("TrainerRepository.findById", SpanKind.INTERNAL)) {
+                    tracer.recordSql("select t1_0.id from trainers t1_0 where t1_0.id=?", 0, 0, true);
+                }
+            }
+        }
+
+        ArgumentCaptor<Trace> captor = ArgumentCaptor.forClass(Trace.class);
+        verify(traceExporter).export(captor.capture(), anyBoolean());
+        assertEquals(10, captor.getValue().getSqlStatements());
+        assertEquals(2, captor.getValue().getSpans());
+        assertTrue(Tracer.format(captor.getValue()).endsWith("... 19 more spans not recorded"));
+    }
+
+    @Test
+    void rootSpan_ShouldClearSpansLeftOpen() {
+        Span request = tracer.startSpan("GET /api/trainers", SpanKind.SERVER);
+        tracer.startSpan("TrainerService.getAllTrainers", SpanKind.INTERNAL);
+
+        request.end();
+
+        assertFalse(tracer.isActive());
+        assertSame(Span.NOOP, tracer.startChildSpan("TrainerRepository.findAll", SpanKind.INTERNAL));
+    }
+
+    @Test
+    void disabledTracer_ShouldRecordNothing() {
+        ReflectionTestUtils.setField(tracer, "enabled", false);
+
+        try (Span request = tracer.startSpan("GET /api/trainers", SpanKind.SERVER)) {
+            assertSame(Span.NOOP, request);
+            tracer.recordSql("select 1", 0, 1, true);
+        }
+
+        verifyNoInteractions(traceExporter);
+    }
+
+    @Test
+    void aspect_ShouldRecordServiceMethodsAndTheirErrors() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TracingAspect(tracer));
+        SampleService service = factory.getProxy();
+
+        assertEquals("ok", service.work());
+        assertThrows(IllegalStateException.class, service::fail);
+
+        ArgumentCaptor<Trace> captor = ArgumentCaptor.forClass(Trace.class);
+        verify(traceExporter, times(2)).export(captor.capture(), any(Boolean.class));
+        assertEquals("SampleService.work", captor.getAllValues().get(0).getRoot().getName());
+        assertTrue(Tracer.format(captor.getAllValues().get(1)).contains("error=IllegalStateException: Грешка"));
+    }
+
+    @Service
+    static class SampleService {
+        public String work() {
+            return "ok";
+        }
+
+        public String fail() {
+            throw new IllegalStateException("Грешка");
+        }
+    }
+}